@@ -0,0 +1,45 @@
+import benchmarks.Operation;
+import benchmarks.Workload;
+
+/**
+ * Benchmark workload for the memory a client takes up. The allocation profiler's gc.alloc.rate.norm for the
+ * newClient operation is the number of bytes a client with the given number of holdings costs, including its
+ * name strings.
+ *
+ * <ul>
+ *     <li>newClient: creates a client and buys tickets for the given number of events</li>
+ * </ul>
+ *
+ * @author Andrew Brown
+ */
+public class ClientWorkload implements Workload {
+    private final Event[] events = new Event[Client.MAX_EVENTS];
+    private final int holdings;
+    private int next;
+
+    /**
+     * Constructor taking the number of events each new client holds tickets for.
+     *
+     * @param holdings int number of holdings, from 0 to Client.MAX_EVENTS
+     */
+    public ClientWorkload(int holdings) {
+        this.holdings = holdings;
+        EventCatalog catalog = new EventCatalog();
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new Event("Event " + i, 100);
+            catalog.add(events[i]);
+        }
+    }
+
+    @Override
+    public Operation operation(String name) {
+        if (!name.equals("newClient")) throw new IllegalArgumentException("No operation " + name);
+        return () -> {
+            Client client = new Client("First", "Last" + (next++ & 1023));
+            for (int i = 0; i < holdings; i++) {
+                client.addTickets(events[i], 2);
+            }
+            return client;
+        };
+    }
+}
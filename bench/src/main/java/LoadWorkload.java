@@ -0,0 +1,74 @@
+import benchmarks.Operation;
+import benchmarks.Workload;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Benchmark workload for loading the championship at startup, as WorldSportsChampionship's setup does, from a roster
+ * with the given number of clients and twenty events. A snapshot of the same roster, with one ticket sold to every
+ * client, is written too.
+ *
+ * <ul>
+ *     <li>rosterLoad: loads the roster in the input.txt format with {@link RosterLoader}</li>
+ *     <li>snapshotLoad: loads the snapshot with {@link SnapshotStore}</li>
+ * </ul>
+ *
+ * @author Andrew Brown
+ */
+public class LoadWorkload implements Workload {
+    private static final int EVENTS = 20;
+
+    private final Path roster;
+    private final Path snapshot;
+
+    /**
+     * Constructor which writes the roster and snapshot files.
+     *
+     * @param size int number of clients
+     */
+    public LoadWorkload(int size) throws Exception {
+        roster = Files.createTempFile("roster", ".txt");
+        try (BufferedWriter out = Files.newBufferedWriter(roster)) {
+            out.write(EVENTS + "\n");
+            for (int i = 0; i < EVENTS; i++) {
+                out.write("Event " + i + "\n" + Integer.MAX_VALUE / 2 + "\n");
+            }
+            out.write(size + "\n");
+            for (int i = 0; i < size; i++) {
+                out.write("First" + i + " Last" + i + "\n");
+            }
+        }
+
+        EventCatalog events = new EventCatalog();
+        ClientRegistry clients = new ClientRegistry();
+        RosterLoader.load(roster, events, clients);
+        try (BoxOffice boxOffice = new BoxOffice(events, clients, roster + ".letters")) {
+            int n = 0;
+            for (Client client : clients) {
+                boxOffice.sellTickets(client, events.get(n++ % EVENTS), 1);
+            }
+        }
+        snapshot = Files.createTempFile("championship", ".snapshot");
+        SnapshotStore.save(snapshot, events, clients, 0, 0);
+    }
+
+    @Override
+    public Operation operation(String name) {
+        switch (name) {
+            case "rosterLoad":
+                return () -> RosterLoader.load(roster, new EventCatalog(), new ClientRegistry());
+            case "snapshotLoad":
+                return () -> SnapshotStore.load(snapshot, new EventCatalog(), new ClientRegistry());
+            default:
+                throw new IllegalArgumentException("No operation " + name);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        Files.deleteIfExists(roster);
+        Files.deleteIfExists(snapshot);
+    }
+}
@@ -0,0 +1,65 @@
+import benchmarks.Operation;
+import benchmarks.Workload;
+
+import java.util.Random;
+
+/**
+ * Benchmark workload for the name lookups a sale starts with, against a {@link ClientRegistry} and an
+ * {@link EventCatalog} of the given size.
+ *
+ * <ul>
+ *     <li>clientByName: finds a client by their name exactly as stored</li>
+ *     <li>clientByTypedName: finds a client by their name typed in capitals with extra spaces</li>
+ *     <li>clientMiss: looks up a name that isn't registered</li>
+ *     <li>eventByName: finds an event by name</li>
+ * </ul>
+ *
+ * @author Andrew Brown
+ */
+public class LookupWorkload implements Workload {
+    private static final int MASK = 4095;
+
+    private final ClientRegistry clients = new ClientRegistry();
+    private final EventCatalog events = new EventCatalog();
+    private final String[] clientNames = new String[MASK + 1];
+    private final String[] typedNames = new String[MASK + 1];
+    private final String[] missingNames = new String[MASK + 1];
+    private final String[] eventNames = new String[MASK + 1];
+    private int next;
+
+    /**
+     * Constructor which registers the given number of clients and events.
+     *
+     * @param size int number of clients and of events
+     */
+    public LookupWorkload(int size) {
+        for (int i = 0; i < size; i++) {
+            clients.add(new Client("First" + i, "Last" + i));
+            events.add(new Event("Event " + i, 100));
+        }
+        Random random = new Random(42);
+        for (int i = 0; i <= MASK; i++) {
+            int n = random.nextInt(size);
+            clientNames[i] = "First" + n + " Last" + n;
+            typedNames[i] = "  FIRST" + n + "   LAST" + n + " ";
+            missingNames[i] = "First" + n + " Missing" + n;
+            eventNames[i] = "Event " + random.nextInt(size);
+        }
+    }
+
+    @Override
+    public Operation operation(String name) {
+        switch (name) {
+            case "clientByName":
+                return () -> clients.get(clientNames[next++ & MASK]);
+            case "clientByTypedName":
+                return () -> clients.get(typedNames[next++ & MASK]);
+            case "clientMiss":
+                return () -> clients.get(missingNames[next++ & MASK]);
+            case "eventByName":
+                return () -> events.get(eventNames[next++ & MASK]);
+            default:
+                throw new IllegalArgumentException("No operation " + name);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+import benchmarks.Operation;
+import benchmarks.Workload;
+
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Benchmark workload for a {@link SeatMap} of the given number of seats, in rows of 100. The map is first filled to
+ * 95% by selling blocks of 1 to 6 seats and returning some of them, so the free seats are scattered the way they are
+ * late in an on-sale.
+ *
+ * <ul>
+ *     <li>allocateRelease: takes the best available 4 seats together and gives them back</li>
+ * </ul>
+ *
+ * @author Andrew Brown
+ */
+public class SeatMapWorkload implements Workload {
+    private final SeatMap seatMap;
+    private final Client buyer = new Client("Seat", "Buyer");
+
+    /**
+     * Constructor which builds and fills the seat map.
+     *
+     * @param size int number of seats
+     */
+    public SeatMapWorkload(int size) {
+        seatMap = new SeatMap(Collections.singletonList(new SeatMap.Section("Bowl", size / 100, 100)));
+        Random random = new Random(42);
+        Client crowd = new Client("Crowd", "Member");
+        while (seatMap.getFree() > size / 20 + 6) {
+            int[] seats = seatMap.allocate(crowd, 1 + random.nextInt(6));
+            if (random.nextInt(8) == 0) seatMap.release(crowd, new int[]{seats[0]});
+        }
+    }
+
+    @Override
+    public Operation operation(String name) {
+        if (!name.equals("allocateRelease")) throw new IllegalArgumentException("No operation " + name);
+        return () -> {
+            int[] seats = seatMap.allocate(buyer, 4);
+            seatMap.release(buyer, seats);
+            return seats;
+        };
+    }
+}
@@ -0,0 +1,76 @@
+import benchmarks.Operation;
+import benchmarks.Workload;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark workload for {@link SortedArrayList}, holding a list of events sorted by name.
+ *
+ * <ul>
+ *     <li>addThenRemove: inserts an event that isn't in the list and removes it again, keeping the size steady</li>
+ *     <li>contains: checks for an event that is in the list</li>
+ *     <li>indexOf: finds the position of an event that is in the list</li>
+ *     <li>bulkLoad: adds every event, in random order, to a new empty list</li>
+ * </ul>
+ *
+ * @author Andrew Brown
+ */
+public class SortedListWorkload implements Workload {
+    private static final int MASK = 4095;
+
+    private final SortedArrayList<Event> list;
+    private final List<Event> shuffled;
+    private final Event[] present = new Event[MASK + 1];
+    private final Event[] absent = new Event[MASK + 1];
+    private int next;
+
+    /**
+     * Constructor which builds a list of the given size.
+     *
+     * @param size int number of events in the list
+     */
+    public SortedListWorkload(int size) {
+        Random random = new Random(42);
+        shuffled = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            shuffled.add(new Event(String.format("Event %08d", i * 2), 100));
+        }
+        Collections.shuffle(shuffled, random);
+        list = new SortedArrayList<>(size + 1);
+        list.addAll(shuffled);
+        for (int i = 0; i <= MASK; i++) {
+            int n = random.nextInt(size);
+            present[i] = shuffled.get(n);
+            absent[i] = new Event(String.format("Event %08d", n * 2 + 1), 100);
+        }
+    }
+
+    @Override
+    public Operation operation(String name) {
+        switch (name) {
+            case "addThenRemove":
+                return () -> {
+                    Event event = absent[next++ & MASK];
+                    list.add(event);
+                    return list.remove(list.indexOf(event));
+                };
+            case "contains":
+                return () -> list.contains(present[next++ & MASK]);
+            case "indexOf":
+                return () -> list.indexOf(present[next++ & MASK]);
+            case "bulkLoad":
+                return () -> {
+                    SortedArrayList<Event> fresh = new SortedArrayList<>(shuffled.size());
+                    fresh.addAll(shuffled);
+                    return fresh;
+                };
+            default:
+                throw new IllegalArgumentException("No operation " + name + " in " + Arrays.asList(
+                        "addThenRemove", "contains", "indexOf", "bulkLoad"));
+        }
+    }
+}
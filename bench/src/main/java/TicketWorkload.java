@@ -0,0 +1,87 @@
+import benchmarks.Operation;
+import benchmarks.Workload;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Benchmark workload for selling and returning tickets through a {@link BoxOffice} with the given number of clients
+ * and ten events with more tickets than a run can sell. No journal is attached, so the disk isn't timed.
+ *
+ * <ul>
+ *     <li>sellReturnCycle: sells one ticket to a client and returns it again</li>
+ *     <li>commandCycle: the same as a pair of SELL and RETURN lines parsed by {@link BatchProcessor}, including the
+ *     client and event lookups</li>
+ * </ul>
+ *
+ * @author Andrew Brown
+ */
+public class TicketWorkload implements Workload {
+    private static final int MASK = 4095;
+    private static final int EVENTS = 10;
+
+    private final Path letters;
+    private final BoxOffice boxOffice;
+    private final BatchProcessor commands;
+    private final Client[] clients = new Client[MASK + 1];
+    private final Event[] events = new Event[MASK + 1];
+    private final String[] sells = new String[MASK + 1];
+    private final String[] returns = new String[MASK + 1];
+    private int next;
+
+    /**
+     * Constructor which sets up a box office with the given number of clients.
+     *
+     * @param size int number of clients
+     */
+    public TicketWorkload(int size) throws Exception {
+        EventCatalog catalog = new EventCatalog();
+        for (int i = 0; i < EVENTS; i++) {
+            catalog.add(new Event("Event " + i, Integer.MAX_VALUE / 2));
+        }
+        ClientRegistry registry = new ClientRegistry();
+        for (int i = 0; i < size; i++) {
+            registry.add(new Client("First" + i, "Last" + i));
+        }
+        letters = Files.createTempFile("letters", ".txt");
+        boxOffice = new BoxOffice(catalog, registry, letters.toString());
+        commands = new BatchProcessor(boxOffice);
+
+        Random random = new Random(42);
+        for (int i = 0; i <= MASK; i++) {
+            int n = random.nextInt(size);
+            int e = random.nextInt(EVENTS);
+            clients[i] = registry.get("First" + n + " Last" + n);
+            events[i] = catalog.get(e);
+            sells[i] = "SELL First" + n + " Last" + n + " Event " + e + " 1";
+            returns[i] = "RETURN First" + n + " Last" + n + " Event " + e + " 1";
+        }
+    }
+
+    @Override
+    public Operation operation(String name) {
+        switch (name) {
+            case "sellReturnCycle":
+                return () -> {
+                    int i = next++ & MASK;
+                    boxOffice.sellTickets(clients[i], events[i], 1);
+                    return boxOffice.returnTickets(clients[i], events[i], 1);
+                };
+            case "commandCycle":
+                return () -> {
+                    int i = next++ & MASK;
+                    commands.execute(sells[i]);
+                    return commands.execute(returns[i]);
+                };
+            default:
+                throw new IllegalArgumentException("No operation " + name);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        boxOffice.close();
+        Files.deleteIfExists(letters);
+    }
+}
@@ -0,0 +1,47 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks. Takes the usual JMH command line options, but unless told otherwise adds the GC profiler, so
+ * every result comes with the bytes allocated per operation (gc.alloc.rate.norm), and writes the results as JSON to
+ * jmh-result.json so runs can be compared.
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar                        run everything
+ *     java -jar target/benchmarks.jar SortedArrayList -p size=1000
+ * </pre>
+ *
+ * @author Andrew Brown
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    /**
+     * Runs the benchmarks matching the command line.
+     *
+     * @param args JMH command line options
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList()) {
+            Runner runner = new Runner(commandLine);
+            if (commandLine.shouldHelp()) commandLine.showHelp();
+            else runner.list();
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().isEmpty()) options.addProfiler(GCProfiler.class);
+        if (!commandLine.getResult().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON).result("jmh-result.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
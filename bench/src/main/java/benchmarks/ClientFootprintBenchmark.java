@@ -0,0 +1,53 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the bytes allocated for a client holding tickets for 0, 1 and 3 events, which is the client's share of
+ * the heap once loaded. Read the gc.alloc.rate.norm line of each result; size is the number of holdings.
+ *
+ * @author Andrew Brown
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientFootprintBenchmark {
+    @Param({"0", "1", "3"})
+    public int size;
+
+    private Workload workload;
+    private Operation newClient;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        workload = Workloads.create("ClientWorkload", size);
+        newClient = workload.operation("newClient");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workload.close();
+    }
+
+    @Benchmark
+    public Object newClient() throws Exception {
+        return newClient.run();
+    }
+}
@@ -0,0 +1,60 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times loading the championship at startup from a roster or a snapshot with 1k, 100k and 1M clients. Each
+ * measurement is a single load, as a real start is. See LoadWorkload for what each operation does.
+ *
+ * @author Andrew Brown
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LoadBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private Workload workload;
+    private Operation rosterLoad;
+    private Operation snapshotLoad;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        workload = Workloads.create("LoadWorkload", size);
+        rosterLoad = workload.operation("rosterLoad");
+        snapshotLoad = workload.operation("snapshotLoad");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workload.close();
+    }
+
+    @Benchmark
+    public Object rosterLoad() throws Exception {
+        return rosterLoad.run();
+    }
+
+    @Benchmark
+    public Object snapshotLoad() throws Exception {
+        return snapshotLoad.run();
+    }
+}
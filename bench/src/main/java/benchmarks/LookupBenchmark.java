@@ -0,0 +1,74 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times finding clients and events by name, as every sale does, with 1k, 100k and 1M of each. See LookupWorkload for
+ * what each operation does.
+ *
+ * @author Andrew Brown
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private Workload workload;
+    private Operation clientByName;
+    private Operation clientByTypedName;
+    private Operation clientMiss;
+    private Operation eventByName;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        workload = Workloads.create("LookupWorkload", size);
+        clientByName = workload.operation("clientByName");
+        clientByTypedName = workload.operation("clientByTypedName");
+        clientMiss = workload.operation("clientMiss");
+        eventByName = workload.operation("eventByName");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workload.close();
+    }
+
+    @Benchmark
+    public Object clientByName() throws Exception {
+        return clientByName.run();
+    }
+
+    @Benchmark
+    public Object clientByTypedName() throws Exception {
+        return clientByTypedName.run();
+    }
+
+    @Benchmark
+    public Object clientMiss() throws Exception {
+        return clientMiss.run();
+    }
+
+    @Benchmark
+    public Object eventByName() throws Exception {
+        return eventByName.run();
+    }
+}
@@ -0,0 +1,18 @@
+package benchmarks;
+
+/**
+ * A single operation for a benchmark to time. The result is returned so the benchmark can hand it to JMH, which stops
+ * the JIT compiler optimising the work away.
+ *
+ * @author Andrew Brown
+ */
+public interface Operation {
+
+    /**
+     * Runs the operation once.
+     *
+     * @return Object result of the operation
+     * @throws Exception if the operation fails
+     */
+    Object run() throws Exception;
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times taking the best available block of 4 seats and giving it back, in a 1k-seat hall and an 80k-seat arena that
+ * are 95% sold. See SeatMapWorkload for how the seat maps are filled.
+ *
+ * @author Andrew Brown
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatMapBenchmark {
+    @Param({"1000", "80000"})
+    public int size;
+
+    private Workload workload;
+    private Operation allocateRelease;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        workload = Workloads.create("SeatMapWorkload", size);
+        allocateRelease = workload.operation("allocateRelease");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workload.close();
+    }
+
+    @Benchmark
+    public Object allocateRelease() throws Exception {
+        return allocateRelease.run();
+    }
+}
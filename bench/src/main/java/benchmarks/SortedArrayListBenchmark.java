@@ -0,0 +1,74 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times insertion into and lookup in a SortedArrayList of 1k, 100k and 1M events. See SortedListWorkload for what
+ * each operation does; bulkLoad is reported in nanoseconds per whole list.
+ *
+ * @author Andrew Brown
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortedArrayListBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private Workload workload;
+    private Operation addThenRemove;
+    private Operation contains;
+    private Operation indexOf;
+    private Operation bulkLoad;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        workload = Workloads.create("SortedListWorkload", size);
+        addThenRemove = workload.operation("addThenRemove");
+        contains = workload.operation("contains");
+        indexOf = workload.operation("indexOf");
+        bulkLoad = workload.operation("bulkLoad");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workload.close();
+    }
+
+    @Benchmark
+    public Object addThenRemove() throws Exception {
+        return addThenRemove.run();
+    }
+
+    @Benchmark
+    public Object contains() throws Exception {
+        return contains.run();
+    }
+
+    @Benchmark
+    public Object indexOf() throws Exception {
+        return indexOf.run();
+    }
+
+    @Benchmark
+    public Object bulkLoad() throws Exception {
+        return bulkLoad.run();
+    }
+}
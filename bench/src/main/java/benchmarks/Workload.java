@@ -0,0 +1,28 @@
+package benchmarks;
+
+/**
+ * A set of operations on the championship code for a benchmark to time. JMH won't generate benchmarks for classes in
+ * the default package, and classes in a named package can't refer to the championship classes, which are all in the
+ * default package. So each workload is written in the default package against this interface, and the benchmarks
+ * create it by name and time its operations through {@link Operation}.
+ *
+ * @author Andrew Brown
+ */
+public interface Workload extends AutoCloseable {
+
+    /**
+     * Finds one of the workload's operations.
+     *
+     * @param name String name of the operation
+     * @return Operation the operation
+     * @throws IllegalArgumentException if the workload has no operation with that name
+     */
+    Operation operation(String name);
+
+    /**
+     * Releases anything the workload holds open. Does nothing unless overridden.
+     */
+    @Override
+    default void close() throws Exception {
+    }
+}
@@ -0,0 +1,24 @@
+package benchmarks;
+
+/**
+ * Creates workloads by class name, as the workload classes are in the default package and can't be named here.
+ *
+ * @author Andrew Brown
+ */
+final class Workloads {
+
+    private Workloads() {
+    }
+
+    /**
+     * Creates a workload of the given size.
+     *
+     * @param className String name of a default package class implementing Workload with a constructor taking an int
+     * @param size int number of elements, clients or records the workload works with
+     * @return Workload the new workload
+     * @throws Exception if the workload can't be created
+     */
+    static Workload create(String className, int size) throws Exception {
+        return (Workload) Class.forName(className).getConstructor(int.class).newInstance(size);
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * The {@code AnalyticsCommand} class shows the sales figures for management: tickets sold, remaining and the share
+ * sold for each event, how many clients hold tickets for each number of events, and the most oversubscribed events.
+ * The figures are counted by {@link SalesAnalytics} in parallel and the time taken is shown with them.
+ *
+ * @author Andrew Brown
+ */
+public class AnalyticsCommand implements Command {
+    private final BoxOffice boxOffice;
+
+    /**
+     * Constructor taking the box office whose sales are shown
+     *
+     * @param boxOffice BoxOffice to show the sales of
+     */
+    AnalyticsCommand(BoxOffice boxOffice) {
+        this.boxOffice = boxOffice;
+    }
+
+    @Override
+    public char getKey() {
+        return 'v';
+    }
+
+    @Override
+    public String getDescription() {
+        return "View Sales Analytics";
+    }
+
+    @Override
+    public boolean execute(Terminal terminal) {
+        long start = System.nanoTime();
+        SalesAnalytics analytics = boxOffice.getAnalytics();
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        terminal.println(Terminal.NEWLINE + "                    SALES ANALYTICS");
+        terminal.println("------------------------------------------------------");
+        terminal.out().print(analytics);
+        terminal.println("------------------------------------------------------");
+        terminal.println("Counted in " + elapsed + " ms" + Terminal.NEWLINE);
+        return true;
+    }
+}
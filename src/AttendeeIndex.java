@@ -0,0 +1,186 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The {@code AttendeeIndex} class is a reverse index from each event to the clients holding tickets for it, so a gate
+ * list for an event can be produced by visiting only its attendees rather than every client. The {@link BoxOffice}
+ * keeps the index up to date, adding or removing a client in the same step, under the client's lock, as the client's
+ * own holding changes, so a client is in an event's attendees exactly while they hold tickets for it.
+ *
+ * Events are looked up by their catalog ID. Each event's attendees are a concurrent set, which is dropped when its
+ * last attendee leaves. A client already attending is found without locking; joining or leaving an event locks only
+ * that event's set, so that a set being dropped can't take a new attendee with it.
+ *
+ * @author Andrew Brown
+ */
+public class AttendeeIndex {
+    private volatile AtomicReferenceArray<Set<Client>> byEvent = new AtomicReferenceArray<>(16);
+    private volatile boolean built;
+
+    /**
+     * Records that a client holds tickets for an event. The caller must hold the client's lock.
+     *
+     * @param event Event the client holds tickets for
+     * @param client Client attending
+     */
+    void add(Event event, Client client) {
+        int id = event.getId();
+        while (true) {
+            Set<Client> attendees = attendeesOf(id);
+            // a set holding the client can't be dropped while the caller holds the client's lock
+            if (attendees.contains(client)) return;
+            synchronized (attendees) {
+                if (byEvent.get(id) == attendees) {
+                    attendees.add(client);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records that a client no longer holds tickets for an event, dropping the event's attendees if they were the
+     * last. The caller must hold the client's lock and call this only once the client's holding has reached zero.
+     *
+     * @param event Event the client has no tickets for
+     * @param client Client no longer attending
+     */
+    void remove(Event event, Client client) {
+        AtomicReferenceArray<Set<Client>> table = byEvent;
+        int id = event.getId();
+        Set<Client> attendees = id >= 0 && id < table.length() ? table.get(id) : null;
+        if (attendees == null) return;
+        synchronized (attendees) {
+            if (attendees.remove(client) && attendees.isEmpty()) byEvent.compareAndSet(id, attendees, null);
+        }
+    }
+
+    /**
+     * Package-private method to check whether the index has been filled from the clients' holdings
+     * @return boolean true once build has been called
+     */
+    boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * Fills the index from the holdings of every client, replacing anything already in it. Holdings loaded from a
+     * roster or snapshot don't pass through the box office, so the index is built from them once before it is first
+     * used. Nothing may sell or return tickets while the index is being built.
+     *
+     * @param clients Iterable of every client
+     */
+    synchronized void build(Iterable<Client> clients) {
+        byEvent = new AtomicReferenceArray<>(byEvent.length());
+        for (Client client : clients) {
+            synchronized (client) {
+                for (int i = 0; i < client.getHoldingCount(); i++) {
+                    attendeesOf(client.getHoldingEventId(i)).add(client);
+                }
+            }
+        }
+        built = true;
+    }
+
+    /**
+     * Package-private method to get the attendees of an event and how many tickets each holds, sorted by client. The
+     * time taken depends only on the number of attendees.
+     *
+     * @param event Event to list the attendees of
+     * @return List of attendees, empty if nobody holds tickets for the event
+     */
+    List<Attendee> get(Event event) {
+        AtomicReferenceArray<Set<Client>> table = byEvent;
+        int id = event.getId();
+        Set<Client> attendees = id >= 0 && id < table.length() ? table.get(id) : null;
+        if (attendees == null) return Collections.emptyList();
+
+        List<Attendee> list = new ArrayList<>(attendees.size());
+        for (Client client : attendees) {
+            list.add(new Attendee(client, client.getTicketsHeld(event)));
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+    /**
+     * Finds the attendee set for an event ID, creating it if this is the first attendee.
+     */
+    private Set<Client> attendeesOf(int id) {
+        AtomicReferenceArray<Set<Client>> table = byEvent;
+        Set<Client> attendees = id >= 0 && id < table.length() ? table.get(id) : null;
+        return attendees != null ? attendees : createAttendeesOf(id);
+    }
+
+    private synchronized Set<Client> createAttendeesOf(int id) {
+        if (id < 0) throw new IllegalArgumentException("Event is not in an event catalog");
+        AtomicReferenceArray<Set<Client>> table = byEvent;
+        if (id >= table.length()) {
+            AtomicReferenceArray<Set<Client>> grown =
+                    new AtomicReferenceArray<>(Math.max(id + 1, table.length() * 2));
+            for (int i = 0; i < table.length(); i++) {
+                grown.set(i, table.get(i));
+            }
+            table = grown;
+            byEvent = table;
+        }
+        Set<Client> attendees = table.get(id);
+        if (attendees == null) {
+            attendees = ConcurrentHashMap.newKeySet();
+            table.set(id, attendees);
+        }
+        return attendees;
+    }
+
+    /**
+     * A client attending an event and the number of tickets they hold for it.
+     */
+    static class Attendee implements Comparable<Attendee> {
+        private final Client client;
+        private final int tickets;
+
+        Attendee(Client client, int tickets) {
+            this.client = client;
+            this.tickets = tickets;
+        }
+
+        /**
+         * Package-private method to get the attending client
+         * @return Client attending client
+         */
+        Client getClient() {
+            return client;
+        }
+
+        /**
+         * Package-private method to get the number of tickets the client holds for the event
+         * @return int number of tickets
+         */
+        int getTickets() {
+            return tickets;
+        }
+
+        /**
+         * Compares attendees by client, so gate lists are sorted by last name and then first name
+         * @param a Attendee to compare with
+         * @return int comparison value
+         */
+        @Override
+        public int compareTo(Attendee a) {
+            return client.compareTo(a.client);
+        }
+
+        /**
+         * Prints the attendee as the client's full name and the number of tickets
+         * @return String name and tickets, e.g. Anna Smith - 3
+         */
+        @Override
+        public String toString() {
+            return client.getFullName() + " - " + tickets;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The {@code AttendeesCommand} class shows the gate list for an event: every client holding tickets for it and how
+ * many tickets each holds, sorted by name. The list comes from the box office's attendee index, so only the event's
+ * attendees are visited.
+ *
+ * @author Andrew Brown
+ */
+public class AttendeesCommand implements Command {
+    private final BoxOffice boxOffice;
+
+    /**
+     * Constructor taking the box office whose attendees are shown
+     *
+     * @param boxOffice BoxOffice to show the attendees of
+     */
+    AttendeesCommand(BoxOffice boxOffice) {
+        this.boxOffice = boxOffice;
+    }
+
+    @Override
+    public char getKey() {
+        return 'a';
+    }
+
+    @Override
+    public String getDescription() {
+        return "Display Event Attendees";
+    }
+
+    @Override
+    public boolean execute(Terminal terminal) throws IOException {
+        Event event;
+        while (true) {
+            String response = terminal.readLine(Terminal.NEWLINE + "Which event would you like the attendees of? ");
+            if (response == null) return true;
+            event = boxOffice.findEvent(response);
+            if (event != null) break;
+
+            terminal.println("Cannot find that event");
+            terminal.suggest(boxOffice.suggestEvents(response));
+            if (!terminal.confirm("Try again? (y)es/(n)o ")) return true;
+        }
+
+        List<AttendeeIndex.Attendee> attendees = boxOffice.getAttendees(event);
+        terminal.println(Terminal.NEWLINE + "                 ATTENDEES OF " + event.getName().toUpperCase());
+        terminal.println("------------------------------------------------------");
+        if (attendees.isEmpty()) {
+            terminal.println("No Tickets Bought Yet");
+        }
+        int tickets = 0;
+        for (AttendeeIndex.Attendee attendee : attendees) {
+            terminal.out().printf("%-30.30s  %-30.30s%n",
+                    "Client: " + attendee.getClient().getFullName(), "Tickets: " + attendee.getTickets());
+            tickets += attendee.getTickets();
+        }
+        terminal.println("------------------------------------------------------");
+        terminal.println(attendees.size() + " attendees holding " + tickets + " tickets" + Terminal.NEWLINE);
+        return true;
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code Basket} class holds the tickets a client wants for several events, to be bought in one go with
+ * {@link BoxOffice#sellBasket(Client, Basket)}. Either every item in the basket is sold or none of it is, so a client
+ * never ends up with half of a set of events because one sold out part way through.
+ *
+ * Items are kept in event ID order, which is the order the box office reserves them in, and adding tickets for an
+ * event already in the basket adds to that item.
+ *
+ * @author Andrew Brown
+ */
+public class Basket {
+    private final List<Item> items = new ArrayList<>(Client.MAX_EVENTS);
+
+    /**
+     * Adds tickets for an event to the basket
+     *
+     * @param event Event the tickets are for
+     * @param numberOfTickets int number of tickets wanted
+     * @return Basket this basket, so calls can be chained
+     */
+    Basket add(Event event, int numberOfTickets) {
+        int i = 0;
+        while (i < items.size() && items.get(i).event.getId() < event.getId()) i++;
+        if (i < items.size() && items.get(i).event.equals(event)) {
+            Item item = items.get(i);
+            items.set(i, new Item(event, item.numberOfTickets + numberOfTickets));
+        } else {
+            items.add(i, new Item(event, numberOfTickets));
+        }
+        return this;
+    }
+
+    /**
+     * Package-private method to get the items in the basket, in event ID order
+     * @return List of items
+     */
+    List<Item> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Package-private method to get the number of events in the basket
+     * @return int number of events
+     */
+    int size() {
+        return items.size();
+    }
+
+    /**
+     * Prints the basket as each event's name and the number of tickets wanted
+     * @return String items in the basket, e.g. [Football - 2, Tennis - 1]
+     */
+    @Override
+    public String toString() {
+        return items.toString();
+    }
+
+    /**
+     * The tickets wanted for one event.
+     */
+    static class Item {
+        private final Event event;
+        private final int numberOfTickets;
+
+        Item(Event event, int numberOfTickets) {
+            this.event = event;
+            this.numberOfTickets = numberOfTickets;
+        }
+
+        /**
+         * Package-private method to get the event
+         * @return Event the tickets are for
+         */
+        Event getEvent() {
+            return event;
+        }
+
+        /**
+         * Package-private method to get the number of tickets wanted
+         * @return int number of tickets
+         */
+        int getNumberOfTickets() {
+            return numberOfTickets;
+        }
+
+        /**
+         * Prints the item as the event name and the number of tickets wanted
+         * @return String name and tickets, e.g. Tennis - 2
+         */
+        @Override
+        public String toString() {
+            return event.getName() + " - " + numberOfTickets;
+        }
+    }
+}
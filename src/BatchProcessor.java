@@ -0,0 +1,283 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * The {@code BatchProcessor} class runs a file of sale and return commands through the {@link BoxOffice} without any
+ * prompts, for bulk allocations and overnight reconciliation. Each line of the file holds one command:
+ *
+ * <pre>
+ *     SELL   client-full-name event-name number-of-tickets
+ *     RETURN client-full-name event-name number-of-tickets
+ *     WAIT   client-full-name event-name number-of-tickets
+ *     BASKET client-full-name, event-name number-of-tickets, event-name number-of-tickets ...
+ *     SEATS  client-full-name, event-name, seat-number seat-number ...
+ * </pre>
+ *
+ * for example {@code SELL Anna Smith Equestrian Jumping 2}. WAIT puts the client on the event's waitlist. As both
+ * names may contain spaces, the words between the command and the number are split at the first point where the
+ * words before it name a registered client and the words after it name an event. BASKET sells the client tickets
+ * for every event listed or for none of them, for example {@code BASKET Anna Smith, Tennis 2, Football 2}; its
+ * client and events are separated by commas. SEATS returns particular seats of an event with numbered seats, for
+ * example {@code SEATS Anna Smith, Gymnastics, 12 13}, where seats are numbered from 1 through the whole venue as the
+ * menu lists them. Blank lines and lines starting with # are ignored.
+ *
+ * The file is read one line at a time and each result is written out as soon as the command has run, so the size of
+ * the file doesn't affect the memory used.
+ *
+ * @author Andrew Brown
+ */
+public class BatchProcessor {
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    private final BoxOffice boxOffice;
+    private final ShardedEngine engine;
+
+    /**
+     * Constructor taking the box office the commands are run against
+     *
+     * @param boxOffice BoxOffice to sell and return tickets through
+     */
+    BatchProcessor(BoxOffice boxOffice) {
+        this(boxOffice, null);
+    }
+
+    /**
+     * Constructor taking the box office the names are looked up in and the engine the commands are run on
+     *
+     * @param boxOffice BoxOffice to look clients and events up in
+     * @param engine ShardedEngine to sell and return tickets through, or null to use the box office directly
+     */
+    BatchProcessor(BoxOffice boxOffice, ShardedEngine engine) {
+        this.boxOffice = boxOffice;
+        this.engine = engine;
+    }
+
+    /**
+     * Runs every command read from the reader, writing one result line per command to results. Each result line
+     * holds the line number, the outcome and the original command.
+     *
+     * @param commands Reader to read commands from
+     * @param results Writer to write per-command results to
+     * @return Summary counts of each outcome and the time taken
+     * @throws IOException if the commands can't be read or the results can't be written
+     */
+    Summary run(Reader commands, Writer results) throws IOException {
+        BufferedReader in = commands instanceof BufferedReader
+                ? (BufferedReader) commands : new BufferedReader(commands, 1 << 16);
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+        String line;
+        long lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            String command = line.trim();
+            if (command.isEmpty() || command.charAt(0) == '#') continue;
+
+            TransactionResult result = execute(command);
+            summary.record(result);
+            results.write(Long.toString(lineNumber));
+            results.write('\t');
+            results.write(result.name());
+            results.write('\t');
+            results.write(command);
+            results.write(NEWLINE);
+        }
+        results.flush();
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Parses and runs a single command.
+     *
+     * @param command String command in the form described in the class documentation
+     * @return TransactionResult outcome of the command
+     * @throws IOException if a sold-out letter can't be written
+     */
+    TransactionResult execute(String command) throws IOException {
+        String[] words = command.trim().split("\\s+");
+        if (words.length < 4) return TransactionResult.BAD_COMMAND;
+
+        String verb = words[0].toUpperCase();
+        if (verb.equals("BASKET")) return executeBasket(command.trim().substring(words[0].length()));
+        if (verb.equals("SEATS")) return executeSeats(command.trim().substring(words[0].length()));
+        if (!verb.equals("SELL") && !verb.equals("RETURN") && !verb.equals("WAIT")) {
+            return TransactionResult.BAD_COMMAND;
+        }
+
+        int numberOfTickets;
+        try {
+            numberOfTickets = Integer.parseInt(words[words.length - 1]);
+        } catch (NumberFormatException e) {
+            return TransactionResult.INVALID_QUANTITY;
+        }
+
+        Client client = null;
+        Event event = null;
+        StringBuilder clientName = new StringBuilder();
+        for (int split = 1; split < words.length - 2 && event == null; split++) {
+            if (split > 1) clientName.append(' ');
+            clientName.append(words[split]);
+            Client candidate = boxOffice.findClient(clientName.toString());
+            if (candidate != null) {
+                client = candidate;
+                event = boxOffice.findEvent(join(words, split + 1, words.length - 1));
+            }
+        }
+        if (client == null) return TransactionResult.UNKNOWN_CLIENT;
+        if (event == null) return TransactionResult.UNKNOWN_EVENT;
+
+        if (engine != null) {
+            switch (verb) {
+                case "SELL":
+                    return ShardedEngine.await(engine.sellTickets(client, event, numberOfTickets));
+                case "RETURN":
+                    return ShardedEngine.await(engine.returnTickets(client, event, numberOfTickets));
+                default:
+                    return ShardedEngine.await(engine.joinWaitlist(client, event, numberOfTickets));
+            }
+        }
+        switch (verb) {
+            case "SELL":
+                return boxOffice.sellTickets(client, event, numberOfTickets);
+            case "RETURN":
+                return boxOffice.returnTickets(client, event, numberOfTickets);
+            default:
+                return boxOffice.joinWaitlist(client, event, numberOfTickets);
+        }
+    }
+
+    /**
+     * Parses and runs a BASKET command. A basket spans events owned by different shards, so it is always sold through
+     * the box office on the calling thread.
+     *
+     * @param arguments String client name and the basket's items, separated by commas
+     */
+    private TransactionResult executeBasket(String arguments) throws IOException {
+        String[] parts = arguments.split(",");
+        if (parts.length < 2) return TransactionResult.BAD_COMMAND;
+        Client client = boxOffice.findClient(parts[0].trim());
+        if (client == null) return TransactionResult.UNKNOWN_CLIENT;
+
+        Basket basket = new Basket();
+        for (int i = 1; i < parts.length; i++) {
+            String item = parts[i].trim();
+            int space = item.lastIndexOf(' ');
+            if (space < 0) return TransactionResult.BAD_COMMAND;
+            Event event = boxOffice.findEvent(item.substring(0, space));
+            if (event == null) return TransactionResult.UNKNOWN_EVENT;
+            try {
+                basket.add(event, Integer.parseInt(item.substring(space + 1)));
+            } catch (NumberFormatException e) {
+                return TransactionResult.INVALID_QUANTITY;
+            }
+        }
+
+        return boxOffice.sellBasket(client, basket);
+    }
+
+    /**
+     * Parses and runs a SEATS command, through the engine if there is one. Seat numbers are given counting from 1, and
+     * the box office counts them from 0.
+     *
+     * @param arguments String client name, event name and seat numbers, separated by commas
+     */
+    private TransactionResult executeSeats(String arguments) throws IOException {
+        String[] parts = arguments.split(",");
+        if (parts.length != 3) return TransactionResult.BAD_COMMAND;
+        Client client = boxOffice.findClient(parts[0].trim());
+        if (client == null) return TransactionResult.UNKNOWN_CLIENT;
+        Event event = boxOffice.findEvent(parts[1].trim());
+        if (event == null) return TransactionResult.UNKNOWN_EVENT;
+
+        String[] numbers = parts[2].trim().split("\\s+");
+        if (numbers[0].isEmpty()) return TransactionResult.INVALID_QUANTITY;
+        int[] seats = new int[numbers.length];
+        try {
+            for (int i = 0; i < numbers.length; i++) {
+                seats[i] = Integer.parseInt(numbers[i]) - 1;
+            }
+        } catch (NumberFormatException e) {
+            return TransactionResult.INVALID_QUANTITY;
+        }
+
+        if (engine != null) return ShardedEngine.await(engine.returnSeats(client, event, seats));
+        return boxOffice.returnSeats(client, event, seats);
+    }
+
+    /**
+     * Joins words[from] to words[to - 1] with single spaces.
+     */
+    private static String join(String[] words, int from, int to) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (i > from) joined.append(' ');
+            joined.append(words[i]);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Counts of each outcome from a batch run along with the time the run took.
+     */
+    static class Summary {
+        private final long[] counts = new long[TransactionResult.values().length];
+        private long elapsedNanos;
+
+        /**
+         * Adds one command with the given outcome to the counts
+         * @param result TransactionResult outcome of a command
+         */
+        void record(TransactionResult result) {
+            counts[result.ordinal()]++;
+        }
+
+        /**
+         * Package-private method to get how many commands had the given outcome
+         * @param result TransactionResult outcome to count
+         * @return long number of commands
+         */
+        long getCount(TransactionResult result) {
+            return counts[result.ordinal()];
+        }
+
+        /**
+         * Package-private method to get the total number of commands run
+         * @return long number of commands
+         */
+        long getTotal() {
+            long total = 0;
+            for (long count : counts) total += count;
+            return total;
+        }
+
+        /**
+         * Package-private method to get the number of commands run per second
+         * @return double commands per second
+         */
+        double getCommandsPerSecond() {
+            return elapsedNanos == 0 ? 0 : getTotal() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Gives a report of the run, with the throughput on the first line followed by a line per outcome seen.
+         * @return String report of the run
+         */
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append("Processed ").append(getTotal()).append(" commands in ")
+                    .append(elapsedNanos / 1_000_000).append(" ms (")
+                    .append(Math.round(getCommandsPerSecond())).append(" commands/sec)");
+            for (TransactionResult result : TransactionResult.values()) {
+                if (counts[result.ordinal()] > 0) {
+                    report.append(NEWLINE).append("\t").append(result.name()).append(": ")
+                            .append(counts[result.ordinal()]);
+                }
+            }
+            return report.toString();
+        }
+    }
+}
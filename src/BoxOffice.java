@@ -0,0 +1,1091 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The {@code BoxOffice} class holds the business rules for selling and returning tickets, separate from any user
+ * interface. The interactive menu, the batch processor and any other front end all sell and return tickets through
+ * the same two methods, so the 3-event limit and the sold-out letter are applied the same way everywhere.
+ *
+ * When a {@link TransactionJournal} is attached, each sale and return is appended to the journal and is only
+ * reported as successful once the journal record is on disk. Sales and returns share a read lock while they change
+ * the state and append to the journal, and {@link #checkpoint(Path)} takes the write lock so that a snapshot sees
+ * every change up to a single journal record and nothing after it. The record is appended under the client's lock,
+ * in the same step as the change to the client's holding, so the journal has each client's sales and returns in the
+ * order they happened. Changes to an event's count from different clients may be journalled in either order, which
+ * is why {@link TransactionJournal#replay} applies records as plain changes rather than selling again.
+ *
+ * The box office also keeps an {@link AttendeeIndex} from each event to the clients holding tickets for it, updated
+ * together with the client's holding, so {@link #getAttendees(Event)} doesn't have to look at every client.
+ * {@link #getAnalytics()} counts sales across every client and event in parallel, without stopping sales.
+ *
+ * Clients can join a {@link Waitlist} for a sold-out event. Whenever tickets for the event are returned they are
+ * allocated to the waitlist in order, as ordinary sales subject to the 3-event limit, and each client allocated
+ * tickets is sent a letter.
+ *
+ * A client can buy tickets for several events at once with {@link #sellBasket}, which sells all of them or none.
+ *
+ * Events with a {@link SeatMap} are sold seat by seat. Every sale takes the best available seats, returns by count
+ * give back the client's worst seats, and {@link #returnSeats} gives back particular seats. The seats are journalled
+ * with each sale and return, so a replay gives every client the seats they had.
+ *
+ * @author Andrew Brown
+ */
+public class BoxOffice implements Closeable {
+    private static final int LETTER_QUEUE_CAPACITY = 4096;
+    private static final int SUGGESTIONS = 5;
+    private static final int[] NO_SEATS = new int[0];
+
+    private final EventCatalog events;
+    private final ClientRegistry clients;
+    private final Path letterFile;
+    private LetterSpooler letters;
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private TransactionJournal journal;
+    private InventoryFile inventory;
+    private boolean syncOnCommit = true;
+    private volatile long rosterOffset;
+    private final Metrics metrics = new Metrics();
+    private final AttendeeIndex attendees = new AttendeeIndex();
+    private final Waitlist waitlist = new Waitlist();
+
+    /**
+     * Constructor taking the events and clients the box office sells against. Sold-out letters are appended to
+     * output.txt.
+     *
+     * @param events EventCatalog of events on sale
+     * @param clients ClientRegistry of registered clients
+     */
+    BoxOffice(EventCatalog events, ClientRegistry clients) {
+        this(events, clients, "output.txt");
+    }
+
+    /**
+     * Constructor taking the events and clients the box office sells against and the file to write sold-out letters to
+     *
+     * @param events EventCatalog of events on sale
+     * @param clients ClientRegistry of registered clients
+     * @param letterFile String path of the file sold-out letters are appended to
+     */
+    BoxOffice(EventCatalog events, ClientRegistry clients, String letterFile) {
+        this.events = events;
+        this.clients = clients;
+        this.letterFile = Paths.get(letterFile);
+    }
+
+    /**
+     * Constructor taking the events and clients the box office sells against and the spooler to send letters through
+     *
+     * @param events EventCatalog of events on sale
+     * @param clients ClientRegistry of registered clients
+     * @param letters LetterSpooler to send letters through
+     */
+    BoxOffice(EventCatalog events, ClientRegistry clients, LetterSpooler letters) {
+        this.events = events;
+        this.clients = clients;
+        this.letterFile = null;
+        this.letters = letters;
+    }
+
+    /**
+     * Package-private method to get the events on sale
+     * @return EventCatalog events on sale
+     */
+    EventCatalog getEvents() {
+        return events;
+    }
+
+    /**
+     * Package-private method to get the registered clients
+     * @return ClientRegistry registered clients
+     */
+    ClientRegistry getClients() {
+        return clients;
+    }
+
+    /**
+     * Package-private method to attach a journal that every sale and return is written to
+     * @param journal TransactionJournal to write to, or null to stop journalling
+     */
+    void setJournal(TransactionJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Package-private method to attach the inventory file the events' counts are kept in, which is then forced to disk
+     * with every checkpoint and closed with the box office
+     * @param inventory InventoryFile the events are attached to, or null if the counts are kept in the events
+     */
+    void setInventory(InventoryFile inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Package-private method to get the inventory file the events' counts are kept in
+     * @return InventoryFile inventory file, or null if the counts are kept in the events
+     */
+    InventoryFile getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Package-private method to choose whether each sale and return waits for its journal record to reach the disk.
+     * Batch runs turn this off and call {@link #syncJournal()} at the end, as a single thread waiting for each record
+     * would get no benefit from group commit.
+     * @param syncOnCommit boolean true to wait for each record, which is the default
+     */
+    void setSyncOnCommit(boolean syncOnCommit) {
+        this.syncOnCommit = syncOnCommit;
+    }
+
+    /**
+     * Package-private method to wait until every journal record written so far is on disk
+     * @throws IOException if the journal couldn't be written
+     */
+    void syncJournal() throws IOException {
+        if (journal != null) journal.sync();
+    }
+
+    /**
+     * Saves a snapshot of the current state and empties the journal, whose records are then all in the snapshot.
+     * Sales and returns wait while the snapshot is written.
+     *
+     * @param snapshotFile Path to save the snapshot to
+     * @throws IOException if the snapshot or journal couldn't be written
+     */
+    void checkpoint(Path snapshotFile) throws IOException {
+        stateLock.writeLock().lock();
+        try {
+            long sequence = 0;
+            if (journal != null) {
+                journal.sync();
+                sequence = journal.getLastSequence();
+            }
+            if (inventory != null) inventory.force();
+            SnapshotStore.save(snapshotFile, events, clients, sequence, rosterOffset);
+            if (journal != null) journal.truncate();
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sells tickets for an event to a client. The sale is refused if the number of tickets isn't positive, if the
+     * client already holds tickets for 3 other events or if there aren't enough tickets left. If the event has sold
+     * out completely a letter is written to the client.
+     *
+     * @param client Client buying the tickets
+     * @param event Event the tickets are for
+     * @param numberOfTickets int number of tickets to sell
+     * @return TransactionResult outcome of the sale
+     * @throws IOException if the sold-out letter can't be written
+     */
+    TransactionResult sellTickets(Client client, Event event, int numberOfTickets) throws IOException {
+        return complete(beginSale(client, event, numberOfTickets));
+    }
+
+    /**
+     * Package-private method to start a sale, as described for {@link #sellTickets(Client, Event, int)}, without
+     * waiting for its journal record to reach the disk. The sale is applied and journalled, but isn't finished, or
+     * counted in the metrics, until it is passed to {@link #complete(Pending)}. Completing several sales and returns
+     * started together costs one write to disk, as the first to complete writes them all.
+     *
+     * @param client Client buying the tickets
+     * @param event Event the tickets are for
+     * @param numberOfTickets int number of tickets to sell
+     * @return Pending sale to complete
+     * @throws IOException if the sold-out letter can't be written or the sale couldn't be added to the journal
+     */
+    Pending beginSale(Client client, Event event, int numberOfTickets) throws IOException {
+        return beginSale(client, event, numberOfTickets, false);
+    }
+
+    /**
+     * Starts a sale, counting it in the metrics as an error if it throws. Allocations from the waitlist don't send a
+     * sold-out letter or count a refusal if another desk has taken the tickets first.
+     */
+    private Pending beginSale(Client client, Event event, int numberOfTickets, boolean fromWaitlist)
+            throws IOException {
+        long start = System.nanoTime();
+        try {
+            return sell(client, event, numberOfTickets, fromWaitlist, start);
+        } catch (IOException | RuntimeException e) {
+            metrics.recordSale(null, numberOfTickets, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * Applies the rules for a sale, as described for {@link #sellTickets}, and adds it to the journal.
+     */
+    private Pending sell(Client client, Event event, int numberOfTickets, boolean fromWaitlist, long start)
+            throws IOException {
+        byte type = TransactionJournal.SELL;
+        if (numberOfTickets <= 0) return new Pending(type, TransactionResult.INVALID_QUANTITY, numberOfTickets, start);
+        if (client.getHoldingCount() >= Client.MAX_EVENTS && client.getTicketsHeld(event) == 0) {
+            return new Pending(type, TransactionResult.EVENT_LIMIT, numberOfTickets, start);
+        }
+
+        stateLock.readLock().lock();
+        try {
+            int remaining = event.tryReserve(numberOfTickets);
+            if (remaining < 0) {
+                if (~remaining == 0 && !fromWaitlist) {
+                    soldOut(client, event);
+                    return new Pending(type, TransactionResult.SOLD_OUT, numberOfTickets, start);
+                }
+                return new Pending(type, TransactionResult.NOT_ENOUGH_TICKETS, numberOfTickets, start);
+            }
+            synchronized (client) {
+                int[] seats = addHolding(client, event, numberOfTickets);
+                if (seats == null) {
+                    event.release(numberOfTickets);
+                    return new Pending(type, TransactionResult.EVENT_LIMIT, numberOfTickets, start);
+                }
+                try {
+                    long sequence = journal(type, client, event, numberOfTickets, seats);
+                    return new Pending(type, TransactionResult.SOLD, client, event, numberOfTickets, seats,
+                            sequence, start);
+                } catch (IOException e) {
+                    removeHolding(client, event, numberOfTickets, seats);
+                    event.release(numberOfTickets);
+                    throw e;
+                }
+            }
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Package-private method to finish a sale or return started with {@link #beginSale} or {@link #beginReturn}. Waits
+     * for its journal record to reach the disk and counts it in the metrics, then allocates the tickets of a return to
+     * the event's waitlist. If the journal couldn't be written the sale or return is undone before the failure is
+     * thrown, so nothing that isn't on disk is left applied.
+     *
+     * @param pending Pending sale or return
+     * @return TransactionResult outcome of the sale or return
+     * @throws IOException if the sale or return couldn't be written to the journal, or an allocation couldn't be
+     */
+    TransactionResult complete(Pending pending) throws IOException {
+        TransactionResult result = null;
+        try {
+            if (pending.sequence > 0) {
+                try {
+                    awaitDurable(pending.sequence);
+                } catch (IOException e) {
+                    throw undo(pending, e);
+                }
+            }
+            result = pending.result;
+        } finally {
+            long nanos = System.nanoTime() - pending.start;
+            if (pending.type == TransactionJournal.SELL) {
+                metrics.recordSale(result, pending.tickets, nanos);
+            } else {
+                metrics.recordReturn(result, pending.tickets, nanos);
+            }
+        }
+        if (result == TransactionResult.RETURNED) allocateWaitlist(pending.event);
+        return result;
+    }
+
+    /**
+     * Undoes a sale or return whose journal record couldn't be written.
+     *
+     * @return IOException to throw, the journal's failure or one reporting that a return couldn't be undone
+     */
+    private IOException undo(Pending pending, IOException failure) {
+        if (pending.type == TransactionJournal.RETURN) {
+            return undoReturn(pending.client, pending.event, pending.tickets, pending.seats, failure);
+        }
+        removeHolding(pending.client, pending.event, pending.tickets, pending.seats);
+        pending.event.release(pending.tickets);
+        return failure;
+    }
+
+    /**
+     * Sells a client every item in a basket, or nothing. The basket is refused if it is empty, if any number of
+     * tickets isn't positive, if the events new to the client would take them over 3 events, or if any event hasn't
+     * enough tickets left, in which case the tickets already reserved for the other events are given back. If an event
+     * in the basket has sold out completely a letter is written to the client.
+     *
+     * The events' tickets are reserved in event ID order, so two baskets wanting the last tickets of the same events
+     * meet at the same event first and one of them gets all it wants, rather than each taking some and both failing.
+     * The client's lock is the only lock held across the items, so baskets can't deadlock with each other or with
+     * single sales.
+     *
+     * @param client Client buying the tickets
+     * @param basket Basket of events and the number of tickets wanted for each
+     * @return TransactionResult SOLD, or the reason the first item that couldn't be sold was refused
+     * @throws IOException if the sold-out letter can't be written or the sale couldn't be written to the journal
+     */
+    TransactionResult sellBasket(Client client, Basket basket) throws IOException {
+        long start = System.nanoTime();
+        int numberOfTickets = 0;
+        for (Basket.Item item : basket.getItems()) {
+            numberOfTickets += item.getNumberOfTickets();
+        }
+        TransactionResult result = null;
+        try {
+            result = sellAll(client, basket.getItems());
+            return result;
+        } finally {
+            metrics.recordSale(result, numberOfTickets, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Applies the rules for a basket, as described for {@link #sellBasket}.
+     */
+    private TransactionResult sellAll(Client client, List<Basket.Item> items) throws IOException {
+        if (items.isEmpty()) return TransactionResult.INVALID_QUANTITY;
+        for (Basket.Item item : items) {
+            if (item.getNumberOfTickets() <= 0) return TransactionResult.INVALID_QUANTITY;
+        }
+        if (client.getHoldingCount() + countNewEvents(client, items) > Client.MAX_EVENTS) {
+            return TransactionResult.EVENT_LIMIT;
+        }
+
+        long sequence = 0;
+        int[][] seats;
+        stateLock.readLock().lock();
+        try {
+            for (int i = 0; i < items.size(); i++) {
+                Event event = items.get(i).getEvent();
+                int remaining = event.tryReserve(items.get(i).getNumberOfTickets());
+                if (remaining < 0) {
+                    releaseAll(items, i);
+                    if (~remaining == 0) {
+                        soldOut(client, event);
+                        return TransactionResult.SOLD_OUT;
+                    }
+                    return TransactionResult.NOT_ENOUGH_TICKETS;
+                }
+            }
+            synchronized (client) {
+                seats = addHoldings(client, items);
+                if (seats == null) {
+                    releaseAll(items, items.size());
+                    return TransactionResult.EVENT_LIMIT;
+                }
+                try {
+                    sequence = journalBasket(client, items, seats);
+                } catch (IOException e) {
+                    removeHoldings(client, items, seats);
+                    releaseAll(items, items.size());
+                    throw e;
+                }
+            }
+        } finally {
+            stateLock.readLock().unlock();
+        }
+
+        try {
+            awaitDurable(sequence);
+        } catch (IOException e) {
+            removeHoldings(client, items, seats);
+            releaseAll(items, items.size());
+            throw e;
+        }
+        return TransactionResult.SOLD;
+    }
+
+    /**
+     * Counts the events in a basket the client doesn't already hold tickets for.
+     */
+    private static int countNewEvents(Client client, List<Basket.Item> items) {
+        int newEvents = 0;
+        for (Basket.Item item : items) {
+            if (client.getTicketsHeld(item.getEvent()) == 0) newEvents++;
+        }
+        return newEvents;
+    }
+
+    /**
+     * Gives back the tickets reserved for the first n items of a basket.
+     */
+    private static void releaseAll(List<Basket.Item> items, int n) {
+        for (int i = 0; i < n; i++) {
+            items.get(i).getEvent().release(items.get(i).getNumberOfTickets());
+        }
+    }
+
+    /**
+     * Adds every item of a basket to a client's holdings, checking the event limit once for the whole basket under
+     * the client's lock.
+     *
+     * @return int[][] seats taken for each item, or null if the basket would take the client over the event limit, in
+     * which case nothing is added
+     */
+    private int[][] addHoldings(Client client, List<Basket.Item> items) {
+        synchronized (client) {
+            if (client.getHoldingCount() + countNewEvents(client, items) > Client.MAX_EVENTS) return null;
+            int[][] seats = new int[items.size()][];
+            for (int i = 0; i < items.size(); i++) {
+                seats[i] = addHolding(client, items.get(i).getEvent(), items.get(i).getNumberOfTickets());
+            }
+            return seats;
+        }
+    }
+
+    /**
+     * Takes every item of a basket back out of a client's holdings, with the seats it was given, when the basket
+     * couldn't be journalled.
+     */
+    private void removeHoldings(Client client, List<Basket.Item> items, int[][] seats) {
+        synchronized (client) {
+            for (int i = 0; i < items.size(); i++) {
+                removeHolding(client, items.get(i).getEvent(), items.get(i).getNumberOfTickets(), seats[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns tickets for an event from a client, giving them back to the event in the catalog. The tickets are then
+     * allocated to any clients on the event's waitlist.
+     *
+     * @param client Client returning the tickets
+     * @param event Event the tickets are for
+     * @param numberOfTickets int number of tickets to return
+     * @return TransactionResult outcome of the return
+     * @throws IOException if the return couldn't be written to the journal
+     */
+    TransactionResult returnTickets(Client client, Event event, int numberOfTickets) throws IOException {
+        return complete(beginReturn(client, event, numberOfTickets));
+    }
+
+    /**
+     * Returns particular seats for an event with a seat map, as described for {@link #returnTickets}. The return is
+     * refused unless the client holds every one of the seats.
+     *
+     * @param client Client returning the seats
+     * @param event Event the seats are for
+     * @param seats int[] seat numbers to return
+     * @return TransactionResult outcome of the return
+     * @throws IOException if the return couldn't be written to the journal
+     */
+    TransactionResult returnSeats(Client client, Event event, int[] seats) throws IOException {
+        return complete(beginSeatReturn(client, event, seats));
+    }
+
+    /**
+     * Package-private method to start a return, as described for {@link #returnTickets}, to be finished by
+     * {@link #complete(Pending)} as described for {@link #beginSale(Client, Event, int)}.
+     *
+     * @param client Client returning the tickets
+     * @param event Event the tickets are for
+     * @param numberOfTickets int number of tickets to return
+     * @return Pending return to complete
+     * @throws IOException if the return couldn't be added to the journal
+     */
+    Pending beginReturn(Client client, Event event, int numberOfTickets) throws IOException {
+        return beginReturn(client, event, numberOfTickets, null);
+    }
+
+    /**
+     * Package-private method to start a return of particular seats, as described for {@link #returnSeats}, to be
+     * finished by {@link #complete(Pending)}.
+     *
+     * @param client Client returning the seats
+     * @param event Event the seats are for
+     * @param seats int[] seat numbers to return
+     * @return Pending return to complete
+     * @throws IOException if the return couldn't be added to the journal
+     */
+    Pending beginSeatReturn(Client client, Event event, int[] seats) throws IOException {
+        if (event.getSeatMap() == null) {
+            return new Pending(TransactionJournal.RETURN, TransactionResult.SEATS_NOT_HELD, seats.length,
+                    System.nanoTime());
+        }
+        return beginReturn(client, event, seats.length, seats);
+    }
+
+    /**
+     * Starts a return, and of particular seats if they are given, counting it in the metrics as an error if it throws.
+     */
+    private Pending beginReturn(Client client, Event event, int numberOfTickets, int[] seats) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return giveBack(client, event, numberOfTickets, seats, start);
+        } catch (IOException | RuntimeException e) {
+            metrics.recordReturn(null, numberOfTickets, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a client to the waitlist for an event, then allocates any tickets already available to the waitlist, so a
+     * request that can be met straight away is.
+     *
+     * @param client Client waiting for tickets
+     * @param event Event the tickets are for
+     * @param numberOfTickets int number of tickets wanted
+     * @return TransactionResult WAITLISTED, or why the client couldn't join the waitlist
+     * @throws IOException if an allocation couldn't be written to the journal
+     */
+    TransactionResult joinWaitlist(Client client, Event event, int numberOfTickets) throws IOException {
+        if (numberOfTickets <= 0) return TransactionResult.INVALID_QUANTITY;
+        if (client.getHoldingCount() >= Client.MAX_EVENTS && client.getTicketsHeld(event) == 0) {
+            return TransactionResult.EVENT_LIMIT;
+        }
+        if (!waitlist.add(event, client, numberOfTickets)) return TransactionResult.ALREADY_WAITLISTED;
+        allocateWaitlist(event);
+        return TransactionResult.WAITLISTED;
+    }
+
+    /**
+     * Package-private method to add events, extra tickets and clients read from the roster delta file while sales are
+     * running. The batch is journalled together with how far into the delta file it was read, then new events and
+     * clients are merged in as one batch each and the extra tickets put on sale, all under the state lock's read lock
+     * like a sale, so a checkpoint has either the whole batch and its delta offset or neither. Each delta line is
+     * therefore applied exactly once, whether the box office restarts from the snapshot or the journal. Extra tickets
+     * are then allocated to the events' waitlists. Events with a seat map have exactly as many free seats as tickets
+     * remaining, so they must not be given extra tickets.
+     *
+     * @param newEvents List of events to add
+     * @param extraTickets Map from existing event to the number of extra tickets to put on sale
+     * @param newClients List of clients to register
+     * @param deltaOffset long offset in the delta file just after the batch
+     * @throws IOException if the batch or an allocation from a waitlist couldn't be written to the journal
+     */
+    void addToRoster(List<Event> newEvents, Map<Event, Integer> extraTickets, List<Client> newClients,
+                     long deltaOffset) throws IOException {
+        boolean empty = newEvents.isEmpty() && extraTickets.isEmpty() && newClients.isEmpty();
+        long sequence = 0;
+        stateLock.readLock().lock();
+        try {
+            if (inventory != null) inventory.attach(newEvents);
+            if (journal != null && !empty) {
+                sequence = journal.appendRoster(newEvents, extraTickets, newClients, deltaOffset);
+            }
+            events.merge(newEvents);
+            clients.merge(newClients);
+            for (Map.Entry<Event, Integer> entry : extraTickets.entrySet()) {
+                entry.getKey().release(entry.getValue());
+            }
+            rosterOffset = deltaOffset;
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        awaitDurable(sequence);
+        for (Event event : extraTickets.keySet()) {
+            allocateWaitlist(event);
+        }
+    }
+
+    /**
+     * Package-private method to apply a batch of roster additions read back from the journal, as plain changes like
+     * {@link #applyJournalled}. Extra tickets aren't added to the counts of a shared inventory file, which already
+     * has them.
+     *
+     * @param newEvents List of events to add
+     * @param extraTickets Map from existing event to the number of extra tickets
+     * @param newClients List of clients to register
+     * @param deltaOffset long offset in the delta file just after the batch
+     * @throws IOException if new events can't be added to the shared inventory file
+     */
+    void applyJournalledRoster(List<Event> newEvents, Map<Event, Integer> extraTickets, List<Client> newClients,
+                               long deltaOffset) throws IOException {
+        if (inventory != null) inventory.attach(newEvents);
+        events.merge(newEvents);
+        clients.merge(newClients);
+        if (inventory == null) {
+            for (Map.Entry<Event, Integer> entry : extraTickets.entrySet()) {
+                Event event = entry.getKey();
+                event.setTicketsRemaining(event.getTicketsRemaining() + entry.getValue());
+            }
+        }
+        rosterOffset = deltaOffset;
+    }
+
+    /**
+     * Package-private method to get how far into the roster delta file has been applied, which is saved with each
+     * snapshot
+     * @return long offset in the delta file of the first line not yet applied
+     */
+    long getRosterOffset() {
+        return rosterOffset;
+    }
+
+    /**
+     * Package-private method to set how far into the roster delta file has been applied, from a loaded snapshot
+     * @param rosterOffset long offset in the delta file of the first line not yet applied
+     */
+    void setRosterOffset(long rosterOffset) {
+        this.rosterOffset = rosterOffset;
+    }
+
+    /**
+     * Package-private method to get the clients waiting for tickets to an event, front of the queue first
+     * @param event Event to list the waitlist of
+     * @return List of waiting requests, empty if nobody is waiting
+     */
+    List<Waitlist.Request> getWaitlist(Event event) {
+        return waitlist.get(event);
+    }
+
+    /**
+     * Allocates the tickets remaining for an event to its waitlist in order, until the next request wants more
+     * tickets than remain. A client who has reached the 3-event limit since joining is taken off the waitlist and
+     * sent a letter saying so; every other client allocated tickets is sent a letter telling them. Every release of
+     * tickets is followed by a call to this, and the waitlist serialises the calls for an event, so tickets released
+     * while another desk is allocating are looked at once it has finished.
+     *
+     * Only applying each sale and appending it to the journal happens under the waitlist's lock. The wait for the
+     * journal and the letters come after the lock is released, so the next desk can allocate while this one waits
+     * for the disk. A request whose sale couldn't be written to the journal is undone and put back in its place.
+     */
+    private void allocateWaitlist(Event event) throws IOException {
+        List<Waitlist.Request> requests = new ArrayList<>();
+        List<Pending> sales = new ArrayList<>();
+        IOException failure = null;
+        try {
+            waitlist.allocate(event, request -> {
+                Pending sale = beginSale(request.getClient(), event, request.getTickets(), true);
+                if (sale.result != TransactionResult.SOLD && sale.result != TransactionResult.EVENT_LIMIT) {
+                    // another desk sold the tickets first, so wait for the next return
+                    complete(sale);
+                    return false;
+                }
+                requests.add(request);
+                sales.add(sale);
+                return true;
+            });
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        for (int i = 0; i < sales.size(); i++) {
+            Waitlist.Request request = requests.get(i);
+            try {
+                TransactionResult result;
+                try {
+                    result = complete(sales.get(i));
+                } catch (IOException e) {
+                    waitlist.putBack(event, request);
+                    throw e;
+                }
+                if (result == TransactionResult.SOLD) {
+                    getLetters().sendAllocatedLetter(request.getClient(), event, request.getTickets());
+                } else {
+                    getLetters().sendWaitlistCancelledLetter(request.getClient(), event);
+                }
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Applies the rules for a return, as described for {@link #returnTickets}.
+     */
+    private Pending giveBack(Client client, Event event, int numberOfTickets, int[] seats, long start)
+            throws IOException {
+        byte type = TransactionJournal.RETURN;
+        if (numberOfTickets <= 0) return new Pending(type, TransactionResult.INVALID_QUANTITY, numberOfTickets, start);
+
+        stateLock.readLock().lock();
+        try {
+            synchronized (client) {
+                if (client.getTicketsHeld(event) < numberOfTickets) {
+                    return new Pending(type, TransactionResult.NOT_ENOUGH_HELD, numberOfTickets, start);
+                }
+                int[] freed = removeHolding(client, event, numberOfTickets, seats);
+                if (freed == null) {
+                    return new Pending(type, seats == null ? TransactionResult.NOT_ENOUGH_HELD
+                            : TransactionResult.SEATS_NOT_HELD, numberOfTickets, start);
+                }
+                event.release(numberOfTickets);
+                try {
+                    long sequence = journal(type, client, event, numberOfTickets, freed);
+                    return new Pending(type, TransactionResult.RETURNED, client, event, numberOfTickets, freed,
+                            sequence, start);
+                } catch (IOException e) {
+                    throw undoReturn(client, event, numberOfTickets, freed, e);
+                }
+            }
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Puts returned tickets, and the seats they were for, back in a client's holding when the return couldn't be
+     * written to the journal. The tickets went back to the event before the journal was written, so another desk may
+     * have sold them or the seats in the meantime; the holding is then left as it is rather than overselling the
+     * event, and the failure says the return stood.
+     *
+     * @return IOException to throw, the journal's failure or one reporting that the return couldn't be undone
+     */
+    private IOException undoReturn(Client client, Event event, int numberOfTickets, int[] seats,
+                                   IOException failure) {
+        if (event.tryReserve(numberOfTickets) >= 0) {
+            synchronized (client) {
+                if (client.addTickets(event, numberOfTickets)) {
+                    SeatMap seatMap = event.getSeatMap();
+                    if (seatMap == null || seatMap.claim(client, seats)) {
+                        attendees.add(event, client);
+                        return failure;
+                    }
+                    client.removeTickets(event, numberOfTickets);
+                }
+            }
+            event.release(numberOfTickets);
+        }
+        return new IOException(client.getFullName() + "'s return of " + numberOfTickets + " tickets for "
+                + event.getName() + " couldn't be journalled, and the tickets have already been sold again", failure);
+    }
+
+    /**
+     * Adds tickets to a client's holding and records the client as an attendee of the event, as one step under the
+     * client's lock. If the event has a seat map the best available seats are taken for the client. The tickets must
+     * already have been reserved from the event, so there are always enough free seats.
+     *
+     * @return int[] seats taken for the client, empty if the event has no seat map, or null if the tickets would take
+     * the client over the event limit
+     */
+    private int[] addHolding(Client client, Event event, int numberOfTickets) {
+        synchronized (client) {
+            if (!client.addTickets(event, numberOfTickets)) return null;
+            SeatMap seatMap = event.getSeatMap();
+            int[] seats = seatMap == null ? null : seatMap.allocate(client, numberOfTickets);
+            attendees.add(event, client);
+            return seats == null ? NO_SEATS : seats;
+        }
+    }
+
+    /**
+     * Takes tickets from a client's holding, removing the client from the event's attendees if they have none left,
+     * as one step under the client's lock. If the event has a seat map the given seats are freed, or if no seats are
+     * given the client's worst seats. Seats are freed before the tickets go back to the event.
+     *
+     * @param seats int[] seats to free, or null for any of the client's seats
+     * @return int[] seats freed, empty if the event has no seat map, or null if the client doesn't hold that many
+     * tickets or doesn't hold the given seats
+     */
+    private int[] removeHolding(Client client, Event event, int numberOfTickets, int[] seats) {
+        synchronized (client) {
+            if (client.getTicketsHeld(event) < numberOfTickets) return null;
+            SeatMap seatMap = event.getSeatMap();
+            int[] freed = NO_SEATS;
+            if (seatMap != null) {
+                if (seats == null) {
+                    freed = seatMap.releaseAny(client, numberOfTickets);
+                } else if (seatMap.release(client, seats)) {
+                    freed = seats;
+                } else {
+                    return null;
+                }
+            }
+            if (!client.removeTickets(event, numberOfTickets)) return null;
+            if (client.getTicketsHeld(event) == 0) attendees.remove(event, client);
+            return freed;
+        }
+    }
+
+    /**
+     * Package-private method to apply a sale or return read back from the journal. The record is applied as a plain
+     * change to the client's holding and the event's count, without applying the rules again, allocating to the
+     * waitlist, counting it in the metrics or sending letters: the sale or return was accepted when it was made, and
+     * another client's record that freed the tickets for it may come later in the journal. An event's count may
+     * therefore go below zero part way through a replay, but is right once every record has been applied. Events
+     * kept in an inventory file already have every sale and return in their counts, so only the holding is changed.
+     *
+     * For an event with a seat map the client is given, or gives back, exactly the seats in the record. A record with
+     * no seats was made before the event had a seat map, and its tickets take or give back seats held by nobody in
+     * particular, as they would have had the seat map been loaded afterwards.
+     *
+     * @param type byte TransactionJournal.SELL or TransactionJournal.RETURN
+     * @param client Client who bought or returned the tickets
+     * @param event Event the tickets are for
+     * @param numberOfTickets int number of tickets sold or returned
+     * @param seats int[] seats sold or returned, empty or null if the record has none
+     * @return boolean false if the client's holdings can't take the change, which a valid journal never asks for
+     */
+    boolean applyJournalled(byte type, Client client, Event event, int numberOfTickets, int[] seats) {
+        if (numberOfTickets <= 0) return false;
+        SeatMap seatMap = event.getSeatMap();
+        boolean seated = seatMap != null && seats != null && seats.length > 0;
+        int change;
+        synchronized (client) {
+            if (type == TransactionJournal.SELL) {
+                if (!client.addTickets(event, numberOfTickets)) return false;
+                if (seated) {
+                    seatMap.restore(client, seats);
+                } else if (seatMap != null) {
+                    seatMap.blockOff(Math.min(numberOfTickets, seatMap.getFree()));
+                }
+                attendees.add(event, client);
+                change = -numberOfTickets;
+            } else if (type == TransactionJournal.RETURN) {
+                if (!client.removeTickets(event, numberOfTickets)) return false;
+                if (seated) {
+                    seatMap.restoreReturn(client, seats);
+                } else if (seatMap != null) {
+                    seatMap.releaseAny(client, numberOfTickets);
+                }
+                if (client.getTicketsHeld(event) == 0) attendees.remove(event, client);
+                change = numberOfTickets;
+            } else {
+                return false;
+            }
+        }
+        if (inventory == null) event.setTicketsRemaining(event.getTicketsRemaining() + change);
+        return true;
+    }
+
+    /**
+     * Package-private method to get the clients attending an event and the number of tickets each holds, sorted by
+     * client, for gate lists and for contacting attendees. The first call builds the attendee index from every
+     * client's holdings; after that the time taken depends only on the number of attendees.
+     *
+     * @param event Event to list the attendees of
+     * @return List of attendees, empty if nobody holds tickets for the event
+     */
+    List<AttendeeIndex.Attendee> getAttendees(Event event) {
+        if (!attendees.isBuilt()) {
+            stateLock.writeLock().lock();
+            try {
+                if (!attendees.isBuilt()) attendees.build(clients);
+            } finally {
+                stateLock.writeLock().unlock();
+            }
+        }
+        return attendees.get(event);
+    }
+
+    /**
+     * Package-private method to count the sales of every event and the number of events each client holds tickets
+     * for. The clients and events are counted in parallel while sales and returns go on, taking only each client's
+     * lock in turn, so a report doesn't hold up the desks. Each client's figures are exact; the event totals may be
+     * out by the sales and returns in progress while they were counted.
+     *
+     * @return SalesAnalytics figures for the events and clients
+     */
+    SalesAnalytics getAnalytics() {
+        return SalesAnalytics.count(events, clients);
+    }
+
+    /**
+     * Appends a record to the journal, if there is one, with the seats the sale took or the return gave back.
+     *
+     * @return long sequence number of the record, or 0 if there is no journal
+     */
+    private long journal(byte type, Client client, Event event, int numberOfTickets, int[] seats)
+            throws IOException {
+        if (journal == null) return 0;
+        return journal.append(type, client.getFullName(), event.getName(), numberOfTickets, seats);
+    }
+
+    /**
+     * Appends a single record of a whole basket to the journal, if there is one, so a crash can't leave only part of
+     * the basket on disk.
+     *
+     * @return long sequence number of the record, or 0 if there is no journal
+     */
+    private long journalBasket(Client client, List<Basket.Item> items, int[][] seats) throws IOException {
+        if (journal == null) return 0;
+        String[] eventNames = new String[items.size()];
+        int[] tickets = new int[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            eventNames[i] = items.get(i).getEvent().getName();
+            tickets[i] = items.get(i).getNumberOfTickets();
+        }
+        return journal.appendBasket(client.getFullName(), eventNames, tickets, seats);
+    }
+
+    /**
+     * Waits for a journal record to reach the disk, unless there is no journal or commits aren't being synced.
+     */
+    private void awaitDurable(long sequence) throws IOException {
+        if (sequence > 0 && syncOnCommit) journal.awaitDurable(sequence);
+    }
+
+    /**
+     * Refuses a client tickets for an event a desk has found sold out before trying to sell any, e.g. when the menu
+     * shows the event has none left. The refusal is counted against the event and in the metrics and the client is
+     * sent a letter, exactly as for a sale refused because the event had sold out.
+     *
+     * @param client Client refused tickets
+     * @param event Event with no tickets remaining
+     * @return TransactionResult SOLD_OUT
+     * @throws IOException if earlier letters couldn't be written
+     */
+    TransactionResult refuseSoldOut(Client client, Event event) throws IOException {
+        long start = System.nanoTime();
+        TransactionResult result = null;
+        try {
+            soldOut(client, event);
+            result = TransactionResult.SOLD_OUT;
+            return result;
+        } finally {
+            metrics.recordSale(result, 0, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Counts a sale refused because the event has sold out against the event and sends the client a letter saying so.
+     */
+    private void soldOut(Client client, Event event) throws IOException {
+        event.recordRefusal();
+        noTicketsLetter(client, event);
+    }
+
+    /**
+     * Method to send a letter to the client informing them that there are no tickets remaining for the selected event.
+     * The letter is queued on the box office's LetterSpooler, which writes it in the background.
+     *
+     * @param client Client letter is addressed to
+     * @param event Event where no tickets are available
+     * @throws IOException if earlier letters couldn't be written
+     */
+    private void noTicketsLetter(Client client, Event event) throws IOException {
+        long start = System.nanoTime();
+        try {
+            getLetters().sendNoTicketsLetter(client, event);
+        } finally {
+            metrics.recordLetter(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Finds a registered client by name, recording the time the lookup took.
+     *
+     * @param fullName String client's full name, in any case and spacing
+     * @return Client matching client, or null if there isn't one
+     */
+    Client findClient(String fullName) {
+        long start = System.nanoTime();
+        Client client = clients.get(fullName);
+        metrics.recordLookup(System.nanoTime() - start);
+        return client;
+    }
+
+    /**
+     * Suggests the full names of registered clients for a name that wasn't found: names it is the start of, then
+     * names a typing mistake or two away from it.
+     *
+     * @param fullName String name that was typed
+     * @return List of up to five full names, best first
+     */
+    List<String> suggestClients(String fullName) {
+        List<String> names = new ArrayList<>();
+        for (Client client : clients.suggest(fullName, SUGGESTIONS)) {
+            names.add(client.getFullName());
+        }
+        return names;
+    }
+
+    /**
+     * Suggests the names of events for a name that wasn't found: names it is the start of, then names a typing
+     * mistake or two away from it.
+     *
+     * @param name String name that was typed
+     * @return List of up to five event names, best first
+     */
+    List<String> suggestEvents(String name) {
+        List<String> names = new ArrayList<>();
+        for (Event event : events.suggest(name, SUGGESTIONS)) {
+            names.add(event.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Finds an event by name, recording the time the lookup took.
+     *
+     * @param name String event name, in any case and spacing
+     * @return Event matching event, or null if there isn't one
+     */
+    Event findEvent(String name) {
+        long start = System.nanoTime();
+        Event event = events.get(name);
+        metrics.recordLookup(System.nanoTime() - start);
+        return event;
+    }
+
+    /**
+     * Package-private method to get the counters and latency histograms of this box office
+     * @return Metrics metrics of this box office
+     */
+    Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Package-private method to get the spooler letters are sent through. When the box office was given a letter
+     * file, the spooler is started the first time a letter is sent.
+     * @return LetterSpooler spooler letters are sent through
+     */
+    synchronized LetterSpooler getLetters() {
+        if (letters == null) {
+            letters = new LetterSpooler(letterFile, false, LETTER_QUEUE_CAPACITY);
+        }
+        return letters;
+    }
+
+    /**
+     * Writes any letters still waiting to be sent and closes the journal and inventory file.
+     *
+     * @throws IOException if the letters, journal or inventory couldn't be written
+     */
+    @Override
+    public void close() throws IOException {
+        LetterSpooler spooler;
+        synchronized (this) {
+            spooler = letters;
+        }
+        try {
+            if (spooler != null) spooler.close();
+        } finally {
+            try {
+                if (journal != null) journal.close();
+            } finally {
+                if (inventory != null) inventory.close();
+            }
+        }
+    }
+
+    /**
+     * A sale or return started with {@link #beginSale} or {@link #beginReturn}. One that was applied has been added
+     * to the journal but may not be on disk yet; one that was refused only carries the reason.
+     */
+    static final class Pending {
+        private final byte type;
+        private final TransactionResult result;
+        private final Client client;
+        private final Event event;
+        private final int tickets;
+        private final int[] seats;
+        private final long sequence;
+        private final long start;
+
+        private Pending(byte type, TransactionResult result, int tickets, long start) {
+            this(type, result, null, null, tickets, null, 0, start);
+        }
+
+        private Pending(byte type, TransactionResult result, Client client, Event event, int tickets, int[] seats,
+                        long sequence, long start) {
+            this.type = type;
+            this.result = result;
+            this.client = client;
+            this.event = event;
+            this.tickets = tickets;
+            this.seats = seats;
+            this.sequence = sequence;
+            this.start = start;
+        }
+    }
+}
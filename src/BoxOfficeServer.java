@@ -0,0 +1,288 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code BoxOfficeServer} class lets several ticket desks share one {@link BoxOffice} over a socket on the local
+ * machine. Each connection is a session which sends one command per line and gets the reply straight back:
+ *
+ * <pre>
+ *     EVENTS                                  one line per event: name, tab, tickets remaining, then END
+ *     CLIENTS                                 one line per client with the events they are attending, then END
+ *     ATTENDEES event-name                    one line per attendee: name, tab, tickets held, then END
+ *     ANALYTICS                               the sales analytics report, then END
+ *     SELL   client-full-name event-name n    RESULT message, e.g. SOLD Tickets sold
+ *     RETURN client-full-name event-name n    RESULT message, e.g. RETURNED Tickets returned
+ *     WAIT   client-full-name event-name n    RESULT message, e.g. WAITLISTED Added to the waitlist
+ *     BASKET client-full-name, event-name n, ...
+ *                                             RESULT message, SOLD only if every event's tickets were sold
+ *     SEATS  client-full-name, event-name, seat-number ...
+ *                                             RESULT message, RETURNED only if the client held every seat
+ *     METRICS                                 the box office's metrics as one line of JSON
+ *     QUIT                                    BYE, then the connection is closed
+ * </pre>
+ *
+ * SELL, RETURN, WAIT, BASKET and SEATS take the same form as the lines of a batch file and are parsed by
+ * {@link BatchProcessor}. Anything else gets {@code BAD_COMMAND}.
+ *
+ * Every session runs on its own thread. Where the JVM supports virtual threads (Java 21 and later) each session gets
+ * a virtual thread, so thousands of idle desks cost very little; on older JVMs sessions run on a cached pool of
+ * ordinary threads instead. With shards, sales, returns and waitlist requests are handed to a {@link ShardedEngine}
+ * rather than run on the session's own thread.
+ *
+ * @author Andrew Brown
+ */
+public class BoxOfficeServer implements Closeable {
+    private static final String NEWLINE = "\n";
+    private static final int ENGINE_QUEUE_CAPACITY = 4096;
+
+    private final BoxOffice boxOffice;
+    private final ShardedEngine engine;
+    private final BatchProcessor commands;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions;
+    private final Thread acceptThread;
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong sessionCount = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Constructor which binds the server to the loopback address and starts accepting connections.
+     *
+     * @param boxOffice BoxOffice shared by every session
+     * @param port int port to listen on, or 0 to pick any free port
+     * @throws IOException if the port can't be bound
+     */
+    BoxOfficeServer(BoxOffice boxOffice, int port) throws IOException {
+        this(boxOffice, port, 0);
+    }
+
+    /**
+     * Constructor which binds the server to the loopback address and starts accepting connections, running sales,
+     * returns and waitlist requests on a ShardedEngine.
+     *
+     * @param boxOffice BoxOffice shared by every session
+     * @param port int port to listen on, or 0 to pick any free port
+     * @param shards int number of ShardedEngine shards, or 0 to call the box office directly from each session
+     * @throws IOException if the port can't be bound
+     */
+    BoxOfficeServer(BoxOffice boxOffice, int port, int shards) throws IOException {
+        this.boxOffice = boxOffice;
+        this.engine = shards > 0 ? new ShardedEngine(boxOffice, shards, ENGINE_QUEUE_CAPACITY) : null;
+        this.commands = new BatchProcessor(boxOffice, engine);
+        this.serverSocket = new ServerSocket(port, 4096, InetAddress.getLoopbackAddress());
+        this.sessions = newSessionExecutor();
+        this.acceptThread = new Thread(this::acceptLoop, "box-office-accept");
+        this.acceptThread.start();
+    }
+
+    /**
+     * Creates an executor which runs each task on a new virtual thread if the JVM has them, or on a cached pool of
+     * daemon threads if it doesn't. The build targets Java 11, which has no virtual threads, so
+     * {@code Executors.newVirtualThreadPerTaskExecutor} is looked up by reflection and used only when the JVM running
+     * the server is Java 21 or later.
+     *
+     * @return ExecutorService executor to run sessions on
+     */
+    static ExecutorService newSessionExecutor() {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "box-office-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Package-private method to get the address the server is listening on
+     * @return InetSocketAddress loopback address and port
+     */
+    InetSocketAddress getAddress() {
+        return new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+    }
+
+    /**
+     * Package-private method to get the number of commands handled so far
+     * @return long number of commands
+     */
+    long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Package-private method to get the number of sessions accepted so far
+     * @return long number of sessions
+     */
+    long getSessions() {
+        return sessionCount.get();
+    }
+
+    /**
+     * Body of the accept thread. Hands each new connection to the session executor until the server is closed.
+     */
+    private void acceptLoop() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!closed) System.err.println("Box office server stopped accepting: " + e.getMessage());
+                return;
+            }
+            sessionCount.incrementAndGet();
+            openSockets.add(socket);
+            try {
+                sessions.execute(() -> serve(socket));
+            } catch (RuntimeException e) {
+                openSockets.remove(socket);
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    /**
+     * Runs one session, reading commands and writing replies until the desk sends QUIT or disconnects.
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.trim();
+                if (command.isEmpty()) continue;
+                requests.incrementAndGet();
+                if (!handle(command, out)) break;
+                out.flush();
+            }
+            out.flush();
+        } catch (SocketException e) {
+            // the desk disconnected or the server is closing
+        } catch (IOException e) {
+            if (!closed) System.err.println("Box office session failed: " + e.getMessage());
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    /**
+     * Runs a single command and writes its reply.
+     *
+     * @param command String trimmed command line
+     * @param out Writer to write the reply to
+     * @return boolean false if the session should end
+     */
+    boolean handle(String command, Writer out) throws IOException {
+        int space = command.indexOf(' ');
+        String verb = (space < 0 ? command : command.substring(0, space)).toUpperCase();
+        switch (verb) {
+            case "EVENTS":
+                for (Event e : boxOffice.getEvents()) {
+                    out.write(e.getName());
+                    out.write('\t');
+                    out.write(Integer.toString(e.getTicketsRemaining()));
+                    out.write(NEWLINE);
+                }
+                out.write("END" + NEWLINE);
+                return true;
+
+            case "CLIENTS":
+                for (Client c : boxOffice.getClients()) {
+                    out.write(c.toString(boxOffice.getEvents()));
+                    out.write(NEWLINE);
+                }
+                out.write("END" + NEWLINE);
+                return true;
+
+            case "ATTENDEES":
+                Event event = space < 0 ? null : boxOffice.findEvent(command.substring(space + 1));
+                if (event == null) {
+                    TransactionResult unknown = TransactionResult.UNKNOWN_EVENT;
+                    out.write(unknown.name() + " " + unknown.getMessage() + NEWLINE);
+                    return true;
+                }
+                for (AttendeeIndex.Attendee attendee : boxOffice.getAttendees(event)) {
+                    out.write(attendee.getClient().getFullName());
+                    out.write('\t');
+                    out.write(Integer.toString(attendee.getTickets()));
+                    out.write(NEWLINE);
+                }
+                out.write("END" + NEWLINE);
+                return true;
+
+            case "ANALYTICS":
+                out.write(boxOffice.getAnalytics().toString().replace(System.lineSeparator(), NEWLINE));
+                out.write("END" + NEWLINE);
+                return true;
+
+            case "METRICS":
+                out.write(boxOffice.getMetrics().getJson());
+                out.write(NEWLINE);
+                return true;
+
+            case "QUIT":
+                out.write("BYE" + NEWLINE);
+                return false;
+
+            default:
+                TransactionResult result = commands.execute(command);
+                out.write(result.name());
+                out.write(' ');
+                out.write(result.getMessage());
+                out.write(NEWLINE);
+                return true;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // nothing more can be done
+        }
+    }
+
+    /**
+     * Stops accepting connections, disconnects every open session and waits for the sessions to finish. The box
+     * office itself is left open so the caller can save a snapshot.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket socket : openSockets) {
+            closeQuietly(socket);
+        }
+        sessions.shutdown();
+        try {
+            acceptThread.join();
+            sessions.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (engine != null) engine.close();
+    }
+}
@@ -1,17 +1,32 @@
 /**
  * The {@code Client} class is used to represent a clients who attend a World Sports Championship. The class holds
- * the First and Last name of the client along with a list of events they are attending.
+ * the First and Last name of the client along with the tickets they hold. A client can hold tickets for at most
+ * {@link #MAX_EVENTS} events. Changes to the client's tickets are synchronised on the client so that two sales desks
+ * serving the same client can't push them over the limit.
+ *
+ * As a client can only ever hold tickets for three events, the holdings are kept in three long fields rather than a
+ * list of Event objects, each packing one more than an event's catalog ID into the high 32 bits and the number of
+ * tickets held into the low 32 bits, so an unused field is zero and the fields in use are the number of holdings.
+ * This keeps a client with tickets down to a single object. Events are referred to by the ID the
+ * {@link EventCatalog} gave them, and the client keeps a reference to that catalog in place of a count, so the names
+ * are looked up in the catalog only when the holdings are displayed.
  *
  * @author Andrew Brown
  */
 public class Client implements Comparable<Client> {
+    static final int MAX_EVENTS = 3;
+
     private String firstName;
     private String lastName;
-    private SortedArrayList<Event> eventsAttending;
+    private String fullName;
+    private String nameKey;
+    private long holding0;
+    private long holding1;
+    private long holding2;
+    private EventCatalog catalog;
 
     /**
-     * Constructor taking two strings for first and last name. Instantiated object has an empty SortedArrayList
-     * to hold the events the client will attend.
+     * Constructor taking two strings for first and last name. The instantiated client holds no tickets.
      *
      * @param firstName String representing client's first name
      * @param lastName String representing client's last name
@@ -19,7 +34,8 @@ public class Client implements Comparable<Client> {
     Client(String firstName, String lastName) {
         this.firstName = firstName;
         this.lastName = lastName;
-        eventsAttending = new SortedArrayList<>();
+        this.fullName = lastName.isEmpty() ? firstName : firstName + " " + lastName;
+        this.nameKey = Names.normalize(fullName);
     }
 
     /**
@@ -40,41 +56,196 @@ public class Client implements Comparable<Client> {
 
     /**
      * Package-private method to get the client's full name
-     * @return String Concatenation of firstName and lastName with a space between
+     * @return String Concatenation of firstName and lastName with a space between, or just firstName for a client
+     * with a single name
      */
     String getFullName() {
-        return firstName + " " + lastName;
+        return fullName;
+    }
+
+    /**
+     * Package-private method to get the key used to index the client by name. The key is the normalised full name and
+     * is worked out once when the client is created.
+     * @return String Normalised full name
+     */
+    String getNameKey() {
+        return nameKey;
+    }
+
+    /**
+     * Package-private method to get the number of events the client holds tickets for
+     * @return int number of events, from 0 to {@link #MAX_EVENTS}
+     */
+    synchronized int getHoldingCount() {
+        return holdingCount();
+    }
+
+    /**
+     * Package-private method to get the catalog ID of the event in one of the client's holdings. Holdings are in no
+     * particular order, and the order changes when a holding is removed.
+     * @param index int holding, from 0 to getHoldingCount() - 1
+     * @return int ID of the event
+     */
+    synchronized int getHoldingEventId(int index) {
+        return eventId(holding(index));
+    }
+
+    /**
+     * Package-private method to get the number of tickets in one of the client's holdings
+     * @param index int holding, from 0 to getHoldingCount() - 1
+     * @return int number of tickets held
+     */
+    synchronized int getHoldingTickets(int index) {
+        return tickets(holding(index));
+    }
+
+    /**
+     * Package-private method to get how many tickets the client holds for an event
+     * @param event Event to check
+     * @return int number of tickets held, 0 if the client has no tickets for the event
+     */
+    synchronized int getTicketsHeld(Event event) {
+        int index = find(event.getId());
+        return index < 0 ? 0 : tickets(holding(index));
     }
 
     /**
-     * Package-private method to get a list of events the client is attending
+     * Package-private method to get the events the client is attending, for display. Each entry is a new Event named
+     * after the catalog's event and holding the number of tickets the client has, sorted by name. Nothing in the list
+     * is shared with the client, so it can be kept or changed freely.
+     * @param catalog EventCatalog the holdings' event IDs refer to
      * @return SortedArrayList List of events client is attending
      */
-    SortedArrayList<Event> getEventsAttending() {
-        return eventsAttending;
+    synchronized SortedArrayList<Event> getEventsAttending(EventCatalog catalog) {
+        int count = holdingCount();
+        SortedArrayList<Event> view = new SortedArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long holding = holding(i);
+            Event event = catalog.get(eventId(holding));
+            view.add(new Event(event == null ? "#" + eventId(holding) : event.getName(), tickets(holding)));
+        }
+        return view;
+    }
+
+    /**
+     * Package-private method to add tickets for an event to the client. If the client already has tickets for the
+     * event the new tickets are added to the holding, otherwise a new holding is created as long as the client has
+     * tickets for fewer than {@link #MAX_EVENTS} events.
+     * @param event Event the tickets are for, which must have been added to an EventCatalog
+     * @param numberOfTickets int number of tickets to add
+     * @return boolean false if the tickets would take the client over the event limit, true otherwise
+     * @throws IllegalArgumentException if the event hasn't been given an ID by a catalog
+     */
+    synchronized boolean addTickets(Event event, int numberOfTickets) {
+        int eventId = event.getId();
+        if (eventId < 0) throw new IllegalArgumentException(event.getName() + " is not in an event catalog");
+        int index = find(eventId);
+        if (index >= 0) {
+            setHolding(index, pack(eventId, tickets(holding(index)) + numberOfTickets));
+            return true;
+        }
+        int count = holdingCount();
+        if (count >= MAX_EVENTS) return false;
+        setHolding(count, pack(eventId, numberOfTickets));
+        catalog = event.getCatalog();
+        return true;
+    }
+
+    /**
+     * Package-private method to take tickets for an event away from the client. If all of the client's tickets for the
+     * event are removed, the holding is removed too.
+     * @param event Event the tickets are for
+     * @param numberOfTickets int number of tickets to remove
+     * @return boolean false if the client doesn't hold that many tickets for the event, true otherwise
+     */
+    synchronized boolean removeTickets(Event event, int numberOfTickets) {
+        int index = find(event.getId());
+        if (index < 0) return false;
+        int held = tickets(holding(index));
+        if (held < numberOfTickets) return false;
+        if (held == numberOfTickets) {
+            removeHolding(index);
+        } else {
+            setHolding(index, pack(event.getId(), held - numberOfTickets));
+        }
+        return true;
+    }
+
+    /**
+     * Package-private method to remove all of the client's tickets for an event.
+     * @param event Event event to remove, nothing happens if the client has no tickets for it
+     */
+    synchronized void removeEventFromClient(Event event) {
+        int index = find(event.getId());
+        if (index >= 0) removeHolding(index);
     }
 
     /**
-     * Package-private method to add an event to the client's list of events by instantiating a new Event object.
-     * @param eventName String name of event
-     * @param numberOfTickets Integer number of tickets client purhcases
+     * Finds the holding for an event ID.
+     * @return int index of the holding, or -1 if the client has no tickets for the event
      */
-    void addEventToClient(String eventName, int numberOfTickets) {
-        eventsAttending.add(new Event(eventName, numberOfTickets));
+    private int find(int eventId) {
+        for (int i = 0, count = holdingCount(); i < count; i++) {
+            if (eventId(holding(i)) == eventId) return i;
+        }
+        return -1;
     }
 
     /**
-     * Package-private method to remove an event from the client's list of events.
-     * @param event Event event to remove, checks client's list to make sure the event is present before removal
+     * Removes a holding by moving the last holding into its place.
      */
-    void removeEventFromClient(Event event) {
-        Event eventToRemove = null;
-        for (Event e : eventsAttending) {
-            if (e.equals(event)) {
-                eventToRemove = e;
-            }
+    private void removeHolding(int index) {
+        int last = holdingCount() - 1;
+        setHolding(index, holding(last));
+        setHolding(last, 0);
+    }
+
+    /**
+     * Counts the holdings, which are always the first fields.
+     */
+    private int holdingCount() {
+        return holding2 != 0 ? 3 : holding1 != 0 ? 2 : holding0 != 0 ? 1 : 0;
+    }
+
+    private long holding(int index) {
+        switch (index) {
+            case 0:
+                return holding0;
+            case 1:
+                return holding1;
+            case 2:
+                return holding2;
+            default:
+                throw new IndexOutOfBoundsException("Holding " + index);
+        }
+    }
+
+    private void setHolding(int index, long holding) {
+        switch (index) {
+            case 0:
+                holding0 = holding;
+                break;
+            case 1:
+                holding1 = holding;
+                break;
+            case 2:
+                holding2 = holding;
+                break;
+            default:
+                throw new IndexOutOfBoundsException("Holding " + index);
         }
-        eventsAttending.remove(eventToRemove);
+    }
+
+    private static long pack(int eventId, int tickets) {
+        return ((long) (eventId + 1) << 32) | (tickets & 0xffffffffL);
+    }
+
+    private static int eventId(long holding) {
+        return (int) (holding >>> 32) - 1;
+    }
+
+    private static int tickets(long holding) {
+        return (int) holding;
     }
 
     /**
@@ -92,14 +263,27 @@ public class Client implements Comparable<Client> {
     }
 
     /**
-     * Prints the contents of the client object to string, in the format of name and list of events
+     * Prints the contents of the client object to string, in the format of name and list of events, with the event
+     * names looked up in the catalog
+     * @param catalog EventCatalog the holdings' event IDs refer to
      * @return String concatenation of client's full name and list of events attending
      */
-    @Override
-    public String toString() {
-        if (eventsAttending.size() == 0) return getFullName();
+    String toString(EventCatalog catalog) {
+        SortedArrayList<Event> events = getEventsAttending(catalog);
+        if (events.isEmpty()) return getFullName();
         else
-            return getFullName() + " " + eventsAttending;
+            return getFullName() + " " + events;
+    }
+
+    /**
+     * Prints the contents of the client object to string, in the format of name and list of events, with the event
+     * names looked up in the catalog the holdings' events belong to
+     * @return String concatenation of client's full name and list of events attending
+     */
+    @Override
+    public synchronized String toString() {
+        if (catalog == null || holdingCount() == 0) return getFullName();
+        return toString(catalog);
     }
 
     /**
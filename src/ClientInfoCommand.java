@@ -0,0 +1,47 @@
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+/**
+ * The {@code ClientInfoCommand} class shows all client info. The name of the client is shown and then the events they
+ * are attending are shown on the following line indented from the left edge by a tab space. The user can give the
+ * start of a client's full name or last name to show only the clients matching it, and the listing is shown a page at
+ * a time by a {@link ReportRenderer}.
+ *
+ * @author Andrew Brown
+ */
+public class ClientInfoCommand implements Command {
+    private final BoxOffice boxOffice;
+
+    /**
+     * Constructor taking the box office whose clients are shown
+     *
+     * @param boxOffice BoxOffice to show the clients of
+     */
+    ClientInfoCommand(BoxOffice boxOffice) {
+        this.boxOffice = boxOffice;
+    }
+
+    @Override
+    public char getKey() {
+        return 'c';
+    }
+
+    @Override
+    public String getDescription() {
+        return "Display Client Info";
+    }
+
+    @Override
+    public boolean execute(Terminal terminal) throws IOException {
+        String prefix = terminal.readLine("Show clients whose name starts with (press enter for all): ");
+        ReportRenderer.Query query = new ReportRenderer.Query(prefix, 0, Integer.MAX_VALUE);
+        EventCatalog events = boxOffice.getEvents();
+        ReportRenderer renderer = new ReportRenderer(new OutputStreamWriter(terminal.out()));
+        renderer.clientHeader();
+        renderer.writePages(query.select(boxOffice.getClients(), query::matches),
+                (r, client) -> r.client(client, events), EventInfoCommand.PAGE_SIZE, terminal);
+        renderer.footer();
+        renderer.flush();
+        return true;
+    }
+}
@@ -0,0 +1,260 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code ClientRegistry} class holds every client registered with the World Sports Championship. Clients are kept
+ * in a SortedArrayList so they can be displayed in name order, and in a hash index keyed on each client's normalised
+ * full name so the box office can find a client in constant time however many clients are registered. The two views
+ * are updated together on every add and remove. A {@link NameIndex} of the full names suggests clients for names
+ * that aren't found. It is built when a batch is added, by merging the batch into the last index, so lookups never
+ * have to build it; only {@link #add} and {@link #remove}, used one client at a time in tests and tools, leave it to
+ * be rebuilt when next needed.
+ *
+ * The sorted list and the index are published together through a single volatile field. {@link #add},
+ * {@link #addAll} and {@link #remove} change them in place and are used while the registry is being loaded. Late
+ * registrations made while sales are running go through {@link #merge}, which registers the clients in a copy and
+ * then publishes the copy in one step, so listings and lookups see either all of a batch or none of it.
+ *
+ * Copying the whole registry for every batch would make each late registration cost as much as the registry, so
+ * merged clients are kept apart from the rest in a small list and hash index of their own, laid over the registry as
+ * it was, and only that overlay is copied by the next batch. Lookups check the overlay and then the clients under it.
+ * Once the overlay holds more than 32 times the square root of the number of clients under it, both are folded into
+ * one, so with n clients and batches of b a merge copies O(sqrt(n b)) clients on average rather than n. The sorted
+ * listing of the two together is merged on the first listing after a batch and kept until the next one.
+ *
+ * @author Andrew Brown
+ */
+public class ClientRegistry implements Iterable<Client> {
+    private static final int FOLD_FACTOR = 32;
+
+    private volatile View view;
+
+    /**
+     * Constructor creating an empty registry.
+     */
+    ClientRegistry() {
+        view = new View(null, new SortedArrayList<>(), new HashMap<>(), new NameIndex<>());
+    }
+
+    /**
+     * Package-private method to register a client. A client whose name matches an existing client is not added.
+     *
+     * @param client Client to register
+     * @return boolean true if the client was added, false if a client with the same name is already registered
+     */
+    synchronized boolean add(Client client) {
+        view = view.folded();
+        if (view.clientsByName.putIfAbsent(client.getNameKey(), client) != null) return false;
+        view.sortedClients.add(client);
+        view.names = null;
+        return true;
+    }
+
+    /**
+     * Package-private method to register a batch of clients. The batch is merged into the sorted view in one pass
+     * rather than one insertion per client. Clients whose names are already registered are skipped.
+     *
+     * @param clients Collection of clients to register
+     * @return int number of clients added
+     */
+    synchronized int addAll(Collection<Client> clients) {
+        view = view.folded();
+        return view.addAll(clients);
+    }
+
+    /**
+     * Package-private method to register a batch of clients while the registry is in use. The clients are registered
+     * in a copy of the overlay of recently merged clients, which then replaces it, so readers never see only some of
+     * the batch. Clients whose names are already registered are skipped.
+     *
+     * @param clients Collection of clients to register
+     * @return int number of clients added
+     */
+    synchronized int merge(Collection<Client> clients) {
+        View current = view;
+        View under = current.under == null ? current : current.under;
+        SortedArrayList<Client> sorted = new SortedArrayList<>();
+        Map<String, Client> byName = new HashMap<>();
+        if (current.under != null) {
+            sorted.addAll(current.sortedClients);
+            byName.putAll(current.clientsByName);
+        }
+        View copy = new View(under, sorted, byName, current.names());
+        int added = copy.addAll(clients);
+        if (added == 0) return 0;
+        view = byName.size() > FOLD_FACTOR * Math.sqrt(under.size()) ? copy.folded() : copy;
+        return added;
+    }
+
+    /**
+     * Package-private method to remove a client from the registry.
+     *
+     * @param client Client to remove
+     * @return boolean true if the client was registered
+     */
+    synchronized boolean remove(Client client) {
+        view = view.folded();
+        if (!view.clientsByName.remove(client.getNameKey(), client)) return false;
+        view.sortedClients.remove(client);
+        view.names = null;
+        return true;
+    }
+
+    /**
+     * Package-private method to find a client by full name. The name is normalised before lookup, so extra spaces and
+     * differences in case are ignored.
+     *
+     * @param fullName String full name of the client
+     * @return Client the matching client, or null if no client has that name
+     */
+    Client get(String fullName) {
+        return view.get(Names.normalize(fullName));
+    }
+
+    /**
+     * Package-private method to suggest clients for a name that wasn't found: clients whose full names start with it,
+     * then clients whose full names are a typing mistake or two away from it.
+     *
+     * @param fullName String name that was typed
+     * @param limit int most clients to suggest
+     * @return List of up to limit clients, best first
+     */
+    List<Client> suggest(String fullName, int limit) {
+        return view.names().suggest(fullName, limit);
+    }
+
+    /**
+     * Package-private method to find the clients whose full names start with a prefix, for autocompletion
+     *
+     * @param prefix String start of the full name, in any case and spacing
+     * @param limit int most clients to return
+     * @return List of up to limit clients in order of full name
+     */
+    List<Client> complete(String prefix, int limit) {
+        return view.names().complete(prefix, limit);
+    }
+
+    /**
+     * Package-private method to get the number of registered clients
+     * @return int number of clients
+     */
+    int size() {
+        return view.size();
+    }
+
+    /**
+     * Package-private method to check if any clients are registered
+     * @return boolean true if there are no clients
+     */
+    boolean isEmpty() {
+        return view.size() == 0;
+    }
+
+    /**
+     * Package-private method to get a read only view of the clients in name order
+     * @return List clients sorted by last name then first name
+     */
+    List<Client> getSortedClients() {
+        return Collections.unmodifiableList(view.sorted());
+    }
+
+    /**
+     * Returns an iterator over the clients in name order.
+     * @return Iterator over the sorted clients
+     */
+    @Override
+    public Iterator<Client> iterator() {
+        return getSortedClients().iterator();
+    }
+
+    /**
+     * The sorted list and name index of the registry at one moment. A view over another holds only the clients merged
+     * since that one was published, and never changes once it has been; the name index covers both.
+     */
+    private static class View {
+        private final View under;
+        private final SortedArrayList<Client> sortedClients;
+        private final Map<String, Client> clientsByName;
+        private volatile NameIndex<Client> names;
+        private volatile List<Client> allSorted;
+
+        View(View under, SortedArrayList<Client> sortedClients, Map<String, Client> clientsByName,
+             NameIndex<Client> names) {
+            this.under = under;
+            this.sortedClients = sortedClients;
+            this.clientsByName = clientsByName;
+            this.names = names;
+        }
+
+        Client get(String key) {
+            Client client = clientsByName.get(key);
+            return client != null || under == null ? client : under.clientsByName.get(key);
+        }
+
+        int size() {
+            return sortedClients.size() + (under == null ? 0 : under.sortedClients.size());
+        }
+
+        /**
+         * Gets every client in name order, merging the overlay into the clients under it the first time it's asked.
+         */
+        List<Client> sorted() {
+            if (under == null) return sortedClients;
+            List<Client> all = allSorted;
+            if (all == null) {
+                SortedArrayList<Client> merged = new SortedArrayList<>(size());
+                merged.addAll(under.sortedClients);
+                merged.addAll(sortedClients);
+                all = merged;
+                allSorted = all;
+            }
+            return all;
+        }
+
+        /**
+         * Gets a view holding the overlay and the clients under it together, which can be changed in place.
+         */
+        View folded() {
+            if (under == null) return this;
+            Map<String, Client> byName = new HashMap<>(under.clientsByName);
+            byName.putAll(clientsByName);
+            SortedArrayList<Client> sorted = new SortedArrayList<>(size());
+            sorted.addAll(under.sortedClients);
+            sorted.addAll(sortedClients);
+            return new View(null, sorted, byName, names);
+        }
+
+        int addAll(Collection<Client> clients) {
+            NameIndex<Client> index = names;
+            List<Client> added = new ArrayList<>(clients.size());
+            Map<String, Client> addedByName = new HashMap<>();
+            for (Client c : clients) {
+                if (under != null && under.clientsByName.containsKey(c.getNameKey())) continue;
+                if (clientsByName.putIfAbsent(c.getNameKey(), c) == null) {
+                    added.add(c);
+                    addedByName.put(c.getNameKey(), c);
+                }
+            }
+            sortedClients.addAll(added);
+            if (!added.isEmpty()) names = index == null ? new NameIndex<>(clientsByName) : index.with(addedByName);
+            return added.size();
+        }
+
+        /**
+         * Gets the index of full names, building it if a single add or remove has left it out of date.
+         */
+        NameIndex<Client> names() {
+            NameIndex<Client> index = names;
+            if (index == null) {
+                index = new NameIndex<>(clientsByName);
+                names = index;
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+import java.io.IOException;
+
+/**
+ * The {@code Command} interface is implemented by each option on the main menu. A command runs to completion and
+ * returns, rather than calling back into the menu, so a session can run any number of commands without the stack
+ * growing.
+ *
+ * @author Andrew Brown
+ */
+public interface Command {
+
+    /**
+     * Gets the key the user presses to choose the command
+     * @return char menu key
+     */
+    char getKey();
+
+    /**
+     * Gets the text shown for the command on the menu
+     * @return String description of the command
+     */
+    String getDescription();
+
+    /**
+     * Runs the command.
+     *
+     * @param terminal Terminal to ask questions and show results on
+     * @return boolean false if the session should end after this command, true otherwise
+     * @throws IOException if the command couldn't read its input or write its results
+     */
+    boolean execute(Terminal terminal) throws IOException;
+}
@@ -0,0 +1,93 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code CommandMenu} class is the dispatcher loop for a box office session. It shows the menu, reads the user's
+ * choice and runs the matching {@link Command}, and repeats until a command ends the session or the input runs out.
+ *
+ * @author Andrew Brown
+ */
+public class CommandMenu {
+    private static final String BORDER = "---------------------------------------";
+    private static final int WIDTH = BORDER.length() - 2;
+
+    private final List<Command> entries = new ArrayList<>();
+    private final Map<Character, Command> commands = new HashMap<>();
+
+    /**
+     * Adds a command to the end of the menu.
+     *
+     * @param command Command to add
+     * @return CommandMenu this menu, so calls can be chained
+     */
+    CommandMenu add(Command command) {
+        entries.add(command);
+        commands.put(Character.toLowerCase(command.getKey()), command);
+        return this;
+    }
+
+    /**
+     * Adds a blank line to the menu to separate groups of commands.
+     *
+     * @return CommandMenu this menu, so calls can be chained
+     */
+    CommandMenu addSeparator() {
+        entries.add(null);
+        return this;
+    }
+
+    /**
+     * Finds the command for a menu key.
+     *
+     * @param key char key the user pressed
+     * @return Command matching command, or null if no command uses that key
+     */
+    Command get(char key) {
+        return commands.get(Character.toLowerCase(key));
+    }
+
+    /**
+     * Runs the session. Shows the menu and runs the chosen command until a command ends the session or there is no
+     * more input. Choices that don't match a command show the menu again.
+     *
+     * @param terminal Terminal to run the session on
+     * @throws IOException if a command fails
+     */
+    void run(Terminal terminal) throws IOException {
+        boolean running = true;
+        while (running) {
+            printMenu(terminal);
+            String choice = terminal.readLine("Please make a selection and press Enter: ");
+            if (choice == null) break;
+            choice = choice.trim();
+            if (choice.isEmpty()) continue;
+
+            Command command = get(choice.charAt(0));
+            if (command != null) {
+                running = command.execute(terminal);
+            }
+        }
+    }
+
+    /**
+     * Prints the menu with a line per command.
+     */
+    private void printMenu(Terminal terminal) {
+        StringBuilder menu = new StringBuilder();
+        menu.append(BORDER).append(Terminal.NEWLINE);
+        for (Command command : entries) {
+            StringBuilder line = new StringBuilder("| ");
+            if (command != null) {
+                line.append('[').append(command.getKey()).append("] ").append(command.getDescription());
+            }
+            while (line.length() < WIDTH + 1) line.append(' ');
+            line.setLength(WIDTH + 1);
+            menu.append(line).append('|').append(Terminal.NEWLINE);
+        }
+        menu.append(BORDER);
+        terminal.println(menu.toString());
+    }
+}
@@ -1,14 +1,35 @@
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * The {@code Event} class is used to represent an event at the World Sports Championship. The class holds the name of
  * the event along with the number of tickets.
  *
+ * Tickets for an event in the catalog are sold and returned with {@link #tryReserve(int)} and {@link #release(int)},
+ * which update the count with an atomic compare-and-set rather than a lock, so any number of sales desks can sell
+ * against the same event at once without overselling or the count going below zero. Each event also counts the sales
+ * refused because it had sold out, which shows how oversubscribed it is. An event may also be given a {@link SeatMap},
+ * in which case every ticket sold is a particular seat.
+ *
+ * When the event is attached to an {@link InventoryFile} both counts are kept in the file rather than in the object,
+ * and are updated there with the same compare-and-set, so box offices in other processes sell from the same count.
+ *
  * @author Andrew Brown
  */
 public class Event implements Comparable<Event> {
+    private static final AtomicIntegerFieldUpdater<Event> TICKETS_REMAINING =
+            AtomicIntegerFieldUpdater.newUpdater(Event.class, "ticketsRemaining");
+    private static final AtomicIntegerFieldUpdater<Event> REFUSALS =
+            AtomicIntegerFieldUpdater.newUpdater(Event.class, "refusals");
+
     private String name;
-    private int ticketsRemaining;
+    private volatile int ticketsRemaining;
+    private volatile int refusals;
+    private volatile SeatMap seatMap;
+    private InventoryFile inventory;
+    private int inventorySlot;
+    private int id = -1;
+    private EventCatalog catalog;
 
     /**
      * Constructor taking the name of the event and number of tickets for the event
@@ -29,13 +50,42 @@ public class Event implements Comparable<Event> {
         return name;
     }
 
+    /**
+     * Package-private method to get the ID the event was given when it was added to an EventCatalog
+     *
+     * @return int event ID, or -1 if the event isn't in a catalog
+     */
+    int getId() {
+        return id;
+    }
+
+    /**
+     * Package-private method to get the catalog that gave the event its ID
+     *
+     * @return EventCatalog the event's catalog, or null if the event isn't in a catalog
+     */
+    EventCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Package-private method to set the event ID, used by EventCatalog when the event is added
+     *
+     * @param catalog EventCatalog the ID belongs to
+     * @param id int event ID
+     */
+    void setId(EventCatalog catalog, int id) {
+        this.catalog = catalog;
+        this.id = id;
+    }
+
     /**
      * Package-private method to get the number of tickets
      *
      * @return int Number of tickets
      */
     int getTicketsRemaining() {
-        return ticketsRemaining;
+        return inventory == null ? ticketsRemaining : inventory.getRemaining(inventorySlot);
     }
 
     /**
@@ -44,7 +94,104 @@ public class Event implements Comparable<Event> {
      * @param ticketsRemaining int number of tickets to change to
      */
     void setTicketsRemaining(int ticketsRemaining) {
-        this.ticketsRemaining = ticketsRemaining;
+        if (inventory == null) {
+            this.ticketsRemaining = ticketsRemaining;
+        } else {
+            inventory.setRemaining(inventorySlot, ticketsRemaining);
+        }
+    }
+
+    /**
+     * Package-private method to keep the event's counts in an inventory file from now on, used by
+     * {@link InventoryFile#attach}. The counts already in the file are used rather than the event's own.
+     *
+     * @param inventory InventoryFile holding the event's record
+     * @param slot int slot of the event's record in the file
+     */
+    void setInventory(InventoryFile inventory, int slot) {
+        this.inventorySlot = slot;
+        this.inventory = inventory;
+    }
+
+    /**
+     * Package-private method to atomically reserve tickets for the event. The reservation only succeeds if there are
+     * at least numberOfTickets remaining, so the count can never go below zero. When the reservation fails the
+     * result is the bitwise complement of the number of tickets that were remaining, in the same way that
+     * {@link java.util.Collections#binarySearch} encodes a missing key, so {@code ~result} gives the count.
+     *
+     * @param numberOfTickets int number of tickets to reserve, must not be negative
+     * @return int tickets remaining after a successful reservation, or a negative value if there weren't enough
+     */
+    int tryReserve(int numberOfTickets) {
+        if (numberOfTickets < 0) throw new IllegalArgumentException("numberOfTickets < 0");
+        InventoryFile inventory = this.inventory;
+        while (true) {
+            int remaining = inventory == null ? ticketsRemaining : inventory.getRemaining(inventorySlot);
+            if (remaining < numberOfTickets) return ~remaining;
+            if (inventory == null ? TICKETS_REMAINING.compareAndSet(this, remaining, remaining - numberOfTickets)
+                    : inventory.compareAndSetRemaining(inventorySlot, remaining, remaining - numberOfTickets)) {
+                return remaining - numberOfTickets;
+            }
+        }
+    }
+
+    /**
+     * Package-private method to atomically return tickets to the event.
+     *
+     * @param numberOfTickets int number of tickets to return, must not be negative
+     * @return int tickets remaining after the tickets are returned
+     */
+    int release(int numberOfTickets) {
+        if (numberOfTickets < 0) throw new IllegalArgumentException("numberOfTickets < 0");
+        if (inventory != null) return inventory.addRemaining(inventorySlot, numberOfTickets);
+        return TICKETS_REMAINING.addAndGet(this, numberOfTickets);
+    }
+
+    /**
+     * Package-private method to count a sale refused because the event had sold out
+     */
+    void recordRefusal() {
+        if (inventory == null) {
+            REFUSALS.incrementAndGet(this);
+        } else {
+            inventory.addRefusal(inventorySlot);
+        }
+    }
+
+    /**
+     * Package-private method to get the number of sales refused because the event had sold out
+     *
+     * @return int number of refusals since the program started, or by every process sharing the inventory file
+     */
+    int getRefusals() {
+        return inventory == null ? refusals : inventory.getRefusals(inventorySlot);
+    }
+
+    /**
+     * Package-private method to get the event's seat map
+     *
+     * @return SeatMap seats of the event, or null if tickets are sold by count alone
+     */
+    SeatMap getSeatMap() {
+        return seatMap;
+    }
+
+    /**
+     * Package-private method to give the event a seat map. Tickets already sold take the worst seats in the map, held
+     * by nobody in particular. Must be called before tickets are sold for the event. Events in a shared inventory file
+     * can't be given a seat map, as other processes sell from the same count.
+     *
+     * @param seatMap SeatMap with at least as many seats as there are tickets remaining
+     */
+    void setSeatMap(SeatMap seatMap) {
+        if (inventory != null) throw new IllegalArgumentException("Events in a shared inventory can't have seat maps");
+        int remaining = ticketsRemaining;
+        if (seatMap.getCapacity() < remaining) {
+            throw new IllegalArgumentException("The seat map has fewer seats than the " + remaining
+                    + " tickets remaining");
+        }
+        seatMap.blockOff(seatMap.getFree() - remaining);
+        this.seatMap = seatMap;
     }
 
     /**
@@ -53,7 +200,7 @@ public class Event implements Comparable<Event> {
      */
     @Override
     public String toString() {
-        return name + " - " + ticketsRemaining;
+        return name + " - " + getTicketsRemaining();
     }
 
     /**
@@ -65,7 +212,7 @@ public class Event implements Comparable<Event> {
     public int compareTo(Event e) {
         int eventNameCompare = name.compareTo(e.name);
         if (eventNameCompare != 0) return eventNameCompare;
-        else return ticketsRemaining - e.ticketsRemaining;
+        else return getTicketsRemaining() - e.getTicketsRemaining();
     }
 
     /**
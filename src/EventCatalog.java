@@ -0,0 +1,207 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code EventCatalog} class holds every event on sale at the World Sports Championship. Each event is given a
+ * dense integer ID when it is added to the catalog, starting from 0, which is its index in the catalog's ID table.
+ * Events can be found by ID or by normalised name in constant time, and a SortedArrayList of the events is kept for
+ * display in name order. A {@link NameIndex} of the names suggests events for names that aren't found. It is kept up
+ * to date by merging in each batch as it is added, so lookups don't build it; after a single {@link #add} it is
+ * rebuilt when next needed.
+ *
+ * The ID table, name index and sorted list together make up the catalog's current view, which readers pick up from a
+ * single volatile field. {@link #add} and {@link #addAll} change the view in place and are used while the catalog is
+ * being loaded. Events added while sales are running go through {@link #merge}, which copies the view, adds the
+ * events to the copy and then publishes it in one step, so a reader sees the catalog either wholly before or wholly
+ * after the merge and never part way through.
+ *
+ * @author Andrew Brown
+ */
+public class EventCatalog implements Iterable<Event> {
+    private volatile View view;
+
+    /**
+     * Constructor creating an empty catalog.
+     */
+    EventCatalog() {
+        view = new View(new ArrayList<>(), new HashMap<>(), new SortedArrayList<>(), new NameIndex<>());
+    }
+
+    /**
+     * Package-private method to add an event to the catalog and assign its ID. An event whose name matches an event
+     * already in the catalog is not added.
+     *
+     * @param event Event to add
+     * @return boolean true if the event was added, false if an event with the same name is already in the catalog
+     */
+    synchronized boolean add(Event event) {
+        if (!view.index(event)) return false;
+        view.sortedEvents.add(event);
+        view.names = null;
+        return true;
+    }
+
+    /**
+     * Package-private method to add a batch of events. IDs are assigned in the order the events are given and the
+     * batch is merged into the sorted view in one pass. Events whose names are already in the catalog are skipped.
+     *
+     * @param events Collection of events to add
+     * @return int number of events added
+     */
+    synchronized int addAll(Collection<Event> events) {
+        return view.addAll(events);
+    }
+
+    /**
+     * Package-private method to add a batch of events to a catalog that is in use. The events are added to a copy of
+     * the catalog, which then replaces it, so readers never see only some of the batch. IDs are assigned and
+     * duplicates skipped as for {@link #addAll}.
+     *
+     * @param events Collection of events to add
+     * @return int number of events added
+     */
+    synchronized int merge(Collection<Event> events) {
+        View current = view;
+        SortedArrayList<Event> sorted = new SortedArrayList<>(current.sortedEvents.size() + events.size());
+        sorted.addAll(current.sortedEvents);
+        View copy = new View(new ArrayList<>(current.eventsById), new HashMap<>(current.eventsByName), sorted,
+                current.names);
+        int added = copy.addAll(events);
+        if (added > 0) view = copy;
+        return added;
+    }
+
+    /**
+     * Package-private method to find an event by name. The name is normalised before lookup, so extra spaces and
+     * differences in case are ignored.
+     *
+     * @param name String name of the event
+     * @return Event the matching event, or null if there is no event with that name
+     */
+    Event get(String name) {
+        return view.eventsByName.get(Names.normalize(name));
+    }
+
+    /**
+     * Package-private method to find an event by its ID.
+     *
+     * @param id int ID assigned when the event was added
+     * @return Event the matching event, or null if no event has that ID
+     */
+    Event get(int id) {
+        List<Event> eventsById = view.eventsById;
+        if (id < 0 || id >= eventsById.size()) return null;
+        return eventsById.get(id);
+    }
+
+    /**
+     * Package-private method to suggest events for a name that wasn't found: events whose names start with it, then
+     * events whose names are a typing mistake or two away from it.
+     *
+     * @param name String name that was typed
+     * @param limit int most events to suggest
+     * @return List of up to limit events, best first
+     */
+    List<Event> suggest(String name, int limit) {
+        return view.names().suggest(name, limit);
+    }
+
+    /**
+     * Package-private method to find the events whose names start with a prefix, for autocompletion
+     *
+     * @param prefix String start of the name, in any case and spacing
+     * @param limit int most events to return
+     * @return List of up to limit events in name order
+     */
+    List<Event> complete(String prefix, int limit) {
+        return view.names().complete(prefix, limit);
+    }
+
+    /**
+     * Package-private method to get the number of events in the catalog
+     * @return int number of events
+     */
+    int size() {
+        return view.eventsById.size();
+    }
+
+    /**
+     * Package-private method to get a read only view of the events in name order
+     * @return List events sorted by name
+     */
+    List<Event> getSortedEvents() {
+        return Collections.unmodifiableList(view.sortedEvents);
+    }
+
+    /**
+     * Returns an iterator over the events in name order.
+     * @return Iterator over the sorted events
+     */
+    @Override
+    public Iterator<Event> iterator() {
+        return getSortedEvents().iterator();
+    }
+
+    /**
+     * The ID table, name index and sorted list of the catalog at one moment.
+     */
+    private class View {
+        private final List<Event> eventsById;
+        private final Map<String, Event> eventsByName;
+        private final SortedArrayList<Event> sortedEvents;
+        private volatile NameIndex<Event> names;
+
+        View(List<Event> eventsById, Map<String, Event> eventsByName, SortedArrayList<Event> sortedEvents,
+             NameIndex<Event> names) {
+            this.eventsById = eventsById;
+            this.eventsByName = eventsByName;
+            this.sortedEvents = sortedEvents;
+            this.names = names;
+        }
+
+        int addAll(Collection<Event> events) {
+            NameIndex<Event> index = names;
+            List<Event> added = new ArrayList<>(events.size());
+            Map<String, Event> addedByName = new HashMap<>();
+            for (Event e : events) {
+                if (index(e)) {
+                    added.add(e);
+                    addedByName.put(Names.normalize(e.getName()), e);
+                }
+            }
+            sortedEvents.addAll(added);
+            if (!added.isEmpty()) names = index == null ? new NameIndex<>(eventsByName) : index.with(addedByName);
+            return added.size();
+        }
+
+        /**
+         * Gets the index of event names, building it if a single add or remove has left it out of date.
+         */
+        NameIndex<Event> names() {
+            NameIndex<Event> index = names;
+            if (index == null) {
+                index = new NameIndex<>(eventsByName);
+                names = index;
+            }
+            return index;
+        }
+
+        /**
+         * Adds the event to the name index and ID table, giving it the next free ID.
+         *
+         * @param event Event to index
+         * @return boolean false if the name is already taken
+         */
+        boolean index(Event event) {
+            if (eventsByName.putIfAbsent(Names.normalize(event.getName()), event) != null) return false;
+            event.setId(EventCatalog.this, eventsById.size());
+            eventsById.add(event);
+            return true;
+        }
+    }
+}
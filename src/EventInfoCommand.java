@@ -0,0 +1,48 @@
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+/**
+ * The {@code EventInfoCommand} class shows all the event information, displaying the event name and the number of
+ * tickets that remain for each event. The data is shown in a formatted manner to display in columns to increase
+ * readability. The user can give the start of an event name to show only the events matching it, and the listing is
+ * shown a page at a time by a {@link ReportRenderer}.
+ *
+ * @author Andrew Brown
+ */
+public class EventInfoCommand implements Command {
+    static final int PAGE_SIZE = 20;
+
+    private final BoxOffice boxOffice;
+
+    /**
+     * Constructor taking the box office whose events are shown
+     *
+     * @param boxOffice BoxOffice to show the events of
+     */
+    EventInfoCommand(BoxOffice boxOffice) {
+        this.boxOffice = boxOffice;
+    }
+
+    @Override
+    public char getKey() {
+        return 'e';
+    }
+
+    @Override
+    public String getDescription() {
+        return "Display Event Info";
+    }
+
+    @Override
+    public boolean execute(Terminal terminal) throws IOException {
+        String prefix = terminal.readLine("Show events starting with (press enter for all): ");
+        ReportRenderer.Query query = new ReportRenderer.Query(prefix, 0, Integer.MAX_VALUE);
+        ReportRenderer renderer = new ReportRenderer(new OutputStreamWriter(terminal.out()));
+        renderer.eventHeader();
+        renderer.writePages(query.select(boxOffice.getEvents(), query::matches), ReportRenderer::event, PAGE_SIZE,
+                terminal);
+        renderer.footer();
+        renderer.flush();
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+import java.io.IOException;
+
+/**
+ * The {@code ExitCommand} class asks the user if they are certain they would like to quit and if they answer yes
+ * saves a snapshot and ends the session.
+ *
+ * @author Andrew Brown
+ */
+public class ExitCommand implements Command {
+    private final Command saveSnapshot;
+
+    /**
+     * Constructor taking the command used to save a snapshot before quitting
+     *
+     * @param saveSnapshot Command which saves the snapshot
+     */
+    ExitCommand(Command saveSnapshot) {
+        this.saveSnapshot = saveSnapshot;
+    }
+
+    @Override
+    public char getKey() {
+        return 'f';
+    }
+
+    @Override
+    public String getDescription() {
+        return "Exit Program";
+    }
+
+    @Override
+    public boolean execute(Terminal terminal) throws IOException {
+        if (!terminal.confirm(Terminal.NEWLINE + "Are you sure you would like to quit? (y)es/(n)o ")) return true;
+        saveSnapshot.execute(terminal);
+        terminal.println("Goodbye!");
+        return false;
+    }
+}
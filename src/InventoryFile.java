@@ -0,0 +1,243 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The {@code InventoryFile} class keeps the tickets remaining for each event in a memory-mapped file instead of in the
+ * {@link Event} objects, so several box office processes on the same host can sell against one inventory. Each
+ * event's count is changed with an atomic compare-and-set on the mapped memory itself, through a {@link VarHandle}, so
+ * a ticket can't be sold twice however many processes are selling. The counts are written straight to the operating
+ * system's page cache, so they survive a process crash without being saved, and are forced to disk with every
+ * snapshot.
+ *
+ * The file has a fixed layout, in the host's byte order:
+ * <pre>
+ *     header, 64 bytes:  int magic, int version, int record size, int capacity, int number of records
+ *     record, 64 bytes:  int tickets remaining, int sales refused, short name length, normalised event name in UTF-8
+ * </pre>
+ * Each record is a whole cache line, so processes selling different events never contend for the same line.
+ * Records are matched to events by name when the catalog is attached, under a lock on the file, and a record is added
+ * for any event the file doesn't have yet. An event that already has a record takes its count from the file, which
+ * holds the sales every process has made.
+ *
+ * Only the counts are shared. Each process keeps its own clients' holdings, journal and snapshot, so processes
+ * sharing an inventory must run in separate folders. Delete the file to start the inventory again.
+ *
+ * @author Andrew Brown
+ */
+public class InventoryFile implements Closeable {
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final int MAGIC = 0x57534349;
+    private static final int VERSION = 1;
+    private static final int RECORD_SIZE = 64;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAX_NAME_BYTES = RECORD_SIZE - 10;
+    private static final int CAPACITY = 12;
+    private static final int COUNT = 16;
+    private static final int REMAINING = 0;
+    private static final int REFUSALS = 4;
+    private static final int NAME_LENGTH = 8;
+    private static final int NAME = 10;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private InventoryFile(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Opens an inventory file, creating it with room for the given number of events if it doesn't exist. An existing
+     * file keeps the capacity it was created with.
+     *
+     * @param file Path of the inventory file
+     * @param capacity int number of events a new file has room for
+     * @return InventoryFile the mapped file
+     * @throws IOException if the file can't be opened or mapped, or isn't an inventory file
+     */
+    static InventoryFile open(Path file, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            FileLock lock = channel.lock();
+            try {
+                if (channel.size() == 0) {
+                    MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                            HEADER_SIZE + (long) capacity * RECORD_SIZE);
+                    header.order(ByteOrder.nativeOrder());
+                    header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_SIZE).putInt(CAPACITY, capacity)
+                            .putInt(COUNT, 0);
+                    header.force();
+                }
+            } finally {
+                lock.release();
+            }
+            if (channel.size() < HEADER_SIZE) throw new IOException(file + " is not an inventory file");
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.nativeOrder());
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != RECORD_SIZE) {
+                throw new IOException(file + " is not an inventory file");
+            }
+            int fileCapacity = header.getInt(CAPACITY);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) fileCapacity * RECORD_SIZE);
+            buffer.order(ByteOrder.nativeOrder());
+            return new InventoryFile(channel, buffer, fileCapacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Attaches events to their records, adding a record for each event the file doesn't have yet with the event's
+     * current count. Events already in the file take their count from it. The file is locked while this is done, so
+     * two processes starting together can't both add the same event.
+     *
+     * @param events Iterable of events to attach, none of which may have a seat map
+     * @return int number of records added
+     * @throws IOException if the file is full or an event's name is too long for a record
+     */
+    int attach(Iterable<Event> events) throws IOException {
+        int added = 0;
+        FileLock lock = channel.lock();
+        try {
+            int count = (int) INT.getVolatile(buffer, COUNT);
+            for (Event event : events) {
+                if (event.getSeatMap() != null) {
+                    throw new IOException(event.getName() + " has numbered seats, which can't be shared");
+                }
+                byte[] name = Names.normalize(event.getName()).getBytes(StandardCharsets.UTF_8);
+                if (name.length > MAX_NAME_BYTES) {
+                    throw new IOException(event.getName() + " is too long a name for the inventory file");
+                }
+                int slot = find(name, count);
+                if (slot < 0) {
+                    if (count == capacity) throw new IOException("The inventory file is full at " + capacity
+                            + " events");
+                    slot = count++;
+                    int record = record(slot);
+                    INT.setVolatile(buffer, record + REMAINING, event.getTicketsRemaining());
+                    INT.setVolatile(buffer, record + REFUSALS, event.getRefusals());
+                    buffer.putShort(record + NAME_LENGTH, (short) name.length);
+                    for (int i = 0; i < name.length; i++) {
+                        buffer.put(record + NAME + i, name[i]);
+                    }
+                    INT.setVolatile(buffer, COUNT, count);
+                    added++;
+                }
+                event.setInventory(this, slot);
+            }
+        } finally {
+            lock.release();
+        }
+        return added;
+    }
+
+    /**
+     * Finds the record with the given name among the first count records.
+     *
+     * @return int slot of the record, or -1 if there isn't one
+     */
+    private int find(byte[] name, int count) {
+        byte[] stored = new byte[MAX_NAME_BYTES];
+        for (int slot = 0; slot < count; slot++) {
+            int record = record(slot);
+            int length = buffer.getShort(record + NAME_LENGTH);
+            if (length != name.length) continue;
+            for (int i = 0; i < length; i++) {
+                stored[i] = buffer.get(record + NAME + i);
+            }
+            if (Arrays.equals(stored, 0, length, name, 0, length)) return slot;
+        }
+        return -1;
+    }
+
+    private static int record(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    /**
+     * Package-private method to read an event's tickets remaining
+     * @param slot int slot of the event's record
+     * @return int tickets remaining
+     */
+    int getRemaining(int slot) {
+        return (int) INT.getVolatile(buffer, record(slot) + REMAINING);
+    }
+
+    /**
+     * Package-private method to overwrite an event's tickets remaining
+     * @param slot int slot of the event's record
+     * @param remaining int tickets remaining
+     */
+    void setRemaining(int slot, int remaining) {
+        INT.setVolatile(buffer, record(slot) + REMAINING, remaining);
+    }
+
+    /**
+     * Package-private method to atomically change an event's tickets remaining if it still has the expected value
+     * @param slot int slot of the event's record
+     * @param expected int value the count must have
+     * @param remaining int new value
+     * @return boolean true if the count was changed
+     */
+    boolean compareAndSetRemaining(int slot, int expected, int remaining) {
+        return INT.compareAndSet(buffer, record(slot) + REMAINING, expected, remaining);
+    }
+
+    /**
+     * Package-private method to atomically add to an event's tickets remaining
+     * @param slot int slot of the event's record
+     * @param tickets int number of tickets to add
+     * @return int tickets remaining afterwards
+     */
+    int addRemaining(int slot, int tickets) {
+        return (int) INT.getAndAdd(buffer, record(slot) + REMAINING, tickets) + tickets;
+    }
+
+    /**
+     * Package-private method to count a sale refused because an event had sold out
+     * @param slot int slot of the event's record
+     */
+    void addRefusal(int slot) {
+        INT.getAndAdd(buffer, record(slot) + REFUSALS, 1);
+    }
+
+    /**
+     * Package-private method to read the number of sales refused for an event, by every process
+     * @param slot int slot of the event's record
+     * @return int number of refusals
+     */
+    int getRefusals(int slot) {
+        return (int) INT.getVolatile(buffer, record(slot) + REFUSALS);
+    }
+
+    /**
+     * Forces the counts to disk, so they survive the machine crashing as well as the process.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Forces the counts to disk and closes the file. Events attached to it keep using the mapping.
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
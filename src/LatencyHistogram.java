@@ -0,0 +1,126 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code LatencyHistogram} class counts how long an operation takes, for reporting percentiles such as the p99.
+ * Times are recorded in nanoseconds into buckets which double in width with each power of two and split each power
+ * of two into 8 equal parts, so any recorded time is reported to within 12.5% however large it is, using a fixed
+ * array of counters.
+ *
+ * Recording is safe from any number of threads at once, doesn't lock and doesn't allocate, so it can sit on the sale
+ * path. Reading the percentiles scans the buckets without stopping writers, so a report taken during a burst may be
+ * off by the few times recorded while it was being read.
+ *
+ * @author Andrew Brown
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one time.
+     *
+     * @param nanos long time taken in nanoseconds, with negative times counted as 0
+     */
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucket(nanos));
+        totalNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // another thread raised the maximum, check again
+        }
+    }
+
+    /**
+     * Finds the bucket a time is counted in.
+     */
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Finds the largest time counted in a bucket.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+        long upper = lower + (1L << (exponent - SUB_BITS)) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+    /**
+     * Package-private method to get the number of times recorded
+     * @return long number of times recorded
+     */
+    long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Package-private method to get the mean of the times recorded
+     * @return double mean time in nanoseconds, or 0 if nothing has been recorded
+     */
+    double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    /**
+     * Package-private method to get the longest time recorded
+     * @return long longest time in nanoseconds
+     */
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Package-private method to get the time within which the given fraction of operations finished. The answer is
+     * the top of the bucket the percentile falls in, so it is never less than the true percentile.
+     *
+     * @param fraction double between 0 and 1, e.g. 0.99 for the p99
+     * @return long time in nanoseconds, or 0 if nothing has been recorded
+     */
+    long getPercentileNanos(double fraction) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) return Math.min(upperBound(i), getMaxNanos());
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Clears every recorded time.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,297 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The {@code LetterSpooler} class writes letters to clients on a background thread, so a sales desk only has to put a
+ * letter on a queue rather than open, write and close a file itself. The spooler takes letters off the queue in
+ * batches and writes each batch through one buffered writer.
+ *
+ * Letters can either all be appended to a single file, which is how output.txt has always been written, or written
+ * to one file per client named ClientLastNameClientFirstName.txt in a letters folder.
+ *
+ * The queue has a fixed capacity. When it is full, {@link #send} waits for room, so a burst of letters slows the
+ * desks down rather than using more memory. {@link #close()} writes every letter already queued before returning,
+ * and the spooler registers a shutdown hook to do the same if the program exits without closing it.
+ *
+ * Senders hold a read lock from checking the spooler is open until their letter is on the queue, and close takes the
+ * write lock to mark the spooler closed and queue the marker that stops the writer. So every letter {@link #send}
+ * accepts is queued before the marker and gets written, and any send after close starts throws instead.
+ *
+ * @author Andrew Brown
+ */
+public class LetterSpooler implements Closeable {
+    private static final String NEWLINE = System.getProperty("line.separator");
+    private static final int BATCH_SIZE = 1024;
+    private static final Letter CLOSE = new Letter(null, null, null);
+
+    private final Path target;
+    private final boolean filePerClient;
+    private final BlockingQueue<Letter> queue;
+    private final Thread writerThread;
+    private final Thread shutdownHook;
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+    private volatile IOException failure;
+    private final AtomicLong lettersWritten = new AtomicLong();
+
+    /**
+     * Constructor which starts the spooler's writer thread.
+     *
+     * @param target Path of the file to append letters to, or of the folder to write one file per client into
+     * @param filePerClient boolean true to write one file per client into the target folder
+     * @param capacity int number of letters that can wait in the queue before senders have to wait
+     */
+    LetterSpooler(Path target, boolean filePerClient, int capacity) {
+        this.target = target;
+        this.filePerClient = filePerClient;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writerThread = new Thread(this::drain, "letter-spooler");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        this.shutdownHook = new Thread(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                System.err.println("Letters could not be written: " + e.getMessage());
+            }
+        }, "letter-spooler-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Queues a letter telling the client that no tickets remain for an event, waiting for room in the queue if it is
+     * full.
+     *
+     * @param client Client letter is addressed to
+     * @param event Event where no tickets are available
+     * @throws IOException if the spooler has been closed or an earlier batch of letters couldn't be written
+     */
+    void sendNoTicketsLetter(Client client, Event event) throws IOException {
+        send(new Letter(client.getFirstName(), client.getLastName(),
+                "Unfortunately, no tickets remain for " + event.getName()));
+    }
+
+    /**
+     * Queues a letter telling the client that tickets they were waiting for have been allocated to them.
+     *
+     * @param client Client letter is addressed to
+     * @param event Event the tickets are for
+     * @param tickets int number of tickets allocated
+     * @throws IOException if the spooler has been closed or an earlier batch of letters couldn't be written
+     */
+    void sendAllocatedLetter(Client client, Event event, int tickets) throws IOException {
+        send(new Letter(client.getFirstName(), client.getLastName(),
+                "Good news, " + tickets + " ticket(s) for " + event.getName()
+                        + " have become available and have been allocated to you from the waitlist"));
+    }
+
+    /**
+     * Queues a letter telling the client that their place on an event's waitlist has been given up, because they now
+     * hold tickets for as many events as a client may.
+     *
+     * @param client Client letter is addressed to
+     * @param event Event the client was waiting for
+     * @throws IOException if the spooler has been closed or an earlier batch of letters couldn't be written
+     */
+    void sendWaitlistCancelledLetter(Client client, Event event) throws IOException {
+        send(new Letter(client.getFirstName(), client.getLastName(),
+                "Tickets for " + event.getName() + " have become available, but as you now hold tickets for "
+                        + Client.MAX_EVENTS + " other events your place on the waitlist has been cancelled"));
+    }
+
+    /**
+     * Queues a letter, waiting for room in the queue if it is full.
+     *
+     * @param letter Letter to send
+     * @throws IOException if the spooler has been closed or an earlier batch of letters couldn't be written
+     */
+    void send(Letter letter) throws IOException {
+        if (failure != null) throw new IOException("Letters could not be written", failure);
+        closeLock.readLock().lock();
+        try {
+            if (closed) throw new IOException("Letter spooler is closed");
+            queue.put(letter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to queue a letter");
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Package-private method to get the number of letters written so far
+     * @return long number of letters written
+     */
+    long getLettersWritten() {
+        return lettersWritten.get();
+    }
+
+    /**
+     * Stops accepting letters, waits for every queued letter to be written and stops the writer thread. Senders
+     * already waiting for room in the queue are let finish first, which they will as the writer is still running.
+     * Calling close more than once has no further effect.
+     *
+     * @throws IOException if any letters couldn't be written
+     */
+    @Override
+    public void close() throws IOException {
+        closeLock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                // the marker has to be queued or the writer never stops, so keep trying through interrupts
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        queue.put(CLOSE);
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) Thread.currentThread().interrupt();
+                if (Thread.currentThread() != shutdownHook) {
+                    try {
+                        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                    } catch (IllegalStateException e) {
+                        // already shutting down, the hook is running or about to
+                    }
+                }
+            }
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for letters to be written");
+        }
+        if (failure != null) throw new IOException("Letters could not be written", failure);
+    }
+
+    /**
+     * Body of the writer thread. Waits for a letter, takes whatever else is queued up to the batch size and writes
+     * the batch, until the close marker is reached.
+     */
+    private void drain() {
+        List<Letter> batch = new ArrayList<>(BATCH_SIZE);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (batch.remove(CLOSE)) {
+                running = false;
+                queue.drainTo(batch);
+            }
+            if (failure == null && !batch.isEmpty()) {
+                try {
+                    write(batch);
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes a batch of letters, either all to the single target file or grouped by client so each client's file is
+     * opened once per batch.
+     */
+    private void write(List<Letter> batch) throws IOException {
+        if (!filePerClient) {
+            try (Writer out = new BufferedWriter(new FileWriter(target.toFile(), true), 1 << 16)) {
+                for (Letter letter : batch) {
+                    letter.render(out);
+                }
+            }
+        } else {
+            Files.createDirectories(target);
+            Map<String, List<Letter>> byClient = new LinkedHashMap<>();
+            for (Letter letter : batch) {
+                byClient.computeIfAbsent(letter.lastName + letter.firstName, k -> new ArrayList<>()).add(letter);
+            }
+            for (Map.Entry<String, List<Letter>> client : byClient.entrySet()) {
+                Path file = target.resolve(client.getKey() + ".txt");
+                try (Writer out = new BufferedWriter(new FileWriter(file.toFile(), true))) {
+                    for (Letter letter : client.getValue()) {
+                        letter.render(out);
+                    }
+                }
+            }
+        }
+        lettersWritten.addAndGet(batch.size());
+    }
+
+    /**
+     * A letter waiting to be written. The letter holds only what it needs to be rendered, so it doesn't keep the
+     * client or event objects reachable.
+     */
+    static class Letter {
+        private final String firstName;
+        private final String lastName;
+        private final String body;
+
+        /**
+         * Constructor taking the client's name and the body of the letter
+         *
+         * @param firstName String client's first name
+         * @param lastName String client's last name
+         * @param body String text of the letter between the greeting and the sign off
+         */
+        Letter(String firstName, String lastName, String body) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.body = body;
+        }
+
+        /**
+         * Writes the letter in the same layout the letters have always used.
+         *
+         * @param out Writer to write the letter to
+         */
+        void render(Writer out) throws IOException {
+            out.write(NEWLINE);
+            out.write("------------------------------------------------------");
+            out.write(NEWLINE);
+            out.write("Dear ");
+            out.write(firstName);
+            if (!lastName.isEmpty()) {
+                out.write(' ');
+                out.write(lastName);
+            }
+            out.write(NEWLINE);
+            out.write(NEWLINE);
+            out.write(body);
+            out.write(NEWLINE);
+            out.write(NEWLINE);
+            out.write("Regards,");
+            out.write(NEWLINE);
+            out.write("The Management");
+            out.write(NEWLINE);
+            out.write("------------------------------------------------------");
+            out.write(NEWLINE);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@code LoadGenerator} class is a load test for {@link BoxOfficeServer}. It opens many sessions at once, and
+ * each session sells a ticket and returns it again over and over, timing every request. At the end it reports the
+ * requests per second across all sessions and the median, 99th percentile and slowest request times.
+ *
+ * Sales are always followed by a return, so the test leaves the tickets as it found them. Session n uses the nth
+ * client on the server and cycles through the events, so the sessions compete for the same events.
+ *
+ * Run against a server started with {@code java WorldSportsChampionship --serve [port]} using
+ * <pre>
+ *     java LoadGenerator [port] [sessions] [requests-per-session]
+ * </pre>
+ *
+ * @author Andrew Brown
+ */
+public class LoadGenerator {
+    private static final String NEWLINE = "\n";
+
+    private LoadGenerator() {
+    }
+
+    /**
+     * Runs the load test against a server on the local machine and prints the report.
+     *
+     * @param args optional port, number of sessions and number of requests per session
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : WorldSportsChampionship.DEFAULT_PORT;
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        System.out.println(run(new InetSocketAddress("127.0.0.1", port), sessions, requests));
+    }
+
+    /**
+     * Runs the load test. All sessions connect before any requests are sent, so the requests really are concurrent.
+     *
+     * @param server InetSocketAddress of the server
+     * @param sessions int number of sessions to open at once
+     * @param requestsPerSession int number of sell and return requests each session sends
+     * @return Result throughput and latency of the run
+     * @throws IOException if the server can't be reached or a session fails
+     */
+    static Result run(InetSocketAddress server, int sessions, int requestsPerSession)
+            throws IOException, InterruptedException {
+        List<String> clientNames = new ArrayList<>();
+        List<String> eventNames = new ArrayList<>();
+        try (Socket socket = new Socket(server.getAddress(), server.getPort())) {
+            BufferedReader in = reader(socket);
+            Writer out = writer(socket);
+            for (String line : list(in, out, "EVENTS")) {
+                eventNames.add(line.substring(0, line.indexOf('\t')));
+            }
+            for (String line : list(in, out, "CLIENTS")) {
+                int holdings = line.indexOf(" [");
+                clientNames.add(holdings < 0 ? line : line.substring(0, holdings));
+            }
+        }
+        if (clientNames.isEmpty() || eventNames.isEmpty()) throw new IOException("Server has no clients or events");
+
+        long[][] latencies = new long[sessions][];
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        ExecutorService executor = BoxOfficeServer.newSessionExecutor();
+        long start;
+        long elapsed;
+        try {
+            for (int i = 0; i < sessions; i++) {
+                final int session = i;
+                executor.execute(() -> {
+                    try {
+                        latencies[session] = runSession(server, clientNames.get(session % clientNames.size()),
+                                eventNames, session, requestsPerSession, connected, go);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                        connected.countDown();
+                    }
+                });
+            }
+            connected.await();
+            start = System.nanoTime();
+            go.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        elapsed = System.nanoTime() - start;
+        if (failure.get() != null) throw new IOException("Load test session failed", failure.get());
+
+        long[] all = new long[sessions * requestsPerSession];
+        int n = 0;
+        for (long[] session : latencies) {
+            System.arraycopy(session, 0, all, n, session.length);
+            n += session.length;
+        }
+        Arrays.sort(all);
+        return new Result(sessions, all, elapsed);
+    }
+
+    /**
+     * Body of one session. Connects, waits for every other session to connect, then alternates selling and returning
+     * one ticket, recording how long each request took.
+     */
+    private static long[] runSession(InetSocketAddress server, String client, List<String> events, int session,
+                                     int requests, CountDownLatch connected, CountDownLatch go)
+            throws IOException, InterruptedException {
+        long[] latencies = new long[requests];
+        try (Socket socket = new Socket(server.getAddress(), server.getPort())) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = reader(socket);
+            Writer out = writer(socket);
+            connected.countDown();
+            go.await();
+
+            String sold = null;
+            for (int i = 0; i < requests; i++) {
+                String command;
+                if (sold == null) {
+                    String event = events.get((session + i / 2) % events.size());
+                    command = "SELL " + client + " " + event + " 1";
+                    sold = event;
+                } else {
+                    command = "RETURN " + client + " " + sold + " 1";
+                    sold = null;
+                }
+                long start = System.nanoTime();
+                out.write(command);
+                out.write(NEWLINE);
+                out.flush();
+                String reply = in.readLine();
+                latencies[i] = System.nanoTime() - start;
+                if (reply == null) throw new IOException("Server closed the session");
+                if (command.startsWith("SELL") && !reply.startsWith("SOLD")) sold = null;
+            }
+            out.write("QUIT" + NEWLINE);
+            out.flush();
+            in.readLine();
+        }
+        return latencies;
+    }
+
+    /**
+     * Sends a listing command and reads the lines of the reply up to END.
+     */
+    private static List<String> list(BufferedReader in, Writer out, String command) throws IOException {
+        out.write(command + NEWLINE);
+        out.flush();
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals("END")) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static Writer writer(Socket socket) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Throughput and latency of a load test run.
+     */
+    static class Result {
+        private final int sessions;
+        private final long[] sortedLatencies;
+        private final long elapsedNanos;
+
+        Result(int sessions, long[] sortedLatencies, long elapsedNanos) {
+            this.sessions = sessions;
+            this.sortedLatencies = sortedLatencies;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Package-private method to get the total number of requests sent
+         * @return int number of requests
+         */
+        int getRequests() {
+            return sortedLatencies.length;
+        }
+
+        /**
+         * Package-private method to get the number of requests handled per second
+         * @return double requests per second
+         */
+        double getRequestsPerSecond() {
+            return elapsedNanos == 0 ? 0 : sortedLatencies.length * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Package-private method to get the time within which the given fraction of requests completed
+         * @param fraction double between 0 and 1, e.g. 0.99 for the 99th percentile
+         * @return long latency in nanoseconds
+         */
+        long getPercentile(double fraction) {
+            if (sortedLatencies.length == 0) return 0;
+            int index = (int) Math.ceil(fraction * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))];
+        }
+
+        /**
+         * Gives a one line report of the run
+         * @return String report of the run
+         */
+        @Override
+        public String toString() {
+            return String.format("%d requests over %d sessions in %d ms (%d requests/sec), "
+                            + "p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    getRequests(), sessions, elapsedNanos / 1_000_000, Math.round(getRequestsPerSecond()),
+                    getPercentile(0.5) / 1e6, getPercentile(0.99) / 1e6, getPercentile(1.0) / 1e6);
+        }
+    }
+}
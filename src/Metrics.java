@@ -0,0 +1,300 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code Metrics} class counts what a {@link BoxOffice} does and how long it takes. Every sale and return is
+ * counted by its {@link TransactionResult}, the tickets sold and returned are totalled, and the time taken by sales,
+ * returns, sold-out letters and name lookups is recorded in a {@link LatencyHistogram} each.
+ *
+ * Counters are LongAdders, which spread updates from different threads over separate cells, and the histograms use
+ * atomic counters, so recording neither locks nor allocates. The metrics can be dumped as text or JSON, written to a
+ * file at intervals by a {@link MetricsReporter}, or registered with the platform MBean server as a
+ * {@link MetricsMXBean}.
+ *
+ * @author Andrew Brown
+ */
+public class Metrics implements MetricsMXBean {
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    private final LongAdder[] results = new LongAdder[TransactionResult.values().length];
+    private final LongAdder ticketsSold = new LongAdder();
+    private final LongAdder ticketsReturned = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram sellLatency = new LatencyHistogram();
+    private final LatencyHistogram returnLatency = new LatencyHistogram();
+    private final LatencyHistogram letterLatency = new LatencyHistogram();
+    private final LatencyHistogram lookupLatency = new LatencyHistogram();
+
+    /**
+     * Constructor which starts every counter and histogram at zero
+     */
+    Metrics() {
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a sale attempt.
+     *
+     * @param result TransactionResult outcome, or null if the sale failed with an exception
+     * @param numberOfTickets int number of tickets asked for
+     * @param nanos long time the sale took
+     */
+    void recordSale(TransactionResult result, int numberOfTickets, long nanos) {
+        sellLatency.record(nanos);
+        if (result == null) {
+            errors.increment();
+            return;
+        }
+        results[result.ordinal()].increment();
+        if (result == TransactionResult.SOLD) ticketsSold.add(numberOfTickets);
+    }
+
+    /**
+     * Records a return attempt.
+     *
+     * @param result TransactionResult outcome, or null if the return failed with an exception
+     * @param numberOfTickets int number of tickets returned
+     * @param nanos long time the return took
+     */
+    void recordReturn(TransactionResult result, int numberOfTickets, long nanos) {
+        returnLatency.record(nanos);
+        if (result == null) {
+            errors.increment();
+            return;
+        }
+        results[result.ordinal()].increment();
+        if (result == TransactionResult.RETURNED) ticketsReturned.add(numberOfTickets);
+    }
+
+    /**
+     * Records the time taken to send a sold-out letter.
+     *
+     * @param nanos long time taken
+     */
+    void recordLetter(long nanos) {
+        letterLatency.record(nanos);
+    }
+
+    /**
+     * Records the time taken to look up a client or event by name.
+     *
+     * @param nanos long time taken
+     */
+    void recordLookup(long nanos) {
+        lookupLatency.record(nanos);
+    }
+
+    /**
+     * Package-private method to get how many sales or returns had the given outcome
+     * @param result TransactionResult outcome to count
+     * @return long number of sales or returns
+     */
+    long getCount(TransactionResult result) {
+        return results[result.ordinal()].sum();
+    }
+
+    /**
+     * Package-private method to get the latency histogram of sales
+     * @return LatencyHistogram times taken
+     */
+    LatencyHistogram getSellLatency() {
+        return sellLatency;
+    }
+
+    /**
+     * Package-private method to get the latency histogram of returns
+     * @return LatencyHistogram times taken
+     */
+    LatencyHistogram getReturnLatency() {
+        return returnLatency;
+    }
+
+    /**
+     * Package-private method to get the latency histogram of sold-out letters
+     * @return LatencyHistogram times taken
+     */
+    LatencyHistogram getLetterLatency() {
+        return letterLatency;
+    }
+
+    /**
+     * Package-private method to get the latency histogram of client and event lookups
+     * @return LatencyHistogram times taken
+     */
+    LatencyHistogram getLookupLatency() {
+        return lookupLatency;
+    }
+
+    @Override
+    public long getTicketsSold() {
+        return ticketsSold.sum();
+    }
+
+    @Override
+    public long getTicketsReturned() {
+        return ticketsReturned.sum();
+    }
+
+    @Override
+    public long getSales() {
+        return getCount(TransactionResult.SOLD);
+    }
+
+    @Override
+    public long getReturns() {
+        return getCount(TransactionResult.RETURNED);
+    }
+
+    @Override
+    public long getSoldOutRefusals() {
+        return getCount(TransactionResult.SOLD_OUT);
+    }
+
+    @Override
+    public long getEventLimitRefusals() {
+        return getCount(TransactionResult.EVENT_LIMIT);
+    }
+
+    @Override
+    public long getNotEnoughTicketsRefusals() {
+        return getCount(TransactionResult.NOT_ENOUGH_TICKETS);
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getSellP50Micros() {
+        return sellLatency.getPercentileNanos(0.5) / 1e3;
+    }
+
+    @Override
+    public double getSellP99Micros() {
+        return sellLatency.getPercentileNanos(0.99) / 1e3;
+    }
+
+    @Override
+    public double getSellMaxMicros() {
+        return sellLatency.getMaxNanos() / 1e3;
+    }
+
+    @Override
+    public double getReturnP50Micros() {
+        return returnLatency.getPercentileNanos(0.5) / 1e3;
+    }
+
+    @Override
+    public double getReturnP99Micros() {
+        return returnLatency.getPercentileNanos(0.99) / 1e3;
+    }
+
+    @Override
+    public double getLetterP99Micros() {
+        return letterLatency.getPercentileNanos(0.99) / 1e3;
+    }
+
+    @Override
+    public double getLookupP99Micros() {
+        return lookupLatency.getPercentileNanos(0.99) / 1e3;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder result : results) {
+            result.reset();
+        }
+        ticketsSold.reset();
+        ticketsReturned.reset();
+        errors.reset();
+        sellLatency.reset();
+        returnLatency.reset();
+        letterLatency.reset();
+        lookupLatency.reset();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server so they can be read over JMX.
+     *
+     * @param name String name to register under, shown as the name key of the ObjectName
+     * @return ObjectName name the metrics were registered as
+     * @throws JMException if the metrics can't be registered
+     */
+    ObjectName register(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("WorldSportsChampionship:type=BoxOffice,name="
+                + ObjectName.quote(name));
+        if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Gives the metrics as text, with a line per counter and per latency histogram.
+     * @return String text dump
+     */
+    String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append("Tickets sold: ").append(getTicketsSold()).append(NEWLINE);
+        text.append("Tickets returned: ").append(getTicketsReturned()).append(NEWLINE);
+        for (TransactionResult result : TransactionResult.values()) {
+            long count = getCount(result);
+            if (count > 0) text.append(result.name()).append(": ").append(count).append(NEWLINE);
+        }
+        if (getErrors() > 0) text.append("ERRORS: ").append(getErrors()).append(NEWLINE);
+        appendText(text, "sell", sellLatency);
+        appendText(text, "return", returnLatency);
+        appendText(text, "letter", letterLatency);
+        appendText(text, "lookup", lookupLatency);
+        return text.toString();
+    }
+
+    private static void appendText(StringBuilder text, String name, LatencyHistogram histogram) {
+        text.append(String.format(Locale.ROOT,
+                "%-7s count %d, mean %.1f us, p50 %.1f us, p90 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us",
+                name, histogram.getCount(), histogram.getMeanNanos() / 1e3,
+                histogram.getPercentileNanos(0.5) / 1e3, histogram.getPercentileNanos(0.9) / 1e3,
+                histogram.getPercentileNanos(0.99) / 1e3, histogram.getPercentileNanos(0.999) / 1e3,
+                histogram.getMaxNanos() / 1e3)).append(NEWLINE);
+    }
+
+    @Override
+    public String getJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"ticketsSold\":").append(getTicketsSold());
+        json.append(",\"ticketsReturned\":").append(getTicketsReturned());
+        json.append(",\"errors\":").append(getErrors());
+        json.append(",\"results\":{");
+        for (TransactionResult result : TransactionResult.values()) {
+            if (result.ordinal() > 0) json.append(',');
+            json.append('"').append(result.name()).append("\":").append(getCount(result));
+        }
+        json.append("},\"latencyMicros\":{");
+        appendJson(json, "sell", sellLatency);
+        json.append(',');
+        appendJson(json, "return", returnLatency);
+        json.append(',');
+        appendJson(json, "letter", letterLatency);
+        json.append(',');
+        appendJson(json, "lookup", lookupLatency);
+        json.append("}}");
+        return json.toString();
+    }
+
+    private static void appendJson(StringBuilder json, String name, LatencyHistogram histogram) {
+        json.append(String.format(Locale.ROOT,
+                "\"%s\":{\"count\":%d,\"mean\":%.1f,\"p50\":%.1f,\"p90\":%.1f,\"p99\":%.1f,\"p999\":%.1f,"
+                        + "\"max\":%.1f}",
+                name, histogram.getCount(), histogram.getMeanNanos() / 1e3,
+                histogram.getPercentileNanos(0.5) / 1e3, histogram.getPercentileNanos(0.9) / 1e3,
+                histogram.getPercentileNanos(0.99) / 1e3, histogram.getPercentileNanos(0.999) / 1e3,
+                histogram.getMaxNanos() / 1e3));
+    }
+}
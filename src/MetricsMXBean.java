@@ -0,0 +1,50 @@
+/**
+ * The {@code MetricsMXBean} interface is the management view of a box office's {@link Metrics}, so the counters and
+ * latency percentiles can be watched from JConsole or any other JMX client while tickets are on sale. Latencies are
+ * given in microseconds.
+ *
+ * @author Andrew Brown
+ */
+public interface MetricsMXBean {
+
+    long getTicketsSold();
+
+    long getTicketsReturned();
+
+    long getSales();
+
+    long getReturns();
+
+    long getSoldOutRefusals();
+
+    long getEventLimitRefusals();
+
+    long getNotEnoughTicketsRefusals();
+
+    long getErrors();
+
+    double getSellP50Micros();
+
+    double getSellP99Micros();
+
+    double getSellMaxMicros();
+
+    double getReturnP50Micros();
+
+    double getReturnP99Micros();
+
+    double getLetterP99Micros();
+
+    double getLookupP99Micros();
+
+    /**
+     * Gives every metric as a JSON document
+     * @return String JSON dump
+     */
+    String getJson();
+
+    /**
+     * Clears every counter and histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,79 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code MetricsReporter} class writes a box office's {@link Metrics} to a file at a fixed interval, so the p99
+ * and the counters can be watched during an on-sale with nothing more than {@code watch cat metrics.json}. The file is
+ * written as JSON, or as text if its name ends in .txt, and is replaced whole each time so a reader never sees half a
+ * dump.
+ *
+ * @author Andrew Brown
+ */
+public class MetricsReporter implements Closeable {
+    private final Metrics metrics;
+    private final Path file;
+    private final boolean json;
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Constructor which starts writing the metrics to the file at the given interval.
+     *
+     * @param metrics Metrics to write
+     * @param file Path of the file to write
+     * @param periodSeconds long seconds between dumps
+     */
+    MetricsReporter(Metrics metrics, Path file, long periodSeconds) {
+        this.metrics = metrics;
+        this.file = file;
+        this.json = !file.getFileName().toString().endsWith(".txt");
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::reportQuietly, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes the metrics to the file now.
+     *
+     * @throws IOException if the file can't be written
+     */
+    void report() throws IOException {
+        String dump = json ? metrics.getJson() + System.getProperty("line.separator") : metrics.toText();
+        Path dir = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, dump.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void reportQuietly() {
+        try {
+            report();
+        } catch (IOException e) {
+            System.err.println("Metrics could not be written to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the timer and writes a final dump.
+     *
+     * @throws IOException if the final dump can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        timer.shutdownNow();
+        report();
+    }
+}
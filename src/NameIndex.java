@@ -0,0 +1,436 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code NameIndex} class is a set of sorted arrays of normalised names, used to find clients and events when the
+ * name typed doesn't match exactly. It answers two questions: which names start with what has been typed so far, and
+ * which names are within a small number of edits of it, so "Ana Smith" or "Tenis" can be offered as "did you mean".
+ *
+ * Each segment of the index keeps its names in a sorted String array with the items they name in a parallel array,
+ * which costs two references per name as the key strings are shared with the catalog's or registry's hash index, and
+ * an int array of the same names in order of their reversed spelling. Completions are found by binary searching each
+ * segment for the prefix and reading on until enough have been found.
+ *
+ * Similar names are found by walking the sorted names as if they were a trie: names next to each other share a
+ * prefix, so the row of the edit distance table for each character is only worked out once per prefix, and once no
+ * entry in a prefix's row is within the allowed number of edits every name starting with that prefix is skipped with
+ * another binary search. A name within k edits of the one typed has at most k/2 of them in its first half or in its
+ * second half, so for names long enough to split the walk only looks for prefixes within k/2 edits of the first half,
+ * and, over the reversed order, suffixes within k/2 edits of the second half. With at most one edit allowed in a
+ * half, few prefixes survive more than a character or two, and under those that do the walk carries on with every
+ * edit allowed, still skipping each prefix that has gone too far from the whole name. The names looked at are then
+ * the prefixes close to the name typed and their neighbours, not the index: for a million names of the form "First42
+ * Last42" a search with two edits looks at about eight thousand of them, in 10 to 15 ms on one core, most of it
+ * spent reaching names scattered through memory, and fewer than a thousand for a short name. Names too short to
+ * split are walked with every edit allowed from the first character, which looks at more prefixes. The price is the
+ * reversed order, which costs an int per name and makes building a segment about twice as slow.
+ *
+ * An index never changes once built, so it can be shared by any number of readers. The catalog and registry keep one
+ * up to date as names are added in batches, using {@link #with} to add each batch as a new segment. A segment is
+ * merged into the one before it while that one is no more than twice its size, so each segment is more than twice the
+ * size of the next, there are at most log2 n of them, and each name is copied O(log n) times however small the batches
+ * are, rather than the whole index being copied for every batch.
+ *
+ * @param <T> type of the items named
+ *
+ * @author Andrew Brown
+ */
+public class NameIndex<T> {
+    private final Segment[] segments;
+
+    /**
+     * Constructor creating an empty index.
+     */
+    NameIndex() {
+        this(new Segment[0]);
+    }
+
+    /**
+     * Constructor building the index from items keyed on their normalised names.
+     *
+     * @param itemsByName Map from normalised name to item
+     */
+    NameIndex(Map<String, T> itemsByName) {
+        this(itemsByName.isEmpty() ? new Segment[0] : new Segment[] {new Segment(itemsByName)});
+    }
+
+    private NameIndex(Segment[] segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Package-private method to make a copy of the index with more names added. The names are sorted into a new
+     * segment, which is merged with the smallest segments while they are no more than twice its size, so adding a batch
+     * costs O(b log n) amortised for a batch of b names rather than a pass over the whole index.
+     *
+     * @param added Map from normalised name to item, none of which are in the index already
+     * @return NameIndex holding the names of both
+     */
+    NameIndex<T> with(Map<String, T> added) {
+        if (added.isEmpty()) return this;
+        List<Segment> merged = new ArrayList<>(Arrays.asList(segments));
+        Segment last = new Segment(added);
+        while (!merged.isEmpty() && merged.get(merged.size() - 1).size() <= 2 * last.size()) {
+            last = merged.remove(merged.size() - 1).merge(last);
+        }
+        merged.add(last);
+        return new NameIndex<>(merged.toArray(new Segment[0]));
+    }
+
+    /**
+     * Package-private method to get the number of names in the index
+     * @return int number of names
+     */
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Package-private method to get the number of sorted arrays the names are split across
+     * @return int number of segments
+     */
+    int getSegmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Package-private method to find the items whose names start with a prefix, in alphabetical order.
+     *
+     * @param prefix String start of the name, in any case and spacing
+     * @param limit int most items to return
+     * @return List of up to limit items
+     */
+    List<T> complete(String prefix, int limit) {
+        String key = Names.normalize(prefix);
+        List<Match> matches = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.complete(key, limit, matches);
+        }
+        matches.sort(Comparator.comparing(m -> m.key));
+        return items(matches, limit);
+    }
+
+    /**
+     * Package-private method to find the items whose names are within a number of single character insertions,
+     * deletions or substitutions of a name, closest first and then in alphabetical order.
+     *
+     * @param name String name to match, in any case and spacing
+     * @param maxEdits int most edits allowed
+     * @param limit int most items to return
+     * @return List of up to limit items
+     */
+    List<T> similar(String name, int maxEdits, int limit) {
+        String key = Names.normalize(name);
+        List<Match> matches = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.similar(key, maxEdits, matches);
+        }
+        matches.sort(Comparator.comparingInt((Match m) -> m.distance).thenComparing(m -> m.key));
+        return items(matches, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> items(List<Match> matches, int limit) {
+        List<T> found = new ArrayList<>();
+        for (int i = 0; i < matches.size() && found.size() < limit; i++) {
+            found.add((T) matches.get(i).item);
+        }
+        return found;
+    }
+
+    /**
+     * Package-private method to suggest items for a name that wasn't found: names it is the start of first, then
+     * names a typing mistake or two away from it. One edit is allowed for names of up to four characters and two for
+     * longer names.
+     *
+     * @param name String name that was typed
+     * @param limit int most items to return
+     * @return List of up to limit different items
+     */
+    List<T> suggest(String name, int limit) {
+        String key = Names.normalize(name);
+        if (key.isEmpty()) return Collections.emptyList();
+        List<T> found = complete(key, limit);
+        for (T item : similar(key, key.length() <= 4 ? 1 : 2, limit)) {
+            if (found.size() == limit) break;
+            if (!found.contains(item)) found.add(item);
+        }
+        return found;
+    }
+
+    /**
+     * A name found by a search, with its edit distance from the name searched for.
+     */
+    private static class Match {
+        private final String key;
+        private final Object item;
+        private final int distance;
+
+        Match(String key, Object item, int distance) {
+            this.key = key;
+            this.item = item;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * What a walk does with each name it finds, given its position in the order walked and its distance.
+     */
+    private interface Visitor {
+        void visit(int i, int distance);
+    }
+
+    /**
+     * One sorted array of names, with the items they name and the order of their reversed spellings. A segment never
+     * changes once built.
+     */
+    private static class Segment {
+        private final String[] keys;
+        private final Object[] items;
+        private final int[] bySuffix;
+
+        Segment(Map<String, ?> itemsByName) {
+            keys = itemsByName.keySet().toArray(new String[0]);
+            Arrays.parallelSort(keys);
+            items = new Object[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                items[i] = itemsByName.get(keys[i]);
+            }
+            // each reversed name carries its position after a NUL, which sorts before any character of a name, so
+            // sorting the strings sorts the positions without a comparator or boxing
+            String[] reversed = new String[keys.length];
+            Arrays.parallelSetAll(reversed, i -> new StringBuilder(keys[i]).reverse().append('\0')
+                    .append((char) (i >>> 16)).append((char) i).toString());
+            Arrays.parallelSort(reversed);
+            bySuffix = new int[reversed.length];
+            for (int i = 0; i < reversed.length; i++) {
+                String entry = reversed[i];
+                int end = entry.length();
+                bySuffix[i] = entry.charAt(end - 2) << 16 | entry.charAt(end - 1);
+            }
+        }
+
+        private Segment(String[] keys, Object[] items, int[] bySuffix) {
+            this.keys = keys;
+            this.items = items;
+            this.bySuffix = bySuffix;
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        /**
+         * Merges this segment with a later one in a single pass over each, in both orders.
+         */
+        Segment merge(Segment other) {
+            String[] mergedKeys = new String[keys.length + other.keys.length];
+            Object[] mergedItems = new Object[mergedKeys.length];
+            int[] moved = new int[keys.length];
+            int[] otherMoved = new int[other.keys.length];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < mergedKeys.length; k++) {
+                if (j == other.keys.length || (i < keys.length && keys[i].compareTo(other.keys[j]) < 0)) {
+                    mergedKeys[k] = keys[i];
+                    mergedItems[k] = items[i];
+                    moved[i++] = k;
+                } else {
+                    mergedKeys[k] = other.keys[j];
+                    mergedItems[k] = other.items[j];
+                    otherMoved[j++] = k;
+                }
+            }
+            int[] mergedSuffixes = new int[mergedKeys.length];
+            i = 0;
+            j = 0;
+            for (int k = 0; k < mergedSuffixes.length; k++) {
+                if (j == other.bySuffix.length || (i < bySuffix.length
+                        && compareReversed(keys[bySuffix[i]], other.keys[other.bySuffix[j]]) < 0)) {
+                    mergedSuffixes[k] = moved[bySuffix[i++]];
+                } else {
+                    mergedSuffixes[k] = otherMoved[other.bySuffix[j++]];
+                }
+            }
+            return new Segment(mergedKeys, mergedItems, mergedSuffixes);
+        }
+
+        void complete(String key, int limit, List<Match> matches) {
+            int i = Arrays.binarySearch(keys, key);
+            if (i < 0) i = ~i;
+            for (int found = 0; i < keys.length && found < limit && keys[i].startsWith(key); i++, found++) {
+                matches.add(new Match(keys[i], items[i], 0));
+            }
+        }
+
+        void similar(String key, int maxEdits, List<Match> matches) {
+            int half = maxEdits / 2;
+            int split = key.length() / 2;
+            if (split <= half + 1 || key.length() - split <= half + 1) {
+                // too short to split, so walk with every edit allowed from the start
+                walk(false, key, maxEdits, null, 0,
+                        (i, distance) -> matches.add(new Match(keys[i], items[i], distance)));
+                return;
+            }
+            Set<Integer> found = new HashSet<>();
+            walk(false, key, maxEdits, key.substring(0, split), half, (i, distance) -> {
+                if (found.add(i)) matches.add(new Match(keys[i], items[i], distance));
+            });
+            String reversedKey = new StringBuilder(key).reverse().toString();
+            walk(true, reversedKey, maxEdits, reversedKey.substring(0, key.length() - split), half, (i, distance) -> {
+                if (found.add(bySuffix[i])) matches.add(new Match(keys[bySuffix[i]], items[bySuffix[i]], distance));
+            });
+        }
+
+        /**
+         * Walks the names in sorted order, or in the order of their reversed spellings, as a trie, visiting each name
+         * within maxEdits of the pattern. If a start is given, only names starting with something within startEdits
+         * of it are looked at: until a prefix of the name being visited is that close to the start, the walk also
+         * works out the rows for the start and skips any prefix whose row has no entry within startEdits.
+         */
+        private void walk(boolean reversed, String pattern, int maxEdits, String start, int startEdits,
+                          Visitor visitor) {
+            // rows[d] is the edit distance row after the first d characters of the name being visited, and the rows
+            // up to depth are still correct for the next name as far as it shares a prefix with the last one;
+            // startRows are the same for the start, worked out until startDepth, where a prefix first came close to it
+            int[][] rows = firstRow(pattern);
+            int[][] startRows = start == null ? null : firstRow(start);
+            int startDepth = start == null ? 0 : -1;
+            int depth = 0;
+            int previous = -1;
+            int i = 0;
+            while (i < keys.length) {
+                int length = keys[position(reversed, i)].length();
+                if (rows.length <= length) {
+                    rows = Arrays.copyOf(rows, Math.max(length + 1, rows.length * 2));
+                    if (startRows != null) startRows = Arrays.copyOf(startRows, rows.length);
+                }
+                int d = previous < 0 ? 0 : Math.min(depth, commonPrefix(reversed, previous, i));
+                if (startDepth > d) startDepth = -1;
+                boolean pruned = false;
+                while (d < length) {
+                    char label = charAt(reversed, i, d);
+                    if (!nextRow(rows, d, label, pattern, maxEdits)
+                            || (startDepth < 0 && !nextRow(startRows, d, label, start, startEdits))) {
+                        pruned = true;
+                        break;
+                    }
+                    d++;
+                    if (startDepth < 0 && startRows[d][start.length()] <= startEdits) startDepth = d;
+                }
+                previous = i;
+                depth = d;
+                if (pruned) {
+                    i = endOfPrefix(reversed, i, d + 1);
+                    continue;
+                }
+                int distance = rows[d][pattern.length()];
+                if (startDepth >= 0 && distance <= maxEdits) visitor.visit(i, distance);
+                i++;
+            }
+        }
+
+        private static int[][] firstRow(String pattern) {
+            int[][] rows = new int[1][pattern.length() + 1];
+            for (int c = 0; c <= pattern.length(); c++) {
+                rows[0][c] = c;
+            }
+            return rows;
+        }
+
+        private int position(boolean reversed, int i) {
+            return reversed ? bySuffix[i] : i;
+        }
+
+        private char charAt(boolean reversed, int i, int d) {
+            String key = keys[position(reversed, i)];
+            return key.charAt(reversed ? key.length() - 1 - d : d);
+        }
+
+        private int commonPrefix(boolean reversed, int a, int b) {
+            int length = Math.min(keys[position(reversed, a)].length(), keys[position(reversed, b)].length());
+            int d = 0;
+            while (d < length && charAt(reversed, a, d) == charAt(reversed, b, d)) d++;
+            return d;
+        }
+
+        /** Whether the names at {@code a} and {@code b} agree on their first {@code length} characters. */
+        private boolean sharesPrefix(boolean reversed, int a, int b, int length) {
+            if (keys[position(reversed, b)].length() < length) return false;
+            for (int d = length - 1; d >= 0; d--) {
+                if (charAt(reversed, a, d) != charAt(reversed, b, d)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Finds the first name after from that doesn't share its first length characters. The names sharing a prefix
+         * are next to each other, and usually only a few of them, so this gallops forward from from in doubling steps
+         * and then binary searches the last step, staying among the names nearby rather than jumping across the whole
+         * segment.
+         */
+        private int endOfPrefix(boolean reversed, int from, int length) {
+            int step = 1;
+            while (from + step < keys.length && sharesPrefix(reversed, from, from + step, length)) {
+                step <<= 1;
+            }
+            int low = from + (step >> 1) + 1;
+            int high = Math.min(from + step, keys.length);
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sharesPrefix(reversed, from, middle, length)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Works out the edit distance row after one more character from the row before it.
+     *
+     * @return boolean false if no entry of the new row is within maxEdits, so no name continuing it can match
+     */
+    private static boolean nextRow(int[][] rows, int d, char label, String key, int maxEdits) {
+        int[] row = rows[d];
+        int[] next = rows[d + 1];
+        if (next == null) {
+            next = new int[row.length];
+            rows[d + 1] = next;
+        }
+        next[0] = row[0] + 1;
+        int best = next[0];
+        for (int c = 1; c < row.length; c++) {
+            int substitute = row[c - 1] + (key.charAt(c - 1) == label ? 0 : 1);
+            next[c] = Math.min(substitute, Math.min(row[c], next[c - 1]) + 1);
+            best = Math.min(best, next[c]);
+        }
+        return best <= maxEdits;
+    }
+
+    /**
+     * Compares two names by their spellings read backwards.
+     */
+    private static int compareReversed(String a, String b) {
+        int i = a.length() - 1;
+        int j = b.length() - 1;
+        while (i >= 0 && j >= 0) {
+            char x = a.charAt(i--);
+            char y = b.charAt(j--);
+            if (x != y) return x - y;
+        }
+        return (i + 1) - (j + 1);
+    }
+}
@@ -0,0 +1,56 @@
+import java.util.Locale;
+
+/**
+ * Utility class for turning names typed by the user or read from file into the keys used by the hash indexes. A
+ * normalised name has leading and trailing whitespace removed, runs of whitespace collapsed to a single space and is
+ * lower case, so "anna  smith" and "Anna Smith" find the same client.
+ *
+ * @author Andrew Brown
+ */
+final class Names {
+
+    private Names() {
+    }
+
+    /**
+     * Normalises a name for use as a lookup key.
+     *
+     * @param name String name to normalise
+     * @return String normalised key, or an empty string if name is null
+     */
+    static String normalize(String name) {
+        if (name == null) return "";
+        if (isTidy(name)) return name.toLowerCase(Locale.ROOT);
+        StringBuilder key = new StringBuilder(name.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = key.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    key.append(' ');
+                    pendingSpace = false;
+                }
+                key.append(c);
+            }
+        }
+        return key.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Checks whether a name has no leading, trailing or repeated whitespace and no whitespace other than spaces, in
+     * which case only its case needs normalising.
+     */
+    private static boolean isTidy(String name) {
+        int length = name.length();
+        if (length == 0 || name.charAt(0) == ' ' || name.charAt(length - 1) == ' ') return false;
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (c == ' ' ? previous == ' ' : Character.isWhitespace(c)) return false;
+            previous = c;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,478 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@code OnSaleSimulator} class rehearses the rush when tickets go on sale. It writes a synthetic roster in the
+ * input.txt format, loads it with the {@link RosterLoader}, and then sets many virtual buyers loose on a
+ * {@link BoxOffice} at once. Each buyer picks a client at random and an event weighted by popularity, and mostly buys
+ * between 1 and 4 tickets, sometimes returning some of a client's tickets instead. Popularity follows a Zipf
+ * distribution, so the first few events sell out early while the rest sell slowly, and buyers keep asking for the
+ * sold-out events, which are refused and sent a letter, just as on the day.
+ *
+ * While the buyers run a watchdog checks that no event has gone below zero or above its supply and that no client
+ * holds tickets for more than 3 events. Once they have finished the tickets remaining and held for each event must add
+ * up to its supply, the refusals counted against the events must match the sold-out results, and a letter must have
+ * been written for every one of them. The report gives the throughput, the latency percentiles of sales and returns,
+ * the count of each result and any of these checks that failed.
+ *
+ * Run using
+ * <pre>
+ *     java OnSaleSimulator [--events n] [--clients n] [--tickets n] [--buyers n] [--requests n]
+ *                          [--skew s] [--seed n] [--dir folder]
+ * </pre>
+ * The roster and letters are written to the folder, which is a new temporary folder if none is given.
+ *
+ * @author Andrew Brown
+ */
+public class OnSaleSimulator {
+    private static final double RETURN_CHANCE = 0.15;
+    private static final int MAX_TICKETS_PER_SALE = 4;
+
+    private OnSaleSimulator() {
+    }
+
+    /**
+     * Runs a simulation with the options given and prints the report. Exits with status 1 if any check failed.
+     *
+     * @param args options as described for the class
+     */
+    public static void main(String[] args) throws Exception {
+        Scenario scenario = new Scenario();
+        Path dir = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--events":
+                    scenario.events = Integer.parseInt(value);
+                    break;
+                case "--clients":
+                    scenario.clients = Integer.parseInt(value);
+                    break;
+                case "--tickets":
+                    scenario.tickets = Integer.parseInt(value);
+                    break;
+                case "--buyers":
+                    scenario.buyers = Integer.parseInt(value);
+                    break;
+                case "--requests":
+                    scenario.requests = Integer.parseInt(value);
+                    break;
+                case "--skew":
+                    scenario.skew = Double.parseDouble(value);
+                    break;
+                case "--seed":
+                    scenario.seed = Long.parseLong(value);
+                    break;
+                case "--dir":
+                    dir = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (dir == null) {
+            dir = Files.createTempDirectory("onsale");
+        } else {
+            Files.createDirectories(dir);
+        }
+        Result result = run(scenario, dir);
+        System.out.println("Roster and letters written to " + dir);
+        System.out.println(result);
+        if (!result.passed()) System.exit(1);
+    }
+
+    /**
+     * Writes a synthetic roster in the input.txt format. Events are named Event 1 to Event n, each with the same
+     * number of tickets, and clients Buyer1 Rush to Buyern Rush.
+     *
+     * @param file Path to write the roster to
+     * @param events int number of events
+     * @param clients int number of clients
+     * @param tickets int number of tickets for each event
+     * @throws IOException if the file can't be written
+     */
+    static void writeRoster(Path file, int events, int clients, int tickets) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(events + "\n");
+            for (int i = 1; i <= events; i++) {
+                out.write("Event " + i + "\n" + tickets + "\n");
+            }
+            out.write(clients + "\n");
+            for (int i = 1; i <= clients; i++) {
+                out.write("Buyer" + i + " Rush\n");
+            }
+        }
+    }
+
+    /**
+     * Runs a simulation: writes and loads the roster, runs the buyers and the watchdog, and checks the final state.
+     *
+     * @param scenario Scenario sizes of the roster and the rush
+     * @param dir Path of the folder to write the roster and letters to
+     * @return Result throughput, latency, result counts and failed checks of the run
+     * @throws IOException if the roster or letters can't be written, or a buyer fails
+     */
+    static Result run(Scenario scenario, Path dir) throws IOException, InterruptedException {
+        Path roster = dir.resolve("input.txt");
+        writeRoster(roster, scenario.events, scenario.clients, scenario.tickets);
+        EventCatalog events = new EventCatalog();
+        ClientRegistry clients = new ClientRegistry();
+        RosterLoader.load(roster, events, clients);
+        LetterSpooler letters = new LetterSpooler(dir.resolve("output.txt"), false, 4096);
+        BoxOffice boxOffice = new BoxOffice(events, clients, letters);
+
+        List<Event> eventsByPopularity = new ArrayList<>(events.size());
+        for (int id = 0; id < events.size(); id++) {
+            eventsByPopularity.add(events.get(id));
+        }
+        List<Client> buyers = new ArrayList<>(clients.getSortedClients());
+        double[] popularity = popularity(eventsByPopularity.size(), scenario.skew);
+
+        Result result = new Result(scenario);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int b = 0; b < scenario.buyers; b++) {
+            SplittableRandom random = new SplittableRandom(scenario.seed + b);
+            Thread buyer = new Thread(() -> {
+                try {
+                    go.await();
+                    for (int i = 0; i < scenario.requests && failure.get() == null; i++) {
+                        Client client = buyers.get(random.nextInt(buyers.size()));
+                        buy(boxOffice, client, eventsByPopularity, popularity, random, result);
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "buyer-" + b);
+            threads.add(buyer);
+            buyer.start();
+        }
+        Watchdog watchdog = new Watchdog(eventsByPopularity, buyers, scenario.tickets, result);
+        watchdog.start();
+
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread buyer : threads) {
+            buyer.join();
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        watchdog.finish();
+        boxOffice.close();
+        if (failure.get() != null) throw new IOException("A buyer failed", failure.get());
+
+        check(eventsByPopularity, buyers, scenario.tickets, result);
+        long soldOut = result.getCount(TransactionResult.SOLD_OUT);
+        if (letters.getLettersWritten() != soldOut) {
+            result.violations.add(letters.getLettersWritten() + " letters written for " + soldOut
+                    + " sold-out refusals");
+        }
+        return result;
+    }
+
+    /**
+     * Makes one request for a client: usually a sale for an event chosen by popularity, sometimes a return of some of
+     * the tickets the client already holds.
+     */
+    private static void buy(BoxOffice boxOffice, Client client, List<Event> events, double[] popularity,
+                            SplittableRandom random, Result result) throws IOException {
+        if (random.nextDouble() < RETURN_CHANCE) {
+            Event held = null;
+            int tickets = 0;
+            synchronized (client) {
+                int holdings = client.getHoldingCount();
+                if (holdings > 0) {
+                    int index = random.nextInt(holdings);
+                    held = events.get(client.getHoldingEventId(index));
+                    tickets = client.getHoldingTickets(index);
+                }
+            }
+            if (held != null) {
+                long start = System.nanoTime();
+                TransactionResult returned = boxOffice.returnTickets(client, held, 1 + random.nextInt(tickets));
+                result.returnLatency.record(System.nanoTime() - start);
+                result.count(returned);
+                return;
+            }
+        }
+        Event event = events.get(pick(popularity, random.nextDouble()));
+        long start = System.nanoTime();
+        TransactionResult sold = boxOffice.sellTickets(client, event, 1 + random.nextInt(MAX_TICKETS_PER_SALE));
+        result.sellLatency.record(System.nanoTime() - start);
+        result.count(sold);
+    }
+
+    /**
+     * Works out the cumulative share of demand for each event, where the event ranked k is wanted in proportion to
+     * 1 / k^skew.
+     *
+     * @param events int number of events
+     * @param skew double Zipf exponent, 0 for every event equally popular
+     * @return double[] cumulative share of demand up to and including each event, ending at 1
+     */
+    static double[] popularity(int events, double skew) {
+        double[] cumulative = new double[events];
+        double total = 0;
+        for (int k = 0; k < events; k++) {
+            total += 1 / Math.pow(k + 1, skew);
+            cumulative[k] = total;
+        }
+        for (int k = 0; k < events; k++) {
+            cumulative[k] /= total;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Chooses an event from the cumulative shares of demand.
+     *
+     * @param cumulative double[] cumulative shares, as made by {@link #popularity}
+     * @param uniform double random number between 0 and 1
+     * @return int index of the event chosen
+     */
+    static int pick(double[] cumulative, double uniform) {
+        int index = Arrays.binarySearch(cumulative, uniform);
+        if (index < 0) index = ~index;
+        return Math.min(index, cumulative.length - 1);
+    }
+
+    /**
+     * Checks the state left by a run: for each event the tickets remaining and the tickets held by clients must add up
+     * to the supply, no client may hold tickets for more than 3 events, and the refusals counted against the events
+     * must match the sold-out results. Failed checks are added to the result.
+     *
+     * @param events List of every event
+     * @param clients List of every client
+     * @param supply int number of tickets each event started with
+     * @param result Result to add failed checks to
+     */
+    static void check(List<Event> events, List<Client> clients, int supply, Result result) {
+        long[] held = new long[events.size()];
+        for (Client client : clients) {
+            synchronized (client) {
+                int holdings = client.getHoldingCount();
+                if (holdings > Client.MAX_EVENTS) {
+                    result.violations.add(client.getFullName() + " holds tickets for " + holdings + " events");
+                }
+                for (int i = 0; i < holdings; i++) {
+                    held[client.getHoldingEventId(i)] += client.getHoldingTickets(i);
+                }
+            }
+        }
+        long refusals = 0;
+        for (Event event : events) {
+            int remaining = event.getTicketsRemaining();
+            result.remaining += remaining;
+            result.held += held[event.getId()];
+            if (remaining + held[event.getId()] != supply) {
+                result.violations.add(event.getName() + " has " + remaining + " remaining and " + held[event.getId()]
+                        + " held from a supply of " + supply);
+            }
+            refusals += event.getRefusals();
+        }
+        long soldOut = result.getCount(TransactionResult.SOLD_OUT);
+        if (refusals != soldOut) {
+            result.violations.add(refusals + " refusals counted against events for " + soldOut + " sold-out results");
+        }
+    }
+
+    /**
+     * Checks the events and clients over and over while the buyers are running, so a count that goes wrong only
+     * for a moment is still caught.
+     */
+    private static class Watchdog extends Thread {
+        private final List<Event> events;
+        private final List<Client> clients;
+        private final int supply;
+        private final Result result;
+        private volatile boolean running = true;
+
+        Watchdog(List<Event> events, List<Client> clients, int supply, Result result) {
+            super("watchdog");
+            setDaemon(true);
+            this.events = events;
+            this.clients = clients;
+            this.supply = supply;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            int next = 0;
+            while (running) {
+                for (Event event : events) {
+                    int remaining = event.getTicketsRemaining();
+                    if (remaining < 0 || remaining > supply) {
+                        result.violation(event.getName() + " had " + remaining + " tickets remaining during the run");
+                    }
+                }
+                for (int i = 0; i < 1000 && !clients.isEmpty(); i++) {
+                    Client client = clients.get(next);
+                    next = (next + 1) % clients.size();
+                    if (client.getHoldingCount() > Client.MAX_EVENTS) {
+                        result.violation(client.getFullName() + " held tickets for more than 3 events during the run");
+                    }
+                }
+                result.watchdogPasses++;
+                Thread.yield();
+            }
+        }
+
+        void finish() throws InterruptedException {
+            running = false;
+            join();
+        }
+    }
+
+    /**
+     * Sizes of a simulated on-sale: the roster, the buyers and how skewed demand is.
+     */
+    static class Scenario {
+        private int events = 200;
+        private int clients = 100_000;
+        private int tickets = 500;
+        private int buyers = 64;
+        private int requests = 2_000;
+        private double skew = 1.1;
+        private long seed = 42;
+
+        /**
+         * Constructor for the default scenario: 200 events of 500 tickets, 100,000 clients and 64 buyers making 2,000
+         * requests each.
+         */
+        Scenario() {
+        }
+
+        /**
+         * Constructor for a scenario of the given size.
+         *
+         * @param events int number of events
+         * @param clients int number of clients
+         * @param tickets int number of tickets for each event
+         * @param buyers int number of buyers running at once
+         * @param requests int number of requests each buyer makes
+         * @param skew double Zipf exponent of event popularity
+         * @param seed long seed for the buyers' random choices
+         */
+        Scenario(int events, int clients, int tickets, int buyers, int requests, double skew, long seed) {
+            this.events = events;
+            this.clients = clients;
+            this.tickets = tickets;
+            this.buyers = buyers;
+            this.requests = requests;
+            this.skew = skew;
+            this.seed = seed;
+        }
+    }
+
+    /**
+     * Throughput, latency, result counts and failed checks of a simulation.
+     */
+    static class Result {
+        private final Scenario scenario;
+        private final AtomicLongArray counts = new AtomicLongArray(TransactionResult.values().length);
+        private final LatencyHistogram sellLatency = new LatencyHistogram();
+        private final LatencyHistogram returnLatency = new LatencyHistogram();
+        private final List<String> violations = Collections.synchronizedList(new ArrayList<>());
+        private long elapsedNanos;
+        private long remaining;
+        private long held;
+        private volatile int watchdogPasses;
+
+        Result(Scenario scenario) {
+            this.scenario = scenario;
+        }
+
+        private void count(TransactionResult result) {
+            counts.incrementAndGet(result.ordinal());
+        }
+
+        private void violation(String violation) {
+            if (violations.size() < 100) violations.add(violation);
+        }
+
+        /**
+         * Package-private method to get the number of requests that had a given result
+         * @param result TransactionResult to count
+         * @return long number of requests
+         */
+        long getCount(TransactionResult result) {
+            return counts.get(result.ordinal());
+        }
+
+        /**
+         * Package-private method to get the number of requests made by every buyer together
+         * @return long number of requests
+         */
+        long getRequests() {
+            return sellLatency.getCount() + returnLatency.getCount();
+        }
+
+        /**
+         * Package-private method to get the checks that failed, during or after the run
+         * @return List of descriptions of the failed checks, empty if every check passed
+         */
+        List<String> getViolations() {
+            synchronized (violations) {
+                return new ArrayList<>(violations);
+            }
+        }
+
+        /**
+         * Package-private method to check whether every check passed
+         * @return boolean true if no check failed
+         */
+        boolean passed() {
+            return violations.isEmpty();
+        }
+
+        /**
+         * Gives a report of the run, one figure per line
+         * @return String report of the run
+         */
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("%d buyers made %d requests against %d events and %d clients in %d ms "
+                            + "(%d requests/sec)%n", scenario.buyers, getRequests(), scenario.events,
+                    scenario.clients, elapsedNanos / 1_000_000,
+                    elapsedNanos == 0 ? 0 : Math.round(getRequests() * 1e9 / elapsedNanos)));
+            appendLatency(report, "Sales", sellLatency);
+            appendLatency(report, "Returns", returnLatency);
+            for (TransactionResult result : TransactionResult.values()) {
+                if (getCount(result) > 0) report.append(String.format("%-18s %d%n", result, getCount(result)));
+            }
+            report.append(String.format("Tickets held %d, remaining %d, supply %d%n", held, remaining,
+                    (long) scenario.events * scenario.tickets));
+            report.append("Watchdog passes ").append(watchdogPasses).append(System.lineSeparator());
+            List<String> failed = getViolations();
+            if (failed.isEmpty()) {
+                report.append("All checks passed");
+            } else {
+                report.append(failed.size()).append(" checks failed:");
+                for (String violation : failed) {
+                    report.append(System.lineSeparator()).append("    ").append(violation);
+                }
+            }
+            return report.toString();
+        }
+
+        private static void appendLatency(StringBuilder report, String name, LatencyHistogram histogram) {
+            report.append(String.format("%-8s p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n", name,
+                    histogram.getPercentileNanos(0.5) / 1e3, histogram.getPercentileNanos(0.99) / 1e3,
+                    histogram.getPercentileNanos(0.999) / 1e3, histogram.getMaxNanos() / 1e3));
+        }
+    }
+}
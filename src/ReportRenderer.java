@@ -0,0 +1,305 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * The {@code ReportRenderer} class writes the event and client listings. Rows are written through one large buffer,
+ * and the columns are padded by hand rather than with String.format, so a listing of millions of rows costs little
+ * more than the bytes written. The output is only flushed when a page or report is finished, so the same renderer
+ * can write a page at a time to the console or a whole report to a file.
+ *
+ * Which rows are listed is chosen with a {@link Query}: a name prefix, a number of matching rows to skip and a limit
+ * on the number of rows. Events match the prefix on their name; clients match it on their full name or last name.
+ * Case is ignored.
+ *
+ * @author Andrew Brown
+ */
+public class ReportRenderer implements Flushable, Closeable {
+    static final String RULE = "------------------------------------------------------";
+    private static final String NEWLINE = System.getProperty("line.separator");
+    private static final int COLUMN_WIDTH = 30;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer out;
+
+    /**
+     * Constructor taking the writer the report is written to
+     *
+     * @param out Writer to write to, which is buffered by the renderer
+     */
+    ReportRenderer(Writer out) {
+        this.out = new BufferedWriter(out, BUFFER_SIZE);
+    }
+
+    /**
+     * Writes the whole event report for the events matching the query.
+     *
+     * @param events EventCatalog to list
+     * @param query Query choosing the events
+     * @return int number of events listed
+     */
+    int writeEventReport(EventCatalog events, Query query) throws IOException {
+        eventHeader();
+        int rows = 0;
+        for (Iterator<Event> it = query.select(events, query::matches); it.hasNext(); rows++) {
+            event(it.next());
+        }
+        footer();
+        flush();
+        return rows;
+    }
+
+    /**
+     * Writes the whole client report for the clients matching the query.
+     *
+     * @param clients ClientRegistry to list
+     * @param events EventCatalog the clients' holdings refer to
+     * @param query Query choosing the clients
+     * @return int number of clients listed
+     */
+    int writeClientReport(ClientRegistry clients, EventCatalog events, Query query) throws IOException {
+        clientHeader();
+        int rows = 0;
+        for (Iterator<Client> it = query.select(clients, query::matches); it.hasNext(); rows++) {
+            client(it.next(), events);
+        }
+        footer();
+        flush();
+        return rows;
+    }
+
+    /**
+     * Writes rows a page at a time to a terminal. After each full page the rows so far are flushed and the user is
+     * asked whether to carry on, so a listing of millions of rows can be stopped after the first page.
+     *
+     * @param rows Iterator over the rows to write
+     * @param row how to write one row, e.g. ReportRenderer::event
+     * @param pageSize int number of rows per page
+     * @param terminal Terminal to ask whether to show the next page
+     * @return int number of rows written
+     */
+    <T> int writePages(Iterator<T> rows, RowWriter<T> row, int pageSize, Terminal terminal) throws IOException {
+        int written = 0;
+        while (rows.hasNext()) {
+            row.write(this, rows.next());
+            written++;
+            if (written % pageSize == 0 && rows.hasNext()) {
+                flush();
+                String answer = terminal.readLine("-- " + written + " shown, press enter for more or (q) to stop: ");
+                if (answer == null || answer.trim().toLowerCase().startsWith("q")) break;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Writes the title of the event report.
+     */
+    void eventHeader() throws IOException {
+        out.write(NEWLINE);
+        out.write("                 ALL EVENT INFORMATION                ");
+        out.write(NEWLINE);
+        out.write(RULE);
+        out.write(NEWLINE);
+    }
+
+    /**
+     * Writes the title of the client report.
+     */
+    void clientHeader() throws IOException {
+        out.write(NEWLINE);
+        out.write("                 ALL CLIENT INFORMATION");
+        out.write(NEWLINE);
+        out.write(RULE);
+        out.write(NEWLINE);
+    }
+
+    /**
+     * Writes the closing rule of a report.
+     */
+    void footer() throws IOException {
+        out.write(RULE);
+        out.write(NEWLINE);
+        out.write(NEWLINE);
+    }
+
+    /**
+     * Writes one event as two columns, the name and the tickets remaining.
+     *
+     * @param event Event to write
+     */
+    void event(Event event) throws IOException {
+        column("Event: ", event.getName());
+        out.write("  ");
+        column("Available Tickets: ", Integer.toString(event.getTicketsRemaining()));
+        out.write(NEWLINE);
+    }
+
+    /**
+     * Writes one client, with the events they are attending on the following line indented by a tab.
+     *
+     * @param client Client to write
+     * @param events EventCatalog the client's holdings refer to
+     */
+    void client(Client client, EventCatalog events) throws IOException {
+        out.write("Client Name: ");
+        out.write(client.getFullName());
+        out.write(NEWLINE);
+        out.write("\tEvents Attending: ");
+        List<Event> attending = client.getEventsAttending(events);
+        if (attending.isEmpty()) {
+            out.write("No Tickets Bought Yet");
+        } else {
+            out.write('[');
+            for (int i = 0; i < attending.size(); i++) {
+                if (i > 0) out.write(", ");
+                out.write(attending.get(i).getName());
+                out.write(" - ");
+                out.write(Integer.toString(attending.get(i).getTicketsRemaining()));
+            }
+            out.write(']');
+        }
+        out.write(NEWLINE);
+    }
+
+    /**
+     * Writes a line of text.
+     *
+     * @param text String text to write
+     */
+    void line(String text) throws IOException {
+        out.write(text);
+        out.write(NEWLINE);
+    }
+
+    /**
+     * Writes a label and value cut or padded to the column width, as %-30.30s would.
+     */
+    private void column(String label, String value) throws IOException {
+        int width = Math.min(label.length(), COLUMN_WIDTH);
+        out.write(label, 0, width);
+        int valueWidth = Math.min(value.length(), COLUMN_WIDTH - width);
+        out.write(value, 0, valueWidth);
+        for (int i = width + valueWidth; i < COLUMN_WIDTH; i++) {
+            out.write(' ');
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Chooses the rows of a report: those whose name starts with a prefix, after skipping a number of them, up to a
+     * limit.
+     */
+    static class Query {
+        private final String prefix;
+        private final int offset;
+        private final int limit;
+
+        /**
+         * Constructor taking the filters
+         *
+         * @param prefix String name prefix, or null or empty for every row
+         * @param offset int number of matching rows to skip
+         * @param limit int largest number of rows to list
+         */
+        Query(String prefix, int offset, int limit) {
+            this.prefix = prefix == null ? "" : prefix.trim();
+            this.offset = Math.max(0, offset);
+            this.limit = Math.max(0, limit);
+        }
+
+        /**
+         * Creates a query listing every row
+         * @return Query with no filters
+         */
+        static Query all() {
+            return new Query(null, 0, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Checks an event against the prefix
+         * @param event Event to check
+         * @return boolean true if the event's name starts with the prefix
+         */
+        boolean matches(Event event) {
+            return startsWith(event.getName());
+        }
+
+        /**
+         * Checks a client against the prefix
+         * @param client Client to check
+         * @return boolean true if the client's full name or last name starts with the prefix
+         */
+        boolean matches(Client client) {
+            return startsWith(client.getFullName()) || startsWith(client.getLastName());
+        }
+
+        private boolean startsWith(String name) {
+            return name.regionMatches(true, 0, prefix, 0, prefix.length());
+        }
+
+        /**
+         * Gives the rows chosen by the query, in the order the items are in, without copying them.
+         *
+         * @param items Iterable items to choose from
+         * @param matches Predicate checking an item against the prefix, e.g. query::matches
+         * @return Iterator over the chosen items
+         */
+        <T> Iterator<T> select(Iterable<T> items, Predicate<T> matches) {
+            Iterator<T> source = items.iterator();
+            return new Iterator<T>() {
+                private int skipped;
+                private int returned;
+                private T next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next != null) return true;
+                    if (returned >= limit) return false;
+                    while (source.hasNext()) {
+                        T item = source.next();
+                        if (!matches.test(item)) continue;
+                        if (skipped < offset) {
+                            skipped++;
+                            continue;
+                        }
+                        next = item;
+                        return true;
+                    }
+                    return false;
+                }
+
+                @Override
+                public T next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    T item = next;
+                    next = null;
+                    returned++;
+                    return item;
+                }
+            };
+        }
+    }
+
+    /**
+     * Writes one row of a report.
+     */
+    interface RowWriter<T> {
+        void write(ReportRenderer renderer, T item) throws IOException;
+    }
+}
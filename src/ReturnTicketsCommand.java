@@ -0,0 +1,212 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The {@code ReturnTicketsCommand} class takes the user through returning a client's tickets. The user is asked for
+ * the client, shown the events the client has tickets for, then asked for the event and the number of tickets to
+ * return, and finally to confirm the return. For an event with numbered seats the client's seats are listed and the
+ * user may give the seat numbers to return instead of a number of tickets. Each question is asked again in a loop if
+ * the answer can't be used and the user chooses to try again; answering no at any point returns to the menu.
+ *
+ * @author Andrew Brown
+ */
+public class ReturnTicketsCommand implements Command {
+    private static final String NEWLINE = Terminal.NEWLINE;
+
+    private final BoxOffice boxOffice;
+
+    /**
+     * Constructor taking the box office to return tickets through
+     *
+     * @param boxOffice BoxOffice to return tickets through
+     */
+    ReturnTicketsCommand(BoxOffice boxOffice) {
+        this.boxOffice = boxOffice;
+    }
+
+    @Override
+    public char getKey() {
+        return 'r';
+    }
+
+    @Override
+    public String getDescription() {
+        return "Cancel/Return Tickets";
+    }
+
+    @Override
+    public boolean execute(Terminal terminal) throws IOException {
+        Client client = chooseClient(terminal);
+        if (client == null) return true;
+
+        terminal.println(NEWLINE + "The events that " + client.getFullName() + " has tickets for are:");
+        for (Event e : client.getEventsAttending(boxOffice.getEvents())) {
+            terminal.out().printf("%-20s %-20s", e.getName(), "Tickets: " + e.getTicketsRemaining());
+            terminal.println("");
+        }
+
+        Event event = chooseEvent(terminal, client);
+        if (event == null) return true;
+
+        SeatMap seatMap = event.getSeatMap();
+        if (seatMap != null && seatMap.getSeatsHeldBy(client).length > 0) {
+            int[] seats = chooseSeats(terminal, client, event, seatMap);
+            if (seats == null) return true;
+            if (seats.length > 0) {
+                confirmSeatReturn(terminal, client, event, seatMap, seats);
+                return true;
+            }
+        }
+
+        Integer numberOfTickets = chooseNumberOfTickets(terminal, client, event);
+        if (numberOfTickets == null) return true;
+
+        confirmTicketCancel(terminal, client, event, numberOfTickets);
+        return true;
+    }
+
+    /**
+     * Asks the user which client would like to return tickets. The name is checked against the list of clients and if
+     * the client isn't found the user is asked if they would like to try again. If the client doesn't have any tickets
+     * for any event, the user is informed that there are no tickets to be found.
+     *
+     * @return Client chosen client, or null if the user gave up
+     */
+    private Client chooseClient(Terminal terminal) throws IOException {
+        while (true) {
+            String response = terminal.readLine(NEWLINE + "Which client would like to return tickets? ");
+            if (response == null) return null;
+            Client client = boxOffice.findClient(response);
+            if (client == null) {
+                terminal.println("Cannot find that client");
+                terminal.suggest(boxOffice.suggestClients(response));
+                if (!terminal.confirm("Try again? (y)es/(n)o ")) return null;
+            } else if (client.getHoldingCount() == 0) {
+                terminal.println("That client doesn't have any tickets to return.");
+                if (!terminal.confirm("Choose a different client? (y)es/(n)o ")) return null;
+            } else {
+                return client;
+            }
+        }
+    }
+
+    /**
+     * The user is asked which event the client would like to return tickets for. The client's event list is then
+     * checked to verify they have tickets for that event. If the event isn't found the user is informed and asked if
+     * they would like to check for a different event.
+     *
+     * @return Event chosen event, or null if the user gave up
+     */
+    private Event chooseEvent(Terminal terminal, Client client) throws IOException {
+        while (true) {
+            String response = terminal.readLine(NEWLINE + "Which event would " + client.getFullName()
+                    + " like to return tickets for? ");
+            if (response == null) return null;
+            Event event = boxOffice.findEvent(response);
+            if (event != null && client.getTicketsHeld(event) > 0) return event;
+
+            terminal.println("Cannot find that event");
+            if (event == null) terminal.suggest(boxOffice.suggestEvents(response));
+            if (!terminal.confirm("Try again? (y)es/(n)o ")) return null;
+        }
+    }
+
+    /**
+     * The user is shown the seats the client holds for an event with numbered seats, each with its seat number, and
+     * asked which of them to return. Seats are numbered from 1 through the whole venue. A blank answer chooses to
+     * return a number of tickets instead. If an answer isn't a list of seats the client holds the user is asked if
+     * they would like to try again.
+     *
+     * @return int[] seats to return counted from 0 as the box office counts them, empty to return by number of
+     * tickets, or null if the user gave up
+     */
+    private int[] chooseSeats(Terminal terminal, Client client, Event event, SeatMap seatMap) throws IOException {
+        while (true) {
+            int[] held = seatMap.getSeatsHeldBy(client);
+            terminal.println(NEWLINE + client.getFullName() + " holds these seats for " + event.getName() + ":");
+            for (int seat : held) {
+                terminal.out().printf("%-8s %s", seat + 1, seatMap.describe(new int[]{seat}));
+                terminal.println("");
+            }
+            String response = terminal.readLine("Which seats would " + client.getFullName()
+                    + " like to return? (seat numbers, or Enter to give a number of tickets) ");
+            if (response == null) return null;
+            if (response.trim().isEmpty()) return new int[0];
+
+            String[] numbers = response.trim().split("[\\s,]+");
+            int[] seats = new int[numbers.length];
+            boolean valid = true;
+            for (int i = 0; i < numbers.length && valid; i++) {
+                try {
+                    seats[i] = Integer.parseInt(numbers[i]) - 1;
+                    valid = Arrays.binarySearch(held, seats[i]) >= 0;
+                    for (int j = 0; j < i && valid; j++) {
+                        valid = seats[j] != seats[i];
+                    }
+                } catch (NumberFormatException e) {
+                    valid = false;
+                }
+            }
+            if (valid) return seats;
+
+            terminal.println(client.getFullName() + " doesn't hold those seats");
+            if (!terminal.confirm("Try again? (y)es/(n)o ")) return null;
+        }
+    }
+
+    /**
+     * The user is informed how many tickets the client has for the selected event and then asked how many of the
+     * tickets the client would like to return. If they are trying to return more tickets than they own the user is
+     * informed and asked if they would like to enter a new value. If a number lower than 0 is entered it is replaced
+     * with 0.
+     *
+     * @return Integer number of tickets, or null if the user gave up
+     */
+    private Integer chooseNumberOfTickets(Terminal terminal, Client client, Event event) throws IOException {
+        while (true) {
+            int held = client.getTicketsHeld(event);
+            terminal.println(NEWLINE + client.getFullName() + " has " + held + " tickets for " + event.getName());
+            Integer numberOfTickets = terminal.readWholeNumber("How many tickets would " + client.getFullName()
+                    + " like to return? ", NEWLINE + "Error: Whole number expected" + NEWLINE);
+            if (numberOfTickets == null) return null;
+            if (numberOfTickets <= held) return numberOfTickets;
+
+            terminal.println(client.getFullName() + " doesn't have that many tickets to return");
+            if (!terminal.confirm("Would you like to enter a new value (y)es/(n)o ")) return null;
+        }
+    }
+
+    /**
+     * The user is shown the client, event and number of tickets they are about to return and asked if the information
+     * is correct. If the user responds with yes then the tickets are returned through the box office.
+     */
+    private void confirmTicketCancel(Terminal terminal, Client client, Event event, int numberOfTickets)
+            throws IOException {
+        terminal.println(NEWLINE + "You are about to return " + numberOfTickets + " ticket(s) from "
+                + client.getFullName() + " for " + event.getName());
+        if (!terminal.confirm("Is this information correct? (y)es/(n)o ")) return;
+
+        TransactionResult result = boxOffice.returnTickets(client, event, numberOfTickets);
+        if (!result.isSuccess()) {
+            terminal.println("Sorry, " + result.getMessage());
+        }
+    }
+
+    /**
+     * The user is shown the seats they are about to return and asked if the information is correct. If the user
+     * responds with yes then the seats are returned through the box office.
+     */
+    private void confirmSeatReturn(Terminal terminal, Client client, Event event, SeatMap seatMap, int[] seats)
+            throws IOException {
+        int[] sorted = seats.clone();
+        Arrays.sort(sorted);
+        terminal.println(NEWLINE + "You are about to return " + seatMap.describe(sorted) + " from "
+                + client.getFullName() + " for " + event.getName());
+        if (!terminal.confirm("Is this information correct? (y)es/(n)o ")) return;
+
+        TransactionResult result = boxOffice.returnSeats(client, event, seats);
+        if (!result.isSuccess()) {
+            terminal.println("Sorry, " + result.getMessage());
+        }
+    }
+}
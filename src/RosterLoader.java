@@ -0,0 +1,244 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code RosterLoader} class reads the events and clients from a roster file in the input.txt format described in
+ * the README. The file is read through a FileChannel into a large buffer and lines are parsed straight from the bytes,
+ * so counts are parsed without creating a String and names without regular expression splits. Records are collected
+ * first and then added to the EventCatalog and ClientRegistry in one batch each, which sorts them once rather than
+ * inserting each record into a sorted list.
+ *
+ * A client line is split at its last space: everything before it is the first name and the last word is the last
+ * name, so "Mary Ann Smith" becomes first name "Mary Ann" and last name "Smith".
+ *
+ * @author Andrew Brown
+ */
+public class RosterLoader {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private RosterLoader() {
+    }
+
+    /**
+     * Loads a roster file into the given catalog and registry.
+     *
+     * @param file Path of the roster file
+     * @param events EventCatalog to add the events to
+     * @param clients ClientRegistry to add the clients to
+     * @return Stats number of records loaded and the time taken
+     * @throws IOException if the file can't be read or doesn't follow the roster format
+     */
+    static Stats load(Path file, EventCatalog events, ClientRegistry clients) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return load(channel, events, clients);
+        }
+    }
+
+    /**
+     * Loads a roster from a channel into the given catalog and registry.
+     *
+     * @param channel ReadableByteChannel to read the roster from
+     * @param events EventCatalog to add the events to
+     * @param clients ClientRegistry to add the clients to
+     * @return Stats number of records loaded and the time taken
+     * @throws IOException if the channel can't be read or doesn't follow the roster format
+     */
+    static Stats load(ReadableByteChannel channel, EventCatalog events, ClientRegistry clients) throws IOException {
+        long start = System.nanoTime();
+        LineReader in = new LineReader(channel);
+
+        int numberOfEvents = in.nextInt();
+        List<Event> newEvents = new ArrayList<>(numberOfEvents);
+        for (int i = 0; i < numberOfEvents; i++) {
+            String eventName = in.nextText();
+            int numberOfTickets = in.nextInt();
+            newEvents.add(new Event(eventName, numberOfTickets));
+        }
+
+        int numberOfClients = in.nextInt();
+        List<Client> newClients = new ArrayList<>(numberOfClients);
+        for (int j = 0; j < numberOfClients; j++) {
+            newClients.add(in.nextClient());
+        }
+
+        int eventsAdded = events.addAll(newEvents);
+        int clientsAdded = clients.addAll(newClients);
+        return new Stats(eventsAdded, clientsAdded, in.bytesRead, System.nanoTime() - start);
+    }
+
+    /**
+     * Reads lines from a channel into a reusable byte array. Each call to next() replaces the current line.
+     */
+    private static final class LineReader {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private byte[] line = new byte[256];
+        private int start;
+        private int end;
+        private long lineNumber;
+        private long bytesRead;
+
+        LineReader(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        /**
+         * Moves to the next line, with leading and trailing whitespace trimmed off.
+         *
+         * @throws EOFException if there are no more lines
+         */
+        void next() throws IOException {
+            int length = 0;
+            boolean found = false;
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    buffer.clear();
+                    int n = channel.read(buffer);
+                    buffer.flip();
+                    if (n < 0) {
+                        if (!found) throw new EOFException("Roster ended early after line " + lineNumber);
+                        break;
+                    }
+                    bytesRead += n;
+                    continue;
+                }
+                found = true;
+                byte[] bytes = buffer.array();
+                int from = buffer.position();
+                int limit = buffer.limit();
+                int i = from;
+                while (i < limit && bytes[i] != '\n') i++;
+
+                int count = i - from;
+                if (length + count > line.length) {
+                    line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+                }
+                System.arraycopy(bytes, from, line, length, count);
+                length += count;
+
+                if (i < limit) {
+                    buffer.position(i + 1);
+                    break;
+                }
+                buffer.position(limit);
+            }
+            lineNumber++;
+            start = 0;
+            end = length;
+            while (start < end && isSpace(line[start])) start++;
+            while (end > start && isSpace(line[end - 1])) end--;
+        }
+
+        /**
+         * Reads the next line as a non-negative whole number.
+         */
+        int nextInt() throws IOException {
+            next();
+            if (start == end) throw badLine("a number");
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = line[i] - '0';
+                if (digit < 0 || digit > 9) throw badLine("a number");
+                value = value * 10 + digit;
+                if (value > Integer.MAX_VALUE) throw badLine("a number no larger than " + Integer.MAX_VALUE);
+            }
+            return (int) value;
+        }
+
+        /**
+         * Reads the next line as text.
+         */
+        String nextText() throws IOException {
+            next();
+            if (start == end) throw badLine("a name");
+            return new String(line, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Reads the next line as a client name, splitting off the last word as the last name.
+         */
+        Client nextClient() throws IOException {
+            next();
+            if (start == end) throw badLine("a client name");
+            int lastSpace = end - 1;
+            while (lastSpace > start && !isSpace(line[lastSpace])) lastSpace--;
+            if (lastSpace == start) {
+                return new Client(new String(line, start, end - start, StandardCharsets.UTF_8), "");
+            }
+            int firstEnd = lastSpace;
+            while (isSpace(line[firstEnd - 1])) firstEnd--;
+            return new Client(new String(line, start, firstEnd - start, StandardCharsets.UTF_8),
+                    new String(line, lastSpace + 1, end - lastSpace - 1, StandardCharsets.UTF_8));
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+
+        private IOException badLine(String expected) {
+            return new IOException("Roster line " + lineNumber + ": expected " + expected + " but found \""
+                    + new String(line, start, end - start, StandardCharsets.UTF_8) + "\"");
+        }
+    }
+
+    /**
+     * Counts of the records loaded from a roster and the time the load took.
+     */
+    static class Stats {
+        private final int events;
+        private final int clients;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        Stats(int events, int clients, long bytes, long elapsedNanos) {
+            this.events = events;
+            this.clients = clients;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Package-private method to get the number of events loaded
+         * @return int number of events
+         */
+        int getEvents() {
+            return events;
+        }
+
+        /**
+         * Package-private method to get the number of clients loaded
+         * @return int number of clients
+         */
+        int getClients() {
+            return clients;
+        }
+
+        /**
+         * Package-private method to get the number of records loaded per second
+         * @return double events and clients loaded per second
+         */
+        double getRecordsPerSecond() {
+            return elapsedNanos == 0 ? 0 : (events + clients) * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Gives a one line report of the load
+         * @return String report of the load
+         */
+        @Override
+        public String toString() {
+            return "Loaded " + events + " events and " + clients + " clients (" + bytes + " bytes) in "
+                    + elapsedNanos / 1_000_000 + " ms (" + Math.round(getRecordsPerSecond()) + " records/sec)";
+        }
+    }
+}
@@ -0,0 +1,308 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code RosterReloader} class adds events, tickets and clients to a running box office from a delta file, so a
+ * new event or a late registration doesn't need a restart that would lose the sales made since the last snapshot.
+ * Each line of the delta file is one of:
+ *
+ * <pre>
+ *     EVENT  event-name number-of-tickets
+ *     CLIENT client-full-name
+ * </pre>
+ *
+ * An EVENT line for an event that already exists puts that many extra tickets on sale, otherwise it adds the event.
+ * Blank lines and lines starting with # are skipped, and lines that can't be applied are reported and skipped.
+ *
+ * The delta file is watched with a {@link WatchService}. It is only ever appended to, so only the complete lines
+ * added since the last batch are parsed; a line still being written is picked up once its newline arrives. New events
+ * and clients are merged into the catalog and registry as one batch each, which readers see either wholly or not at
+ * all, and extra tickets are added to the events' counts atomically.
+ *
+ * Each batch is written to the journal like a sale, together with the offset in the delta file just after it, with
+ * {@link BoxOffice#addToRoster}. Sales only wait for the journal, not for a snapshot. The offset is kept by the box
+ * office and saved with every snapshot, so after a restart, whether from the snapshot or by replaying the journal,
+ * reading carries on after the last line applied and no line is applied twice. Applied lines are left in the delta
+ * file; if it is replaced by a shorter file, reading starts again from its beginning.
+ *
+ * @author Andrew Brown
+ */
+public class RosterReloader implements Closeable {
+    private final BoxOffice boxOffice;
+    private final Path deltaFile;
+    private long lineOffset;
+    private long lineNumber;
+    private WatchService watcher;
+    private Thread thread;
+
+    /**
+     * Constructor taking the box office to add to and the delta file. Nothing is read until {@link #applyPending()}
+     * or {@link #start()} is called, and reading starts from the box office's delta offset.
+     *
+     * @param boxOffice BoxOffice whose catalog and registry are added to
+     * @param deltaFile Path of the delta file, which need not exist yet
+     */
+    RosterReloader(BoxOffice boxOffice, Path deltaFile) {
+        this.boxOffice = boxOffice;
+        this.deltaFile = deltaFile.toAbsolutePath();
+    }
+
+    /**
+     * Applies the complete lines added to the delta file since the box office's delta offset as one batch, and
+     * journals it.
+     *
+     * @return Change counts of what was added and the lines that were skipped
+     * @throws IOException if the delta file can't be read, or the batch or tickets allocated to a waitlist couldn't
+     * be journalled
+     */
+    synchronized Change applyPending() throws IOException {
+        Change change = new Change();
+        if (!Files.exists(deltaFile)) return change;
+
+        long offset = boxOffice.getRosterOffset();
+        byte[] bytes;
+        try (FileChannel channel = FileChannel.open(deltaFile, StandardOpenOption.READ)) {
+            if (channel.size() < offset) {
+                // the file has been emptied or replaced, so start again from its beginning
+                offset = 0;
+            }
+            if (lineOffset != offset) {
+                lineNumber = countLines(channel, offset);
+                lineOffset = offset;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size() - offset, Integer.MAX_VALUE));
+            while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) > 0) {
+                // keep reading until the buffer is full
+            }
+            bytes = buffer.array();
+        }
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') end--;
+        if (end == 0) return change;
+
+        Map<String, Event> newEvents = new LinkedHashMap<>();
+        Map<Event, Integer> extraTickets = new LinkedHashMap<>();
+        Map<String, Client> newClients = new LinkedHashMap<>();
+        for (String line : new String(bytes, 0, end, StandardCharsets.UTF_8).split("\n")) {
+            lineNumber++;
+            String text = line.trim();
+            if (text.isEmpty() || text.charAt(0) == '#') continue;
+            String error = parse(text, newEvents, extraTickets, newClients);
+            if (error != null) change.rejected.add("Line " + lineNumber + ": " + error);
+        }
+        lineOffset = offset + end;
+
+        boxOffice.addToRoster(new ArrayList<>(newEvents.values()), extraTickets,
+                new ArrayList<>(newClients.values()), lineOffset);
+        change.events = newEvents.size();
+        change.clients = newClients.size();
+        for (int tickets : extraTickets.values()) {
+            change.tickets += tickets;
+        }
+        return change;
+    }
+
+    /**
+     * Counts the lines before an offset in the delta file, so lines can be reported by number after a restart.
+     */
+    private static long countLines(FileChannel channel, long end) throws IOException {
+        long lines = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        for (long position = 0; position < end; ) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') lines++;
+            }
+            position += read;
+        }
+        return lines;
+    }
+
+    /**
+     * Parses one line of the delta file into the batch being built.
+     *
+     * @return String why the line can't be applied, or null if it was added to the batch
+     */
+    private String parse(String text, Map<String, Event> newEvents, Map<Event, Integer> extraTickets,
+                         Map<String, Client> newClients) {
+        int space = text.indexOf(' ');
+        String kind = space < 0 ? text.toUpperCase() : text.substring(0, space).toUpperCase();
+        String rest = space < 0 ? "" : text.substring(space + 1).trim();
+        if (kind.equals("CLIENT")) {
+            if (rest.isEmpty()) return "expected a client name";
+            if (boxOffice.getClients().get(rest) != null) return null;
+            int lastSpace = rest.lastIndexOf(' ');
+            newClients.putIfAbsent(Names.normalize(rest), lastSpace < 0 ? new Client(rest, "")
+                    : new Client(rest.substring(0, lastSpace).trim(), rest.substring(lastSpace + 1)));
+            return null;
+        }
+        if (!kind.equals("EVENT")) return "expected EVENT or CLIENT but found \"" + text + "\"";
+
+        int lastSpace = rest.lastIndexOf(' ');
+        if (lastSpace < 0) return "expected an event name and number of tickets";
+        String name = rest.substring(0, lastSpace).trim();
+        int tickets;
+        try {
+            tickets = Integer.parseInt(rest.substring(lastSpace + 1));
+        } catch (NumberFormatException e) {
+            return "expected a number of tickets but found \"" + rest.substring(lastSpace + 1) + "\"";
+        }
+        if (tickets <= 0) return "expected a positive number of tickets";
+
+        Event existing = boxOffice.getEvents().get(name);
+        Event pending = newEvents.get(Names.normalize(name));
+        if (existing != null) {
+            if (existing.getSeatMap() != null) return name + " has numbered seats, so can't be given more tickets";
+            extraTickets.merge(existing, tickets, Integer::sum);
+        } else if (pending != null) {
+            pending.setTicketsRemaining(pending.getTicketsRemaining() + tickets);
+        } else {
+            newEvents.put(Names.normalize(name), new Event(name, tickets));
+        }
+        return null;
+    }
+
+    /**
+     * Applies anything already in the delta file and starts watching it for changes on a background thread.
+     *
+     * @throws IOException if the delta file's folder can't be watched, or its contents can't be applied
+     */
+    void start() throws IOException {
+        print(applyPending());
+        watcher = deltaFile.getFileSystem().newWatchService();
+        deltaFile.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this::watch, "roster-reloader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Body of the watching thread, which reloads whenever the delta file is created or changed.
+     */
+    private void watch() {
+        Path name = deltaFile.getFileName();
+        while (true) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context())) changed = true;
+            }
+            key.reset();
+            if (changed) {
+                try {
+                    print(applyPending());
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Roster delta " + deltaFile + " could not be applied: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void print(Change change) {
+        if (change.isEmpty()) return;
+        System.out.println(change);
+        for (String rejected : change.rejected) {
+            System.err.println("Roster delta skipped " + rejected);
+        }
+    }
+
+    /**
+     * Stops watching the delta file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (watcher == null) return;
+        watcher.close();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Counts of the events, tickets and clients added from the delta file and the lines that were skipped.
+     */
+    static class Change {
+        private int events;
+        private int tickets;
+        private int clients;
+        private final List<String> rejected = new ArrayList<>();
+
+        /**
+         * Package-private method to get the number of events added
+         * @return int number of events
+         */
+        int getEvents() {
+            return events;
+        }
+
+        /**
+         * Package-private method to get the number of extra tickets put on sale for existing events
+         * @return int number of tickets
+         */
+        int getTickets() {
+            return tickets;
+        }
+
+        /**
+         * Package-private method to get the number of clients registered
+         * @return int number of clients
+         */
+        int getClients() {
+            return clients;
+        }
+
+        /**
+         * Package-private method to get the lines that couldn't be applied and why
+         * @return List of messages, one per skipped line
+         */
+        List<String> getRejected() {
+            return Collections.unmodifiableList(rejected);
+        }
+
+        /**
+         * Package-private method to check whether nothing was added or skipped
+         * @return boolean true if the delta had no new lines
+         */
+        boolean isEmpty() {
+            return events == 0 && tickets == 0 && clients == 0 && rejected.isEmpty();
+        }
+
+        /**
+         * Gives a one line report of the change
+         * @return String report of what was added
+         */
+        @Override
+        public String toString() {
+            String report = "Roster delta added " + events + " events, " + tickets + " tickets and " + clients
+                    + " clients";
+            if (!rejected.isEmpty()) report += " (" + rejected.size() + " lines skipped)";
+            return report;
+        }
+    }
+}
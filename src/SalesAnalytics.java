@@ -0,0 +1,204 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code SalesAnalytics} class holds the figures management asks for: how many tickets each event has sold and
+ * what share of its tickets that is, how many clients hold tickets for 0, 1, 2 or 3 events, and which events are the
+ * most oversubscribed, judged by the number of sales refused because they had sold out.
+ *
+ * The tickets sold for an event are counted from the clients' holdings, as the catalog only records the tickets
+ * remaining. Clients and events are both counted with parallel streams, which split the work across the common
+ * fork/join pool, so a registry of millions of clients is counted in a fraction of the time a single thread would
+ * take. Sales and returns carry on while the figures are counted: each client is counted under their lock, so their
+ * holdings are seen whole, but a sale or return in progress may already be in an event's tickets remaining and not
+ * yet in a client's holding, or the other way round. The tickets remaining are read from the events, so with an
+ * {@link InventoryFile} they are the counts shared with the other box offices.
+ *
+ * @author Andrew Brown
+ */
+public class SalesAnalytics {
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    private final List<EventSales> events;
+    private final long[] clientsByEventsHeld;
+
+    private SalesAnalytics(List<EventSales> events, long[] clientsByEventsHeld) {
+        this.events = events;
+        this.clientsByEventsHeld = clientsByEventsHeld;
+    }
+
+    /**
+     * Counts the figures for the events and clients, locking each client in turn while it is counted.
+     *
+     * @param catalog EventCatalog of events on sale
+     * @param clients ClientRegistry of registered clients
+     * @return SalesAnalytics figures for the events and clients
+     */
+    static SalesAnalytics count(EventCatalog catalog, ClientRegistry clients) {
+        int eventIds = catalog.size();
+        Tally tally = clients.getSortedClients().parallelStream()
+                .collect(() -> new Tally(eventIds), Tally::add, Tally::combine);
+        List<EventSales> events = catalog.getSortedEvents().parallelStream()
+                .map(e -> new EventSales(e.getName(), tally.sold(e.getId()), e.getTicketsRemaining(),
+                        e.getRefusals()))
+                .collect(Collectors.toList());
+        return new SalesAnalytics(Collections.unmodifiableList(events), tally.clientsByEventsHeld);
+    }
+
+    /**
+     * Package-private method to get the sales of every event, in name order
+     * @return List of event sales
+     */
+    List<EventSales> getEvents() {
+        return events;
+    }
+
+    /**
+     * Package-private method to get the number of clients holding tickets for a given number of events
+     * @param eventsHeld int number of events, from 0 to Client.MAX_EVENTS
+     * @return long number of clients
+     */
+    long getClientsHolding(int eventsHeld) {
+        return clientsByEventsHeld[eventsHeld];
+    }
+
+    /**
+     * Package-private method to get the events with the most sales refused because they had sold out, most refused
+     * first. Events with no refusals are left out.
+     *
+     * @param n int largest number of events to give
+     * @return List of the most oversubscribed events
+     */
+    List<EventSales> getMostOversubscribed(int n) {
+        List<EventSales> refused = new ArrayList<>();
+        for (EventSales e : events) {
+            if (e.getRefusals() > 0) refused.add(e);
+        }
+        refused.sort(Comparator.comparingLong(EventSales::getRefusals).reversed()
+                .thenComparing(EventSales::getName));
+        return refused.subList(0, Math.min(n, refused.size()));
+    }
+
+    /**
+     * Gives the figures as a report with a row for each event, the client distribution and the five most
+     * oversubscribed events
+     * @return String report of the figures
+     */
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-30.30s %8s %9s %6s %8s%n", "Event", "Sold", "Remaining", "Sold%", "Refused"));
+        for (EventSales e : events) {
+            report.append(String.format("%-30.30s %8d %9d %5.1f%% %8d%n", e.getName(), e.getSold(),
+                    e.getRemaining(), e.getSellThrough() * 100, e.getRefusals()));
+        }
+        report.append(NEWLINE).append("Clients by number of events held:").append(NEWLINE);
+        for (int held = 0; held < clientsByEventsHeld.length; held++) {
+            report.append("\t").append(held).append(": ").append(clientsByEventsHeld[held]).append(NEWLINE);
+        }
+        List<EventSales> oversubscribed = getMostOversubscribed(5);
+        report.append(NEWLINE).append("Most oversubscribed events:").append(NEWLINE);
+        if (oversubscribed.isEmpty()) report.append("\tNo sales refused yet").append(NEWLINE);
+        for (EventSales e : oversubscribed) {
+            report.append("\t").append(e.getName()).append(" - ").append(e.getRefusals()).append(" refused")
+                    .append(NEWLINE);
+        }
+        return report.toString();
+    }
+
+    /**
+     * The tickets sold per event ID and the clients per number of events held, counted over part of the registry.
+     * Each fork/join task fills its own tally and the tallies are added together at the end.
+     */
+    private static class Tally {
+        private final long[] soldByEventId;
+        private final long[] clientsByEventsHeld = new long[Client.MAX_EVENTS + 1];
+
+        Tally(int eventIds) {
+            soldByEventId = new long[eventIds];
+        }
+
+        void add(Client client) {
+            synchronized (client) {
+                int held = client.getHoldingCount();
+                clientsByEventsHeld[held]++;
+                for (int i = 0; i < held; i++) {
+                    soldByEventId[client.getHoldingEventId(i)] += client.getHoldingTickets(i);
+                }
+            }
+        }
+
+        void combine(Tally other) {
+            for (int i = 0; i < soldByEventId.length; i++) {
+                soldByEventId[i] += other.soldByEventId[i];
+            }
+            for (int i = 0; i < clientsByEventsHeld.length; i++) {
+                clientsByEventsHeld[i] += other.clientsByEventsHeld[i];
+            }
+        }
+
+        long sold(int eventId) {
+            return eventId >= 0 && eventId < soldByEventId.length ? soldByEventId[eventId] : 0;
+        }
+    }
+
+    /**
+     * The sales figures of one event.
+     */
+    static class EventSales {
+        private final String name;
+        private final long sold;
+        private final long remaining;
+        private final long refusals;
+
+        EventSales(String name, long sold, long remaining, long refusals) {
+            this.name = name;
+            this.sold = sold;
+            this.remaining = remaining;
+            this.refusals = refusals;
+        }
+
+        /**
+         * Package-private method to get the event name
+         * @return String event name
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Package-private method to get the number of tickets held by clients
+         * @return long tickets sold
+         */
+        long getSold() {
+            return sold;
+        }
+
+        /**
+         * Package-private method to get the number of tickets still on sale
+         * @return long tickets remaining
+         */
+        long getRemaining() {
+            return remaining;
+        }
+
+        /**
+         * Package-private method to get the share of the event's tickets that have been sold
+         * @return double between 0 and 1, or 0 if the event has no tickets
+         */
+        double getSellThrough() {
+            return sold + remaining == 0 ? 0 : (double) sold / (sold + remaining);
+        }
+
+        /**
+         * Package-private method to get the number of sales refused because the event had sold out
+         * @return long refusals
+         */
+        long getRefusals() {
+            return refusals;
+        }
+    }
+}
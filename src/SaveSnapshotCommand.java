@@ -0,0 +1,43 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The {@code SaveSnapshotCommand} class saves the current events, remaining tickets and client holdings to the
+ * snapshot file so they are loaded on the next start, and empties the journal.
+ *
+ * @author Andrew Brown
+ */
+public class SaveSnapshotCommand implements Command {
+    private final BoxOffice boxOffice;
+    private final Path snapshotFile;
+
+    /**
+     * Constructor taking the box office to save and the file to save it to
+     *
+     * @param boxOffice BoxOffice to save
+     * @param snapshotFile Path of the snapshot file
+     */
+    SaveSnapshotCommand(BoxOffice boxOffice, Path snapshotFile) {
+        this.boxOffice = boxOffice;
+        this.snapshotFile = snapshotFile;
+    }
+
+    @Override
+    public char getKey() {
+        return 's';
+    }
+
+    @Override
+    public String getDescription() {
+        return "Save Snapshot";
+    }
+
+    @Override
+    public boolean execute(Terminal terminal) throws IOException {
+        long start = System.nanoTime();
+        boxOffice.checkpoint(snapshotFile);
+        terminal.println("Snapshot saved to " + snapshotFile + " in " + (System.nanoTime() - start) / 1_000_000
+                + " ms");
+        return true;
+    }
+}
@@ -0,0 +1,451 @@
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code SeatMap} class gives an event real seats, laid out in sections of rows, so buyers can be sold seats next
+ * to each other. Events without a seat map are sold by count alone, as they always have been.
+ *
+ * The seats are numbered one after another, row by row and section by section, and one bit per seat records whether
+ * it is taken, so an arena of 80,000 seats needs a bitset of 10 KB. A search for seats skips a whole word of taken
+ * seats at a time and skips rows with too few free seats without looking at them. The holder of each taken seat is
+ * kept in an array beside the bitset, so a return can give back the seats the client actually holds. No object is
+ * created per seat.
+ *
+ * Seats are sold best available first. Sections and rows are best in the order they are listed, and within a row
+ * the block nearest the centre is chosen. When no row has enough seats together the seats are split across rows,
+ * again best first, so a sale that the ticket count allows is never refused for want of adjacent seats.
+ *
+ * The {@link BoxOffice} allocates seats after reserving the tickets from the event's count and frees seats before
+ * giving tickets back to the count, so there are always at least as many free seats as tickets remaining. The seats
+ * each sale takes and each return gives back are written to the journal, and a snapshot saves the holder of every
+ * taken seat, so a restart gives every client the seats they were sold. The seat map is locked on itself.
+ *
+ * @author Andrew Brown
+ */
+public class SeatMap {
+    private final List<Section> sections;
+    private final String[] sectionNames;
+    private final int[] sectionFirstRow;
+    private final int[] rowStart;
+    private final int[] rowFree;
+    private final BitSet taken;
+    private final Client[] holders;
+    private int free;
+
+    /**
+     * Constructor taking the sections of the venue, best first. Every seat starts free.
+     *
+     * @param sections List of sections, each with its rows and seats per row
+     */
+    SeatMap(List<Section> sections) {
+        if (sections.isEmpty()) throw new IllegalArgumentException("A seat map needs at least one section");
+        this.sections = new ArrayList<>(sections);
+        sectionNames = new String[sections.size()];
+        sectionFirstRow = new int[sections.size() + 1];
+        int rows = 0;
+        for (int s = 0; s < sections.size(); s++) {
+            sectionNames[s] = sections.get(s).name;
+            sectionFirstRow[s] = rows;
+            rows += sections.get(s).rows;
+        }
+        sectionFirstRow[sections.size()] = rows;
+
+        rowStart = new int[rows + 1];
+        rowFree = new int[rows];
+        int row = 0;
+        int seat = 0;
+        for (Section section : sections) {
+            for (int r = 0; r < section.rows; r++, row++) {
+                rowStart[row] = seat;
+                rowFree[row] = section.seatsPerRow;
+                seat += section.seatsPerRow;
+            }
+        }
+        rowStart[rows] = seat;
+        taken = new BitSet(seat);
+        holders = new Client[seat];
+        free = seat;
+    }
+
+    /**
+     * Package-private method to get the number of seats in the venue
+     * @return int number of seats
+     */
+    int getCapacity() {
+        return holders.length;
+    }
+
+    /**
+     * Package-private method to get the number of seats not yet taken
+     * @return int number of free seats
+     */
+    synchronized int getFree() {
+        return free;
+    }
+
+    /**
+     * Takes the best available seats for a client, next to each other in one row if any row has room, otherwise
+     * split across rows.
+     *
+     * @param client Client the seats are for
+     * @param n int number of seats wanted
+     * @return int[] seat numbers taken, in order, or null if there aren't n free seats
+     */
+    synchronized int[] allocate(Client client, int n) {
+        if (n <= 0 || n > free) return null;
+        int[] seats = new int[n];
+        int start = findBlock(n);
+        if (start >= 0) {
+            for (int i = 0; i < n; i++) seats[i] = start + i;
+        } else {
+            int seat = -1;
+            for (int i = 0; i < n; i++) {
+                seat = taken.nextClearBit(seat + 1);
+                seats[i] = seat;
+            }
+        }
+        for (int seat : seats) take(seat, client);
+        return seats;
+    }
+
+    /**
+     * Finds the first row, best first, with n free seats together, and the block in it nearest the centre.
+     *
+     * @return int first seat of the block, or -1 if no row has room
+     */
+    private int findBlock(int n) {
+        for (int row = 0; row < rowFree.length; row++) {
+            if (rowFree[row] < n) continue;
+            int rowEnd = rowStart[row + 1];
+            int centre = (rowStart[row] + rowEnd - n) / 2;
+            int best = -1;
+            int seat = taken.nextClearBit(rowStart[row]);
+            while (seat + n <= rowEnd) {
+                int end = taken.nextSetBit(seat);
+                if (end < 0 || end > rowEnd) end = rowEnd;
+                if (end - seat >= n) {
+                    int start = Math.max(seat, Math.min(centre, end - n));
+                    if (best < 0 || Math.abs(start - centre) < Math.abs(best - centre)) best = start;
+                }
+                seat = taken.nextClearBit(end);
+            }
+            if (best >= 0) return best;
+        }
+        return -1;
+    }
+
+    /**
+     * Gives back particular seats held by a client. Nothing is given back unless the client holds every one of them.
+     *
+     * @param client Client returning the seats
+     * @param seats int[] seat numbers to give back
+     * @return boolean false if the client doesn't hold all of the seats
+     */
+    synchronized boolean release(Client client, int[] seats) {
+        int[] sorted = seats.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            int seat = sorted[i];
+            if (seat < 0 || seat >= holders.length || !taken.get(seat) || holders[seat] != client) return false;
+            if (i > 0 && seat == sorted[i - 1]) return false;
+        }
+        for (int seat : seats) give(seat);
+        return true;
+    }
+
+    /**
+     * Gives back n of a client's seats, worst first, for returns made by count. If the client holds fewer than n
+     * seats, because they bought tickets before the event had a seat map, seats taken by nobody in particular are
+     * given back instead.
+     *
+     * @param client Client returning the seats
+     * @param n int number of seats to give back
+     * @return int[] seat numbers given back, worst first
+     */
+    synchronized int[] releaseAny(Client client, int n) {
+        int[] released = new int[n];
+        int count = 0;
+        for (int seat = taken.previousSetBit(holders.length - 1); seat >= 0 && count < n;
+             seat = taken.previousSetBit(seat - 1)) {
+            if (holders[seat] == client) released[count++] = seat;
+        }
+        for (int seat = taken.previousSetBit(holders.length - 1); seat >= 0 && count < n;
+             seat = taken.previousSetBit(seat - 1)) {
+            if (holders[seat] == null) released[count++] = seat;
+        }
+        for (int i = 0; i < count; i++) give(released[i]);
+        return Arrays.copyOf(released, count);
+    }
+
+    /**
+     * Takes particular seats for a client, when a return that freed them couldn't be written to the journal and is
+     * being undone. Nothing is taken unless every one of the seats is still free.
+     *
+     * @param client Client the seats are for
+     * @param seats int[] seat numbers to take
+     * @return boolean false if any of the seats has been taken since
+     */
+    synchronized boolean claim(Client client, int[] seats) {
+        for (int seat : seats) {
+            if (seat < 0 || seat >= holders.length || taken.get(seat)) return false;
+        }
+        for (int seat : seats) take(seat, client);
+        return true;
+    }
+
+    /**
+     * Gives a client particular seats read back from the journal. A seat still held by someone else is handed over
+     * to the client, as the journal can hold a sale of a seat ahead of the return that freed it; that return then
+     * finds the seat held by another client and leaves it alone.
+     *
+     * @param client Client the seats were sold to
+     * @param seats int[] seat numbers sold
+     */
+    synchronized void restore(Client client, int[] seats) {
+        for (int seat : seats) {
+            if (seat < 0 || seat >= holders.length) continue;
+            if (taken.get(seat)) {
+                holders[seat] = client;
+            } else {
+                take(seat, client);
+            }
+        }
+    }
+
+    /**
+     * Frees particular seats read back from the journal as returned by a client. Seats the client no longer holds,
+     * because a sale of them was journalled first, are left as they are.
+     *
+     * @param client Client who returned the seats
+     * @param seats int[] seat numbers returned
+     */
+    synchronized void restoreReturn(Client client, int[] seats) {
+        for (int seat : seats) {
+            if (seat < 0 || seat >= holders.length || !taken.get(seat)) continue;
+            if (holders[seat] == client || holders[seat] == null) give(seat);
+        }
+    }
+
+    /**
+     * Marks the worst n free seats as taken by nobody in particular, for tickets sold before the event had a seat map.
+     *
+     * @param n int number of seats to block off
+     */
+    synchronized void blockOff(int n) {
+        if (n > free) throw new IllegalArgumentException("Only " + free + " seats are free");
+        for (int seat = taken.previousClearBit(holders.length - 1); n > 0; seat = taken.previousClearBit(seat - 1)) {
+            take(seat, null);
+            n--;
+        }
+    }
+
+    /**
+     * Package-private method to get the seats a client holds
+     * @param client Client to look up
+     * @return int[] seat numbers held by the client, in order
+     */
+    synchronized int[] getSeatsHeldBy(Client client) {
+        int[] seats = new int[16];
+        int n = 0;
+        for (int seat = taken.nextSetBit(0); seat >= 0; seat = taken.nextSetBit(seat + 1)) {
+            if (holders[seat] != client) continue;
+            if (n == seats.length) seats = Arrays.copyOf(seats, n * 2);
+            seats[n++] = seat;
+        }
+        return Arrays.copyOf(seats, n);
+    }
+
+    /**
+     * Writes the sections and the holder of every taken seat to a snapshot. Each holder is written as its position in
+     * the snapshot's clients, or -1 for a seat taken by nobody in particular.
+     *
+     * @param out DataOutputStream to write to
+     * @param clientIndex Map from client to position in the snapshot
+     * @throws IOException if the snapshot can't be written
+     */
+    synchronized void write(DataOutputStream out, Map<Client, Integer> clientIndex) throws IOException {
+        out.writeInt(sections.size());
+        for (Section section : sections) {
+            out.writeUTF(section.name);
+            out.writeInt(section.rows);
+            out.writeInt(section.seatsPerRow);
+        }
+        out.writeInt(holders.length - free);
+        for (int seat = taken.nextSetBit(0); seat >= 0; seat = taken.nextSetBit(seat + 1)) {
+            out.writeInt(seat);
+            Integer holder = holders[seat] == null ? null : clientIndex.get(holders[seat]);
+            out.writeInt(holder == null ? -1 : holder);
+        }
+    }
+
+    /**
+     * Reads back a seat map written by {@link #write}, with each seat taken by the same client as when it was saved.
+     *
+     * @param in DataInputStream to read from
+     * @param clients List of the snapshot's clients, in the order they were saved
+     * @return SeatMap seat map as it was saved
+     * @throws IOException if the seat map can't be read or doesn't make sense
+     */
+    static SeatMap read(DataInputStream in, List<Client> clients) throws IOException {
+        int count = in.readInt();
+        if (count < 0) throw new IOException("Negative number of sections");
+        List<Section> sections = new ArrayList<>();
+        SeatMap seatMap;
+        try {
+            for (int i = 0; i < count; i++) {
+                sections.add(new Section(in.readUTF(), in.readInt(), in.readInt()));
+            }
+            seatMap = new SeatMap(sections);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad seat map: " + e.getMessage());
+        }
+        int takenSeats = in.readInt();
+        for (int i = 0; i < takenSeats; i++) {
+            int seat = in.readInt();
+            int holder = in.readInt();
+            if (seat < 0 || seat >= seatMap.holders.length || seatMap.taken.get(seat) || holder < -1
+                    || holder >= clients.size()) {
+                throw new IOException("Bad seat " + seat + " held by client " + holder);
+            }
+            seatMap.take(seat, holder < 0 ? null : clients.get(holder));
+        }
+        return seatMap;
+    }
+
+    private void take(int seat, Client client) {
+        taken.set(seat);
+        holders[seat] = client;
+        rowFree[rowOf(seat)]--;
+        free--;
+    }
+
+    private void give(int seat) {
+        taken.clear(seat);
+        holders[seat] = null;
+        rowFree[rowOf(seat)]++;
+        free++;
+    }
+
+    /**
+     * Finds the row a seat is in.
+     */
+    private int rowOf(int seat) {
+        int row = Arrays.binarySearch(rowStart, seat);
+        return row < 0 ? -row - 2 : row;
+    }
+
+    /**
+     * Describes seats the way they are printed on tickets, joining seats next to each other in a row, e.g.
+     * "Lower Row 3 Seats 10-13, Upper Row 1 Seat 7".
+     *
+     * @param seats int[] seat numbers in order
+     * @return String description of the seats
+     */
+    String describe(int[] seats) {
+        StringBuilder text = new StringBuilder();
+        int i = 0;
+        while (i < seats.length) {
+            int row = rowOf(seats[i]);
+            int j = i;
+            while (j + 1 < seats.length && seats[j + 1] == seats[j] + 1 && seats[j + 1] < rowStart[row + 1]) j++;
+            int section = Arrays.binarySearch(sectionFirstRow, row);
+            if (section < 0) section = -section - 2;
+
+            if (text.length() > 0) text.append(", ");
+            text.append(sectionNames[section]).append(" Row ").append(row - sectionFirstRow[section] + 1);
+            int first = seats[i] - rowStart[row] + 1;
+            if (i == j) {
+                text.append(" Seat ").append(first);
+            } else {
+                text.append(" Seats ").append(first).append('-').append(seats[j] - rowStart[row] + 1);
+            }
+            i = j + 1;
+        }
+        return text.toString();
+    }
+
+    /**
+     * Reads a seating plan and gives each event named in it a seat map. Each line of the plan describes one section:
+     *
+     * <pre>
+     *     event name, section name, rows, seats per row
+     * </pre>
+     *
+     * Sections are listed best first, and an event may have any number of them. Blank lines and lines starting with #
+     * are skipped. Tickets already sold for an event take the worst seats, held by nobody in particular. Events that
+     * already have a seat map, restored from a snapshot along with who holds each seat, keep it.
+     *
+     * @param plan Path of the seating plan
+     * @param events EventCatalog holding the events named in the plan
+     * @return int number of events given a seat map
+     * @throws IOException if the plan can't be read, names an unknown event or has fewer seats than tickets remain
+     */
+    static int load(Path plan, EventCatalog events) throws IOException {
+        Map<Event, List<Section>> sections = new LinkedHashMap<>();
+        try (BufferedReader in = Files.newBufferedReader(plan, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#') continue;
+                String[] fields = line.split("\\s*,\\s*");
+                if (fields.length != 4) throw new IOException("Line " + lineNumber + " of the seating plan should "
+                        + "have an event, section, rows and seats per row");
+                Event event = events.get(fields[0]);
+                if (event == null) throw new IOException("Unknown event on line " + lineNumber + ": " + fields[0]);
+                try {
+                    sections.computeIfAbsent(event, e -> new ArrayList<>()).add(new Section(fields[1],
+                            Integer.parseInt(fields[2]), Integer.parseInt(fields[3])));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Bad rows or seats on line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+        int given = 0;
+        for (Map.Entry<Event, List<Section>> entry : sections.entrySet()) {
+            if (entry.getKey().getSeatMap() != null) continue;
+            try {
+                entry.getKey().setSeatMap(new SeatMap(entry.getValue()));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(entry.getKey().getName() + ": " + e.getMessage());
+            }
+            given++;
+        }
+        return given;
+    }
+
+    /**
+     * A section of the venue, made up of rows of equal length.
+     */
+    static class Section {
+        private final String name;
+        private final int rows;
+        private final int seatsPerRow;
+
+        /**
+         * Constructor taking the section's name and size
+         *
+         * @param name String section name, e.g. Lower Tier
+         * @param rows int number of rows
+         * @param seatsPerRow int number of seats in each row
+         */
+        Section(String name, int rows, int seatsPerRow) {
+            if (rows <= 0 || seatsPerRow <= 0) throw new IllegalArgumentException("rows and seats must be positive");
+            this.name = name;
+            this.rows = rows;
+            this.seatsPerRow = seatsPerRow;
+        }
+    }
+}
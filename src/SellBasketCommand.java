@@ -0,0 +1,124 @@
+import java.io.IOException;
+
+/**
+ * The {@code SellBasketCommand} class takes the user through selling a client tickets for several events at once. The
+ * user is asked for the client, then for each event and number of tickets in turn until they press enter, and finally
+ * to confirm the basket. Every event in the basket is sold or none of them is, so a client wanting a set of events
+ * never ends up with only part of it.
+ *
+ * @author Andrew Brown
+ */
+public class SellBasketCommand implements Command {
+    private static final String NEWLINE = Terminal.NEWLINE;
+
+    private final BoxOffice boxOffice;
+
+    /**
+     * Constructor taking the box office to sell tickets through
+     *
+     * @param boxOffice BoxOffice to sell tickets through
+     */
+    SellBasketCommand(BoxOffice boxOffice) {
+        this.boxOffice = boxOffice;
+    }
+
+    @Override
+    public char getKey() {
+        return 'k';
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sell a Basket of Tickets";
+    }
+
+    @Override
+    public boolean execute(Terminal terminal) throws IOException {
+        Client client = chooseClient(terminal);
+        if (client == null) return true;
+
+        Basket basket = fillBasket(terminal, client);
+        if (basket == null || basket.size() == 0) return true;
+
+        confirmBasketSale(terminal, client, basket);
+        return true;
+    }
+
+    /**
+     * Asks the user which client they would like to sell tickets to, asking again if the client isn't found and the
+     * user wants to try again.
+     *
+     * @return Client chosen client, or null if the user gave up
+     */
+    private Client chooseClient(Terminal terminal) throws IOException {
+        while (true) {
+            String response = terminal.readLine(NEWLINE
+                    + "Which client would you like to sell a basket of tickets to? ");
+            if (response == null) return null;
+            Client client = boxOffice.findClient(response);
+            if (client != null) return client;
+
+            terminal.println("Cannot find that client");
+            terminal.suggest(boxOffice.suggestClients(response));
+            if (!terminal.confirm("Try again? (y)es/(n)o ")) return null;
+        }
+    }
+
+    /**
+     * Asks for the events and numbers of tickets to put in the basket until the user presses enter or the basket holds
+     * as many events as a client may attend. Events that can't be found are reported and asked for again.
+     *
+     * @return Basket filled basket, or null if the input ended
+     */
+    private Basket fillBasket(Terminal terminal, Client client) throws IOException {
+        Basket basket = new Basket();
+        while (basket.size() < Client.MAX_EVENTS) {
+            String response = terminal.readLine("Which event would " + client.getFullName()
+                    + " like to add to the basket? (press enter to finish) ");
+            if (response == null) return null;
+            if (response.trim().isEmpty()) break;
+            Event event = boxOffice.findEvent(response);
+            if (event == null) {
+                terminal.println("Cannot find that event");
+                terminal.suggest(boxOffice.suggestEvents(response));
+                continue;
+            }
+            Integer numberOfTickets = terminal.readWholeNumber("How many tickets would " + client.getFullName()
+                    + " like to buy for " + event.getName() + "? ", "Error: Positive whole number expected");
+            if (numberOfTickets == null) return null;
+            basket.add(event, numberOfTickets);
+        }
+        return basket;
+    }
+
+    /**
+     * The user is asked if the basket is correct and if the user responds with yes, the basket is sold through the
+     * box office. If it is refused the user is told why, including which events haven't enough tickets left.
+     */
+    private void confirmBasketSale(Terminal terminal, Client client, Basket basket) throws IOException {
+        terminal.println(NEWLINE + "You are about to sell " + client.getFullName() + " the tickets " + basket);
+        if (!terminal.confirm("Is this information correct? (y)es/(n)o ")) return;
+
+        TransactionResult result = boxOffice.sellBasket(client, basket);
+        if (result.isSuccess()) {
+            terminal.println("Tickets sold for every event in the basket");
+            for (Basket.Item item : basket.getItems()) {
+                SeatMap seatMap = item.getEvent().getSeatMap();
+                if (seatMap == null) continue;
+                terminal.println(client.getFullName() + "'s seats for " + item.getEvent().getName() + ": "
+                        + seatMap.describe(seatMap.getSeatsHeldBy(client)));
+            }
+        } else if (result == TransactionResult.NOT_ENOUGH_TICKETS || result == TransactionResult.SOLD_OUT) {
+            for (Basket.Item item : basket.getItems()) {
+                Event event = item.getEvent();
+                if (event.getTicketsRemaining() < item.getNumberOfTickets()) {
+                    terminal.println("Sorry, only " + event.getTicketsRemaining() + " tickets remain for "
+                            + event.getName());
+                }
+            }
+            terminal.println("Nothing in the basket has been sold");
+        } else {
+            terminal.println("Sorry, " + result.getMessage() + ". Nothing in the basket has been sold");
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.IOException;
+
+/**
+ * The {@code SellTicketsCommand} class takes the user through selling tickets to a client. The user is asked for the
+ * client, then the event, then the number of tickets, and finally to confirm the sale. Each question is asked again
+ * in a loop if the answer can't be used and the user chooses to try again; answering no at any point returns to the
+ * menu. A client or event name that can't be found is answered with the names that start with it or are a typing
+ * mistake away from it.
+ *
+ * @author Andrew Brown
+ */
+public class SellTicketsCommand implements Command {
+    private static final String NEWLINE = Terminal.NEWLINE;
+
+    private final BoxOffice boxOffice;
+
+    /**
+     * Constructor taking the box office to sell tickets through
+     *
+     * @param boxOffice BoxOffice to sell tickets through
+     */
+    SellTicketsCommand(BoxOffice boxOffice) {
+        this.boxOffice = boxOffice;
+    }
+
+    @Override
+    public char getKey() {
+        return 'b';
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sell Tickets";
+    }
+
+    @Override
+    public boolean execute(Terminal terminal) throws IOException {
+        Client client = chooseClient(terminal);
+        if (client == null) return true;
+        if (client.getHoldingCount() >= Client.MAX_EVENTS) {
+            terminal.println("Sorry a client is only able to buy tickets for up to 3 events");
+            return true;
+        }
+
+        Event event = chooseEvent(terminal, client);
+        if (event == null) return true;
+
+        Integer numberOfTickets = chooseNumberOfTickets(terminal, client, event);
+        if (numberOfTickets == null) return true;
+
+        confirmTicketSale(terminal, client, event, numberOfTickets);
+        return true;
+    }
+
+    /**
+     * Asks the user which client they would like to sell a ticket to. The name is checked against the list of clients
+     * and if the client isn't found the user is offered similar names and presented an option to try again.
+     *
+     * @return Client chosen client, or null if the user gave up
+     */
+    private Client chooseClient(Terminal terminal) throws IOException {
+        while (true) {
+            String response = terminal.readLine(NEWLINE + "Which client would you like to sell tickets to? ");
+            if (response == null) return null;
+            Client client = boxOffice.findClient(response);
+            if (client != null) return client;
+
+            terminal.println("Cannot find that client");
+            terminal.suggest(boxOffice.suggestClients(response));
+            if (!terminal.confirm("Try again? (y)es/(n)o ")) return null;
+        }
+    }
+
+    /**
+     * Asks the user which event the client would would like to purchase a ticket for. The name is checked against the
+     * list of events on record. If the event isn't found the user is informed and asked if they want to try again. If
+     * the event is found but the number of tickets remaining is 0, the user is asked if the client would like to join
+     * the event's waitlist. If not, a letter is sent to the client and the user is asked if they want to check a
+     * different event.
+     *
+     * @return Event chosen event, or null if the user gave up
+     */
+    private Event chooseEvent(Terminal terminal, Client client) throws IOException {
+        while (true) {
+            String response = terminal.readLine("Which event would " + client.getFullName()
+                    + " like to buy tickets for? ");
+            if (response == null) return null;
+            Event event = boxOffice.findEvent(response);
+            if (event == null) {
+                terminal.println("Cannot find that event");
+                terminal.suggest(boxOffice.suggestEvents(response));
+                if (!terminal.confirm("Try again? (y)es/(n)o ")) return null;
+            } else if (event.getTicketsRemaining() == 0) {
+                terminal.println("No more tickets available for " + event.getName());
+                if (terminal.confirm("Would " + client.getFullName() + " like to join the waitlist? (y)es/(n)o ")) {
+                    joinWaitlist(terminal, client, event);
+                    return null;
+                }
+                boxOffice.refuseSoldOut(client, event);
+                if (!terminal.confirm("Would you like to choose a different event? (y)es/(n)/o ")) return null;
+            } else {
+                return event;
+            }
+        }
+    }
+
+    /**
+     * Asks how many tickets the client would like and puts them on the event's waitlist. The tickets are allocated and
+     * the client sent a letter when tickets for the event are returned.
+     */
+    private void joinWaitlist(Terminal terminal, Client client, Event event) throws IOException {
+        Integer numberOfTickets = terminal.readWholeNumber("How many tickets would " + client.getFullName()
+                + " like to wait for? ", "Error: Positive whole number expected");
+        if (numberOfTickets == null) return;
+        TransactionResult result = boxOffice.joinWaitlist(client, event, numberOfTickets);
+        if (result.isSuccess()) {
+            terminal.println(client.getFullName() + " is on the waitlist for " + event.getName() + ", position "
+                    + boxOffice.getWaitlist(event).size());
+        } else {
+            terminal.println("Sorry, " + result.getMessage());
+        }
+    }
+
+    /**
+     * The user is asked how many tickets the client would like to purchase. If there are fewer tickets available than
+     * have been requested the user is informed how many tickets remain and asked if they would like to enter a
+     * different value. If the user enters a non-valid entry for the number of tickets, the question is asked again.
+     * If a number lower than 0 is entered it is replaced with 0.
+     *
+     * @return Integer number of tickets, or null if the user gave up
+     */
+    private Integer chooseNumberOfTickets(Terminal terminal, Client client, Event event) throws IOException {
+        while (true) {
+            Integer response = terminal.readWholeNumber("How many tickets would " + client.getFullName()
+                    + " like to buy for " + event.getName() + "? ", "Error: Positive whole number expected");
+            if (response == null) return null;
+            if (event.getTicketsRemaining() >= response) return response;
+
+            terminal.println(NEWLINE + "There are only " + event.getTicketsRemaining() + " tickets remaining");
+            if (!terminal.confirm("Would you like to enter a new value? (y)es/(n)o ")) return null;
+        }
+    }
+
+    /**
+     * The user is asked if the information is correct and if the user responds with yes, then the tickets are sold
+     * through the box office, and if the event has numbered seats the client's seats are shown. If another desk has
+     * sold the tickets in the meantime the user is told how many remain.
+     */
+    private void confirmTicketSale(Terminal terminal, Client client, Event event, int numberOfTickets)
+            throws IOException {
+        terminal.println(NEWLINE + "You are about to sell " + numberOfTickets + " ticket(s) to "
+                + client.getFullName() + " for " + event.getName());
+        if (!terminal.confirm("Is this information correct? (y)es/(n)o ")) return;
+
+        TransactionResult result = boxOffice.sellTickets(client, event, numberOfTickets);
+        SeatMap seatMap = event.getSeatMap();
+        if (result.isSuccess() && seatMap != null) {
+            terminal.println(client.getFullName() + "'s seats for " + event.getName() + ": "
+                    + seatMap.describe(seatMap.getSeatsHeldBy(client)));
+        } else if (result == TransactionResult.NOT_ENOUGH_TICKETS || result == TransactionResult.SOLD_OUT) {
+            terminal.println("Sorry, only " + event.getTicketsRemaining() + " tickets remain for "
+                    + event.getName());
+        } else if (!result.isSuccess()) {
+            terminal.println("Sorry, " + result.getMessage());
+        }
+    }
+}
@@ -0,0 +1,291 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The {@code ShardedEngine} class sells and returns tickets on a fixed set of worker threads, partitioned by event.
+ * Events are split across the shards by ID, and every request for an event is queued to the shard that owns it and
+ * answered through a future. The requests sent through the engine for an event are applied one at a time by its
+ * shard, so their compare-and-set updates to the event's count don't retry against each other, and a hot event only
+ * delays the requests for events on its own shard. The rules are still applied by the box office, so the engine
+ * behaves exactly like calling it directly.
+ *
+ * The engine queues requests in front of one shared {@link BoxOffice}; it doesn't partition the box office's state.
+ * Every shard still takes the box office's state lock for reading on each request, appends to its single journal
+ * under the journal's lock, and takes the client's lock, which shards serving the same client share. These are held
+ * only briefly, but they are shared between the shards and can be contended. Sales made on the box office directly,
+ * such as baskets and menu sales, also change the shards' events. Giving each shard its own journal and state would
+ * remove this sharing, but the 3-event limit and baskets would then need a hand-off between shards.
+ *
+ * Each shard takes requests off its queue in batches. It applies every sale and return in the batch with
+ * {@link BoxOffice#beginSale} and {@link BoxOffice#beginReturn}, which add them to the journal without waiting, and
+ * then completes them in order with {@link BoxOffice#complete}. The first to complete writes the whole batch to disk,
+ * so a busy shard commits many requests with one write and shards commit together. If that write fails, completing
+ * each request undoes it before its future fails, so nothing the journal doesn't hold is left applied. Every other
+ * sale and return, such as a desk selling on the box office directly, still waits for its own record. The queues are
+ * bounded, so when a shard falls behind the desks submitting to it wait rather than the queue growing without limit.
+ *
+ * The 3-event limit is the one rule that spans shards, as a client's events can be owned by different shards. A
+ * client's holdings are only changed under the client's lock, and a sale reserves the event's tickets first and then
+ * claims one of the client's 3 event slots under that lock. If two shards sell a client a new event at once, only
+ * the sale that claims the last slot succeeds; the other gives its tickets back to the event and reports
+ * EVENT_LIMIT, so the limit holds without one shard handing requests to another.
+ *
+ * @author Andrew Brown
+ */
+public class ShardedEngine implements Closeable {
+    private static final int BATCH_SIZE = 256;
+    private static final Request STOP = new Request(null, null, null, 0, null);
+
+    private final BoxOffice boxOffice;
+    private final List<BlockingQueue<Request>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Constructor which starts one worker thread per shard.
+     *
+     * @param boxOffice BoxOffice whose rules are applied
+     * @param shards int number of shards, usually the number of CPUs
+     * @param queueCapacity int number of requests each shard can have waiting before desks have to wait
+     */
+    ShardedEngine(BoxOffice boxOffice, int shards, int queueCapacity) {
+        if (shards <= 0) throw new IllegalArgumentException("shards must be positive");
+        this.boxOffice = boxOffice;
+        for (int i = 0; i < shards; i++) {
+            BlockingQueue<Request> queue = new ArrayBlockingQueue<>(queueCapacity);
+            Thread worker = new Thread(() -> run(queue), "inventory-shard-" + i);
+            worker.setDaemon(true);
+            queues.add(queue);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Package-private method to get the number of shards
+     * @return int number of shards
+     */
+    int getShards() {
+        return queues.size();
+    }
+
+    /**
+     * Package-private method to get the shard that owns an event. Event IDs are handed out densely, so taking them
+     * modulo the number of shards spreads the events evenly.
+     *
+     * @param event Event to look up
+     * @return int shard number
+     */
+    int shardOf(Event event) {
+        return Math.floorMod(event.getId(), queues.size());
+    }
+
+    /**
+     * Queues a sale to the shard that owns the event.
+     *
+     * @param client Client buying the tickets
+     * @param event Event the tickets are for
+     * @param numberOfTickets int number of tickets to sell
+     * @return CompletableFuture completed with the outcome once it is in the journal
+     * @throws InterruptedIOException if interrupted waiting for room in the shard's queue
+     */
+    CompletableFuture<TransactionResult> sellTickets(Client client, Event event, int numberOfTickets)
+            throws InterruptedIOException {
+        return submit(new Request(Kind.SELL, client, event, numberOfTickets, null));
+    }
+
+    /**
+     * Queues a return to the shard that owns the event.
+     *
+     * @param client Client returning the tickets
+     * @param event Event the tickets are for
+     * @param numberOfTickets int number of tickets to return
+     * @return CompletableFuture completed with the outcome once it is in the journal
+     * @throws InterruptedIOException if interrupted waiting for room in the shard's queue
+     */
+    CompletableFuture<TransactionResult> returnTickets(Client client, Event event, int numberOfTickets)
+            throws InterruptedIOException {
+        return submit(new Request(Kind.RETURN, client, event, numberOfTickets, null));
+    }
+
+    /**
+     * Queues a return of particular seats to the shard that owns the event.
+     *
+     * @param client Client returning the seats
+     * @param event Event the seats are for
+     * @param seats int[] seat numbers to return
+     * @return CompletableFuture completed with the outcome once it is in the journal
+     * @throws InterruptedIOException if interrupted waiting for room in the shard's queue
+     */
+    CompletableFuture<TransactionResult> returnSeats(Client client, Event event, int[] seats)
+            throws InterruptedIOException {
+        return submit(new Request(Kind.SEATS, client, event, seats.length, seats));
+    }
+
+    /**
+     * Queues a request to join an event's waitlist to the shard that owns the event, so any allocation it triggers
+     * is made by that shard.
+     *
+     * @param client Client waiting for tickets
+     * @param event Event the tickets are for
+     * @param numberOfTickets int number of tickets wanted
+     * @return CompletableFuture completed with the outcome once any allocation is in the journal
+     * @throws InterruptedIOException if interrupted waiting for room in the shard's queue
+     */
+    CompletableFuture<TransactionResult> joinWaitlist(Client client, Event event, int numberOfTickets)
+            throws InterruptedIOException {
+        return submit(new Request(Kind.WAIT, client, event, numberOfTickets, null));
+    }
+
+    /**
+     * Waits for a request's outcome.
+     *
+     * @param future CompletableFuture returned by one of the submit methods
+     * @return TransactionResult outcome of the request
+     * @throws IOException if the request failed, e.g. because the journal couldn't be written
+     */
+    static TransactionResult await(CompletableFuture<TransactionResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a shard");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException("Request failed", e.getCause());
+        }
+    }
+
+    private CompletableFuture<TransactionResult> submit(Request request) throws InterruptedIOException {
+        if (closed) {
+            request.future.completeExceptionally(new IOException("Engine is closed"));
+            return request.future;
+        }
+        try {
+            queues.get(shardOf(request.event)).put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for room in a shard's queue");
+        }
+        return request.future;
+    }
+
+    /**
+     * Body of a shard's worker thread. Takes a batch of requests, starts each sale and return through the box office,
+     * then completes the batch in order, until the stop marker is reached. Requests to join a waitlist are made
+     * whole when their turn comes to complete, after the requests ahead of them.
+     */
+    private void run(BlockingQueue<Request> queue) {
+        List<Request> batch = new ArrayList<>(BATCH_SIZE);
+        List<BoxOffice.Pending> started = new ArrayList<>(BATCH_SIZE);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            for (Request request : batch) {
+                BoxOffice.Pending pending = null;
+                if (request == STOP) {
+                    running = false;
+                } else {
+                    try {
+                        pending = begin(request);
+                    } catch (IOException | RuntimeException e) {
+                        request.future.completeExceptionally(e);
+                    }
+                }
+                started.add(pending);
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                Request request = batch.get(i);
+                if (request == STOP || request.future.isDone()) continue;
+                try {
+                    BoxOffice.Pending pending = started.get(i);
+                    request.future.complete(pending == null
+                            ? boxOffice.joinWaitlist(request.client, request.event, request.numberOfTickets)
+                            : boxOffice.complete(pending));
+                } catch (IOException | RuntimeException e) {
+                    request.future.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+            started.clear();
+        }
+    }
+
+    /**
+     * Starts a sale or return on the box office.
+     *
+     * @return BoxOffice.Pending sale or return to complete, or null for a request to join a waitlist
+     */
+    private BoxOffice.Pending begin(Request request) throws IOException {
+        switch (request.kind) {
+            case SELL:
+                return boxOffice.beginSale(request.client, request.event, request.numberOfTickets);
+            case RETURN:
+                return boxOffice.beginReturn(request.client, request.event, request.numberOfTickets);
+            case SEATS:
+                return boxOffice.beginSeatReturn(request.client, request.event, request.seats);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Stops accepting requests, lets every shard finish the requests already queued and stops the worker threads.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            for (BlockingQueue<Request> queue : queues) {
+                queue.put(STOP);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            for (BlockingQueue<Request> queue : queues) {
+                for (Request request : queue) {
+                    if (request != STOP) request.future.completeExceptionally(new IOException("Engine is closed"));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the shards to stop");
+        }
+    }
+
+    private enum Kind { SELL, RETURN, SEATS, WAIT }
+
+    /**
+     * A request waiting in a shard's queue and the future its outcome is given through.
+     */
+    private static class Request {
+        private final Kind kind;
+        private final Client client;
+        private final Event event;
+        private final int numberOfTickets;
+        private final int[] seats;
+        private final CompletableFuture<TransactionResult> future = new CompletableFuture<>();
+
+        Request(Kind kind, Client client, Event event, int numberOfTickets, int[] seats) {
+            this.kind = kind;
+            this.client = client;
+            this.event = event;
+            this.numberOfTickets = numberOfTickets;
+            this.seats = seats;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The {@code SnapshotStore} class saves the state of the championship to a compact binary file and loads it back, so
+ * a restart keeps every sale instead of going back to input.txt. A snapshot holds each event with its remaining
+ * tickets, in ID order, and each client with the tickets they hold.
+ *
+ * The file layout, written with DataOutputStream, is:
+ * <pre>
+ *     int    magic number 0x57534353 ("WSCS")
+ *     short  format version
+ *     long   sequence number of the last journal record included in the snapshot
+ *     long   offset in the roster delta file up to which its lines are included in the snapshot
+ *     int    number of events, then for each event: UTF name, int tickets remaining
+ *     int    number of clients, then for each client: UTF first name, UTF last name,
+ *            byte number of holdings, then for each holding: int event ID, int tickets held
+ *     int    number of events with numbered seats, then for each: int event ID,
+ *            int number of sections, then for each section: UTF name, int rows, int seats per row,
+ *            int number of seats taken, then for each: int seat number, int position of its holder among the
+ *            clients above, or -1 for a seat held by nobody in particular
+ *     long   CRC32 of everything before it
+ * </pre>
+ *
+ * Snapshots are written to a temporary file which is then moved over the old snapshot, so a crash part way through a
+ * save leaves the previous snapshot in place. The journal sequence number lets {@link TransactionJournal} skip
+ * records that are already in the snapshot if the journal wasn't emptied after the snapshot was saved, and the delta
+ * offset lets {@link RosterReloader} carry on reading the delta file after the lines already applied. Snapshots from
+ * version 2, which had no delta offset, are still read, with an offset of 0, as are snapshots from version 3, which
+ * had no seat maps.
+ *
+ * @author Andrew Brown
+ */
+public class SnapshotStore {
+    static final int MAGIC = 0x57534353;
+    static final short VERSION = 4;
+    private static final short OLDEST_VERSION = 2;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private SnapshotStore() {
+    }
+
+    /**
+     * Writes a snapshot of the events and clients to the given file, replacing any snapshot already there.
+     *
+     * @param file Path to write the snapshot to
+     * @param events EventCatalog to save
+     * @param clients ClientRegistry to save
+     * @param journalSequence long sequence number of the last journal record included in the snapshot
+     * @param rosterOffset long offset in the roster delta file up to which its lines are included in the snapshot
+     * @throws IOException if the snapshot can't be written
+     */
+    static void save(Path file, EventCatalog events, ClientRegistry clients, long journalSequence, long rosterOffset)
+            throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(temp.toFile())) {
+                CRC32 crc = new CRC32();
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new CheckedOutputStream(fileOut, crc), BUFFER_SIZE));
+                write(out, events, clients, journalSequence, rosterOffset);
+                out.flush();
+                out.writeLong(crc.getValue());
+                out.flush();
+                fileOut.getChannel().force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes the body of the snapshot.
+     */
+    private static void write(DataOutputStream out, EventCatalog events, ClientRegistry clients,
+                              long journalSequence, long rosterOffset) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(journalSequence);
+        out.writeLong(rosterOffset);
+
+        out.writeInt(events.size());
+        for (int id = 0; id < events.size(); id++) {
+            Event event = events.get(id);
+            out.writeUTF(event.getName());
+            out.writeInt(event.getTicketsRemaining());
+        }
+
+        List<Event> seated = new ArrayList<>();
+        for (int id = 0; id < events.size(); id++) {
+            if (events.get(id).getSeatMap() != null) seated.add(events.get(id));
+        }
+        Map<Client, Integer> clientIndex = new IdentityHashMap<>();
+
+        out.writeInt(clients.size());
+        for (Client client : clients) {
+            if (!seated.isEmpty()) clientIndex.put(client, clientIndex.size());
+            out.writeUTF(client.getFirstName());
+            out.writeUTF(client.getLastName());
+            synchronized (client) {
+                int holdings = client.getHoldingCount();
+                out.writeByte(holdings);
+                for (int k = 0; k < holdings; k++) {
+                    out.writeInt(client.getHoldingEventId(k));
+                    out.writeInt(client.getHoldingTickets(k));
+                }
+            }
+        }
+
+        out.writeInt(seated.size());
+        for (Event event : seated) {
+            out.writeInt(event.getId());
+            event.getSeatMap().write(out, clientIndex);
+        }
+    }
+
+    /**
+     * Reads the sequence number of the last journal record included in a snapshot, without loading the snapshot.
+     *
+     * @param file Path of the snapshot
+     * @return long journal sequence number
+     * @throws IOException if the snapshot can't be read or is from an unknown version
+     */
+    static long readJournalSequence(Path file) throws IOException {
+        return readHeader(file)[0];
+    }
+
+    /**
+     * Reads the offset in the roster delta file up to which its lines are included in a snapshot, without loading the
+     * snapshot.
+     *
+     * @param file Path of the snapshot
+     * @return long delta file offset, 0 for a snapshot saved before offsets were recorded
+     * @throws IOException if the snapshot can't be read or is from an unknown version
+     */
+    static long readRosterOffset(Path file) throws IOException {
+        return readHeader(file)[1];
+    }
+
+    /**
+     * Reads the journal sequence number and delta offset from the start of a snapshot.
+     */
+    private static long[] readHeader(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 32))) {
+            short version = readVersion(in, file);
+            long journalSequence = in.readLong();
+            return new long[] {journalSequence, version > OLDEST_VERSION ? in.readLong() : 0};
+        }
+    }
+
+    /**
+     * Checks the magic number and reads the format version of a snapshot.
+     */
+    private static short readVersion(DataInputStream in, Path file) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException(file + " is not a championship snapshot");
+        short version = in.readShort();
+        if (version < OLDEST_VERSION || version > VERSION) {
+            throw new IOException(file + " has unsupported snapshot version " + version);
+        }
+        return version;
+    }
+
+    /**
+     * Loads a snapshot into the given catalog and registry, which must be empty. Events are added in the order they
+     * were saved so they keep the same IDs, which the clients' holdings refer to.
+     *
+     * @param file Path of the snapshot
+     * @param events EventCatalog to add the events to
+     * @param clients ClientRegistry to add the clients to
+     * @return RosterLoader.Stats number of records loaded and the time taken
+     * @throws IOException if the snapshot can't be read, is from an unknown version or is corrupt
+     */
+    static RosterLoader.Stats load(Path file, EventCatalog events, ClientRegistry clients) throws IOException {
+        if (events.size() > 0) throw new IllegalArgumentException("A snapshot must be loaded into an empty catalog");
+        long start = System.nanoTime();
+        long bytes = Files.size(file);
+        CRC32 crc = new CRC32();
+        try (InputStream fileIn = Files.newInputStream(file)) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(
+                    new BufferedInputStream(fileIn, BUFFER_SIZE), crc));
+            short version = readVersion(in, file);
+            in.readLong();
+            if (version > OLDEST_VERSION) in.readLong();
+
+            int numberOfEvents = in.readInt();
+            List<Event> newEvents = new ArrayList<>(numberOfEvents);
+            for (int i = 0; i < numberOfEvents; i++) {
+                Event event = new Event(in.readUTF(), in.readInt());
+                event.setId(events, i);
+                newEvents.add(event);
+            }
+
+            int numberOfClients = in.readInt();
+            List<Client> newClients = new ArrayList<>(numberOfClients);
+            for (int j = 0; j < numberOfClients; j++) {
+                Client client = new Client(in.readUTF(), in.readUTF());
+                int holdings = in.readByte();
+                for (int k = 0; k < holdings; k++) {
+                    int eventId = in.readInt();
+                    if (eventId < 0 || eventId >= numberOfEvents) throw new IOException(file + " is corrupt");
+                    client.addTickets(newEvents.get(eventId), in.readInt());
+                }
+                newClients.add(client);
+            }
+
+            int seated = version > 3 ? in.readInt() : 0;
+            for (int i = 0; i < seated; i++) {
+                int eventId = in.readInt();
+                if (eventId < 0 || eventId >= numberOfEvents) throw new IOException(file + " is corrupt");
+                SeatMap seatMap;
+                try {
+                    seatMap = SeatMap.read(in, newClients);
+                } catch (IOException e) {
+                    throw new IOException(file + " is corrupt: " + e.getMessage());
+                }
+                newEvents.get(eventId).setSeatMap(seatMap);
+            }
+
+            long expected = crc.getValue();
+            if (in.readLong() != expected) throw new IOException(file + " is corrupt (checksum mismatch)");
+
+            int eventsAdded = events.addAll(newEvents);
+            int clientsAdded = clients.addAll(newClients);
+            return new RosterLoader.Stats(eventsAdded, clientsAdded, bytes, System.nanoTime() - start);
+        }
+    }
+}
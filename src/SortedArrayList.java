@@ -1,7 +1,16 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
 /**
- * Class to extend capability of ArrayList by enforcing order when items are added to the list
+ * Class to extend capability of ArrayList by enforcing order when items are added to the list. Because the list is
+ * always kept in ascending natural order, insertion points and lookups are found by binary search rather than by
+ * scanning from the front of the list.
+ *
+ * The search based methods ({@link #indexOf}, {@link #contains}, {@link #floor}, {@link #ceiling} and
+ * {@link #range}) rely on the natural ordering of the elements, so an element is only found if it compares as equal
+ * to an element in the list.
  * @param <E>
  *
  * @author Andrew Brown
@@ -9,31 +18,224 @@ import java.util.ArrayList;
 public class SortedArrayList<E extends Comparable<? super E>> extends ArrayList<E> {
 
     /**
-     * Overrides the boolean add(E e) method. If the list is empty the item is added automatically, subsequent items are
-     * compared to existing elements and if the existing element is greater than the new element, the new element is
-     * inserted into its position.
+     * Constructs an empty list with the default initial capacity.
+     */
+    public SortedArrayList() {
+        super();
+    }
+
+    /**
+     * Constructs an empty list with room for the given number of elements before the backing array has to grow.
+     *
+     * @param initialCapacity int initial capacity of the list
+     */
+    public SortedArrayList(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    /**
+     * Overrides the boolean add(E e) method. The insertion point is found by binary search and the new element is
+     * placed after any elements that compare as equal to it, so elements with the same ordering keep the order they
+     * were added in.
      *
      * @param e element to be appended to this list
      * @return {@code true} (as specified by {Collection#add})
      */
     @Override
     public boolean add(E e) {
+        super.add(upperBound(e), e);
+        return true;
+    }
+
+    /**
+     * Adds every element of the collection to the list. The incoming elements are sorted once, in parallel for large
+     * collections, and then merged with the existing contents in a single pass, rather than being inserted one at a
+     * time.
+     *
+     * @param c collection containing elements to be added to this list
+     * @return {@code true} if this list changed as a result of the call
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public boolean addAll(Collection<? extends E> c) {
+        if (c.isEmpty()) return false;
+
+        Comparable[] incoming = c.toArray(new Comparable[0]);
+        Arrays.parallelSort(incoming);
         if (isEmpty()) {
-            super.add(e);
-
-        } else {
-            for (int i = 0; i < modCount; i++) {
-                if (e.compareTo(get(i)) < 0){
-                    add(i, e);
-                    break;
-                }
-                if (i == modCount-1) {
-                    super.add(e);
-                    break;
-                }
+            return super.addAll((Collection<E>) (Collection<?>) Arrays.asList(incoming));
+        }
 
+        Object[] existing = toArray();
+        Object[] merged = new Object[existing.length + incoming.length];
+        int i = 0, j = 0, k = 0;
+        while (i < existing.length && j < incoming.length) {
+            // take from the existing elements on ties so equal elements stay in insertion order
+            if (((E) incoming[j]).compareTo((E) existing[i]) < 0) {
+                merged[k++] = incoming[j++];
+            } else {
+                merged[k++] = existing[i++];
             }
         }
-        return true;
+        while (i < existing.length) merged[k++] = existing[i++];
+        while (j < incoming.length) merged[k++] = incoming[j++];
+
+        super.clear();
+        return super.addAll((Collection<E>) (Collection<?>) Arrays.asList(merged));
+    }
+
+    /**
+     * Returns the index of the first element that compares as equal to the given object and is equal to it, found by
+     * binary search.
+     *
+     * @param o element to search for
+     * @return int index of the element, or -1 if the list doesn't contain it
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int indexOf(Object o) {
+        if (o == null || isEmpty()) return -1;
+        E key;
+        try {
+            key = (E) o;
+            for (int i = lowerBound(key); i < size() && key.compareTo(get(i)) == 0; i++) {
+                if (o.equals(get(i))) return i;
+            }
+        } catch (ClassCastException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last element that compares as equal to the given object and is equal to it, found by
+     * binary search.
+     *
+     * @param o element to search for
+     * @return int index of the element, or -1 if the list doesn't contain it
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int lastIndexOf(Object o) {
+        if (o == null || isEmpty()) return -1;
+        E key;
+        try {
+            key = (E) o;
+            for (int i = upperBound(key) - 1; i >= 0 && key.compareTo(get(i)) == 0; i--) {
+                if (o.equals(get(i))) return i;
+            }
+        } catch (ClassCastException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether the list holds the given element using a binary search.
+     *
+     * @param o element to search for
+     * @return boolean whether the element is in the list
+     */
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Returns the greatest element less than or equal to the given element.
+     *
+     * @param e element to compare against
+     * @return E the matching element, or null if there is no such element
+     */
+    public E floor(E e) {
+        int i = upperBound(e) - 1;
+        return i >= 0 ? get(i) : null;
+    }
+
+    /**
+     * Returns the least element greater than or equal to the given element.
+     *
+     * @param e element to compare against
+     * @return E the matching element, or null if there is no such element
+     */
+    public E ceiling(E e) {
+        int i = lowerBound(e);
+        return i < size() ? get(i) : null;
+    }
+
+    /**
+     * Returns a view of the portion of this list whose elements range from fromElement, inclusive, to toElement,
+     * exclusive. The view is backed by this list in the same way as {@link #subList(int, int)}, so it becomes invalid
+     * if this list is structurally modified.
+     *
+     * @param fromElement low endpoint (inclusive) of the view
+     * @param toElement high endpoint (exclusive) of the view
+     * @return List view of the elements in the range
+     */
+    public List<E> range(E fromElement, E toElement) {
+        if (fromElement.compareTo(toElement) > 0) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        return subList(lowerBound(fromElement), lowerBound(toElement));
+    }
+
+    /**
+     * Returns a view of the portion of this list whose elements are strictly less than toElement.
+     *
+     * @param toElement high endpoint (exclusive) of the view
+     * @return List view of the elements before toElement
+     */
+    public List<E> headList(E toElement) {
+        return subList(0, lowerBound(toElement));
+    }
+
+    /**
+     * Returns a view of the portion of this list whose elements are greater than or equal to fromElement.
+     *
+     * @param fromElement low endpoint (inclusive) of the view
+     * @return List view of the elements from fromElement onwards
+     */
+    public List<E> tailList(E fromElement) {
+        return subList(lowerBound(fromElement), size());
+    }
+
+    /**
+     * Binary search for the index of the first element that is not less than the given element.
+     *
+     * @param e element to search for
+     * @return int index in the range 0 to size()
+     */
+    private int lowerBound(E e) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (get(mid).compareTo(e) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Binary search for the index of the first element that is greater than the given element.
+     *
+     * @param e element to search for
+     * @return int index in the range 0 to size()
+     */
+    private int upperBound(E e) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (get(mid).compareTo(e) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * The {@code Terminal} class wraps the input and output a {@link Command} talks to, with helpers for the questions
+ * the menus ask. The interactive program uses System.in and System.out, but any Reader and PrintStream can be used,
+ * so the same commands can be driven from a socket or a script.
+ *
+ * Each question reads a whole line. When the input runs out every question returns null or false, so a command
+ * finishes cleanly instead of failing part way through.
+ *
+ * @author Andrew Brown
+ */
+public class Terminal {
+    static final String NEWLINE = System.getProperty("line.separator");
+
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    /**
+     * Constructor taking the reader to read answers from and the stream to write to
+     *
+     * @param in Reader to read the user's input from
+     * @param out PrintStream to write prompts and output to
+     */
+    Terminal(Reader in, PrintStream out) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        this.out = out;
+    }
+
+    /**
+     * Package-private method to get the stream output is written to
+     * @return PrintStream output stream
+     */
+    PrintStream out() {
+        return out;
+    }
+
+    /**
+     * Writes a line of text.
+     *
+     * @param text String text to write
+     */
+    void println(String text) {
+        out.println(text);
+    }
+
+    /**
+     * Offers the names that might have been meant when a name typed wasn't found. Nothing is written if there are
+     * none.
+     *
+     * @param names List of names to offer, best first
+     */
+    void suggest(List<String> names) {
+        if (!names.isEmpty()) out.println("Did you mean " + String.join(", ", names) + "?");
+    }
+
+    /**
+     * Writes a prompt and reads the answer.
+     *
+     * @param prompt String prompt to show
+     * @return String line typed by the user, or null if there is no more input
+     */
+    String readLine(String prompt) throws IOException {
+        out.print(prompt);
+        out.flush();
+        return in.readLine();
+    }
+
+    /**
+     * Asks a yes or no question. Any answer starting with y or Y counts as yes.
+     *
+     * @param prompt String question to show
+     * @return boolean true if the user answered yes
+     */
+    boolean confirm(String prompt) throws IOException {
+        String answer = readLine(prompt);
+        return answer != null && !answer.trim().isEmpty() && Character.toLowerCase(answer.trim().charAt(0)) == 'y';
+    }
+
+    /**
+     * Asks for a whole number, repeating the question after showing the error message until a whole number is given.
+     * Numbers below zero are replaced with zero.
+     *
+     * @param prompt String question to show
+     * @param error String message to show when the answer isn't a whole number
+     * @return Integer number given, or null if there is no more input
+     */
+    Integer readWholeNumber(String prompt, String error) throws IOException {
+        while (true) {
+            String answer = readLine(prompt);
+            if (answer == null) return null;
+            try {
+                return Math.max(0, Integer.parseInt(answer.trim()));
+            } catch (NumberFormatException e) {
+                out.println(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,636 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code TransactionJournal} class is a write-ahead log of confirmed sales, returns and roster additions. The
+ * {@link BoxOffice} appends a record for each sale or return and waits for it to reach the disk before reporting
+ * success, so a sale that has been acknowledged survives a crash. On startup the journal is replayed on top of the last
+ * snapshot, and taking a new snapshot empties the journal.
+ *
+ * Commits are grouped: the first thread to wait for its record becomes the leader, writes every record appended so
+ * far and forces them to disk with a single fsync, while records appended in the meantime are collected for the next
+ * leader. Under load one fsync covers many sales, so the disk doesn't limit the sales rate. Waiting is done on a
+ * ReentrantLock condition rather than a monitor, so sessions running on virtual threads unmount while they wait
+ * instead of holding on to a carrier thread.
+ *
+ * Each record is written as:
+ * <pre>
+ *     int    length of the payload
+ *     int    CRC32 of the payload
+ *     long   sequence number
+ *     byte   'S' for a sale or 'R' for a return
+ *     short  length of the client's full name, then the name in UTF-8
+ *     short  length of the event name, then the name in UTF-8
+ *     int    number of tickets
+ *     int    number of seats, then each seat number, for an event with numbered seats
+ * </pre>
+ * A basket is written as a single record, so it is either on disk whole or not at all:
+ * <pre>
+ *     byte   'B'
+ *     short  length of the client's full name, then the name in UTF-8
+ *     byte   number of events in the basket, then for each event
+ *     short  length of the event name, then the name in UTF-8
+ *     int    number of tickets
+ *     then for each event, int number of seats followed by each seat number
+ * </pre>
+ * The seats are those the sale took or the return gave back, so a replay gives each client the same seats. Records
+ * written before seats were journalled end after the last number of tickets, and are replayed by count.
+ * Additions read from the roster delta file by {@link RosterReloader} are written as a batch of records, one per
+ * event or client, followed by a record saying how far into the delta file the batch was read:
+ * <pre>
+ *     byte   'E' for an event, or extra tickets for an event that already exists
+ *     short  length of the event name, then the name in UTF-8
+ *     int    number of tickets
+ *
+ *     byte   'C' for a client
+ *     short  length of the first name, then the name in UTF-8
+ *     short  length of the last name, then the name in UTF-8
+ *
+ *     byte   'D' for the end of the batch
+ *     long   offset in the delta file just after the batch
+ * </pre>
+ * A batch is only replayed once its 'D' record is found, so it is applied whole or not at all.
+ *
+ * A record that is cut short or fails its checksum marks the end of the journal, as it can only have been left by a
+ * crash part way through a write, and is truncated away when the journal is replayed.
+ *
+ * @author Andrew Brown
+ */
+public class TransactionJournal implements Closeable {
+    static final byte SELL = 'S';
+    static final byte RETURN = 'R';
+    static final byte BASKET = 'B';
+    static final byte ROSTER_EVENT = 'E';
+    static final byte ROSTER_CLIENT = 'C';
+    static final byte ROSTER_END = 'D';
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_SEATS = 1 << 20;
+    private static final int MAX_PAYLOAD = 8 + 1 + 2 + 65535 + 1 + Client.MAX_EVENTS * (2 + 65535 + 4 + 4)
+            + MAX_SEATS * 4;
+
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer writing = ByteBuffer.allocate(1 << 16);
+    private long lastSequence;
+    private long durableSequence;
+    private boolean flushing;
+    private volatile IOException failure;
+    private long syncCount;
+
+    /**
+     * Opens the journal for appending. New records are numbered on from lastSequence, which should be the sequence
+     * number of the last record replayed or saved in the snapshot.
+     *
+     * @param file Path of the journal file, created if it doesn't exist
+     * @param lastSequence long sequence number of the last record already applied
+     * @throws IOException if the file can't be opened
+     */
+    TransactionJournal(Path file, long lastSequence) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.lastSequence = lastSequence;
+        this.durableSequence = lastSequence;
+    }
+
+    /**
+     * Adds a record to the batch waiting to be written. The record isn't durable until {@link #awaitDurable(long)}
+     * has returned for its sequence number.
+     *
+     * @param type byte SELL or RETURN
+     * @param clientName String full name of the client
+     * @param eventName String name of the event
+     * @param numberOfTickets int number of tickets sold or returned
+     * @return long sequence number of the record
+     * @throws IOException if an earlier write to the journal failed
+     */
+    long append(byte type, String clientName, String eventName, int numberOfTickets) throws IOException {
+        return append(type, clientName, eventName, numberOfTickets, null);
+    }
+
+    /**
+     * Adds a record of a sale or return of particular seats to the batch waiting to be written, as described for
+     * {@link #append(byte, String, String, int)}.
+     *
+     * @param type byte SELL or RETURN
+     * @param clientName String full name of the client
+     * @param eventName String name of the event
+     * @param numberOfTickets int number of tickets sold or returned
+     * @param seats int[] seat numbers sold or returned, or null if the event doesn't have numbered seats
+     * @return long sequence number of the record
+     * @throws IOException if an earlier write to the journal failed
+     */
+    long append(byte type, String clientName, String eventName, int numberOfTickets, int[] seats) throws IOException {
+        return append(type, clientName, new String[] {eventName}, new int[] {numberOfTickets}, new int[][] {seats});
+    }
+
+    /**
+     * Adds a record of a basket sale to the batch waiting to be written, as a single record so that the basket is
+     * replayed whole or not at all.
+     *
+     * @param clientName String full name of the client
+     * @param eventNames String[] names of the events in the basket
+     * @param tickets int[] number of tickets sold for each event
+     * @param seats int[][] seat numbers sold for each event, null for an event without numbered seats
+     * @return long sequence number of the record
+     * @throws IOException if an earlier write to the journal failed
+     */
+    long appendBasket(String clientName, String[] eventNames, int[] tickets, int[][] seats) throws IOException {
+        if (eventNames.length == 0 || eventNames.length > Client.MAX_EVENTS) {
+            throw new IllegalArgumentException("A basket holds 1 to " + Client.MAX_EVENTS + " events");
+        }
+        return append(BASKET, clientName, eventNames, tickets, seats);
+    }
+
+    /**
+     * Encodes a record into the pending batch. A basket record has a count of its events before them, a sale or
+     * return has exactly one event and no count. The seats of every event follow the events.
+     */
+    private long append(byte type, String clientName, String[] eventNames, int[] tickets, int[][] seats)
+            throws IOException {
+        byte[] client = clientName.getBytes(StandardCharsets.UTF_8);
+        byte[][] events = new byte[eventNames.length][];
+        int payloadSize = 8 + 1 + 2 + client.length + (type == BASKET ? 1 : 0);
+        int seatCount = 0;
+        for (int i = 0; i < events.length; i++) {
+            events[i] = eventNames[i].getBytes(StandardCharsets.UTF_8);
+            if (events[i].length > 65535) throw new IOException("Name too long for the journal");
+            seatCount += seats[i] == null ? 0 : seats[i].length;
+            payloadSize += 2 + events[i].length + 4 + 4;
+        }
+        if (client.length > 65535) throw new IOException("Name too long for the journal");
+        if (seatCount > MAX_SEATS) throw new IOException("Too many seats for the journal");
+        payloadSize += seatCount * 4;
+        lock.lock();
+        try {
+            int start = begin(type, payloadSize);
+            pending.putShort((short) client.length).put(client);
+            if (type == BASKET) pending.put((byte) events.length);
+            for (int i = 0; i < events.length; i++) {
+                pending.putShort((short) events[i].length).put(events[i]);
+                pending.putInt(tickets[i]);
+            }
+            for (int[] eventSeats : seats) {
+                pending.putInt(eventSeats == null ? 0 : eventSeats.length);
+                if (eventSeats == null) continue;
+                for (int seat : eventSeats) {
+                    pending.putInt(seat);
+                }
+            }
+            return end(start, payloadSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a batch of additions from the roster delta file to the records waiting to be written: a record for each
+     * new event, each existing event given extra tickets and each new client, then a record of how far into the delta
+     * file the batch was read. The records are appended together, so they are written together.
+     *
+     * @param newEvents List of events added, with their tickets
+     * @param extraTickets Map from existing event to the number of extra tickets put on sale
+     * @param newClients List of clients registered
+     * @param deltaOffset long offset in the delta file just after the batch
+     * @return long sequence number of the last record of the batch
+     * @throws IOException if a name is too long for the journal or an earlier write to the journal failed
+     */
+    long appendRoster(List<Event> newEvents, Map<Event, Integer> extraTickets, List<Client> newClients,
+                      long deltaOffset) throws IOException {
+        List<byte[]> names = new ArrayList<>();
+        List<Integer> tickets = new ArrayList<>();
+        for (Event event : newEvents) {
+            names.add(encode(event.getName()));
+            tickets.add(event.getTicketsRemaining());
+        }
+        for (Map.Entry<Event, Integer> entry : extraTickets.entrySet()) {
+            names.add(encode(entry.getKey().getName()));
+            tickets.add(entry.getValue());
+        }
+        List<byte[]> firstNames = new ArrayList<>();
+        List<byte[]> lastNames = new ArrayList<>();
+        for (Client client : newClients) {
+            firstNames.add(encode(client.getFirstName()));
+            lastNames.add(encode(client.getLastName()));
+        }
+        lock.lock();
+        try {
+            for (int i = 0; i < names.size(); i++) {
+                byte[] name = names.get(i);
+                int payloadSize = 8 + 1 + 2 + name.length + 4;
+                int start = begin(ROSTER_EVENT, payloadSize);
+                pending.putShort((short) name.length).put(name).putInt(tickets.get(i));
+                end(start, payloadSize);
+            }
+            for (int i = 0; i < firstNames.size(); i++) {
+                byte[] first = firstNames.get(i);
+                byte[] last = lastNames.get(i);
+                int payloadSize = 8 + 1 + 2 + first.length + 2 + last.length;
+                int start = begin(ROSTER_CLIENT, payloadSize);
+                pending.putShort((short) first.length).put(first);
+                pending.putShort((short) last.length).put(last);
+                end(start, payloadSize);
+            }
+            int start = begin(ROSTER_END, 8 + 1 + 8);
+            pending.putLong(deltaOffset);
+            return end(start, 8 + 1 + 8);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static byte[] encode(String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 65535) throw new IOException("Name too long for the journal");
+        return bytes;
+    }
+
+    /**
+     * Starts a record in the pending batch, growing it if need be, and writes the header, sequence number and type.
+     * Must be called holding the lock.
+     *
+     * @return int position of the record in the pending batch
+     */
+    private int begin(byte type, int payloadSize) throws IOException {
+        if (failure != null) throw new IOException("Journal is unusable after an earlier failure", failure);
+        if (pending.remaining() < HEADER_SIZE + payloadSize) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2,
+                    pending.position() + HEADER_SIZE + payloadSize));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        int start = pending.position();
+        pending.putInt(payloadSize).putInt(0);
+        pending.putLong(++lastSequence).put(type);
+        return start;
+    }
+
+    /**
+     * Finishes a record started with {@link #begin} by filling in its checksum. Must be called holding the lock.
+     *
+     * @return long sequence number of the record
+     */
+    private long end(int start, int payloadSize) {
+        crc.reset();
+        crc.update(pending.array(), start + HEADER_SIZE, payloadSize);
+        pending.putInt(start + 4, (int) crc.getValue());
+        return lastSequence;
+    }
+
+    /**
+     * Waits until the record with the given sequence number is on disk. If no other thread is writing, this thread
+     * writes every pending record and forces them to disk itself.
+     *
+     * @param sequence long sequence number returned by append
+     * @throws IOException if the journal couldn't be written
+     */
+    void awaitDurable(long sequence) throws IOException {
+        ByteBuffer batch;
+        long batchEnd;
+        lock.lock();
+        try {
+            while (true) {
+                if (durableSequence >= sequence) return;
+                if (failure != null) throw new IOException("Journal is unusable after an earlier failure", failure);
+                if (!flushing) break;
+                try {
+                    flushed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for the journal");
+                }
+            }
+            flushing = true;
+            batch = pending;
+            pending = writing;
+            writing = batch;
+            batchEnd = lastSequence;
+        } finally {
+            lock.unlock();
+        }
+
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            batch.clear();
+        }
+
+        lock.lock();
+        try {
+            flushing = false;
+            if (error == null) {
+                durableSequence = batchEnd;
+                syncCount++;
+            } else {
+                failure = error;
+            }
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * Waits until every record appended so far is on disk.
+     *
+     * @throws IOException if the journal couldn't be written
+     */
+    void sync() throws IOException {
+        awaitDurable(getLastSequence());
+    }
+
+    /**
+     * Empties the journal once its records have been saved in a snapshot. The caller must make sure nothing is
+     * appended while the journal is being truncated.
+     *
+     * @throws IOException if the journal couldn't be truncated
+     */
+    void truncate() throws IOException {
+        lock.lock();
+        try {
+            if (pending.position() > 0 || flushing) throw new IllegalStateException("Journal has unsynced records");
+            channel.truncate(0);
+            channel.force(true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Package-private method to get the sequence number of the last record appended
+     * @return long last sequence number
+     */
+    long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Package-private method to get how many times the journal has been forced to disk. Comparing this with the
+     * number of records shows how well commits are being grouped.
+     * @return long number of fsyncs
+     */
+    long getSyncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes any pending records and closes the journal.
+     *
+     * @throws IOException if the pending records couldn't be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (failure == null) sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Replays the journal on top of the state already loaded into the box office. Records with a sequence number no
+     * greater than afterSequence are already included in the snapshot and are skipped. The journal is read one record
+     * at a time, and anything after the last complete record is truncated away.
+     *
+     * Each record is applied with {@link BoxOffice#applyJournalled} as a plain change to the holding and count, not
+     * sold or returned again. Records for different clients can be in the journal in a different order from the one
+     * the changes were made in, so a sale can come before the return that freed its tickets; checking the rules again
+     * would refuse it. Replaying sends no letters, as they were sent when the sales were refused. A batch of roster
+     * additions is applied when its last record is reached; a batch cut short by a crash is truncated away with the
+     * incomplete record, and its lines are read from the delta file again.
+     *
+     * @param file Path of the journal file
+     * @param afterSequence long sequence number saved in the snapshot
+     * @param boxOffice BoxOffice to apply the records to, which must not have a journal attached
+     * @return Replay number of records applied and the last sequence number seen
+     * @throws IOException if the journal can't be read
+     */
+    static Replay replay(Path file, long afterSequence, BoxOffice boxOffice) throws IOException {
+        Replay replay = new Replay(afterSequence);
+        if (!Files.exists(file)) return replay;
+
+        long readLength = 0;
+        long validLength = 0;
+        CRC32 check = new CRC32();
+        byte[] payload = new byte[256];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            InputStream stream = Channels.newInputStream(channel);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+            while (true) {
+                int length;
+                int expectedCrc;
+                try {
+                    length = in.readInt();
+                    expectedCrc = in.readInt();
+                    if (length < 0 || length > MAX_PAYLOAD) break;
+                    if (payload.length < length) payload = new byte[Math.max(length, payload.length * 2)];
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    break;
+                }
+                check.reset();
+                check.update(payload, 0, length);
+                if ((int) check.getValue() != expectedCrc) break;
+
+                replay.apply(ByteBuffer.wrap(payload, 0, length), boxOffice);
+                readLength += HEADER_SIZE + length;
+                // records of a roster batch only count once the whole batch has been read
+                if (!replay.inRosterBatch()) validLength = readLength;
+            }
+            if (validLength < channel.size()) {
+                replay.truncatedBytes = channel.size() - validLength;
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        }
+        return replay;
+    }
+
+    /**
+     * The outcome of replaying a journal.
+     */
+    static class Replay {
+        private long lastSequence;
+        private long applied;
+        private long skipped;
+        private long truncatedBytes;
+        private final List<String> rosterEvents = new ArrayList<>();
+        private final List<Integer> rosterTickets = new ArrayList<>();
+        private final List<Client> rosterClients = new ArrayList<>();
+        private boolean inRosterBatch;
+
+        Replay(long afterSequence) {
+            this.lastSequence = afterSequence;
+        }
+
+        /**
+         * Checks whether the records read so far end part way through a batch of roster additions.
+         */
+        private boolean inRosterBatch() {
+            return inRosterBatch;
+        }
+
+        /**
+         * Applies one record to the box office if it isn't already in the snapshot.
+         */
+        private void apply(ByteBuffer record, BoxOffice boxOffice) throws IOException {
+            long sequence = record.getLong();
+            if (sequence <= lastSequence) {
+                skipped++;
+                return;
+            }
+            byte type = record.get();
+            if (type == ROSTER_EVENT || type == ROSTER_CLIENT || type == ROSTER_END) {
+                lastSequence = sequence;
+                applyRoster(type, record, boxOffice);
+                return;
+            }
+            String clientName = readName(record);
+            int items = type == BASKET ? record.get() & 0xff : 1;
+            Event[] events = new Event[items];
+            int[] tickets = new int[items];
+            for (int i = 0; i < items; i++) {
+                String eventName = readName(record);
+                events[i] = boxOffice.getEvents().get(eventName);
+                tickets[i] = record.getInt();
+                if (events[i] == null) {
+                    throw new IOException("Journal record " + sequence + " refers to an unknown event " + eventName);
+                }
+            }
+            int[][] seats = new int[items][];
+            if (record.hasRemaining()) {
+                for (int i = 0; i < items; i++) {
+                    seats[i] = new int[record.getInt()];
+                    for (int j = 0; j < seats[i].length; j++) {
+                        seats[i][j] = record.getInt();
+                    }
+                }
+            }
+            lastSequence = sequence;
+
+            Client client = boxOffice.getClients().get(clientName);
+            if (client == null) {
+                throw new IOException("Journal record " + sequence + " refers to an unknown client " + clientName);
+            }
+            byte change = type == BASKET ? SELL : type;
+            for (int i = 0; i < items; i++) {
+                if (!boxOffice.applyJournalled(change, client, events[i], tickets[i], seats[i])) {
+                    throw new IOException("Journal record " + sequence + " could not be replayed: " + clientName
+                            + " can't " + (change == SELL ? "take " : "give back ") + tickets[i] + " tickets for "
+                            + events[i].getName());
+                }
+            }
+            applied++;
+        }
+
+        /**
+         * Collects a record of a batch of roster additions, applying the batch once its last record is reached. Events
+         * that already exist by then are given the batch's tickets as extra tickets, as they were when it was read.
+         */
+        private void applyRoster(byte type, ByteBuffer record, BoxOffice boxOffice) throws IOException {
+            inRosterBatch = type != ROSTER_END;
+            if (type == ROSTER_EVENT) {
+                rosterEvents.add(readName(record));
+                rosterTickets.add(record.getInt());
+                return;
+            }
+            if (type == ROSTER_CLIENT) {
+                String firstName = readName(record);
+                rosterClients.add(new Client(firstName, readName(record)));
+                return;
+            }
+
+            List<Event> newEvents = new ArrayList<>();
+            Map<Event, Integer> extraTickets = new LinkedHashMap<>();
+            for (int i = 0; i < rosterEvents.size(); i++) {
+                Event event = boxOffice.getEvents().get(rosterEvents.get(i));
+                if (event == null) {
+                    newEvents.add(new Event(rosterEvents.get(i), rosterTickets.get(i)));
+                } else {
+                    extraTickets.merge(event, rosterTickets.get(i), Integer::sum);
+                }
+            }
+            boxOffice.applyJournalledRoster(newEvents, extraTickets, rosterClients, record.getLong());
+            applied += rosterEvents.size() + rosterClients.size() + 1;
+            rosterEvents.clear();
+            rosterTickets.clear();
+            rosterClients.clear();
+        }
+
+        private static String readName(ByteBuffer record) {
+            int length = record.getShort() & 0xffff;
+            String name = new String(record.array(), record.arrayOffset() + record.position(), length,
+                    StandardCharsets.UTF_8);
+            record.position(record.position() + length);
+            return name;
+        }
+
+        /**
+         * Package-private method to get the sequence number of the last record in the journal
+         * @return long last sequence number
+         */
+        long getLastSequence() {
+            return lastSequence;
+        }
+
+        /**
+         * Package-private method to get the number of records applied
+         * @return long number of records applied
+         */
+        long getApplied() {
+            return applied;
+        }
+
+        /**
+         * Gives a one line report of the replay
+         * @return String report of the replay
+         */
+        @Override
+        public String toString() {
+            String report = "Replayed " + applied + " journal records";
+            if (skipped > 0) report += " (" + skipped + " already in snapshot)";
+            if (truncatedBytes > 0) report += ", discarded " + truncatedBytes + " bytes of incomplete record";
+            return report;
+        }
+    }
+}
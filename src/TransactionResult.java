@@ -0,0 +1,44 @@
+/**
+ * The {@code TransactionResult} enum lists the outcomes of a sale or return made through the {@link BoxOffice}.
+ *
+ * @author Andrew Brown
+ */
+public enum TransactionResult {
+    SOLD("Tickets sold", true),
+    RETURNED("Tickets returned", true),
+    UNKNOWN_CLIENT("Cannot find that client", false),
+    UNKNOWN_EVENT("Cannot find that event", false),
+    INVALID_QUANTITY("Positive whole number of tickets expected", false),
+    EVENT_LIMIT("A client is only able to buy tickets for up to 3 events", false),
+    SOLD_OUT("No more tickets available, letter sent", false),
+    NOT_ENOUGH_TICKETS("Not enough tickets remaining", false),
+    NOT_ENOUGH_HELD("Client doesn't have that many tickets to return", false),
+    SEATS_NOT_HELD("Client doesn't hold those seats", false),
+    WAITLISTED("Added to the waitlist", true),
+    ALREADY_WAITLISTED("Client is already on the waitlist for that event", false),
+    BAD_COMMAND("Command not recognised", false);
+
+    private final String message;
+    private final boolean success;
+
+    TransactionResult(String message, boolean success) {
+        this.message = message;
+        this.success = success;
+    }
+
+    /**
+     * Package-private method to get a description of the result suitable for showing to the user
+     * @return String description of the result
+     */
+    String getMessage() {
+        return message;
+    }
+
+    /**
+     * Package-private method to check whether the transaction went ahead
+     * @return boolean true if tickets were sold or returned
+     */
+    boolean isSuccess() {
+        return success;
+    }
+}
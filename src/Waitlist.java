@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@code Waitlist} class holds the clients waiting for tickets to a sold-out event, so tickets that are returned
+ * can be allocated to them rather than going back on general sale. The {@link BoxOffice} allocates from the waitlist
+ * every time tickets for an event are returned.
+ *
+ * Each event has its own queue, ordered by when each request joined. Requests are numbered before the queue is
+ * locked, so two desks can add them out of order; the queue is a binary heap rather than a plain FIFO list so that
+ * they are still served in number order, and adding or taking a request is O(log n). Each queue has its own lock, so
+ * returns for different events allocate without waiting for each other. A client can only wait once per event.
+ *
+ * Allocation holds the queue's lock from looking at the front request until its sale has been applied, and the
+ * request only leaves the queue once it has been dealt with. A second desk returning tickets meanwhile waits for the
+ * lock and then looks again with the tickets it returned, so no request is served ahead of an earlier one and no
+ * return is missed because the queue looked empty while a request was being sold. The lock is a
+ * {@link ReentrantLock} rather than a monitor so that a desk on a virtual thread waiting for it doesn't pin its
+ * carrier thread, and the box office waits for the journal and sends letters only after it has been released. A
+ * request whose sale then couldn't be written to the journal is put back with its original number, which puts it
+ * back in its place.
+ *
+ * The waitlist is kept in memory only. Allocations are sales and are journalled like any other.
+ *
+ * @author Andrew Brown
+ */
+public class Waitlist {
+    private final ConcurrentMap<Event, EventQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /**
+     * Adds a request to the back of an event's queue.
+     *
+     * @param event Event the client is waiting for
+     * @param client Client waiting
+     * @param tickets int number of tickets wanted
+     * @return boolean false if the client is already waiting for the event
+     */
+    boolean add(Event event, Client client, int tickets) {
+        return queues.computeIfAbsent(event, e -> new EventQueue())
+                .add(new Request(client, tickets, nextSequence.incrementAndGet()));
+    }
+
+    /**
+     * Allocates the event's tickets remaining to its queue in order, holding the queue's lock throughout, until the
+     * front request wants more tickets than remain or can't be allocated. Requests are allocated strictly in order, so
+     * a large request at the front isn't passed over by smaller ones behind it. A request stays at the front if the
+     * allocation refuses it or throws.
+     *
+     * @param event Event to allocate tickets for
+     * @param allocation Allocation trying each request in turn
+     * @throws IOException if the allocation throws, with the request still at the front
+     */
+    void allocate(Event event, Allocation allocation) throws IOException {
+        EventQueue queue = queues.get(event);
+        if (queue != null) queue.allocate(event, allocation);
+    }
+
+    /**
+     * Puts a request taken by {@link #allocate} back in its place in the queue, because its allocation was undone.
+     * Nothing is put back if the client has joined the queue again since.
+     *
+     * @param event Event the request was waiting for
+     * @param request Request to put back
+     */
+    void putBack(Event event, Request request) {
+        queues.computeIfAbsent(event, e -> new EventQueue()).add(request);
+    }
+
+    /**
+     * Package-private method to get the requests waiting for an event, front of the queue first
+     * @param event Event to list the requests for
+     * @return List of requests, empty if nobody is waiting
+     */
+    List<Request> get(Event event) {
+        EventQueue queue = queues.get(event);
+        return queue == null ? Collections.emptyList() : queue.list();
+    }
+
+    /**
+     * One event's queue and its lock.
+     */
+    private static class EventQueue {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final PriorityQueue<Request> requests = new PriorityQueue<>();
+        private final Set<Client> waiting = new HashSet<>();
+
+        boolean add(Request request) {
+            lock.lock();
+            try {
+                if (!waiting.add(request.client)) return false;
+                requests.add(request);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void allocate(Event event, Allocation allocation) throws IOException {
+            lock.lock();
+            try {
+                Request front;
+                while ((front = requests.peek()) != null && front.tickets <= event.getTicketsRemaining()) {
+                    if (!allocation.allocate(front)) return;
+                    requests.poll();
+                    waiting.remove(front.client);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<Request> list() {
+            lock.lock();
+            try {
+                List<Request> list = new ArrayList<>(requests);
+                Collections.sort(list);
+                return list;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * What is done with each request that fits the tickets remaining, called holding the queue's lock. It should
+     * apply the sale and leave anything slow, such as waiting for the disk, until {@link #allocate} has returned.
+     */
+    interface Allocation {
+        /**
+         * Tries to allocate tickets to a request.
+         *
+         * @param request Request at the front of the queue
+         * @return boolean true if the request has been dealt with and leaves the queue, false if it couldn't be
+         * allocated yet and stays at the front
+         * @throws IOException if the allocation couldn't be recorded
+         */
+        boolean allocate(Request request) throws IOException;
+    }
+
+    /**
+     * A client's request for a number of tickets, numbered in the order requests joined the waitlist.
+     */
+    static class Request implements Comparable<Request> {
+        private final Client client;
+        private final int tickets;
+        private final long sequence;
+
+        Request(Client client, int tickets, long sequence) {
+            this.client = client;
+            this.tickets = tickets;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Package-private method to get the waiting client
+         * @return Client waiting client
+         */
+        Client getClient() {
+            return client;
+        }
+
+        /**
+         * Package-private method to get the number of tickets wanted
+         * @return int number of tickets
+         */
+        int getTickets() {
+            return tickets;
+        }
+
+        /**
+         * Compares requests by when they joined the waitlist
+         * @param r Request to compare with
+         * @return int comparison value
+         */
+        @Override
+        public int compareTo(Request r) {
+            return Long.compare(sequence, r.sequence);
+        }
+
+        /**
+         * Prints the request as the client's full name and the number of tickets wanted
+         * @return String name and tickets, e.g. Anna Smith - 3
+         */
+        @Override
+        public String toString() {
+            return client.getFullName() + " - " + tickets;
+        }
+    }
+}
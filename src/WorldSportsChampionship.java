@@ -1,505 +1,301 @@
+import javax.management.JMException;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
- * Main driver class containing main method for the software. Instantiates SortedArrayLists to store Clients and Events
- * used in the application, a PrintWriter for file output and scanner for input from file and user input. Additionally
- * a NEWLINE constant has been created to ensure cross platform compatibility for line separator characters.
+ * Main driver class containing main method for the software. Instantiates an EventCatalog to store Events and a
+ * ClientRegistry to store Clients used in the application, a BoxOffice which applies the rules for selling and
+ * returning tickets and the menu of commands the user works through. Additionally a NEWLINE constant has been
+ * created to ensure cross platform compatibility for line separator characters.
  *
  * @author Andrew Brown
  */
 public class WorldSportsChampionship {
     private static final String NEWLINE = System.getProperty("line.separator");
-    private static Scanner input = new Scanner(System.in);
-    private static SortedArrayList<Event> events = new SortedArrayList<>();
-    private static SortedArrayList<Client> clients = new SortedArrayList<>();
-
-    public static void main(String[] args) throws IOException{
-        setup();
-        printMenu();
-    }
+    private static final Path SNAPSHOT_FILE = Paths.get("championship.snapshot");
+    private static final Path JOURNAL_FILE = Paths.get("championship.journal");
+    static final int DEFAULT_PORT = 7070;
+    private static final int INVENTORY_CAPACITY = 4096;
+    private static EventCatalog events = new EventCatalog();
+    private static ClientRegistry clients = new ClientRegistry();
+    private static BoxOffice boxOffice;
 
     /**
-     * Setup method which takes a file named input from the folder named InputOutput. The file will be written with a
-     * standard format so any file using this format should work. The method firstly checks the first line for the number
-     * of events in the file. This number is used as the basis for a for loop which checks n line pairs for event name
-     * and number of tickets and adds each to the events SortedArrayList.
+     * Starts the software. With no arguments the interactive menu is shown. Running with
+     * {@code --batch commands.txt [results.txt]} instead runs the command file through the box office without any
+     * prompts, writing the result of each command to results.txt (or the console) and a throughput report at the end.
+     * Running with {@code --serve [port] [--shards n]} shares the box office with desks connecting to a
+     * BoxOfficeServer on the local machine until Enter is pressed, optionally selling on n ShardedEngine shards.
+     * Adding {@code --fresh} ignores any saved snapshot and starts again from input.txt. Sold-out letters are appended
+     * to output.txt, or with {@code --letters-per-client} written to one file per client in the letters folder.
+     * Adding {@code --metrics metrics.json} writes the box office's counters and latency percentiles to that file every
+     * 5 seconds; they can also be read over JMX. Running with
+     * {@code --report events|clients [file] [--prefix name] [--offset n] [--limit n]} writes the event or client
+     * listing to the file (or the console) without showing the menu. Adding {@code --seats seating.txt} gives the
+     * events named in the seating plan numbered seats. Adding {@code --inventory shared.inv} keeps the tickets
+     * remaining in a memory-mapped file shared with other box office processes. Adding {@code --watch delta.txt}
+     * applies new events, extra tickets and late registrations appended to delta.txt while the box office is running.
      *
-     * The next line checks for the number of clients and similarly uses this for a for loop and checks the next n lines
-     * for the client names and adds them to the clients SortedArrayList.
+     * @param args command line arguments
      */
-    private static void setup() throws IOException {
-        try {
-            BufferedReader inFile = new BufferedReader(new FileReader("input.txt"));
-            int numberOfEvents = Integer.parseInt(inFile.readLine());
-            for (int i = 0; i < numberOfEvents; i++) {
-                String eventName = inFile.readLine();
-                int numberOfTickets = Integer.parseInt(inFile.readLine());
-                events.add(new Event(eventName, numberOfTickets));
-            }
-            int numberOfClients = Integer.parseInt(inFile.readLine());
-            for (int j = 0; j < numberOfClients; j++) {
-                String clientName = inFile.readLine();
-                String[] names = clientName.split(" ");
-                String firstName = names[0];
-                String lastName = names[1];
-                clients.add(new Client(firstName, lastName));
-            }
-        } catch (FileNotFoundException e) {
-            System.out.println(NEWLINE + "input.txt file is missing from InputOutput folder");
-            System.exit(1);
+    public static void main(String[] args) throws IOException{
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean fresh = arguments.remove("--fresh");
+        String deltaFile = removeOption(arguments, "--watch");
+        String inventoryFile = removeOption(arguments, "--inventory");
+        if (arguments.remove("--letters-per-client")) {
+            boxOffice = new BoxOffice(events, clients, new LetterSpooler(Paths.get("letters"), true, 4096));
+        } else {
+            boxOffice = new BoxOffice(events, clients);
         }
-    }
-
-    /**
-     * Method to print the main menu providing the user with options to control the application. A switch statement is
-     * used to take user option and run a relevant method when each option is called.
-     */
-    private static void printMenu() throws IOException {
-        System.out.println("---------------------------------------");
-        System.out.println("| [e] Display Event Info              |");
-        System.out.println("| [c] Display Client Info             |");
-        System.out.println("| [b] Sell Tickets                    |");
-        System.out.println("| [r] Cancel/Return Tickets           |");
-        System.out.println("|                                     |");
-        System.out.println("| [f] Exit Program                    |");
-        System.out.println("---------------------------------------");
-        System.out.print("Please make a selection and press Enter: ");
-
+        RosterReloader reloader = deltaFile == null ? null : new RosterReloader(boxOffice, Paths.get(deltaFile));
+        String seatingPlan = removeOption(arguments, "--seats");
+        setup(fresh, seatingPlan == null ? null : Paths.get(seatingPlan));
+        if (inventoryFile != null) attachInventory(Paths.get(inventoryFile));
+        if (reloader != null) reloader.start();
+        registerMetrics();
+        MetricsReporter reporter = null;
+        int metricsOption = arguments.indexOf("--metrics");
+        if (metricsOption >= 0 && metricsOption + 1 < arguments.size()) {
+            reporter = new MetricsReporter(boxOffice.getMetrics(), Paths.get(arguments.get(metricsOption + 1)), 5);
+            arguments.subList(metricsOption, metricsOption + 2).clear();
+        }
+        // the reloader is stopped before the final snapshot is taken and the journal closed, so every delta it applies
+        // is in the snapshot or journaled; a delta applied after the menu's exit snapshot is still in the journal
+        boolean snapshot = false;
         try {
-            char menuOption;
-            menuOption = input.nextLine().toLowerCase().charAt(0);
-            switch (menuOption) {
-                case 'e':
-                    displayEventInfo();
-                    break;
-
-                case 'c':
-                    displayClientInfo();
-                    break;
-
-                case 'b':
-                    sellTicket();
-                    break;
-
-                case 'r':
-                    cancelTicket();
-                    break;
-
-                case 'f':
-                    exitProgram();
-                    break;
-
-                default:
-                    printMenu();
-
+            if (arguments.size() >= 2 && arguments.get(0).equals("--batch")) {
+                boxOffice.setSyncOnCommit(false);
+                runBatch(arguments.get(1), arguments.size() >= 3 ? arguments.get(2) : null);
+                boxOffice.syncJournal();
+                snapshot = true;
+            } else if (arguments.size() >= 2 && arguments.get(0).equals("--report")) {
+                writeReport(arguments.subList(1, arguments.size()));
+            } else if (!arguments.isEmpty() && arguments.get(0).equals("--serve")) {
+                String shards = removeOption(arguments, "--shards");
+                serve(arguments.size() >= 2 ? Integer.parseInt(arguments.get(1)) : DEFAULT_PORT,
+                        shards == null ? 0 : Integer.parseInt(shards));
+                snapshot = true;
+            } else {
+                createMenu(boxOffice, SNAPSHOT_FILE).run(new Terminal(new InputStreamReader(System.in), System.out));
             }
-        } catch (StringIndexOutOfBoundsException e) {
-            printMenu();
+        } finally {
+            if (reloader != null) reloader.close();
         }
+        if (snapshot) saveSnapshot();
+        boxOffice.close();
+        if (reporter != null) reporter.close();
     }
 
     /**
-     * Method to show all the event information, displaying the event name and the number of tickets that remain for each
-     * event. The data is shown in a formatted manner to display in columns to increase readability.
-     */
-    private static void displayEventInfo() throws IOException {
-        System.out.println(NEWLINE + "                 ALL EVENT INFORMATION                ");
-        System.out.println("------------------------------------------------------");
-        for (Event e : events) {
-            System.out.printf("%-30.30s  %-30.30s%n",
-                    "Event: " + e.getName(), "Available Tickets: " + e.getTicketsRemaining());
-        }
-        System.out.println("------------------------------------------------------" + NEWLINE);
-        printMenu();
-    }
-
-    /**
-     * Method to show all client info. The name of the client is shown and then the events they are attending are shown
-     * on the following line indented from the left edge by a tab space.
+     * Keeps the events' counts in a memory-mapped inventory file, which other box office processes on this machine can
+     * share. Events already in the file take their counts from it.
+     *
+     * The file is attached after the journal has been replayed. The counts in this process's snapshot and journal
+     * don't include the other processes' sales and returns, so replay changes the holdings and counts without
+     * checking that the tickets were available, and the file's counts, which include every process's changes, then
+     * replace the replayed ones. Events new to the file start from their replayed counts.
+     *
+     * @param file Path of the inventory file, created if it doesn't exist
      */
-    private static void displayClientInfo() throws IOException {
-        System.out.println(NEWLINE + "                 ALL CLIENT INFORMATION");
-        System.out.println("------------------------------------------------------");
-        for (Client c : clients) {
-            System.out.println("Client Name: " + c.getFullName());
-            if (c.getEventsAttending().isEmpty()) {
-                System.out.println("\tEvents Attending: No Tickets Bought Yet");
-            } else {
-                System.out.println("\tEvents Attending: " + c.getEventsAttending());
-            }
+    private static void attachInventory(Path file) throws IOException {
+        InventoryFile inventory = InventoryFile.open(file, Math.max(INVENTORY_CAPACITY, events.size() * 2));
+        int added;
+        try {
+            added = inventory.attach(events);
+        } catch (IOException e) {
+            inventory.close();
+            throw e;
         }
-        System.out.println("------------------------------------------------------" + NEWLINE);
-        printMenu();
+        boxOffice.setInventory(inventory);
+        System.out.println("Inventory shared through " + file + " (" + added + " events added to it)");
     }
 
     /**
-     * Asks the user which client they would like to sell a ticket to. The name is checked against the list of clients
-     * and if the client isn't found the user is presented an option to try again. If the client has already purchased
-     * tickets for three events then the user is informed that the limit for that client has been reached. If the client
-     * is found and they don't already have tickets for 3 events, the client object is then passed into the
-     * sellTicketToClient method.
+     * Registers the box office's metrics with the platform MBean server so they can be watched over JMX. The metrics
+     * are still recorded if registration fails.
      */
-    private static void sellTicket() throws IOException {
-        System.out.print(NEWLINE + "Which client would you like to sell tickets to? ");
-        String response = input.nextLine();
-        Client client = null;
-        for (Client c : clients) {
-            if (c.getFullName().equals(response)) {
-                client = c;
-            }
-        }
-        if (client == null) {
-            System.out.println("Cannot find that client");
-            System.out.print("Try again? (y)es/(n)o ");
-            char choiceResponse = input.nextLine().toLowerCase().charAt(0);
-            if (choiceResponse == 'y') {
-                sellTicket();
-            } else {
-                printMenu();
-            }
-        }
-
-        if (client != null && client.getEventsAttending().size() == 3) {
-            System.out.println("Sorry a client is only able to buy tickets for up to 3 events");
-            printMenu();
-        }
-        if (client != null) {
-            sellTicketToClient(client);
+    private static void registerMetrics() {
+        try {
+            boxOffice.getMetrics().register("main");
+        } catch (JMException e) {
+            System.err.println("Metrics could not be registered with JMX: " + e.getMessage());
         }
     }
 
     /**
-     * Asks the user which event the client would would like to purchase a ticket for. The name is checked against the
-     * list of events on record. If the event isn't found the user is informed and asked if they want to try again. If
-     * the event is found but the number of tickets remaining is 0, the method noTicketsLetter is called with the client
-     * and event info passed into it, the user is informed and asked if they want to check a different event. If there
-     * are tickets available, then the client and event are passed into the sellTicketForEvent method.
+     * Runs a BoxOfficeServer until Enter is pressed or the console input ends.
      *
-     * @param client Client to sell tickets to
+     * @param port int port to listen on
+     * @param shards int number of ShardedEngine shards, or 0 to sell on each session's own thread
      */
-    private static void sellTicketToClient(Client client) throws IOException {
-        System.out.print("Which event would " + client.getFullName() + " like to buy tickets for? ");
-        String response = input.nextLine();
-        Event event = null;
-        for (Event e : events) {
-            if (e.getName().equals(response)) {
-                event = e;
-            }
-        }
-        if (event == null) {
-            System.out.println("Cannot find that event");
-            System.out.print("Try again? (y)es/(n)o ");
-            char choiceResponse = input.nextLine().toLowerCase().charAt(0);
-            if (choiceResponse == 'y') {
-                sellTicketToClient(client);
-            } else {
-                printMenu();
-            }
-        }
-
-        if (event != null && event.getTicketsRemaining() == 0) {
-            noTicketsLetter(client, event);
-            System.out.println("No more tickets available for " + event.getName());
-            System.out.print("Would you like to choose a different event? (y)es/(n)/o ");
-            char choiceResponse = input.nextLine().toLowerCase().charAt(0);
-            if (choiceResponse == 'y') {
-                sellTicketToClient(client);
-            } else {
-                printMenu();
-            }
-        }
-
-        if (event != null) {
-            sellTicketForEvent(client, event);
+    private static void serve(int port, int shards) throws IOException {
+        try (BoxOfficeServer server = new BoxOfficeServer(boxOffice, port, shards)) {
+            System.out.println("Box office serving on " + server.getAddress() + ", press Enter to stop");
+            new BufferedReader(new InputStreamReader(System.in)).readLine();
+            System.out.println("Handled " + server.getRequests() + " requests from " + server.getSessions()
+                    + " sessions");
         }
     }
 
     /**
-     * The user is asked how many tickets the client would like to purchase. If there are fewer tickets available than
-     * have been requested the user is informed how many tickets remain and asked if they would like to enter a different
-     * value. If the number of tickets is valid, then the client, event and number of tickets is passed into the
-     * confirmTicketSale method. If the user enters a non-valid entry for the number of tickets, an exception is thrown
-     * and the method is called again. If a number lower than 0 is entered it is replaced with 0.
+     * Writes the event or client listing using a ReportRenderer, filtered by the --prefix, --offset and --limit
+     * options, to the named file or to the console.
      *
-     * @param client Client to sell ticket to
-     * @param event Event which the tickets are for
+     * @param options List of report options, starting with events or clients
      */
-    private static void sellTicketForEvent(Client client, Event event) throws IOException {
-        System.out.print("How many tickets would " + client.getFullName() + " like to buy for " +
-                event.getName() + "? ");
+    private static void writeReport(List<String> options) throws IOException {
+        String prefix = removeOption(options, "--prefix");
+        String offset = removeOption(options, "--offset");
+        String limit = removeOption(options, "--limit");
+        ReportRenderer.Query query = new ReportRenderer.Query(prefix,
+                offset == null ? 0 : Integer.parseInt(offset),
+                limit == null ? Integer.MAX_VALUE : Integer.parseInt(limit));
+        String reportFile = options.size() >= 2 ? options.get(1) : null;
+        ReportRenderer renderer = new ReportRenderer(reportFile == null
+                ? new OutputStreamWriter(System.out) : new FileWriter(reportFile));
+        long start = System.nanoTime();
+        int rows;
         try {
-            int response = input.nextInt();
-            input.nextLine();
-
-            if (response < 0) {
-                response = 0;
-            }
-
-            if (event.getTicketsRemaining() < response) {
-                System.out.println(NEWLINE + "There are only " + event.getTicketsRemaining() + " tickets remaining");
-                System.out.print("Would you like to enter a new value? (y)es/(n)o ");
-                char choiceResponse = input.nextLine().toLowerCase().charAt(0);
-
-                if (choiceResponse == 'y') {
-                    sellTicketForEvent(client, event);
-                } else {
-                    printMenu();
-                }
+            if (options.get(0).equals("clients")) {
+                rows = renderer.writeClientReport(clients, events, query);
             } else {
-                confirmTicketSale(client, event, response);
+                rows = renderer.writeEventReport(events, query);
             }
-        } catch (InputMismatchException e) {
-            System.out.println("Error: Positive whole number expected");
-            input.nextLine();
-            sellTicketForEvent(client, event);
+        } finally {
+            if (reportFile != null) renderer.close();
         }
+        System.out.println("Reported " + rows + " " + options.get(0) + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
     }
 
     /**
-     * The user is asked if the information is correct and if the user responds with yes, then the event and number of
-     * tickets is added to the record of the client. Additionally the number of tickets for the event in the events list
-     * is decremented by the number of tickets sold. If the customer already owns tickets for the event, the event is
-     * updated with the new total.
+     * Removes an option and its value from the arguments.
      *
-     * @param client Client to sell tickets to
-     * @param event Event tickets are for
-     * @param numberOfTickets Int number of tickets to sell
+     * @param arguments List of arguments
+     * @param name String option name, e.g. --prefix
+     * @return String value of the option, or null if it wasn't given
      */
-    private static void confirmTicketSale(Client client, Event event, int numberOfTickets) throws IOException {
-        System.out.println(NEWLINE + "You are about to sell " + numberOfTickets + " ticket(s) to "
-                + client.getFullName() + " for " + event.getName());
-        System.out.print("Is this information correct? (y)es/(n)o ");
-        char response = input.nextLine().toLowerCase().charAt(0);
-        if (response == 'y') {
-
-            if (!client.getEventsAttending().contains(event)) {
-                client.addEventToClient(event.getName(), numberOfTickets);
-                event.setTicketsRemaining(event.getTicketsRemaining() - numberOfTickets);
-                printMenu();
-            } else {
-                Event clientEvent = null;
-                for (Event e: client.getEventsAttending()) {
-                    if (e.equals(event)) {
-                        clientEvent = e;
-                    }
-                }
-                clientEvent.setTicketsRemaining(clientEvent.getTicketsRemaining() + numberOfTickets);
-                event.setTicketsRemaining(event.getTicketsRemaining() - numberOfTickets);
-                printMenu();
-            }
-
-
-
-
-        } else {
-            printMenu();
-        }
-    }
-
-    /**
-     * Asks the user which client would like to return tickets. The name is checked against the list of clients and if
-     * the client isn't found the user is asked if they would like to try again. If the client doesn't have any tickets
-     * for any event, the user is informed that there are no tickets to be found. If the client is found and has tickets
-     * to return, the user is shown which events the client is attending and how many tickets they have for each, the
-     * client object is then passed into the cancelTicketForClient method.
-     */
-    private static void cancelTicket() throws IOException {
-        System.out.print(NEWLINE + "Which client would like to return tickets? ");
-        String response = input.nextLine();
-        Client client = null;
-        for (Client c : clients) {
-            if (c.getFullName().equals(response)) {
-                client = c;
-            }
-        }
-        if (client == null) {
-            System.out.println("Cannot find that client");
-            System.out.print("Try again? (y)es/(n)o ");
-            char choiceResponse = input.nextLine().toLowerCase().charAt(0);
-            if (choiceResponse == 'y') {
-                cancelTicket();
-            } else {
-                printMenu();
-            }
-        }
-
-        if (client != null && client.getEventsAttending().isEmpty()) {
-            System.out.println("That client doesn't have any tickets to return.");
-            System.out.print("Choose a different client? (y)es/(n)o ");
-            char choiceResponse = input.nextLine().toLowerCase().charAt(0);
-            if (choiceResponse == 'y') {
-                cancelTicket();
-            } else {
-                printMenu();
-            }
-        }
-
-        if (client != null) {
-            System.out.println(NEWLINE + "The events that " + client.getFullName() + " has tickets for are:");
-            for (Event e : client.getEventsAttending()) {
-                System.out.printf("%-20s %-20s", e.getName(), "Tickets: " + e.getTicketsRemaining());
-                System.out.println("");
-            }
-            cancelTicketForClient(client);
-        }
+    private static String removeOption(List<String> arguments, String name) {
+        int index = arguments.indexOf(name);
+        if (index < 0 || index + 1 >= arguments.size()) return null;
+        String value = arguments.get(index + 1);
+        arguments.subList(index, index + 2).clear();
+        return value;
     }
 
     /**
-     * The user is asked which event the passed in client would like to return tickets for. The client's event list is
-     * then checked to verify they have tickets for that event. If the event isn't found the user is informed and asked
-     * if they would like to check for a different event. If the event is found then the client and found event are passed
-     * into the cancelTicketForEvent method.
+     * Runs a file of SELL and RETURN commands through the box office using a BatchProcessor.
      *
-     * @param client Client to return tickets
+     * @param commandFile String path of the command file
+     * @param resultsFile String path to write per-command results to, or null to write them to the console
      */
-    private static void cancelTicketForClient(Client client) throws IOException {
-        System.out.print(NEWLINE + "Which event would " + client.getFullName() + " like to return tickets for? ");
-        String response = input.nextLine();
-        Event event = null;
-        for (Event e : client.getEventsAttending()) {
-            if (e.getName().equals(response)) {
-                event = e;
-            }
-        }
-
-        if (event == null) {
-            System.out.println("Cannot find that event");
-            System.out.print("Try again? (y)es/(n)o ");
-            char choiceResponse = input.nextLine().toLowerCase().charAt(0);
-            if (choiceResponse == 'y') {
-                cancelTicketForClient(client);
-            } else {
-                printMenu();
-            }
+    private static void runBatch(String commandFile, String resultsFile) throws IOException {
+        Reader commands;
+        try {
+            commands = new BufferedReader(new FileReader(commandFile), 1 << 16);
+        } catch (FileNotFoundException e) {
+            System.out.println(NEWLINE + commandFile + " could not be found");
+            System.exit(1);
+            return;
         }
-
-        if (event != null) {
-            cancelTicketForEvent(client, event);
+        Writer results = new BufferedWriter(resultsFile == null
+                ? new OutputStreamWriter(System.out) : new FileWriter(resultsFile), 1 << 16);
+        BatchProcessor.Summary summary;
+        try {
+            summary = new BatchProcessor(boxOffice).run(commands, results);
+        } finally {
+            commands.close();
+            if (resultsFile != null) results.close();
         }
+        System.out.println(summary);
     }
 
     /**
-     * The user is informed how many tickets the client has for the selected event and then asked how many of the tickets
-     * the client would like to return. The number is checked against the number of tickets and if they are trying to
-     * return more tickets than they own the user is informed and asked if they would like to enter a new value. If the
-     * value is valid i.e. less than or equal to the number of owned tickets, then the client, event and number of tickets
-     * is passed into the confirmTicketCancel method. If a number lower than 0 is entered it is replaced with 0.
+     * Setup method which loads the events and clients. If a snapshot saved by an earlier run exists it is loaded, so
+     * tickets sold before the restart are kept. Otherwise the events and clients are loaded from the file named
+     * input.txt. The file will be written with a standard format so any file using this format should work. The first
+     * line gives the number of events, followed by a pair of lines for each event with the event name and number of
+     * tickets. The next line gives the number of clients, followed by a line for each client with the client's name.
+     * The file is read by a RosterLoader. Either way a line reporting how many records were loaded and how long it
+     * took is shown.
+     *
+     * Events named in the seating plan are then given seat maps, unless the snapshot already restored one with the
+     * seats sold. This is done before the journal is replayed, so that the sales and returns in it take and give
+     * back the seats they did before the restart.
+     *
+     * Any sales, returns and delta file additions made since the snapshot was saved are then replayed from the journal,
+     * and the journal is attached to the box office so that every change from now on is written to it. The delta file
+     * is read from the offset saved in the snapshot or the journal once the reloader starts.
      *
-     * @param client Client to return tickets
-     * @param event Event to return tickets for
+     * @param fresh boolean true to ignore any snapshot and journal and load input.txt
+     * @param seatingPlan Path of the seating plan, or null if no events are given seat maps
      */
-    private static void cancelTicketForEvent(Client client, Event event) throws IOException {
-        System.out.println(NEWLINE + client.getFullName() + " has " + event.getTicketsRemaining() + " tickets for "
-                + event.getName());
-        System.out.print("How many tickets would " + client.getFullName() + " like to return? ");
-        try {
-            int numberOfTickets = input.nextInt();
-            input.nextLine();
-
-            if (numberOfTickets < 0) {
-                numberOfTickets = 0;
-            }
-
-            if (numberOfTickets > event.getTicketsRemaining()) {
-                System.out.println(client.getFullName() + " doesn't have that many tickets to return");
-                System.out.print("Would you like to enter a new value (y)es/(n)o ");
-                char choiceResponse = input.nextLine().toLowerCase().charAt(0);
-
-                if (choiceResponse == 'y') {
-                    cancelTicketForEvent(client, event);
-                } else {
-                    printMenu();
-                }
-            } else if (numberOfTickets <= event.getTicketsRemaining()) {
-                confirmTicketCancel(client, event, numberOfTickets);
+    private static void setup(boolean fresh, Path seatingPlan) throws IOException {
+        long journalSequence = 0;
+        if (!fresh && Files.exists(SNAPSHOT_FILE)) {
+            System.out.println(SnapshotStore.load(SNAPSHOT_FILE, events, clients) + " from " + SNAPSHOT_FILE);
+            journalSequence = SnapshotStore.readJournalSequence(SNAPSHOT_FILE);
+            boxOffice.setRosterOffset(SnapshotStore.readRosterOffset(SNAPSHOT_FILE));
+        } else {
+            try {
+                System.out.println(RosterLoader.load(Paths.get("input.txt"), events, clients));
+            } catch (NoSuchFileException e) {
+                System.out.println(NEWLINE + "input.txt file is missing from InputOutput folder");
+                System.exit(1);
             }
-        } catch (InputMismatchException e) {
-            System.out.println(NEWLINE + "Error: Whole number expected" + NEWLINE);
-            input.nextLine();
-            cancelTicketForEvent(client, event);
         }
-    }
+        if (seatingPlan != null) {
+            System.out.println("Seat maps loaded for " + SeatMap.load(seatingPlan, events) + " events from "
+                    + seatingPlan);
+        }
 
-    /**
-     * The user is shown the client, event and number of tickets they are about to return and asked if the information
-     * is correct. If the user responds with yes then the number of tickets to return is checked against the number of
-     * tickets available to return. If the numbers are equal, the number of tickets for the event in the main events
-     * list is increased by the number returned tickets and the event is removed from the client's event list. If the
-     * number of tickets to return is less than the number of available tickets then the tickets in the customer event
-     * is reduced and the event in the main events list is increased.
-     *
-     * @param client Client to return tickets
-     * @param event Event tickets are to be returned for
-     * @param numberOfTickets int Number of tickets to return
-     */
-    private static void confirmTicketCancel(Client client, Event event, int numberOfTickets) throws IOException {
-        System.out.println(NEWLINE + "You are about to return " + numberOfTickets + " ticket(s) from "
-                + client.getFullName() + " for " + event.getName());
-        System.out.print("Is this information correct? (y)es/(n)o ");
-        char response = input.nextLine().toLowerCase().charAt(0);
-        if (response == 'y') {
-            if (numberOfTickets == event.getTicketsRemaining()) {
-                for (Event e : events) {
-                    if (e.equals(event)) {
-                        e.setTicketsRemaining(e.getTicketsRemaining() + numberOfTickets);
-                        client.removeEventFromClient(e);
-                    }
-                }
-            } else if (numberOfTickets < event.getTicketsRemaining()) {
-                for (Event e1 : events) {
-                    if (e1.equals(event)) {
-                        e1.setTicketsRemaining(e1.getTicketsRemaining() + numberOfTickets);
-                        for (Event e2 : client.getEventsAttending()) {
-                            if (e2.equals(event)) {
-                                e2.setTicketsRemaining(e2.getTicketsRemaining() - numberOfTickets);
-                            }
-                        }
-                    }
-                }
-            }
+        if (fresh) {
+            Files.deleteIfExists(JOURNAL_FILE);
         } else {
-            printMenu();
+            TransactionJournal.Replay replay = TransactionJournal.replay(JOURNAL_FILE, journalSequence, boxOffice);
+            if (replay.getApplied() > 0) System.out.println(replay);
+            journalSequence = replay.getLastSequence();
         }
-        printMenu();
+        boxOffice.setJournal(new TransactionJournal(JOURNAL_FILE, journalSequence));
+        boxOffice.getMetrics().reset();
     }
 
     /**
-     * Method to print a letter to file informing the client that there are no tickets remaining for the selected event.
-     * The file is generated as a .txt file with the naming convention of ClientLastNameClientFirstNameEventName.txt
-     * and is stored in a Letters folder within the InputOutput folder.
-     *
-     * @param client Client letter is addressed to
-     * @param event Event where no tickets are available
+     * Saves the current events, remaining tickets and client holdings to the snapshot file so they are loaded on the
+     * next start, and empties the journal.
      */
-    private static void noTicketsLetter(Client client, Event event) throws IOException {
-        PrintWriter output = new PrintWriter(new FileWriter("output.txt", true));
-
-        output.println(NEWLINE + "------------------------------------------------------");
-        output.println("Dear " + client.getFullName());
-        output.println(NEWLINE + "Unfortunately, no tickets remain for " + event.getName());
-        output.println(NEWLINE + "Regards,");
-        output.println("The Management");
-        output.println("------------------------------------------------------");
-
-        output.close();
+    private static void saveSnapshot() throws IOException {
+        long start = System.nanoTime();
+        boxOffice.checkpoint(SNAPSHOT_FILE);
+        System.out.println("Snapshot saved to " + SNAPSHOT_FILE + " in " + (System.nanoTime() - start) / 1_000_000
+                + " ms");
     }
 
-
-
     /**
-     * Asks user if they are certain they would like to quit the application and if they answer yes the application
-     * exits.
+     * Builds the menu of commands for a box office session. Each command runs to completion and returns to the menu
+     * loop, so a long session doesn't grow the call stack.
+     *
+     * @param boxOffice BoxOffice the commands sell and return tickets through
+     * @param snapshotFile Path the save and exit commands write the snapshot to
+     * @return CommandMenu menu for the session
      */
-    private static void exitProgram() throws IOException {
-        System.out.print(NEWLINE + "Are you sure you would like to quit? (y)es/(n)o ");
-        char selection = input.nextLine().toLowerCase().charAt(0);
-        if (selection == 'y') {
-            System.out.println("Goodbye!");
-            System.exit(0);
-        } else {
-            printMenu();
-        }
+    static CommandMenu createMenu(BoxOffice boxOffice, Path snapshotFile) {
+        Command saveSnapshot = new SaveSnapshotCommand(boxOffice, snapshotFile);
+        return new CommandMenu()
+                .add(new EventInfoCommand(boxOffice))
+                .add(new ClientInfoCommand(boxOffice))
+                .add(new AttendeesCommand(boxOffice))
+                .add(new AnalyticsCommand(boxOffice))
+                .add(new SellTicketsCommand(boxOffice))
+                .add(new SellBasketCommand(boxOffice))
+                .add(new ReturnTicketsCommand(boxOffice))
+                .add(saveSnapshot)
+                .addSeparator()
+                .add(new ExitCommand(saveSnapshot));
     }
-
-}
\ No newline at end of file
+}
@@ -2,7 +2,16 @@ import org.junit.runners.Suite;
 import org.junit.runner.RunWith;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({SortedArrayTest.class, EventTest.class, ClientTest.class})
+@Suite.SuiteClasses({SortedArrayTest.class, EventTest.class, ClientTest.class,
+        ClientRegistryTest.class, EventCatalogTest.class,
+        BoxOfficeTest.class, RosterLoaderTest.class,
+        SnapshotStoreTest.class, TransactionJournalTest.class,
+        LetterSpoolerTest.class, CommandMenuTest.class,
+        BoxOfficeServerTest.class, LatencyHistogramTest.class, MetricsTest.class,
+        ReportRendererTest.class, WaitlistTest.class,
+        SeatMapTest.class, ShardedEngineTest.class, RosterReloaderTest.class,
+        InventoryFileTest.class, NameIndexTest.class,
+        OnSaleSimulatorTest.class})
 public class AllTests {
 
 }
@@ -0,0 +1,97 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BoxOfficeServerTest {
+    private BoxOffice boxOffice;
+    private BoxOfficeServer server;
+    private Event tennis;
+    private File letters;
+
+    @Before
+    public void setup() throws IOException {
+        letters = File.createTempFile("letters", ".txt");
+        letters.delete();
+        EventCatalog events = new EventCatalog();
+        tennis = new Event("Tennis", 50);
+        events.add(tennis);
+        events.add(new Event("Equestrian Jumping", 50));
+
+        ClientRegistry clients = new ClientRegistry();
+        for (int i = 0; i < 20; i++) {
+            clients.add(new Client("Client", "Number" + i));
+        }
+        clients.add(new Client("Anna", "Smith"));
+
+        boxOffice = new BoxOffice(events, clients, letters.getPath());
+        server = new BoxOfficeServer(boxOffice, 0);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+        boxOffice.close();
+        letters.delete();
+    }
+
+    @Test
+    public void testSession() throws IOException {
+        try (Socket socket = new Socket(server.getAddress().getAddress(), server.getAddress().getPort())) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+
+            out.println("SELL Anna Smith Tennis 3");
+            assertEquals("SOLD Tickets sold", in.readLine());
+            out.println("return anna smith tennis 5");
+            assertEquals("NOT_ENOUGH_HELD Client doesn't have that many tickets to return", in.readLine());
+            out.println("DANCE");
+            assertEquals("BAD_COMMAND Command not recognised", in.readLine());
+
+            out.println("EVENTS");
+            assertEquals("Equestrian Jumping\t50", in.readLine());
+            assertEquals("Tennis\t47", in.readLine());
+            assertEquals("END", in.readLine());
+
+            out.println("QUIT");
+            assertEquals("BYE", in.readLine());
+            assertNull(in.readLine());
+        }
+        assertEquals(47, tennis.getTicketsRemaining());
+    }
+
+    @Test
+    public void testConcurrentSessions() throws Exception {
+        LoadGenerator.Result result = LoadGenerator.run(server.getAddress(), 40, 50);
+        assertEquals(2000, result.getRequests());
+        assertTrue(result.getPercentile(0.99) >= result.getPercentile(0.5));
+        assertEquals(50, tennis.getTicketsRemaining());
+        for (Client client : boxOffice.getClients()) {
+            assertEquals(0, client.getHoldingCount());
+        }
+    }
+
+    @Test
+    public void testConcurrentSessionsOnShards() throws Exception {
+        server.close();
+        server = new BoxOfficeServer(boxOffice, 0, 2);
+        LoadGenerator.Result result = LoadGenerator.run(server.getAddress(), 40, 50);
+        assertEquals(2000, result.getRequests());
+        assertEquals(50, tennis.getTicketsRemaining());
+        for (Client client : boxOffice.getClients()) {
+            assertEquals(0, client.getHoldingCount());
+        }
+    }
+}
@@ -0,0 +1,510 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BoxOfficeTest {
+    private BoxOffice boxOffice;
+    private Client anna;
+    private Event tennis;
+    private Event football;
+    private File letters;
+
+    @Before
+    public void setup() throws IOException {
+        letters = File.createTempFile("letters", ".txt");
+        letters.delete();
+        EventCatalog events = new EventCatalog();
+        tennis = new Event("Tennis", 8);
+        football = new Event("Football", 2);
+        events.add(tennis);
+        events.add(football);
+        events.add(new Event("Equestrian Jumping", 7));
+        events.add(new Event("Handball", 66));
+
+        ClientRegistry clients = new ClientRegistry();
+        anna = new Client("Anna", "Smith");
+        clients.add(anna);
+        clients.add(new Client("John", "Williams"));
+
+        boxOffice = new BoxOffice(events, clients, letters.getPath());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        boxOffice.close();
+        letters.delete();
+    }
+
+    @Test
+    public void testSellAndReturn() throws IOException {
+        assertEquals(TransactionResult.SOLD, boxOffice.sellTickets(anna, tennis, 3));
+        assertEquals(TransactionResult.SOLD, boxOffice.sellTickets(anna, tennis, 2));
+        assertEquals(3, tennis.getTicketsRemaining());
+        assertEquals(5, anna.getTicketsHeld(tennis));
+
+        assertEquals(TransactionResult.NOT_ENOUGH_HELD, boxOffice.returnTickets(anna, tennis, 6));
+        assertEquals(TransactionResult.RETURNED, boxOffice.returnTickets(anna, tennis, 5));
+        assertEquals(8, tennis.getTicketsRemaining());
+        assertEquals(0, anna.getTicketsHeld(tennis));
+    }
+
+    @Test
+    public void testRefusals() throws IOException {
+        assertEquals(TransactionResult.INVALID_QUANTITY, boxOffice.sellTickets(anna, tennis, 0));
+        assertEquals(TransactionResult.NOT_ENOUGH_TICKETS, boxOffice.sellTickets(anna, football, 3));
+        assertEquals(TransactionResult.SOLD, boxOffice.sellTickets(anna, football, 2));
+        assertEquals(TransactionResult.SOLD_OUT, boxOffice.sellTickets(anna, football, 1));
+        boxOffice.close();
+        assertTrue(letters.exists());
+    }
+
+    @Test
+    public void testEventLimit() throws IOException {
+        boxOffice.sellTickets(anna, tennis, 1);
+        boxOffice.sellTickets(anna, football, 1);
+        boxOffice.sellTickets(anna, boxOffice.getEvents().get("Handball"), 1);
+        assertEquals(TransactionResult.EVENT_LIMIT,
+                boxOffice.sellTickets(anna, boxOffice.getEvents().get("Equestrian Jumping"), 1));
+        assertEquals(TransactionResult.SOLD, boxOffice.sellTickets(anna, tennis, 1));
+    }
+
+    @Test
+    public void testBatch() throws IOException {
+        String commands = "# corporate package\n"
+                + "SELL Anna Smith Equestrian Jumping 2\n"
+                + "sell john williams tennis 8\n"
+                + "\n"
+                + "SELL Anna Smith Tennis 1\n"
+                + "RETURN John Williams Tennis 3\n"
+                + "SELL Terry Bridges Tennis 1\n"
+                + "SELL Anna Smith Rowing 1\n"
+                + "SELL Anna Smith Tennis lots\n"
+                + "BUY Anna Smith Tennis 1\n";
+        StringWriter results = new StringWriter();
+        BatchProcessor.Summary summary = new BatchProcessor(boxOffice).run(new StringReader(commands), results);
+
+        assertEquals(8, summary.getTotal());
+        assertEquals(2, summary.getCount(TransactionResult.SOLD));
+        assertEquals(1, summary.getCount(TransactionResult.SOLD_OUT));
+        assertEquals(1, summary.getCount(TransactionResult.RETURNED));
+        assertEquals(1, summary.getCount(TransactionResult.UNKNOWN_CLIENT));
+        assertEquals(1, summary.getCount(TransactionResult.UNKNOWN_EVENT));
+        assertEquals(1, summary.getCount(TransactionResult.INVALID_QUANTITY));
+        assertEquals(1, summary.getCount(TransactionResult.BAD_COMMAND));
+        assertEquals(5, boxOffice.getEvents().get("Equestrian Jumping").getTicketsRemaining());
+        assertEquals(3, tennis.getTicketsRemaining());
+        assertTrue(results.toString().startsWith("2\tSOLD\tSELL Anna Smith Equestrian Jumping 2"));
+    }
+
+    @Test
+    public void testAttendees() throws IOException {
+        Client john = boxOffice.getClients().get("John Williams");
+        john.addTickets(tennis, 1);
+        assertEquals("[John Williams - 1]", boxOffice.getAttendees(tennis).toString());
+
+        boxOffice.sellTickets(anna, tennis, 3);
+        boxOffice.sellTickets(john, tennis, 2);
+        boxOffice.sellTickets(anna, football, 1);
+        assertEquals("[Anna Smith - 3, John Williams - 3]", boxOffice.getAttendees(tennis).toString());
+        assertEquals("[Anna Smith - 1]", boxOffice.getAttendees(football).toString());
+
+        boxOffice.returnTickets(anna, tennis, 3);
+        boxOffice.returnTickets(john, tennis, 1);
+        assertEquals("[John Williams - 2]", boxOffice.getAttendees(tennis).toString());
+        assertTrue(boxOffice.getAttendees(boxOffice.getEvents().get("Handball")).isEmpty());
+
+        boxOffice.returnTickets(anna, football, 1);
+        assertTrue(boxOffice.getAttendees(football).isEmpty());
+        boxOffice.sellTickets(john, football, 2);
+        assertEquals("[John Williams - 2]", boxOffice.getAttendees(football).toString());
+    }
+
+    @Test
+    public void testAttendeesUnderLoad() throws Exception {
+        EventCatalog events = new EventCatalog();
+        Event rowing = new Event("Rowing", 1000);
+        events.add(rowing);
+        ClientRegistry clients = new ClientRegistry();
+        for (int i = 0; i < 8; i++) {
+            clients.add(new Client("Client" + i, "Jones"));
+        }
+        try (BoxOffice office = new BoxOffice(events, clients, letters.getPath())) {
+            office.getAttendees(rowing);
+            Thread[] desks = new Thread[8];
+            for (int d = 0; d < desks.length; d++) {
+                final Client client = clients.get("Client" + d + " Jones");
+                desks[d] = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 2000; i++) {
+                            office.sellTickets(client, rowing, 1);
+                            office.returnTickets(client, rowing, 1);
+                        }
+                        office.sellTickets(client, rowing, 2);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                desks[d].start();
+            }
+            for (Thread desk : desks) desk.join();
+            assertEquals(8, office.getAttendees(rowing).size());
+            for (AttendeeIndex.Attendee attendee : office.getAttendees(rowing)) {
+                assertEquals(2, attendee.getTickets());
+            }
+        }
+    }
+
+    @Test
+    public void testAnalytics() throws IOException {
+        Client john = boxOffice.getClients().get("John Williams");
+        boxOffice.sellTickets(anna, tennis, 3);
+        boxOffice.sellTickets(anna, football, 2);
+        boxOffice.sellTickets(john, tennis, 1);
+        boxOffice.sellTickets(john, football, 1);
+        boxOffice.sellTickets(anna, football, 1);
+
+        SalesAnalytics analytics = boxOffice.getAnalytics();
+        SalesAnalytics.EventSales tennisSales = analytics.getEvents().get(3);
+        assertEquals("Tennis", tennisSales.getName());
+        assertEquals(4, tennisSales.getSold());
+        assertEquals(4, tennisSales.getRemaining());
+        assertEquals(0.5, tennisSales.getSellThrough(), 1e-9);
+        assertEquals(1, analytics.getClientsHolding(1));
+        assertEquals(1, analytics.getClientsHolding(2));
+        assertEquals(0, analytics.getClientsHolding(0));
+
+        List<SalesAnalytics.EventSales> oversubscribed = analytics.getMostOversubscribed(3);
+        assertEquals(1, oversubscribed.size());
+        assertEquals("Football", oversubscribed.get(0).getName());
+        assertEquals(2, oversubscribed.get(0).getRefusals());
+        assertTrue(analytics.toString().contains("Football - 2 refused"));
+    }
+
+    @Test
+    public void testAnalyticsDuringSales() throws Exception {
+        EventCatalog events = new EventCatalog();
+        Event rowing = new Event("Rowing", 50);
+        events.add(rowing);
+        ClientRegistry clients = new ClientRegistry();
+        for (int i = 0; i < 4; i++) {
+            clients.add(new Client("Client" + i, "Jones"));
+        }
+        try (BoxOffice office = new BoxOffice(events, clients, letters.getPath())) {
+            Thread[] desks = new Thread[4];
+            for (int d = 0; d < desks.length; d++) {
+                final Client client = clients.get("Client" + d + " Jones");
+                desks[d] = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 2000; i++) {
+                            office.sellTickets(client, rowing, 5);
+                            office.returnTickets(client, rowing, 5);
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                desks[d].start();
+            }
+            for (int i = 0; i < 200; i++) {
+                SalesAnalytics analytics = office.getAnalytics();
+                SalesAnalytics.EventSales sales = analytics.getEvents().get(0);
+                // each client is seen holding all 5 of their tickets or none
+                assertEquals(0, sales.getSold() % 5);
+                assertEquals(sales.getSold() / 5, analytics.getClientsHolding(1));
+                assertEquals(4, analytics.getClientsHolding(0) + analytics.getClientsHolding(1));
+                assertTrue(sales.getRemaining() >= 30 && sales.getRemaining() <= 50);
+            }
+            for (Thread desk : desks) desk.join();
+            assertEquals(0, office.getAnalytics().getEvents().get(0).getSold());
+        }
+    }
+
+    @Test
+    public void testWaitlistAllocatesReturns() throws IOException {
+        Client john = boxOffice.getClients().get("John Williams");
+        assertEquals(TransactionResult.SOLD, boxOffice.sellTickets(anna, football, 2));
+        assertEquals(TransactionResult.WAITLISTED, boxOffice.joinWaitlist(john, football, 1));
+        assertEquals(TransactionResult.ALREADY_WAITLISTED, boxOffice.joinWaitlist(john, football, 2));
+        assertEquals(TransactionResult.INVALID_QUANTITY, boxOffice.joinWaitlist(john, tennis, 0));
+        assertEquals(1, boxOffice.getWaitlist(football).size());
+
+        assertEquals(TransactionResult.RETURNED, boxOffice.returnTickets(anna, football, 1));
+        assertEquals(1, john.getTicketsHeld(football));
+        assertEquals(0, football.getTicketsRemaining());
+        assertTrue(boxOffice.getWaitlist(football).isEmpty());
+        assertEquals(0, football.getRefusals());
+
+        boxOffice.close();
+        String text = new String(java.nio.file.Files.readAllBytes(letters.toPath()));
+        assertTrue(text.contains("Dear John Williams"));
+        assertTrue(text.contains("1 ticket(s) for Football have become available"));
+    }
+
+    @Test
+    public void testWaitlistRespectsEventLimit() throws IOException {
+        Client john = boxOffice.getClients().get("John Williams");
+        boxOffice.sellTickets(anna, football, 2);
+        boxOffice.joinWaitlist(john, football, 2);
+        boxOffice.sellTickets(john, tennis, 1);
+        boxOffice.sellTickets(john, boxOffice.getEvents().get("Handball"), 1);
+        boxOffice.sellTickets(john, boxOffice.getEvents().get("Equestrian Jumping"), 1);
+
+        boxOffice.returnTickets(anna, football, 2);
+        assertEquals(0, john.getTicketsHeld(football));
+        assertEquals(2, football.getTicketsRemaining());
+        assertTrue(boxOffice.getWaitlist(football).isEmpty());
+        boxOffice.close();
+        String text = new String(java.nio.file.Files.readAllBytes(letters.toPath()));
+        assertTrue(text.contains("your place on the waitlist has been cancelled"));
+    }
+
+    @Test
+    public void testWaitlistUnderConcurrentReturns() throws Exception {
+        EventCatalog events = new EventCatalog();
+        Event rowing = new Event("Rowing", 400);
+        events.add(rowing);
+        ClientRegistry clients = new ClientRegistry();
+        for (int i = 0; i < 8; i++) {
+            clients.add(new Client("Desk" + i, "Jones"));
+        }
+        for (int i = 0; i < 100; i++) {
+            clients.add(new Client("Waiting" + i, "Smith"));
+        }
+        try (BoxOffice office = new BoxOffice(events, clients, letters.getPath())) {
+            for (int d = 0; d < 8; d++) {
+                office.sellTickets(clients.get("Desk" + d + " Jones"), rowing, 50);
+            }
+            for (int i = 0; i < 100; i++) {
+                office.joinWaitlist(clients.get("Waiting" + i + " Smith"), rowing, 2);
+            }
+            Thread[] desks = new Thread[8];
+            for (int d = 0; d < desks.length; d++) {
+                final Client client = clients.get("Desk" + d + " Jones");
+                desks[d] = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 50; i++) {
+                            office.returnTickets(client, rowing, 1);
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                desks[d].start();
+            }
+            for (Thread desk : desks) desk.join();
+            assertTrue(office.getWaitlist(rowing).isEmpty());
+            assertEquals(200, rowing.getTicketsRemaining());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(2, clients.get("Waiting" + i + " Smith").getTicketsHeld(rowing));
+            }
+        }
+    }
+
+    @Test
+    public void testWaitlistStaysInOrderUnderConcurrentReturns() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            EventCatalog events = new EventCatalog();
+            Event rowing = new Event("Rowing", 240);
+            events.add(rowing);
+            ClientRegistry clients = new ClientRegistry();
+            for (int i = 0; i < 8; i++) {
+                clients.add(new Client("Desk" + i, "Jones"));
+            }
+            for (int i = 0; i < 100; i++) {
+                clients.add(new Client("Waiting" + i, "Smith"));
+            }
+            try (BoxOffice office = new BoxOffice(events, clients, letters.getPath())) {
+                for (int d = 0; d < 8; d++) {
+                    office.sellTickets(clients.get("Desk" + d + " Jones"), rowing, 30);
+                }
+                for (int i = 0; i < 100; i++) {
+                    office.joinWaitlist(clients.get("Waiting" + i + " Smith"), rowing, i % 3 + 1);
+                }
+                Thread[] desks = new Thread[8];
+                for (int d = 0; d < desks.length; d++) {
+                    final Client client = clients.get("Desk" + d + " Jones");
+                    desks[d] = new Thread(() -> {
+                        try {
+                            for (int i = 0; i < 15; i++) {
+                                office.returnTickets(client, rowing, 1);
+                            }
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    });
+                    desks[d].start();
+                }
+                for (Thread desk : desks) desk.join();
+
+                int served = 0;
+                while (served < 100 && clients.get("Waiting" + served + " Smith").getTicketsHeld(rowing) > 0) {
+                    served++;
+                }
+                int allocated = 0;
+                for (int i = 0; i < 100; i++) {
+                    int held = clients.get("Waiting" + i + " Smith").getTicketsHeld(rowing);
+                    assertEquals("Waiting" + i + " in round " + round, i < served ? i % 3 + 1 : 0, held);
+                    allocated += held;
+                }
+                assertEquals(120, allocated + rowing.getTicketsRemaining());
+                assertEquals(100 - served, office.getWaitlist(rowing).size());
+                assertTrue(rowing.getTicketsRemaining() < served % 3 + 1);
+            }
+        }
+    }
+
+    @Test
+    public void testSeatedSales() throws IOException {
+        tennis.setSeatMap(new SeatMap(java.util.Arrays.asList(new SeatMap.Section("Court", 2, 4))));
+        Client john = boxOffice.getClients().get("John Williams");
+        assertEquals(TransactionResult.SOLD, boxOffice.sellTickets(anna, tennis, 2));
+        assertEquals(TransactionResult.SOLD, boxOffice.sellTickets(john, tennis, 4));
+        SeatMap seats = tennis.getSeatMap();
+        assertEquals("Court Row 1 Seats 2-3", seats.describe(seats.getSeatsHeldBy(anna)));
+        assertEquals("Court Row 2 Seats 1-4", seats.describe(seats.getSeatsHeldBy(john)));
+
+        assertEquals(TransactionResult.SEATS_NOT_HELD, boxOffice.returnSeats(anna, tennis, new int[]{4}));
+        assertEquals(TransactionResult.RETURNED, boxOffice.returnSeats(john, tennis, new int[]{4, 5}));
+        assertEquals(2, john.getTicketsHeld(tennis));
+        assertEquals(4, tennis.getTicketsRemaining());
+        assertEquals(TransactionResult.RETURNED, boxOffice.returnTickets(anna, tennis, 1));
+        assertEquals("Court Row 1 Seat 2", seats.describe(seats.getSeatsHeldBy(anna)));
+        assertEquals(tennis.getTicketsRemaining(), seats.getFree());
+        assertEquals(TransactionResult.SEATS_NOT_HELD, boxOffice.returnSeats(anna, football, new int[]{0}));
+    }
+
+    @Test
+    public void testSeatsBatch() throws IOException {
+        tennis.setSeatMap(new SeatMap(java.util.Arrays.asList(new SeatMap.Section("Court", 2, 4))));
+        Client john = boxOffice.getClients().get("John Williams");
+        boxOffice.sellTickets(anna, tennis, 2);
+        boxOffice.sellTickets(john, tennis, 4);
+        String commands = "SEATS Anna Smith, Tennis, 2\n"
+                + "SEATS John Williams, Tennis, 5 9\n"
+                + "SEATS John Williams, Tennis, five\n"
+                + "SEATS John Williams, Tennis\n"
+                + "SEATS John Williams, Football, 1\n";
+        StringWriter results = new StringWriter();
+        BatchProcessor.Summary summary = new BatchProcessor(boxOffice).run(new StringReader(commands), results);
+        assertEquals(1, summary.getCount(TransactionResult.RETURNED));
+        assertEquals(2, summary.getCount(TransactionResult.SEATS_NOT_HELD));
+        assertEquals(1, summary.getCount(TransactionResult.INVALID_QUANTITY));
+        assertEquals(1, summary.getCount(TransactionResult.BAD_COMMAND));
+
+        try (ShardedEngine engine = new ShardedEngine(boxOffice, 2, 16)) {
+            assertEquals(TransactionResult.RETURNED,
+                    new BatchProcessor(boxOffice, engine).execute("SEATS John Williams, Tennis, 5 6"));
+        }
+        SeatMap seats = tennis.getSeatMap();
+        assertEquals("Court Row 1 Seat 3", seats.describe(seats.getSeatsHeldBy(anna)));
+        assertEquals("Court Row 2 Seats 3-4", seats.describe(seats.getSeatsHeldBy(john)));
+        assertEquals(2, john.getTicketsHeld(tennis));
+        assertEquals(tennis.getTicketsRemaining(), seats.getFree());
+    }
+
+    @Test
+    public void testBasketAllOrNothing() throws IOException {
+        Event handball = boxOffice.getEvents().get("Handball");
+        assertEquals(TransactionResult.INVALID_QUANTITY, boxOffice.sellBasket(anna, new Basket()));
+        assertEquals(TransactionResult.INVALID_QUANTITY,
+                boxOffice.sellBasket(anna, new Basket().add(tennis, 1).add(football, 0)));
+
+        assertEquals(TransactionResult.NOT_ENOUGH_TICKETS,
+                boxOffice.sellBasket(anna, new Basket().add(handball, 5).add(tennis, 2).add(football, 3)));
+        assertEquals(66, handball.getTicketsRemaining());
+        assertEquals(8, tennis.getTicketsRemaining());
+        assertEquals(0, anna.getHoldingCount());
+
+        Basket basket = new Basket().add(tennis, 2).add(football, 2).add(tennis, 1);
+        assertEquals(2, basket.size());
+        assertEquals(TransactionResult.SOLD, boxOffice.sellBasket(anna, basket));
+        assertEquals(3, anna.getTicketsHeld(tennis));
+        assertEquals(2, anna.getTicketsHeld(football));
+        assertEquals(5, tennis.getTicketsRemaining());
+
+        Event jumping = boxOffice.getEvents().get("Equestrian Jumping");
+        assertEquals(TransactionResult.EVENT_LIMIT,
+                boxOffice.sellBasket(anna, new Basket().add(jumping, 1).add(handball, 1)));
+        assertEquals(TransactionResult.SOLD,
+                boxOffice.sellBasket(anna, new Basket().add(jumping, 1).add(tennis, 1)));
+        assertEquals(3, anna.getHoldingCount());
+        assertEquals(6, jumping.getTicketsRemaining());
+        assertEquals(66, handball.getTicketsRemaining());
+
+        Client john = boxOffice.getClients().get("John Williams");
+        assertEquals(TransactionResult.SOLD_OUT, boxOffice.sellBasket(john, new Basket().add(tennis, 1)
+                .add(football, 1)));
+        assertEquals(4, tennis.getTicketsRemaining());
+        assertEquals(1, football.getRefusals());
+    }
+
+    @Test
+    public void testBasketBatch() throws IOException {
+        String commands = "BASKET Anna Smith, Tennis 2, Football 1\n"
+                + "BASKET John Williams, Football 1, Handball 70\n"
+                + "BASKET John Williams, Football\n"
+                + "BASKET Nobody, Tennis 1\n"
+                + "BASKET John Williams\n";
+        StringWriter results = new StringWriter();
+        BatchProcessor.Summary summary = new BatchProcessor(boxOffice).run(new StringReader(commands), results);
+
+        assertEquals(1, summary.getCount(TransactionResult.SOLD));
+        assertEquals(1, summary.getCount(TransactionResult.NOT_ENOUGH_TICKETS));
+        assertEquals(1, summary.getCount(TransactionResult.UNKNOWN_CLIENT));
+        assertEquals(2, summary.getCount(TransactionResult.BAD_COMMAND));
+        assertEquals(6, tennis.getTicketsRemaining());
+        assertEquals(1, football.getTicketsRemaining());
+    }
+
+    @Test
+    public void testConcurrentBasketsSellAllOrNothing() throws Exception {
+        EventCatalog events = new EventCatalog();
+        Event rowing = new Event("Rowing", 20);
+        Event sailing = new Event("Sailing", 20);
+        events.add(rowing);
+        events.add(sailing);
+        ClientRegistry clients = new ClientRegistry();
+        for (int i = 0; i < 50; i++) {
+            clients.add(new Client("Buyer" + i, "Jones"));
+        }
+        try (BoxOffice office = new BoxOffice(events, clients, letters.getPath())) {
+            java.util.concurrent.CountDownLatch start = new java.util.concurrent.CountDownLatch(1);
+            Thread[] desks = new Thread[50];
+            for (int d = 0; d < desks.length; d++) {
+                final Client client = clients.get("Buyer" + d + " Jones");
+                final Basket basket = d % 2 == 0
+                        ? new Basket().add(rowing, 1).add(sailing, 1) : new Basket().add(sailing, 1).add(rowing, 1);
+                desks[d] = new Thread(() -> {
+                    try {
+                        start.await();
+                        office.sellBasket(client, basket);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                desks[d].start();
+            }
+            start.countDown();
+            for (Thread desk : desks) desk.join();
+
+            assertEquals(0, rowing.getTicketsRemaining());
+            assertEquals(0, sailing.getTicketsRemaining());
+            int buyers = 0;
+            for (Client client : clients) {
+                assertEquals(client.getTicketsHeld(rowing), client.getTicketsHeld(sailing));
+                buyers += client.getTicketsHeld(rowing);
+            }
+            assertEquals(20, buyers);
+        }
+    }
+}
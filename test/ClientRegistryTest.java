@@ -0,0 +1,87 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ClientRegistryTest {
+    private ClientRegistry registry;
+    private Client anna;
+    private Client terry;
+
+    @Before
+    public void setup() {
+        registry = new ClientRegistry();
+        anna = new Client("Anna", "Smith");
+        terry = new Client("Terry", "Bridges");
+        registry.add(anna);
+        registry.add(terry);
+    }
+
+    @Test
+    public void testLookup() {
+        assertSame(anna, registry.get("Anna Smith"));
+        assertSame(terry, registry.get("  terry   BRIDGES "));
+        assertNull(registry.get("Charlie Smith"));
+    }
+
+    @Test
+    public void testDuplicateName() {
+        assertFalse(registry.add(new Client("Anna", "Smith")));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testSortedView() {
+        registry.addAll(Arrays.asList(new Client("Charlie", "Smith"), new Client("Emma", "Adams")));
+        assertEquals("[Emma Adams, Terry Bridges, Anna Smith, Charlie Smith]",
+                registry.getSortedClients().toString());
+        assertSame(registry.get("Emma Adams"), registry.getSortedClients().get(0));
+    }
+
+    @Test
+    public void testRemove() {
+        assertTrue(registry.remove(anna));
+        assertNull(registry.get("Anna Smith"));
+        assertEquals("[Terry Bridges]", registry.getSortedClients().toString());
+        assertFalse(registry.remove(anna));
+    }
+
+    @Test
+    public void testSuggest() {
+        assertEquals("[Anna Smith]", registry.suggest("Ana Smith", 5).toString());
+        registry.add(new Client("Annie", "Smith"));
+        assertEquals("[Anna Smith, Annie Smith]", registry.suggest("ann", 5).toString());
+        registry.merge(Arrays.asList(new Client("Anna", "Smyth")));
+        assertEquals("[Anna Smith, Anna Smyth]", registry.suggest("Anna Smth", 5).toString());
+        registry.remove(anna);
+        assertEquals("[Anna Smyth, Annie Smith]", registry.suggest("Anna Smith", 5).toString());
+    }
+
+    @Test
+    public void testManySmallMerges() {
+        List<Client> expected = new ArrayList<>(registry.getSortedClients());
+        for (int i = 0; i < 500; i++) {
+            Client client = new Client("First" + i, "Last" + (i % 37));
+            assertEquals(1, registry.merge(Arrays.asList(client, new Client("Anna", "Smith"))));
+            expected.add(client);
+            assertSame(client, registry.get("First" + i + " Last" + (i % 37)));
+            assertEquals(0, registry.merge(Arrays.asList(new Client("First" + i, "Last" + (i % 37)))));
+        }
+        assertSame(anna, registry.get("Anna Smith"));
+        assertEquals(expected.size(), registry.size());
+        expected.sort(null);
+        assertEquals(expected, registry.getSortedClients());
+        assertEquals("[First123 Last12]", registry.complete("first123 ", 5).toString());
+        assertTrue(registry.remove(anna));
+        assertNull(registry.get("Anna Smith"));
+        assertEquals(expected.size() - 1, registry.size());
+    }
+}
@@ -2,6 +2,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class ClientTest {
@@ -9,6 +10,11 @@ public class ClientTest {
     private Client terry;
     private Client charlie;
     private Client anna2;
+    private EventCatalog events;
+    private Event football;
+    private Event athletics;
+    private Event tennis;
+    private Event handball;
 
     @Before
     public void setup() {
@@ -17,8 +23,18 @@ public class ClientTest {
         charlie = new Client("Charlie", "Smith");
         anna2 = new Client("Anna", "Smith");
 
-        anna.addEventToClient("Football", 2);
-        anna.addEventToClient("Athletics", 4);
+        events = new EventCatalog();
+        football = new Event("Football", 100);
+        athletics = new Event("Athletics", 100);
+        tennis = new Event("Tennis", 100);
+        handball = new Event("Handball", 100);
+        events.add(football);
+        events.add(athletics);
+        events.add(tennis);
+        events.add(handball);
+
+        anna.addTickets(football, 2);
+        anna.addTickets(athletics, 4);
     }
 
     @Test
@@ -31,6 +47,7 @@ public class ClientTest {
     @Test
     public void testToString() {
         assertEquals("Terry Bridges", terry.toString());
+        assertEquals("Anna Smith [Athletics - 4, Football - 2]", anna.toString(events));
         assertEquals("Anna Smith [Athletics - 4, Football - 2]", anna.toString());
     }
 
@@ -43,9 +60,33 @@ public class ClientTest {
 
     @Test
     public void testEventsList() {
-        assertEquals("Football - 2", anna.getEventsAttending().get(1).toString());
-        assertEquals("Athletics - 4", anna.getEventsAttending().get(0).toString());
+        assertEquals("Football - 2", anna.getEventsAttending(events).get(1).toString());
+        assertEquals("Athletics - 4", anna.getEventsAttending(events).get(0).toString());
+        assertEquals(2, anna.getHoldingCount());
+        assertEquals(0, anna.getHoldingEventId(0));
+        assertEquals(2, anna.getHoldingTickets(0));
     }
 
+    @Test
+    public void testAddAndRemoveTickets() {
+        assertTrue(anna.addTickets(football, 3));
+        assertEquals(5, anna.getTicketsHeld(football));
+        assertTrue(anna.addTickets(tennis, 1));
+        assertFalse(anna.addTickets(handball, 1));
+        assertTrue(anna.addTickets(tennis, 1));
+
+        assertFalse(anna.removeTickets(football, 6));
+        assertTrue(anna.removeTickets(football, 5));
+        assertEquals(0, anna.getTicketsHeld(football));
+        assertEquals("Anna Smith [Athletics - 4, Tennis - 2]", anna.toString(events));
+        assertFalse(anna.removeTickets(handball, 1));
 
+        anna.removeEventFromClient(tennis);
+        assertEquals("Anna Smith [Athletics - 4]", anna.toString(events));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEventNotInCatalog() {
+        terry.addTickets(new Event("Diving", 10), 1);
+    }
 }
@@ -0,0 +1,168 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CommandMenuTest {
+    private BoxOffice boxOffice;
+    private Client anna;
+    private Event tennis;
+    private File letters;
+    private File snapshot;
+    private ByteArrayOutputStream output;
+
+    @Before
+    public void setup() throws IOException {
+        letters = File.createTempFile("letters", ".txt");
+        letters.delete();
+        snapshot = File.createTempFile("championship", ".snapshot");
+        snapshot.delete();
+        EventCatalog events = new EventCatalog();
+        tennis = new Event("Tennis", 8);
+        events.add(tennis);
+        events.add(new Event("Football", 0));
+
+        ClientRegistry clients = new ClientRegistry();
+        anna = new Client("Anna", "Smith");
+        clients.add(anna);
+
+        boxOffice = new BoxOffice(events, clients, letters.getPath());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        boxOffice.close();
+        letters.delete();
+        snapshot.delete();
+    }
+
+    private void runSession(String input) throws IOException {
+        output = new ByteArrayOutputStream();
+        Terminal terminal = new Terminal(new StringReader(input), new PrintStream(output, true));
+        WorldSportsChampionship.createMenu(boxOffice, snapshot.toPath()).run(terminal);
+    }
+
+    @Test
+    public void testSellAndReturn() throws IOException {
+        runSession("b\nAnna Smith\nTennis\nthree\n3\ny\n"
+                + "r\nAnna Smith\nTennis\n1\ny\n");
+        assertEquals(6, tennis.getTicketsRemaining());
+        assertEquals(2, anna.getTicketsHeld(tennis));
+        assertTrue(output.toString().contains("Error: Positive whole number expected"));
+    }
+
+    @Test
+    public void testRetriesStayInCommand() throws IOException {
+        runSession("b\nNobody\ny\nAnna Smith\nFootball\nn\ny\nTennis\n9\ny\n8\ny\n");
+        assertEquals(0, tennis.getTicketsRemaining());
+        String text = output.toString();
+        assertTrue(text.contains("Cannot find that client"));
+        assertFalse(text.contains("Did you mean"));
+        assertTrue(text.contains("No more tickets available for Football"));
+        assertTrue(text.contains("There are only 8 tickets remaining"));
+    }
+
+    @Test
+    public void testSuggestsSimilarNames() throws IOException {
+        runSession("b\nAna Smith\ny\nAnna Smith\nTenis\nn\na\nfoot\nn\n");
+        String text = output.toString();
+        assertTrue(text.contains("Did you mean Anna Smith?"));
+        assertTrue(text.contains("Did you mean Tennis?"));
+        assertTrue(text.contains("Did you mean Football?"));
+    }
+
+    @Test
+    public void testDecliningReturnsToMenu() throws IOException {
+        runSession("b\nAnna Smith\nTennis\n2\nn\nr\nAnna Smith\n");
+        assertEquals(8, tennis.getTicketsRemaining());
+        assertEquals(0, anna.getTicketsHeld(tennis));
+        assertTrue(output.toString().contains("That client doesn't have any tickets to return."));
+    }
+
+    @Test
+    public void testExitSavesSnapshot() throws IOException {
+        runSession("f\nn\nb\nAnna Smith\nTennis\n1\ny\nf\ny\ne\n");
+        assertTrue(snapshot.exists());
+        String text = output.toString();
+        assertTrue(text.endsWith("Goodbye!" + Terminal.NEWLINE));
+        assertFalse(text.contains("ALL EVENT INFORMATION"));
+    }
+
+    @Test
+    public void testJoinWaitlistWhenSoldOut() throws IOException {
+        runSession("b\nAnna Smith\nFootball\ny\n2\n");
+        Event football = boxOffice.getEvents().get("Football");
+        assertEquals("[Anna Smith - 2]", boxOffice.getWaitlist(football).toString());
+        assertTrue(output.toString().contains("Anna Smith is on the waitlist for Football, position 1"));
+    }
+
+    @Test
+    public void testListingsFilterByPrefix() throws IOException {
+        runSession("e\nten\nc\n\n");
+        String text = output.toString();
+        assertTrue(text.contains("Event: Tennis"));
+        assertFalse(text.contains("Event: Football"));
+        assertTrue(text.contains("Client Name: Anna Smith"));
+    }
+
+    @Test
+    public void testLongSessionDoesNotGrowStack() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            input.append("b\nAnna Smith\nTennis\n1\ny\nr\nAnna Smith\nTennis\n1\ny\nx\n\n");
+        }
+        runSession(input.toString());
+        assertEquals(8, tennis.getTicketsRemaining());
+        assertEquals(0, anna.getTicketsHeld(tennis));
+    }
+
+    @Test
+    public void testReturnSeats() throws IOException {
+        tennis.setSeatMap(new SeatMap(java.util.Arrays.asList(new SeatMap.Section("Court", 2, 4))));
+        runSession("b\nAnna Smith\nTennis\n3\ny\n"
+                + "r\nAnna Smith\nTennis\n3 4\ny\n1, 2\ny\n"
+                + "r\nAnna Smith\nTennis\n\n1\ny\n");
+        String text = output.toString();
+        assertTrue(text.contains("2        Court Row 1 Seat 2"));
+        assertTrue(text.contains("3        Court Row 1 Seat 3"));
+        assertTrue(text.contains("Anna Smith doesn't hold those seats"));
+        assertTrue(text.contains("You are about to return Court Row 1 Seats 1-2 from Anna Smith for Tennis"));
+        assertEquals(0, anna.getTicketsHeld(tennis));
+        assertEquals(8, tennis.getTicketsRemaining());
+        assertEquals(8, tennis.getSeatMap().getFree());
+    }
+
+    @Test
+    public void testSoldOutRefusalIsCounted() throws IOException {
+        Event football = boxOffice.getEvents().get("Football");
+        runSession("b\nAnna Smith\nFootball\nn\nn\n");
+        assertTrue(output.toString().contains("No more tickets available for Football"));
+        assertEquals(1, football.getRefusals());
+        assertEquals(1, boxOffice.getMetrics().getSoldOutRefusals());
+        assertEquals("Football", boxOffice.getAnalytics().getMostOversubscribed(1).get(0).getName());
+    }
+
+    @Test
+    public void testSellBasket() throws IOException {
+        boxOffice.getEvents().add(new Event("Rowing", 5));
+        runSession("k\nAnna Smith\nTennis\n2\nFootball\n1\n\ny\n"
+                + "k\nAnna Smith\nRowing\n3\nDiving\nTennis\n1\n\ny\n");
+        String text = output.toString();
+        assertTrue(text.contains("Sorry, only 0 tickets remain for Football"));
+        assertTrue(text.contains("Cannot find that event"));
+        assertTrue(text.contains("Tickets sold for every event in the basket"));
+        assertEquals(7, tennis.getTicketsRemaining());
+        assertEquals(1, anna.getTicketsHeld(tennis));
+        assertEquals(3, anna.getTicketsHeld(boxOffice.getEvents().get("Rowing")));
+    }
+}
@@ -0,0 +1,71 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class EventCatalogTest {
+    private EventCatalog catalog;
+    private Event tennis;
+    private Event athletics;
+
+    @Before
+    public void setup() {
+        catalog = new EventCatalog();
+        tennis = new Event("Tennis", 8);
+        athletics = new Event("Athletics", 4);
+        catalog.add(tennis);
+        catalog.add(athletics);
+    }
+
+    @Test
+    public void testIds() {
+        assertEquals(0, tennis.getId());
+        assertEquals(1, athletics.getId());
+        assertSame(athletics, catalog.get(1));
+        assertNull(catalog.get(2));
+        assertNull(catalog.get(-1));
+    }
+
+    @Test
+    public void testLookupByName() {
+        assertSame(tennis, catalog.get("Tennis"));
+        assertSame(athletics, catalog.get(" athletics "));
+        assertNull(catalog.get("Rowing"));
+    }
+
+    @Test
+    public void testDuplicateName() {
+        Event duplicate = new Event("Tennis", 20);
+        assertFalse(catalog.add(duplicate));
+        assertEquals(-1, duplicate.getId());
+        assertEquals(2, catalog.size());
+    }
+
+    @Test
+    public void testAddAll() {
+        Event football = new Event("Football", 2);
+        Event handball = new Event("Handball", 66);
+        assertEquals(2, catalog.addAll(Arrays.asList(handball, football, new Event("Tennis", 1))));
+        assertEquals(2, handball.getId());
+        assertEquals(3, football.getId());
+        assertEquals("[Athletics - 4, Football - 2, Handball - 66, Tennis - 8]",
+                catalog.getSortedEvents().toString());
+    }
+
+    @Test
+    public void testMerge() {
+        java.util.List<Event> before = catalog.getSortedEvents();
+        Event rowing = new Event("Rowing", 12);
+        assertEquals(1, catalog.merge(Arrays.asList(rowing, new Event("tennis", 3))));
+        assertEquals(2, rowing.getId());
+        assertSame(rowing, catalog.get(2));
+        assertSame(rowing, catalog.get("ROWING"));
+        assertEquals("[Athletics - 4, Rowing - 12, Tennis - 8]", catalog.getSortedEvents().toString());
+        assertEquals("[Athletics - 4, Tennis - 8]", before.toString());
+    }
+}
@@ -1,6 +1,10 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -37,4 +41,34 @@ public class EventTest {
         assertEquals(0, volleyball.compareTo(volleyball2));
     }
 
+    @Test
+    public void testTryReserve() {
+        assertEquals(80, football.tryReserve(3));
+        assertEquals(80, ~football.tryReserve(81));
+        assertEquals(0, football.tryReserve(80));
+        assertEquals(0, ~football.tryReserve(1));
+        assertEquals(5, football.release(5));
+        assertEquals(5, football.getTicketsRemaining());
+    }
+
+    @Test
+    public void testConcurrentReserveNeverOversells() throws InterruptedException {
+        final Event event = new Event("Handball", 1000);
+        final AtomicInteger sold = new AtomicInteger();
+        List<Thread> desks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread desk = new Thread(() -> {
+                for (int j = 0; j < 500; j++) {
+                    if (event.tryReserve(1) >= 0) sold.incrementAndGet();
+                }
+            });
+            desks.add(desk);
+            desk.start();
+        }
+        for (Thread desk : desks) desk.join();
+
+        assertEquals(1000, sold.get());
+        assertEquals(0, event.getTicketsRemaining());
+    }
+
 }
@@ -0,0 +1,168 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class InventoryFileTest {
+    private Path file;
+    private final List<InventoryFile> opened = new ArrayList<>();
+
+    @Before
+    public void setup() throws IOException {
+        file = Files.createTempFile("championship", ".inv");
+        Files.delete(file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (InventoryFile inventory : opened) {
+            inventory.close();
+        }
+        Files.deleteIfExists(file);
+    }
+
+    private InventoryFile open() throws IOException {
+        InventoryFile inventory = InventoryFile.open(file, 16);
+        opened.add(inventory);
+        return inventory;
+    }
+
+    @Test
+    public void testTwoMappingsShareCounts() throws IOException {
+        Event first = new Event("Tennis", 10);
+        Event second = new Event("tennis ", 99);
+        assertEquals(1, open().attach(Collections.singletonList(first)));
+        assertEquals(0, open().attach(Collections.singletonList(second)));
+        assertEquals(10, second.getTicketsRemaining());
+
+        assertEquals(6, first.tryReserve(4));
+        assertEquals(6, second.getTicketsRemaining());
+        second.release(1);
+        assertEquals(7, first.getTicketsRemaining());
+        assertEquals(~7, second.tryReserve(8));
+        second.recordRefusal();
+        assertEquals(1, first.getRefusals());
+    }
+
+    @Test
+    public void testConcurrentSalesNeverOversell() throws Exception {
+        Event[] copies = new Event[4];
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = new Event("Swimming", 1000);
+            open().attach(Collections.singletonList(copies[i]));
+        }
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> desks = new ArrayList<>();
+        for (Event copy : copies) {
+            Thread desk = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (copy.tryReserve(3) >= 0) {
+                    sold.addAndGet(3);
+                }
+            });
+            desks.add(desk);
+            desk.start();
+        }
+        start.countDown();
+        for (Thread desk : desks) {
+            desk.join();
+        }
+        assertEquals(999, sold.get());
+        assertEquals(1, copies[0].getTicketsRemaining());
+    }
+
+    @Test
+    public void testCountsSurviveReopening() throws IOException {
+        Event rowing = new Event("Rowing", 50);
+        InventoryFile inventory = open();
+        inventory.attach(Collections.singletonList(rowing));
+        assertEquals(30, rowing.tryReserve(20));
+        inventory.close();
+        opened.remove(inventory);
+
+        Event restarted = new Event("Rowing", 50);
+        Event diving = new Event("Diving", 12);
+        assertEquals(1, open().attach(Arrays.asList(restarted, diving)));
+        assertEquals(30, restarted.getTicketsRemaining());
+        assertEquals(12, diving.getTicketsRemaining());
+        assertEquals("Rowing - 30", restarted.toString());
+    }
+
+    @Test
+    public void testSeatMapsCantBeShared() throws IOException {
+        Event seated = new Event("Gymnastics", 4);
+        seated.setSeatMap(new SeatMap(Collections.singletonList(new SeatMap.Section("Front", 2, 2))));
+        try {
+            open().attach(Collections.singletonList(seated));
+            fail("Expected the seated event to be refused");
+        } catch (IOException e) {
+            assertEquals("Gymnastics has numbered seats, which can't be shared", e.getMessage());
+        }
+
+        Event shared = new Event("Cycling", 4);
+        open().attach(Collections.singletonList(shared));
+        try {
+            shared.setSeatMap(new SeatMap(Collections.singletonList(new SeatMap.Section("Front", 2, 2))));
+            fail("Expected the seat map to be refused");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Events in a shared inventory can't have seat maps", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Files.write(file, "EVENT Tennis 10\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            open();
+            fail("Expected the file to be refused");
+        } catch (IOException e) {
+            assertEquals(file + " is not an inventory file", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testReplayThenAttachKeepsOtherProcessesSales() throws IOException {
+        Event elsewhere = new Event("Tennis", 0);
+        open().attach(Collections.singletonList(elsewhere));
+        elsewhere.release(1);
+        assertEquals(0, elsewhere.tryReserve(1));
+        Path journalFile = Files.createTempFile("championship", ".journal");
+        try {
+            try (TransactionJournal journal = new TransactionJournal(journalFile, 0)) {
+                journal.append(TransactionJournal.SELL, "Anna Smith", "Tennis", 1);
+            }
+
+            EventCatalog events = new EventCatalog();
+            Event tennis = new Event("Tennis", 0);
+            events.add(tennis);
+            ClientRegistry clients = new ClientRegistry();
+            Client anna = new Client("Anna", "Smith");
+            clients.add(anna);
+            BoxOffice restarted = new BoxOffice(events, clients, file.resolveSibling("letters.txt").toString());
+            assertEquals(1, TransactionJournal.replay(journalFile, 0, restarted).getApplied());
+            assertEquals(0, open().attach(events));
+            assertEquals(0, tennis.getTicketsRemaining());
+            assertEquals(1, anna.getTicketsHeld(tennis));
+        } finally {
+            Files.delete(journalFile);
+        }
+    }
+}
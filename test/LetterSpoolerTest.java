@@ -0,0 +1,118 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LetterSpoolerTest {
+    private static final String NEWLINE = System.getProperty("line.separator");
+    private Path dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("letters");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testSingleFile() throws IOException {
+        Path output = dir.resolve("output.txt");
+        LetterSpooler spooler = new LetterSpooler(output, false, 16);
+        spooler.sendNoTicketsLetter(new Client("Anna", "Smith"), new Event("Football", 0));
+        spooler.close();
+
+        String expected = NEWLINE + "------------------------------------------------------" + NEWLINE
+                + "Dear Anna Smith" + NEWLINE
+                + NEWLINE + "Unfortunately, no tickets remain for Football" + NEWLINE
+                + NEWLINE + "Regards," + NEWLINE
+                + "The Management" + NEWLINE
+                + "------------------------------------------------------" + NEWLINE;
+        assertEquals(expected, new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+        assertEquals(1, spooler.getLettersWritten());
+    }
+
+    @Test
+    public void testFilePerClientUnderBackpressure() throws Exception {
+        final LetterSpooler spooler = new LetterSpooler(dir.resolve("letters"), true, 4);
+        final Event football = new Event("Football", 0);
+        List<Thread> desks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final Client client = new Client("Client" + i, "Smith");
+            Thread desk = new Thread(() -> {
+                try {
+                    for (int j = 0; j < 250; j++) {
+                        spooler.sendNoTicketsLetter(client, football);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            desks.add(desk);
+            desk.start();
+        }
+        for (Thread desk : desks) desk.join();
+        spooler.close();
+
+        assertEquals(1000, spooler.getLettersWritten());
+        Path letter = dir.resolve("letters").resolve("SmithClient2.txt");
+        assertTrue(Files.exists(letter));
+        String text = new String(Files.readAllBytes(letter), StandardCharsets.UTF_8);
+        assertEquals(250, text.split("Dear Client2 Smith", -1).length - 1);
+    }
+
+    @Test
+    public void testCloseWhileSending() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            final LetterSpooler spooler = new LetterSpooler(dir.resolve("output" + round + ".txt"), false, 2);
+            final Client anna = new Client("Anna", "Smith");
+            final Event football = new Event("Football", 0);
+            final AtomicInteger accepted = new AtomicInteger();
+            List<Thread> desks = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Thread desk = new Thread(() -> {
+                    try {
+                        while (true) {
+                            spooler.sendNoTicketsLetter(anna, football);
+                            accepted.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        assertEquals("Letter spooler is closed", e.getMessage());
+                    }
+                });
+                desks.add(desk);
+                desk.start();
+            }
+            Thread.sleep(2);
+            spooler.close();
+            for (Thread desk : desks) {
+                desk.join(10000);
+                assertFalse(desk.isAlive());
+            }
+            assertEquals(accepted.get(), spooler.getLettersWritten());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testSendAfterClose() throws IOException {
+        LetterSpooler spooler = new LetterSpooler(dir.resolve("output.txt"), false, 16);
+        spooler.close();
+        spooler.sendNoTicketsLetter(new Client("Anna", "Smith"), new Event("Football", 0));
+    }
+}
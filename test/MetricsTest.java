@@ -0,0 +1,114 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+    private BoxOffice boxOffice;
+    private Client anna;
+    private Event tennis;
+    private Event football;
+    private File letters;
+
+    @Before
+    public void setup() throws IOException {
+        letters = File.createTempFile("letters", ".txt");
+        letters.delete();
+        EventCatalog events = new EventCatalog();
+        tennis = new Event("Tennis", 8);
+        football = new Event("Football", 0);
+        events.add(tennis);
+        events.add(football);
+        events.add(new Event("Handball", 5));
+        events.add(new Event("Rowing", 5));
+
+        ClientRegistry clients = new ClientRegistry();
+        anna = new Client("Anna", "Smith");
+        clients.add(anna);
+
+        boxOffice = new BoxOffice(events, clients, letters.getPath());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        boxOffice.close();
+        letters.delete();
+    }
+
+    @Test
+    public void testCounters() throws IOException {
+        boxOffice.sellTickets(anna, tennis, 3);
+        boxOffice.sellTickets(anna, football, 1);
+        boxOffice.sellTickets(anna, boxOffice.findEvent("handball"), 1);
+        boxOffice.sellTickets(anna, boxOffice.findEvent("rowing"), 1);
+        boxOffice.sellTickets(anna, tennis, 9);
+        boxOffice.returnTickets(anna, tennis, 2);
+        boxOffice.findClient("Nobody");
+
+        Metrics metrics = boxOffice.getMetrics();
+        assertEquals(5, metrics.getTicketsSold());
+        assertEquals(2, metrics.getTicketsReturned());
+        assertEquals(3, metrics.getSales());
+        assertEquals(1, metrics.getReturns());
+        assertEquals(1, metrics.getSoldOutRefusals());
+        assertEquals(1, metrics.getNotEnoughTicketsRefusals());
+        assertEquals(0, metrics.getEventLimitRefusals());
+        assertEquals(5, metrics.getSellLatency().getCount());
+        assertEquals(1, metrics.getReturnLatency().getCount());
+        assertEquals(1, metrics.getLetterLatency().getCount());
+        assertEquals(3, metrics.getLookupLatency().getCount());
+
+        metrics.reset();
+        assertEquals(0, metrics.getTicketsSold());
+        assertEquals(0, metrics.getSellLatency().getCount());
+    }
+
+    @Test
+    public void testEventLimit() throws IOException {
+        boxOffice.sellTickets(anna, tennis, 1);
+        boxOffice.sellTickets(anna, boxOffice.findEvent("Handball"), 1);
+        boxOffice.sellTickets(anna, boxOffice.findEvent("Rowing"), 1);
+        Client john = new Client("John", "Williams");
+        john.addTickets(football, 1);
+        john.addTickets(boxOffice.findEvent("Handball"), 1);
+        john.addTickets(boxOffice.findEvent("Rowing"), 1);
+        assertEquals(TransactionResult.EVENT_LIMIT, boxOffice.sellTickets(john, tennis, 1));
+        assertEquals(1, boxOffice.getMetrics().getEventLimitRefusals());
+    }
+
+    @Test
+    public void testDumps() throws Exception {
+        boxOffice.sellTickets(anna, tennis, 2);
+        Metrics metrics = boxOffice.getMetrics();
+        String json = metrics.getJson();
+        assertTrue(json.startsWith("{\"ticketsSold\":2,"));
+        assertTrue(json.contains("\"SOLD\":1"));
+        assertTrue(json.contains("\"sell\":{\"count\":1,"));
+        assertTrue(metrics.toText().contains("Tickets sold: 2"));
+
+        File file = File.createTempFile("metrics", ".json");
+        try {
+            new MetricsReporter(metrics, file.toPath(), 3600).close();
+            assertEquals(json, new String(Files.readAllBytes(file.toPath())).trim());
+        } finally {
+            file.delete();
+        }
+
+        ObjectName name = metrics.register("test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(2L, server.getAttribute(name, "TicketsSold"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NameIndexTest {
+    private NameIndex<String> index;
+
+    @Before
+    public void setup() {
+        Map<String, String> names = new HashMap<>();
+        for (String name : new String[] {"Anna Smith", "Anne Smith", "Ann Smyth", "Terry Bridges", "Tennis",
+                "Table Tennis", "Ten Pin Bowling", "Swimming", "Rowing", "Sailing"}) {
+            names.put(Names.normalize(name), name);
+        }
+        index = new NameIndex<>(names);
+    }
+
+    @Test
+    public void testComplete() {
+        assertEquals("[Ann Smyth, Anna Smith, Anne Smith]", index.complete("ann", 10).toString());
+        assertEquals("[Ten Pin Bowling, Tennis]", index.complete("  TEN", 10).toString());
+        assertEquals("[Ann Smyth, Anna Smith]", index.complete("A", 2).toString());
+        assertEquals("[]", index.complete("Zorro", 10).toString());
+        assertEquals(10, index.complete("", 20).size());
+    }
+
+    @Test
+    public void testSimilar() {
+        assertEquals("[Tennis]", index.similar("Tenis", 1, 10).toString());
+        assertEquals("[Anna Smith, Ann Smyth, Anne Smith]", index.similar("Ana Smith", 2, 10).toString());
+        assertEquals("[Rowing]", index.similar("Roing", 2, 10).toString());
+        assertEquals("[Anna Smith]", index.similar("Ana Smith", 2, 1).toString());
+        assertEquals("[]", index.similar("Cycling", 2, 10).toString());
+    }
+
+    @Test
+    public void testSuggest() {
+        assertEquals("[Anna Smith]", index.suggest("Anna", 5).toString());
+        assertEquals("[Tennis]", index.suggest("Tenis", 5).toString());
+        assertEquals("[Terry Bridges]", index.suggest("terry bridge", 5).toString());
+        assertEquals("[]", index.suggest("", 5).toString());
+    }
+
+    @Test
+    public void testWith() {
+        Map<String, String> first = new HashMap<>();
+        Map<String, String> second = new HashMap<>();
+        for (String name : new String[] {"Tennis", "Rowing", "Table Tennis"}) {
+            first.put(Names.normalize(name), name);
+        }
+        for (String name : new String[] {"Ten Pin Bowling", "Sailing", "Anna Smith"}) {
+            second.put(Names.normalize(name), name);
+        }
+        NameIndex<String> original = new NameIndex<>(first);
+        NameIndex<String> merged = original.with(second);
+        assertEquals(3, original.size());
+        assertEquals(6, merged.size());
+        assertEquals("[Tennis]", original.complete("ten", 10).toString());
+        assertEquals("[Ten Pin Bowling, Tennis]", merged.complete("ten", 10).toString());
+        assertEquals("[Sailing]", merged.suggest("Sailng", 5).toString());
+        assertEquals("[Rowing]", merged.similar("Roing", 2, 10).toString());
+        assertEquals("[Anna Smith, Rowing, Sailing, Table Tennis, Ten Pin Bowling, Tennis]",
+                merged.complete("", 10).toString());
+        assertEquals(merged, merged.with(new HashMap<>()));
+    }
+
+    @Test
+    public void testLargeIndex() {
+        Map<String, String> names = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            String name = "Client" + i + " Smith";
+            names.put(Names.normalize(name), name);
+        }
+        NameIndex<String> large = new NameIndex<>(names);
+        assertEquals("[Client4242 Smith, Client42420 Smith, Client42421 Smith]",
+                large.complete("client4242", 3).toString());
+        assertEquals("Client4242 Smith", large.similar("Client4242 Smit", 1, 1).get(0));
+    }
+
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int length = 3 + random.nextInt(10);
+        for (int i = 0; i < length; i++) {
+            name.append("abcde ".charAt(random.nextInt(6)));
+        }
+        return Names.normalize(name.toString());
+    }
+
+    private static int editDistance(String a, String b) {
+        int[][] table = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    table[i][j] = i + j;
+                } else {
+                    table[i][j] = Math.min(table[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1),
+                            Math.min(table[i - 1][j], table[i][j - 1]) + 1);
+                }
+            }
+        }
+        return table[a.length()][b.length()];
+    }
+
+    @Test
+    public void testSimilarFindsEveryCloseName() {
+        Random random = new Random(7);
+        Map<String, String> names = new HashMap<>();
+        while (names.size() < 3000) {
+            String name = randomName(random);
+            if (!name.isEmpty()) names.put(name, name);
+        }
+        NameIndex<String> built = new NameIndex<>(names);
+        List<String> all = new ArrayList<>(names.keySet());
+        for (int query = 0; query < 300; query++) {
+            String name = query % 2 == 0 ? randomName(random) : all.get(random.nextInt(all.size())) + "x";
+            for (int maxEdits = 0; maxEdits <= 2; maxEdits++) {
+                final int edits = maxEdits;
+                List<String> expected = new ArrayList<>();
+                for (String candidate : all) {
+                    if (editDistance(name, candidate) <= edits) expected.add(candidate);
+                }
+                expected.sort(Comparator.comparingInt((String c) -> editDistance(name, c))
+                        .thenComparing(Comparator.naturalOrder()));
+                assertEquals(name + " within " + edits, expected, built.similar(name, edits, all.size()));
+            }
+        }
+    }
+
+    @Test
+    public void testSmallBatchesKeepFewSegments() {
+        Map<String, String> names = new HashMap<>();
+        NameIndex<String> growing = new NameIndex<>();
+        for (int i = 0; i < 1000; i++) {
+            String name = "Client" + i + " Smith";
+            Map<String, String> batch = new HashMap<>();
+            batch.put(Names.normalize(name), name);
+            names.putAll(batch);
+            growing = growing.with(batch);
+        }
+        NameIndex<String> built = new NameIndex<>(names);
+        assertEquals(1000, growing.size());
+        assertTrue(growing.getSegmentCount() <= 10);
+        assertEquals(built.complete("client1", 20), growing.complete("client1", 20));
+        assertEquals(built.similar("Client42 Smyth", 2, 20), growing.similar("Client42 Smyth", 2, 20));
+        assertEquals(built.suggest("Clint7 Smith", 5), growing.suggest("Clint7 Smith", 5));
+    }
+}
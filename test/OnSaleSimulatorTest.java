@@ -0,0 +1,85 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OnSaleSimulatorTest {
+    private Path dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("onsale");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testRosterLoads() throws IOException {
+        Path roster = dir.resolve("input.txt");
+        OnSaleSimulator.writeRoster(roster, 3, 5, 20);
+        EventCatalog events = new EventCatalog();
+        ClientRegistry clients = new ClientRegistry();
+        RosterLoader.load(roster, events, clients);
+        assertEquals(3, events.size());
+        assertEquals(20, events.get("Event 3").getTicketsRemaining());
+        assertEquals("Buyer5", clients.get("Buyer5 Rush").getFirstName());
+    }
+
+    @Test
+    public void testPopularityIsSkewed() {
+        double[] popularity = OnSaleSimulator.popularity(4, 1.0);
+        assertEquals(1.0, popularity[3], 1e-9);
+        assertEquals(0.48, popularity[0], 0.001);
+        assertEquals(0, OnSaleSimulator.pick(popularity, 0.0));
+        assertEquals(1, OnSaleSimulator.pick(popularity, 0.5));
+        assertEquals(3, OnSaleSimulator.pick(popularity, 0.99));
+        assertEquals(0.25, OnSaleSimulator.popularity(4, 0)[0], 1e-9);
+    }
+
+    @Test
+    public void testRushKeepsInvariants() throws Exception {
+        OnSaleSimulator.Scenario scenario = new OnSaleSimulator.Scenario(20, 300, 40, 8, 500, 1.2, 7);
+        OnSaleSimulator.Result result = OnSaleSimulator.run(scenario, dir);
+        assertTrue(result.toString(), result.passed());
+        assertEquals(8 * 500, result.getRequests());
+        assertTrue(result.getCount(TransactionResult.SOLD) > 0);
+        assertTrue(result.getCount(TransactionResult.SOLD_OUT) > 0);
+        assertTrue(result.getCount(TransactionResult.EVENT_LIMIT) > 0);
+        assertTrue(result.getCount(TransactionResult.RETURNED) > 0);
+        assertEquals(result.getCount(TransactionResult.SOLD_OUT),
+                Files.readAllLines(dir.resolve("output.txt")).stream().filter(line -> line.startsWith("Dear")).count());
+    }
+
+    @Test
+    public void testCheckFindsLostTickets() {
+        Event tennis = new Event("Tennis", 10);
+        EventCatalog events = new EventCatalog();
+        events.add(tennis);
+        Client anna = new Client("Anna", "Smith");
+        anna.addTickets(tennis, 3);
+        tennis.tryReserve(4);
+        List<Event> eventList = new ArrayList<>(events.getSortedEvents());
+        List<Client> clientList = new ArrayList<>();
+        clientList.add(anna);
+
+        OnSaleSimulator.Result result = new OnSaleSimulator.Result(new OnSaleSimulator.Scenario());
+        OnSaleSimulator.check(eventList, clientList, 10, result);
+        assertEquals("[Tennis has 6 remaining and 3 held from a supply of 10]", result.getViolations().toString());
+    }
+}
@@ -0,0 +1,103 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReportRendererTest {
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    private EventCatalog events;
+    private ClientRegistry clients;
+
+    @Before
+    public void setup() {
+        events = new EventCatalog();
+        events.add(new Event("Tennis", 8));
+        events.add(new Event("Table Tennis", 5));
+        events.add(new Event("Football", 0));
+        events.add(new Event("Synchronised Swimming Freestyle Final", 1234));
+
+        clients = new ClientRegistry();
+        Client anna = new Client("Anna", "Smith");
+        anna.addTickets(events.get("Tennis"), 3);
+        anna.addTickets(events.get("Football"), 2);
+        clients.add(anna);
+        clients.add(new Client("Tom", "Jones"));
+        clients.add(new Client("Sam", "Tanner"));
+    }
+
+    @Test
+    public void testEventRowsMatchFormat() throws IOException {
+        StringWriter out = new StringWriter();
+        int rows = new ReportRenderer(out).writeEventReport(events, ReportRenderer.Query.all());
+        assertEquals(4, rows);
+
+        StringBuilder expected = new StringBuilder();
+        expected.append(NEWLINE).append("                 ALL EVENT INFORMATION                ").append(NEWLINE);
+        expected.append(ReportRenderer.RULE).append(NEWLINE);
+        for (Event e : events) {
+            expected.append(String.format("%-30.30s  %-30.30s%n",
+                    "Event: " + e.getName(), "Available Tickets: " + e.getTicketsRemaining()));
+        }
+        expected.append(ReportRenderer.RULE).append(NEWLINE).append(NEWLINE);
+        assertEquals(expected.toString(), out.toString());
+    }
+
+    @Test
+    public void testClientRows() throws IOException {
+        StringWriter out = new StringWriter();
+        new ReportRenderer(out).writeClientReport(clients, events, ReportRenderer.Query.all());
+        String text = out.toString();
+        assertTrue(text.contains("Client Name: Anna Smith" + NEWLINE
+                + "\tEvents Attending: [Football - 2, Tennis - 3]" + NEWLINE));
+        assertTrue(text.contains("Client Name: Tom Jones" + NEWLINE
+                + "\tEvents Attending: No Tickets Bought Yet" + NEWLINE));
+        assertTrue(text.indexOf("Tom Jones") < text.indexOf("Anna Smith"));
+    }
+
+    @Test
+    public void testPrefixOffsetAndLimit() throws IOException {
+        StringWriter out = new StringWriter();
+        assertEquals(2, new ReportRenderer(out).writeEventReport(events, new ReportRenderer.Query("t", 0, 10)));
+        assertTrue(out.toString().contains("Event: Table Tennis"));
+        assertFalse(out.toString().contains("Football"));
+
+        out = new StringWriter();
+        assertEquals(1, new ReportRenderer(out).writeEventReport(events, new ReportRenderer.Query(null, 1, 1)));
+        assertTrue(out.toString().contains("Event: Synchronised"));
+
+        out = new StringWriter();
+        assertEquals(1, new ReportRenderer(out).writeClientReport(clients, events,
+                new ReportRenderer.Query("smi", 0, Integer.MAX_VALUE)));
+        assertTrue(out.toString().contains("Anna Smith"));
+        assertEquals(1, new ReportRenderer(new StringWriter()).writeClientReport(clients, events,
+                new ReportRenderer.Query("Sam T", 0, Integer.MAX_VALUE)));
+        assertEquals(0, new ReportRenderer(new StringWriter()).writeEventReport(events,
+                new ReportRenderer.Query("Rugby", 0, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPagingStopsWhenAsked() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            clients.add(new Client("Client" + i, "Number" + i));
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Terminal terminal = new Terminal(new StringReader("\nq\n"), new PrintStream(output, true));
+        StringWriter out = new StringWriter();
+        ReportRenderer renderer = new ReportRenderer(out);
+        ReportRenderer.Query query = ReportRenderer.Query.all();
+        int rows = renderer.writePages(query.select(clients, query::matches),
+                (r, client) -> r.client(client, events), 20, terminal);
+        renderer.flush();
+        assertEquals(40, rows);
+        assertTrue(output.toString().contains("-- 40 shown"));
+    }
+}
@@ -0,0 +1,73 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class RosterLoaderTest {
+    private Path roster;
+    private EventCatalog events;
+    private ClientRegistry clients;
+
+    @Before
+    public void setup() throws IOException {
+        roster = Files.createTempFile("roster", ".txt");
+        events = new EventCatalog();
+        clients = new ClientRegistry();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(roster);
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        Files.write(roster, ("3\r\nTennis\r\n8\r\nEquestrian Jumping\r\n 7 \r\nAthletics\r\n4\r\n"
+                + "4\r\nEmma Williams\r\nMary Ann  Smith\r\nZo\u00eb M\u00fcller\r\nCher").getBytes(StandardCharsets.UTF_8));
+
+        RosterLoader.Stats stats = RosterLoader.load(roster, events, clients);
+
+        assertEquals(3, stats.getEvents());
+        assertEquals(4, stats.getClients());
+        assertEquals("[Athletics - 4, Equestrian Jumping - 7, Tennis - 8]", events.getSortedEvents().toString());
+        assertEquals(7, events.get("Equestrian Jumping").getTicketsRemaining());
+        assertEquals("Smith", clients.get("Mary Ann Smith").getLastName());
+        assertEquals("Mary Ann", clients.get("Mary Ann Smith").getFirstName());
+        assertNotNull(clients.get("Zo\u00eb M\u00fcller"));
+        assertEquals("Cher", clients.get("Cher").getFullName());
+    }
+
+    @Test
+    public void testLoadLargeRoster() throws IOException {
+        StringBuilder text = new StringBuilder("1\nFootball\n100000\n50000\n");
+        for (int i = 0; i < 50000; i++) {
+            text.append("Client").append(i).append(" Surname").append(49999 - i).append('\n');
+        }
+        Files.write(roster, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        RosterLoader.Stats stats = RosterLoader.load(roster, events, clients);
+
+        assertEquals(50000, stats.getClients());
+        assertEquals("Client49999 Surname0", clients.getSortedClients().get(0).getFullName());
+        assertNotNull(clients.get("Client123 Surname49876"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testBadCount() throws IOException {
+        Files.write(roster, "2\nTennis\neight\n".getBytes(StandardCharsets.UTF_8));
+        RosterLoader.load(roster, events, clients);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        Files.write(roster, "2\nTennis\n8\n".getBytes(StandardCharsets.UTF_8));
+        RosterLoader.load(roster, events, clients);
+    }
+}
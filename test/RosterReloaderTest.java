@@ -0,0 +1,204 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RosterReloaderTest {
+    private Path dir;
+    private Path deltaFile;
+    private Path snapshotFile;
+    private Path journalFile;
+    private BoxOffice boxOffice;
+    private Event tennis;
+    private Client anna;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("roster");
+        deltaFile = dir.resolve("delta.txt");
+        snapshotFile = dir.resolve("championship.snapshot");
+        journalFile = dir.resolve("championship.journal");
+        EventCatalog events = new EventCatalog();
+        tennis = new Event("Tennis", 2);
+        events.add(tennis);
+        ClientRegistry clients = new ClientRegistry();
+        anna = new Client("Anna", "Smith");
+        clients.add(anna);
+        boxOffice = new BoxOffice(events, clients, dir.resolve("letters.txt").toString());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        boxOffice.close();
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private void append(String text) throws IOException {
+        Files.write(deltaFile, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    @Test
+    public void testAppliesOnlyNewLines() throws IOException {
+        RosterReloader reloader = new RosterReloader(boxOffice, deltaFile);
+        assertTrue(reloader.applyPending().isEmpty());
+
+        append("# late additions\nEVENT Rowing 40\nCLIENT Mary Ann Jones\nEVENT tennis 3\nEVENT Rowing 10\n"
+                + "DANCE\nEVENT Sailing none\nCLIENT Anna Smith\nCLIENT Ben");
+        RosterReloader.Change change = reloader.applyPending();
+        assertEquals(1, change.getEvents());
+        assertEquals(3, change.getTickets());
+        assertEquals(1, change.getClients());
+        assertEquals(2, change.getRejected().size());
+        assertTrue(change.getRejected().get(0).startsWith("Line 6: "));
+        assertEquals(50, boxOffice.getEvents().get("Rowing").getTicketsRemaining());
+        assertEquals(1, boxOffice.getEvents().get("Rowing").getId());
+        assertEquals(5, tennis.getTicketsRemaining());
+        assertEquals("Mary Ann", boxOffice.getClients().get("Mary Ann Jones").getFirstName());
+        assertNull(boxOffice.getClients().get("Ben"));
+
+        assertEquals(Files.size(deltaFile) - "CLIENT Ben".length(), boxOffice.getRosterOffset());
+
+        append("\nEVENT Rowing 5\n");
+        change = reloader.applyPending();
+        assertEquals(1, change.getClients());
+        assertEquals(5, change.getTickets());
+        assertNotNull(boxOffice.getClients().get("Ben"));
+        assertEquals(55, boxOffice.getEvents().get("Rowing").getTicketsRemaining());
+        assertEquals(Files.size(deltaFile), boxOffice.getRosterOffset());
+        assertTrue(reloader.applyPending().isEmpty());
+    }
+
+    @Test
+    public void testRestartAppliesEachLineOnce() throws IOException {
+        boxOffice.setJournal(new TransactionJournal(journalFile, 0));
+        RosterReloader reloader = new RosterReloader(boxOffice, deltaFile);
+        append("EVENT Rowing 40\nEVENT Tennis 3\nCLIENT Li Wei\n");
+        reloader.applyPending();
+        Client li = boxOffice.getClients().get("Li Wei");
+        assertEquals(TransactionResult.SOLD, boxOffice.sellTickets(li, boxOffice.getEvents().get("Rowing"), 2));
+        boxOffice.checkpoint(snapshotFile);
+        append("EVENT Tennis 1\nEVENT Diving 8\n");
+        reloader.applyPending();
+
+        EventCatalog events = new EventCatalog();
+        ClientRegistry clients = new ClientRegistry();
+        SnapshotStore.load(snapshotFile, events, clients);
+        BoxOffice restarted = new BoxOffice(events, clients, dir.resolve("letters.txt").toString());
+        try {
+            restarted.setRosterOffset(SnapshotStore.readRosterOffset(snapshotFile));
+            TransactionJournal.replay(journalFile, SnapshotStore.readJournalSequence(snapshotFile), restarted);
+            RosterReloader restartedReloader = new RosterReloader(restarted, deltaFile);
+            assertTrue(restartedReloader.applyPending().isEmpty());
+            assertEquals(6, events.get("Tennis").getTicketsRemaining());
+            assertEquals(38, events.get("Rowing").getTicketsRemaining());
+            assertEquals(8, events.get("Diving").getTicketsRemaining());
+            assertEquals(2, clients.get("Li Wei").getTicketsHeld(events.get("Rowing")));
+
+            append("EVENT Diving 2\nDANCE\n");
+            RosterReloader.Change change = restartedReloader.applyPending();
+            assertEquals(2, change.getTickets());
+            assertEquals("Line 7: expected EVENT or CLIENT but found \"DANCE\"", change.getRejected().get(0));
+            assertEquals(10, events.get("Diving").getTicketsRemaining());
+        } finally {
+            restarted.close();
+        }
+    }
+
+    @Test
+    public void testTornBatchIsAppliedAgain() throws IOException {
+        boxOffice.setJournal(new TransactionJournal(journalFile, 0));
+        append("EVENT Rowing 40\nCLIENT Li Wei\n");
+        new RosterReloader(boxOffice, deltaFile).applyPending();
+        boxOffice.close();
+        try (RandomAccessFile journal = new RandomAccessFile(journalFile.toFile(), "rw")) {
+            journal.setLength(journal.length() - 4);
+        }
+
+        EventCatalog events = new EventCatalog();
+        events.add(new Event("Tennis", 2));
+        ClientRegistry clients = new ClientRegistry();
+        boxOffice = new BoxOffice(events, clients, dir.resolve("letters.txt").toString());
+        assertEquals(0, TransactionJournal.replay(journalFile, 0, boxOffice).getApplied());
+        assertEquals(0, Files.size(journalFile));
+        assertNull(events.get("Rowing"));
+
+        RosterReloader.Change change = new RosterReloader(boxOffice, deltaFile).applyPending();
+        assertEquals(1, change.getEvents());
+        assertEquals(1, change.getClients());
+        assertEquals(40, events.get("Rowing").getTicketsRemaining());
+    }
+
+    @Test
+    public void testExtraTicketsGoToWaitlist() throws IOException {
+        Client john = new Client("John", "Williams");
+        boxOffice.getClients().add(john);
+        assertEquals(TransactionResult.SOLD, boxOffice.sellTickets(anna, tennis, 2));
+        assertEquals(TransactionResult.WAITLISTED, boxOffice.joinWaitlist(john, tennis, 3));
+
+        append("EVENT Tennis 4\n");
+        new RosterReloader(boxOffice, deltaFile).applyPending();
+        assertEquals(3, john.getTicketsHeld(tennis));
+        assertEquals(1, tennis.getTicketsRemaining());
+    }
+
+    @Test
+    public void testWatchesDeltaFile() throws Exception {
+        try (RosterReloader reloader = new RosterReloader(boxOffice, deltaFile)) {
+            reloader.start();
+            append("EVENT Diving 12\nCLIENT Li Wei\n");
+            long deadline = System.currentTimeMillis() + 20_000;
+            while (boxOffice.getClients().get("Li Wei") == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        }
+        assertNotNull(boxOffice.getClients().get("Li Wei"));
+        assertEquals(12, boxOffice.getEvents().get("Diving").getTicketsRemaining());
+    }
+
+    @Test
+    public void testReadersSeeWholeBatches() throws Exception {
+        ClientRegistry clients = boxOffice.getClients();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (clients.size() < 5001 && failure.get() == null) {
+                List<Client> listing = clients.getSortedClients();
+                if (listing.size() % 100 != 1) failure.set("Saw " + listing.size() + " clients");
+                for (int i = 1; i < listing.size(); i++) {
+                    if (listing.get(i - 1).compareTo(listing.get(i)) > 0) failure.set("Listing out of order");
+                }
+            }
+        });
+        reader.start();
+        for (int batch = 0; batch < 50; batch++) {
+            List<Client> late = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                late.add(new Client("Late" + i, "Batch" + batch));
+            }
+            assertEquals(100, clients.merge(late));
+        }
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(5001, clients.size());
+        assertNotNull(clients.get("Late7 Batch42"));
+    }
+}
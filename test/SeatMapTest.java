@@ -0,0 +1,136 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SeatMapTest {
+    private final Client anna = new Client("Anna", "Smith");
+    private final Client john = new Client("John", "Williams");
+
+    private static SeatMap venue() {
+        return new SeatMap(Arrays.asList(new SeatMap.Section("Lower", 2, 10), new SeatMap.Section("Upper", 1, 4)));
+    }
+
+    @Test
+    public void testBestAvailableIsCentreOfFrontRow() {
+        SeatMap seats = venue();
+        assertEquals(24, seats.getCapacity());
+        int[] block = seats.allocate(anna, 4);
+        assertArrayEquals(new int[]{3, 4, 5, 6}, block);
+        assertEquals("Lower Row 1 Seats 4-7", seats.describe(block));
+
+        assertEquals("Lower Row 1 Seats 1-3", seats.describe(seats.allocate(john, 3)));
+        assertEquals("Lower Row 2 Seats 3-8", seats.describe(seats.allocate(john, 6)));
+        assertEquals(11, seats.getFree());
+    }
+
+    @Test
+    public void testSplitsAcrossRowsWhenNoRowHasRoom() {
+        SeatMap seats = venue();
+        seats.allocate(anna, 8);
+        seats.allocate(anna, 8);
+        seats.allocate(anna, 2);
+        int[] split = seats.allocate(john, 5);
+        assertEquals("Lower Row 1 Seat 1, Lower Row 1 Seat 10, Lower Row 2 Seat 1, Lower Row 2 Seat 10, "
+                + "Upper Row 1 Seat 1", seats.describe(split));
+        assertNull(seats.allocate(john, 2));
+    }
+
+    @Test
+    public void testReleaseChecksHolder() {
+        SeatMap seats = venue();
+        int[] annas = seats.allocate(anna, 2);
+        int[] johns = seats.allocate(john, 2);
+        assertFalse(seats.release(anna, johns));
+        assertFalse(seats.release(anna, new int[]{annas[0], annas[0]}));
+        assertTrue(seats.release(anna, new int[]{annas[1]}));
+        assertArrayEquals(new int[]{annas[0]}, seats.getSeatsHeldBy(anna));
+        assertEquals(2, seats.releaseAny(john, 5).length);
+        assertEquals(23, seats.getFree());
+    }
+
+    @Test
+    public void testRestoreSaleJournalledBeforeItsReturn() {
+        SeatMap seats = venue();
+        int[] annas = seats.allocate(anna, 2);
+        seats.restore(john, new int[]{annas[0]});
+        assertArrayEquals(new int[]{annas[0]}, seats.getSeatsHeldBy(john));
+        seats.restoreReturn(anna, annas);
+        assertArrayEquals(new int[]{annas[0]}, seats.getSeatsHeldBy(john));
+        assertEquals(0, seats.getSeatsHeldBy(anna).length);
+        assertEquals(23, seats.getFree());
+
+        assertFalse(seats.claim(anna, new int[]{annas[0], annas[1]}));
+        assertTrue(seats.claim(anna, new int[]{annas[1]}));
+        assertEquals(22, seats.getFree());
+    }
+
+    @Test
+    public void testBlockedSeatsAreReturnedByCount() {
+        Event event = new Event("Arena", 20);
+        SeatMap seats = venue();
+        event.setSeatMap(seats);
+        assertEquals(20, seats.getFree());
+        assertEquals("Lower Row 1 Seats 4-7", seats.describe(seats.allocate(anna, 4)));
+        assertEquals(6, seats.releaseAny(anna, 6).length);
+        assertEquals(0, seats.getSeatsHeldBy(anna).length);
+        assertEquals(22, seats.getFree());
+
+        try {
+            new Event("Tiny", 30).setSeatMap(venue());
+            fail("A seat map smaller than the tickets remaining should be refused");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("30"));
+        }
+    }
+
+    @Test
+    public void testArenaAllocation() {
+        SeatMap seats = new SeatMap(Arrays.asList(new SeatMap.Section("Bowl", 400, 200)));
+        assertEquals(80000, seats.getCapacity());
+        int sold = 0;
+        while (seats.getFree() >= 6) {
+            int[] block = seats.allocate(anna, 6);
+            assertNotNull(block);
+            sold += 6;
+        }
+        assertEquals(80000 - seats.getFree(), sold);
+        assertEquals(sold, seats.getSeatsHeldBy(anna).length);
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        File plan = File.createTempFile("seating", ".txt");
+        try {
+            EventCatalog events = new EventCatalog();
+            Event tennis = new Event("Tennis", 30);
+            events.add(tennis);
+            events.add(new Event("Football", 5));
+            Files.write(plan.toPath(), Arrays.asList("# event, section, rows, seats", "Tennis, Courtside, 1, 10",
+                    "tennis, Stand, 3, 10"));
+            assertEquals(1, SeatMap.load(plan.toPath(), events));
+            assertEquals(40, tennis.getSeatMap().getCapacity());
+            assertEquals(30, tennis.getSeatMap().getFree());
+
+            Files.write(plan.toPath(), Arrays.asList("Rugby, Stand, 3, 10"));
+            try {
+                SeatMap.load(plan.toPath(), events);
+                fail("An unknown event should be refused");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("Rugby"));
+            }
+        } finally {
+            plan.delete();
+        }
+    }
+}
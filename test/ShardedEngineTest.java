@@ -0,0 +1,225 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ShardedEngineTest {
+    private Path journalFile;
+    private Path letters;
+    private BoxOffice boxOffice;
+    private TransactionJournal journal;
+    private ShardedEngine engine;
+
+    @Before
+    public void setup() throws IOException {
+        journalFile = Files.createTempFile("championship", ".journal");
+        letters = Files.createTempFile("letters", ".txt");
+        boxOffice = newBoxOffice(letters);
+        journal = new TransactionJournal(journalFile, 0);
+        boxOffice.setJournal(journal);
+        engine = new ShardedEngine(boxOffice, 4, 64);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        engine.close();
+        boxOffice.close();
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(letters);
+    }
+
+    private static BoxOffice newBoxOffice(Path letters) {
+        EventCatalog events = new EventCatalog();
+        for (int i = 0; i < 8; i++) {
+            events.add(new Event("Event" + i, 1000));
+        }
+        ClientRegistry clients = new ClientRegistry();
+        for (int i = 0; i < 20; i++) {
+            clients.add(new Client("Client" + i, "Smith"));
+        }
+        return new BoxOffice(events, clients, letters.toString());
+    }
+
+    private Event event(int i) {
+        return boxOffice.getEvents().get("Event" + i);
+    }
+
+    private Client client(int i) {
+        return boxOffice.getClients().get("Client" + i + " Smith");
+    }
+
+    @Test
+    public void testEventsSpreadAcrossShards() {
+        boolean[] used = new boolean[engine.getShards()];
+        for (int i = 0; i < 8; i++) {
+            int shard = engine.shardOf(event(i));
+            assertEquals(shard, engine.shardOf(event(i)));
+            used[shard] = true;
+        }
+        for (boolean shardUsed : used) {
+            assertTrue(shardUsed);
+        }
+    }
+
+    @Test
+    public void testRequestsAreJournalled() throws IOException {
+        assertEquals(TransactionResult.SOLD, ShardedEngine.await(engine.sellTickets(client(1), event(0), 5)));
+        assertEquals(TransactionResult.SOLD, ShardedEngine.await(engine.sellTickets(client(1), event(1), 2)));
+        assertEquals(TransactionResult.RETURNED, ShardedEngine.await(engine.returnTickets(client(1), event(0), 1)));
+        assertEquals(TransactionResult.NOT_ENOUGH_HELD,
+                ShardedEngine.await(engine.returnTickets(client(1), event(1), 3)));
+        engine.close();
+        journal.close();
+
+        BoxOffice restarted = newBoxOffice(letters);
+        TransactionJournal.Replay replay = TransactionJournal.replay(journalFile, 0, restarted);
+        assertEquals(3, replay.getApplied());
+        assertEquals(996, restarted.getEvents().get("Event0").getTicketsRemaining());
+        assertEquals(998, restarted.getEvents().get("Event1").getTicketsRemaining());
+    }
+
+    @Test
+    public void testConcurrentSalesAcrossShards() throws Exception {
+        List<CompletableFuture<TransactionResult>> sales = new ArrayList<>();
+        for (int round = 0; round < 50; round++) {
+            for (int c = 0; c < 20; c++) {
+                sales.add(engine.sellTickets(client(c), event((c + round % 3) % 8), 1));
+            }
+        }
+        int sold = 0;
+        for (CompletableFuture<TransactionResult> sale : sales) {
+            if (ShardedEngine.await(sale) == TransactionResult.SOLD) sold++;
+        }
+        assertEquals(1000, sold);
+
+        int remaining = 0;
+        int held = 0;
+        for (int i = 0; i < 8; i++) {
+            remaining += event(i).getTicketsRemaining();
+            for (int c = 0; c < 20; c++) {
+                held += client(c).getTicketsHeld(event(i));
+            }
+        }
+        assertEquals(8000 - sold, remaining);
+        assertEquals(sold, held);
+    }
+
+    @Test
+    public void testEventLimitHoldsAcrossShards() throws Exception {
+        for (int trial = 0; trial < 20; trial++) {
+            Client client = client(trial);
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<TransactionResult>> sales = new ArrayList<>();
+            List<Thread> desks = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Event event = event(i);
+                CompletableFuture<TransactionResult> sale = new CompletableFuture<>();
+                sales.add(sale);
+                Thread desk = new Thread(() -> {
+                    try {
+                        start.await();
+                        engine.sellTickets(client, event, 2).whenComplete((result, failure) -> {
+                            if (failure != null) sale.completeExceptionally(failure);
+                            else sale.complete(result);
+                        });
+                    } catch (Exception e) {
+                        sale.completeExceptionally(e);
+                    }
+                });
+                desks.add(desk);
+                desk.start();
+            }
+            start.countDown();
+            for (Thread desk : desks) {
+                desk.join();
+            }
+
+            int sold = 0;
+            int limited = 0;
+            for (CompletableFuture<TransactionResult> sale : sales) {
+                TransactionResult result = ShardedEngine.await(sale);
+                if (result == TransactionResult.SOLD) sold++;
+                if (result == TransactionResult.EVENT_LIMIT) limited++;
+            }
+            assertEquals(3, sold);
+            assertEquals(1, limited);
+            assertEquals(3, client.getHoldingCount());
+        }
+
+        int remaining = 0;
+        for (int i = 0; i < 4; i++) {
+            remaining += event(i).getTicketsRemaining();
+        }
+        assertEquals(4000 - 20 * 3 * 2, remaining);
+    }
+
+    @Test
+    public void testWaitlistAllocatedOnOwningShard() throws IOException {
+        Event event = event(5);
+        assertEquals(TransactionResult.SOLD, ShardedEngine.await(engine.sellTickets(client(0), event, 1000)));
+        assertEquals(TransactionResult.WAITLISTED, ShardedEngine.await(engine.joinWaitlist(client(1), event, 4)));
+        assertEquals(TransactionResult.RETURNED, ShardedEngine.await(engine.returnTickets(client(0), event, 10)));
+        assertEquals(4, client(1).getTicketsHeld(event));
+        assertEquals(6, event.getTicketsRemaining());
+    }
+
+    @Test
+    public void testFailedSyncUndoesTheBatch() throws IOException {
+        assertEquals(TransactionResult.SOLD, ShardedEngine.await(engine.sellTickets(client(0), event(1), 10)));
+        engine.close();
+        journal.close();
+        AtomicBoolean full = new AtomicBoolean(true);
+        boxOffice.setJournal(new TransactionJournal(journalFile, journal.getLastSequence()) {
+            @Override
+            void awaitDurable(long sequence) throws IOException {
+                if (full.get()) throw new IOException("Disk full");
+                super.awaitDurable(sequence);
+            }
+        });
+        engine = new ShardedEngine(boxOffice, 4, 64);
+        List<CompletableFuture<TransactionResult>> requests = new ArrayList<>();
+        for (int c = 1; c < 10; c++) {
+            requests.add(engine.sellTickets(client(c), event(c % 2), 3));
+        }
+        requests.add(engine.returnTickets(client(0), event(1), 4));
+        for (CompletableFuture<TransactionResult> request : requests) {
+            try {
+                ShardedEngine.await(request);
+                fail("Expected the request to fail");
+            } catch (IOException e) {
+                assertEquals("Disk full", e.getMessage());
+            }
+        }
+        assertEquals(1000, event(0).getTicketsRemaining());
+        assertEquals(990, event(1).getTicketsRemaining());
+        assertEquals(10, client(0).getTicketsHeld(event(1)));
+        for (int c = 1; c < 10; c++) {
+            assertEquals(0, client(c).getHoldingCount());
+        }
+        full.set(false);
+    }
+
+    @Test
+    public void testRequestsAfterCloseFail() throws IOException {
+        engine.close();
+        try {
+            ShardedEngine.await(engine.sellTickets(client(0), event(0), 1));
+            fail("Expected the request to fail");
+        } catch (IOException e) {
+            assertEquals("Engine is closed", e.getMessage());
+        }
+        assertEquals(1000, event(0).getTicketsRemaining());
+    }
+}
@@ -0,0 +1,97 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SnapshotStoreTest {
+    private Path snapshot;
+    private EventCatalog events;
+    private ClientRegistry clients;
+
+    @Before
+    public void setup() throws IOException {
+        snapshot = Files.createTempFile("championship", ".snapshot");
+        events = new EventCatalog();
+        events.add(new Event("Tennis", 8));
+        events.add(new Event("Athletics", 4));
+        events.add(new Event("Equestrian Jumping", 7));
+        clients = new ClientRegistry();
+        clients.add(new Client("Anna", "Smith"));
+        clients.add(new Client("Mary Ann", "Jones"));
+
+        BoxOffice boxOffice = new BoxOffice(events, clients);
+        boxOffice.sellTickets(clients.get("Anna Smith"), events.get("Tennis"), 3);
+        boxOffice.sellTickets(clients.get("Anna Smith"), events.get("Equestrian Jumping"), 7);
+        boxOffice.sellTickets(clients.get("Mary Ann Jones"), events.get("Tennis"), 1);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        SnapshotStore.save(snapshot, events, clients, 42, 17);
+
+        EventCatalog loadedEvents = new EventCatalog();
+        ClientRegistry loadedClients = new ClientRegistry();
+        RosterLoader.Stats stats = SnapshotStore.load(snapshot, loadedEvents, loadedClients);
+
+        assertEquals(3, stats.getEvents());
+        assertEquals(2, stats.getClients());
+        assertEquals(events.getSortedEvents().toString(), loadedEvents.getSortedEvents().toString());
+        assertSame(loadedEvents.get("Tennis"), loadedEvents.get(events.get("Tennis").getId()));
+        assertEquals("Anna Smith [Equestrian Jumping - 7, Tennis - 3]",
+                loadedClients.get("Anna Smith").toString(loadedEvents));
+        assertEquals("Mary Ann", loadedClients.get("Mary Ann Jones").getFirstName());
+        assertEquals(42, SnapshotStore.readJournalSequence(snapshot));
+        assertEquals(17, SnapshotStore.readRosterOffset(snapshot));
+    }
+
+    @Test
+    public void testSeatHoldersRoundTrip() throws IOException {
+        Event tennis = events.get("Tennis");
+        Client anna = clients.get("Anna Smith");
+        Client mary = clients.get("Mary Ann Jones");
+        tennis.setSeatMap(new SeatMap(Arrays.asList(new SeatMap.Section("Court", 2, 4))));
+        BoxOffice boxOffice = new BoxOffice(events, clients);
+        boxOffice.sellTickets(mary, tennis, 3);
+        boxOffice.sellTickets(anna, tennis, 1);
+        SeatMap seats = tennis.getSeatMap();
+        assertEquals(TransactionResult.RETURNED, boxOffice.returnSeats(mary, tennis,
+                new int[]{seats.getSeatsHeldBy(mary)[1]}));
+        SnapshotStore.save(snapshot, events, clients, 0, 0);
+
+        EventCatalog loadedEvents = new EventCatalog();
+        ClientRegistry loadedClients = new ClientRegistry();
+        SnapshotStore.load(snapshot, loadedEvents, loadedClients);
+        SeatMap loaded = loadedEvents.get("Tennis").getSeatMap();
+        assertArrayEquals(seats.getSeatsHeldBy(anna), loaded.getSeatsHeldBy(loadedClients.get("Anna Smith")));
+        assertArrayEquals(seats.getSeatsHeldBy(mary), loaded.getSeatsHeldBy(loadedClients.get("Mary Ann Jones")));
+        assertArrayEquals(seats.getSeatsHeldBy(null), loaded.getSeatsHeldBy(null));
+        assertEquals(4, loaded.getSeatsHeldBy(null).length);
+        assertEquals(loadedEvents.get("Tennis").getTicketsRemaining(), loaded.getFree());
+        assertNull(loadedEvents.get("Athletics").getSeatMap());
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptSnapshot() throws IOException {
+        SnapshotStore.save(snapshot, events, clients, 42, 0);
+        try (RandomAccessFile file = new RandomAccessFile(snapshot.toFile(), "rw")) {
+            file.seek(20);
+            file.write(0x7f);
+        }
+        SnapshotStore.load(snapshot, new EventCatalog(), new ClientRegistry());
+    }
+}
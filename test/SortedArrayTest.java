@@ -1,9 +1,12 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 
 public class SortedArrayTest {
     private SortedArrayList<String> sortedStringList;
@@ -49,4 +52,50 @@ public class SortedArrayTest {
         assertEquals(3, Collections.binarySearch(sortedIntList, 8));
     }
 
+    @Test
+    public void testAddAfterRemove() {
+        sortedIntList.remove(Integer.valueOf(10));
+        sortedIntList.remove(Integer.valueOf(3));
+        sortedIntList.add(11);
+        sortedIntList.add(1);
+        assertEquals("[1, 3, 5, 8, 9, 11]", sortedIntList.toString());
+    }
+
+    @Test
+    public void testIndexOf() {
+        assertEquals(0, sortedIntList.indexOf(3));
+        assertEquals(1, sortedIntList.lastIndexOf(3));
+        assertEquals(5, sortedIntList.indexOf(10));
+        assertEquals(-1, sortedIntList.indexOf(4));
+        assertEquals(-1, sortedStringList.indexOf("Hotel"));
+        assertFalse(sortedStringList.contains("Charlie"));
+    }
+
+    @Test
+    public void testFloorAndCeiling() {
+        assertEquals(Integer.valueOf(5), sortedIntList.floor(7));
+        assertEquals(Integer.valueOf(8), sortedIntList.ceiling(7));
+        assertEquals(Integer.valueOf(8), sortedIntList.floor(8));
+        assertNull(sortedIntList.floor(2));
+        assertNull(sortedIntList.ceiling(11));
+    }
+
+    @Test
+    public void testRange() {
+        assertEquals(Arrays.asList(3, 3, 5), sortedIntList.range(3, 8));
+        assertEquals(Arrays.asList(3, 3), sortedIntList.headList(5));
+        assertEquals(Arrays.asList(9, 10), sortedIntList.tailList(9));
+        assertEquals(Arrays.asList("Foxtrot", "Golf"), sortedStringList.range("Delta", "Hotel"));
+    }
+
+    @Test
+    public void testAddAll() {
+        sortedIntList.addAll(Arrays.asList(7, 1, 12, 5));
+        assertEquals("[1, 3, 3, 5, 5, 7, 8, 9, 10, 12]", sortedIntList.toString());
+
+        SortedArrayList<String> empty = new SortedArrayList<>();
+        empty.addAll(Arrays.asList("Kilo", "India", "Juliett"));
+        assertEquals("[India, Juliett, Kilo]", empty.toString());
+    }
+
 }
@@ -0,0 +1,372 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TransactionJournalTest {
+    private Path journalFile;
+    private Path snapshotFile;
+    private Path letters;
+
+    @Before
+    public void setup() throws IOException {
+        journalFile = Files.createTempFile("championship", ".journal");
+        snapshotFile = Files.createTempFile("championship", ".snapshot");
+        letters = Files.createTempFile("letters", ".txt");
+        Files.delete(letters);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(snapshotFile);
+        Files.deleteIfExists(letters);
+    }
+
+    private static BoxOffice newBoxOffice() {
+        EventCatalog events = new EventCatalog();
+        events.add(new Event("Tennis", 100));
+        events.add(new Event("Equestrian Jumping", 7));
+        ClientRegistry clients = new ClientRegistry();
+        for (int i = 0; i < 8; i++) {
+            clients.add(new Client("Client" + i, "Smith"));
+        }
+        return new BoxOffice(events, clients);
+    }
+
+    private BoxOffice newBoxOfficeWithFinal() {
+        BoxOffice boxOffice = newBoxOffice();
+        BoxOffice lettered = new BoxOffice(boxOffice.getEvents(), boxOffice.getClients(), letters.toString());
+        lettered.getEvents().add(new Event("Final", 1));
+        return lettered;
+    }
+
+    @Test
+    public void testReplayAfterCrash() throws IOException {
+        BoxOffice boxOffice = newBoxOffice();
+        TransactionJournal journal = new TransactionJournal(journalFile, 0);
+        boxOffice.setJournal(journal);
+        Client client = boxOffice.getClients().get("Client1 Smith");
+        boxOffice.sellTickets(client, boxOffice.getEvents().get("Tennis"), 5);
+        boxOffice.sellTickets(client, boxOffice.getEvents().get("Equestrian Jumping"), 2);
+        boxOffice.returnTickets(client, boxOffice.getEvents().get("Tennis"), 1);
+        journal.close();
+
+        BoxOffice restarted = newBoxOffice();
+        TransactionJournal.Replay replay = TransactionJournal.replay(journalFile, 0, restarted);
+
+        assertEquals(3, replay.getApplied());
+        assertEquals(3, replay.getLastSequence());
+        assertEquals(96, restarted.getEvents().get("Tennis").getTicketsRemaining());
+        assertEquals(5, restarted.getEvents().get("Equestrian Jumping").getTicketsRemaining());
+        assertEquals("Client1 Smith [Equestrian Jumping - 2, Tennis - 4]",
+                restarted.getClients().get("Client1 Smith").toString(restarted.getEvents()));
+    }
+
+    @Test
+    public void testTornRecordIsDiscarded() throws IOException {
+        BoxOffice boxOffice = newBoxOffice();
+        TransactionJournal journal = new TransactionJournal(journalFile, 0);
+        boxOffice.setJournal(journal);
+        boxOffice.sellTickets(boxOffice.getClients().get("Client2 Smith"), boxOffice.getEvents().get("Tennis"), 3);
+        journal.close();
+        long goodLength = Files.size(journalFile);
+        Files.write(journalFile, new byte[]{0, 0, 0, 30, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        BoxOffice restarted = newBoxOffice();
+        TransactionJournal.Replay replay = TransactionJournal.replay(journalFile, 0, restarted);
+
+        assertEquals(1, replay.getApplied());
+        assertEquals(97, restarted.getEvents().get("Tennis").getTicketsRemaining());
+        assertEquals(goodLength, Files.size(journalFile));
+    }
+
+    @Test
+    public void testBasketReplaysWholeOrNotAtAll() throws IOException {
+        BoxOffice boxOffice = newBoxOffice();
+        TransactionJournal journal = new TransactionJournal(journalFile, 0);
+        boxOffice.setJournal(journal);
+        Event tennis = boxOffice.getEvents().get("Tennis");
+        Event jumping = boxOffice.getEvents().get("Equestrian Jumping");
+        boxOffice.sellTickets(boxOffice.getClients().get("Client1 Smith"), tennis, 1);
+        long beforeBasket = Files.size(journalFile);
+        assertEquals(TransactionResult.SOLD, boxOffice.sellBasket(boxOffice.getClients().get("Client2 Smith"),
+                new Basket().add(tennis, 2).add(jumping, 3)));
+        journal.close();
+        long fullLength = Files.size(journalFile);
+        Path torn = Files.createTempFile("torn", ".journal");
+        try {
+            Files.write(torn, Arrays.copyOf(Files.readAllBytes(journalFile), (int) fullLength - 4));
+
+            BoxOffice restarted = newBoxOffice();
+            assertEquals(2, TransactionJournal.replay(journalFile, 0, restarted).getApplied());
+            assertEquals(97, restarted.getEvents().get("Tennis").getTicketsRemaining());
+            assertEquals(4, restarted.getEvents().get("Equestrian Jumping").getTicketsRemaining());
+            assertEquals("Client2 Smith [Equestrian Jumping - 3, Tennis - 2]",
+                    restarted.getClients().get("Client2 Smith").toString(restarted.getEvents()));
+
+            BoxOffice crashed = newBoxOffice();
+            assertEquals(1, TransactionJournal.replay(torn, 0, crashed).getApplied());
+            assertEquals(99, crashed.getEvents().get("Tennis").getTicketsRemaining());
+            assertEquals(7, crashed.getEvents().get("Equestrian Jumping").getTicketsRemaining());
+            assertEquals(0, crashed.getClients().get("Client2 Smith").getHoldingCount());
+            assertEquals(beforeBasket, Files.size(torn));
+        } finally {
+            Files.delete(torn);
+        }
+    }
+
+    @Test
+    public void testFailedReturnIsNotUndoneOverAnotherSale() throws IOException {
+        BoxOffice boxOffice = newBoxOffice();
+        Event jumping = boxOffice.getEvents().get("Equestrian Jumping");
+        Client client = boxOffice.getClients().get("Client0 Smith");
+        assertEquals(TransactionResult.SOLD, boxOffice.sellTickets(client, jumping, 7));
+        boxOffice.setJournal(new TransactionJournal(journalFile, 0) {
+            @Override
+            void awaitDurable(long sequence) throws IOException {
+                // another desk takes the returned tickets before the write fails
+                assertEquals(0, jumping.tryReserve(2));
+                throw new IOException("Disk full");
+            }
+        });
+        try {
+            boxOffice.returnTickets(client, jumping, 2);
+            fail("Expected the return to fail");
+        } catch (IOException e) {
+            assertEquals("Client0 Smith's return of 2 tickets for Equestrian Jumping couldn't be journalled, and the "
+                    + "tickets have already been sold again", e.getMessage());
+            assertEquals("Disk full", e.getCause().getMessage());
+        }
+        assertEquals(5, client.getTicketsHeld(jumping));
+        assertEquals(0, jumping.getTicketsRemaining());
+    }
+
+    @Test
+    public void testAllocationThatFailsToJournalKeepsItsPlace() throws IOException {
+        BoxOffice boxOffice = newBoxOffice();
+        Event jumping = boxOffice.getEvents().get("Equestrian Jumping");
+        Client seller = boxOffice.getClients().get("Client0 Smith");
+        Client waiting = boxOffice.getClients().get("Client1 Smith");
+        assertEquals(TransactionResult.SOLD, boxOffice.sellTickets(seller, jumping, 7));
+        assertEquals(TransactionResult.WAITLISTED, boxOffice.joinWaitlist(waiting, jumping, 2));
+        boxOffice.setJournal(new TransactionJournal(journalFile, 0) {
+            private int waits;
+
+            @Override
+            void awaitDurable(long sequence) throws IOException {
+                // the return reaches the disk and the allocation after it doesn't
+                if (++waits > 1) throw new IOException("Disk full");
+                super.awaitDurable(sequence);
+            }
+        });
+        try {
+            boxOffice.returnTickets(seller, jumping, 2);
+            fail("Expected the allocation to fail");
+        } catch (IOException e) {
+            assertEquals("Disk full", e.getMessage());
+        }
+        assertEquals(5, seller.getTicketsHeld(jumping));
+        assertEquals(0, waiting.getTicketsHeld(jumping));
+        assertEquals(2, jumping.getTicketsRemaining());
+        assertEquals("[Client1 Smith - 2]", boxOffice.getWaitlist(jumping).toString());
+        assertEquals(TransactionResult.ALREADY_WAITLISTED, boxOffice.joinWaitlist(waiting, jumping, 1));
+    }
+
+    private static SeatMap stand() {
+        return new SeatMap(Arrays.asList(new SeatMap.Section("Stand", 10, 10)));
+    }
+
+    @Test
+    public void testSeatsReplayExactly() throws IOException {
+        BoxOffice boxOffice = newBoxOffice();
+        Event tennis = boxOffice.getEvents().get("Tennis");
+        tennis.setSeatMap(stand());
+        TransactionJournal journal = new TransactionJournal(journalFile, 0);
+        boxOffice.setJournal(journal);
+        Client[] buyers = new Client[4];
+        for (int i = 0; i < buyers.length; i++) {
+            buyers[i] = boxOffice.getClients().get("Client" + i + " Smith");
+        }
+        boxOffice.sellTickets(buyers[0], tennis, 4);
+        boxOffice.sellTickets(buyers[1], tennis, 3);
+        boxOffice.sellBasket(buyers[2], new Basket().add(tennis, 2)
+                .add(boxOffice.getEvents().get("Equestrian Jumping"), 1));
+        int[] held = tennis.getSeatMap().getSeatsHeldBy(buyers[0]);
+        assertEquals(TransactionResult.RETURNED, boxOffice.returnSeats(buyers[0], tennis, new int[]{held[1]}));
+        assertEquals(TransactionResult.RETURNED, boxOffice.returnTickets(buyers[1], tennis, 1));
+        boxOffice.sellTickets(buyers[3], tennis, 2);
+        journal.close();
+
+        BoxOffice restarted = newBoxOffice();
+        Event restartedTennis = restarted.getEvents().get("Tennis");
+        restartedTennis.setSeatMap(stand());
+        assertEquals(6, TransactionJournal.replay(journalFile, 0, restarted).getApplied());
+        SeatMap seats = restartedTennis.getSeatMap();
+        for (Client buyer : buyers) {
+            assertArrayEquals(tennis.getSeatMap().getSeatsHeldBy(buyer),
+                    seats.getSeatsHeldBy(restarted.getClients().get(buyer.getFullName())));
+        }
+        assertEquals(0, seats.getSeatsHeldBy(null).length);
+        assertEquals(restartedTennis.getTicketsRemaining(), seats.getFree());
+        assertEquals(tennis.getTicketsRemaining(), restartedTennis.getTicketsRemaining());
+    }
+
+    @Test
+    public void testFailedSeatReturnKeepsTheSameSeats() throws IOException {
+        BoxOffice boxOffice = newBoxOffice();
+        Event tennis = boxOffice.getEvents().get("Tennis");
+        tennis.setSeatMap(stand());
+        Client client = boxOffice.getClients().get("Client0 Smith");
+        boxOffice.sellTickets(client, tennis, 4);
+        int[] held = tennis.getSeatMap().getSeatsHeldBy(client);
+        boxOffice.setJournal(new TransactionJournal(journalFile, 0) {
+            @Override
+            void awaitDurable(long sequence) throws IOException {
+                throw new IOException("Disk full");
+            }
+        });
+        try {
+            boxOffice.returnSeats(client, tennis, new int[]{held[0], held[3]});
+            fail("Expected the return to fail");
+        } catch (IOException e) {
+            assertEquals("Disk full", e.getMessage());
+        }
+        assertArrayEquals(held, tennis.getSeatMap().getSeatsHeldBy(client));
+        assertEquals(4, client.getTicketsHeld(tennis));
+        assertEquals(96, tennis.getSeatMap().getFree());
+    }
+
+    @Test
+    public void testCheckpointEmptiesJournal() throws IOException {
+        BoxOffice boxOffice = newBoxOffice();
+        TransactionJournal journal = new TransactionJournal(journalFile, 0);
+        boxOffice.setJournal(journal);
+        boxOffice.sellTickets(boxOffice.getClients().get("Client3 Smith"), boxOffice.getEvents().get("Tennis"), 4);
+        boxOffice.checkpoint(snapshotFile);
+        boxOffice.sellTickets(boxOffice.getClients().get("Client4 Smith"), boxOffice.getEvents().get("Tennis"), 6);
+        journal.close();
+
+        EventCatalog events = new EventCatalog();
+        ClientRegistry clients = new ClientRegistry();
+        SnapshotStore.load(snapshotFile, events, clients);
+        BoxOffice restarted = new BoxOffice(events, clients);
+        TransactionJournal.Replay replay = TransactionJournal.replay(journalFile,
+                SnapshotStore.readJournalSequence(snapshotFile), restarted);
+
+        assertEquals(1, SnapshotStore.readJournalSequence(snapshotFile));
+        assertEquals(1, replay.getApplied());
+        assertEquals(90, events.get("Tennis").getTicketsRemaining());
+    }
+
+    @Test
+    public void testConcurrentCommitsAreGrouped() throws Exception {
+        final BoxOffice boxOffice = newBoxOffice();
+        TransactionJournal journal = new TransactionJournal(journalFile, 0);
+        boxOffice.setJournal(journal);
+        List<Thread> desks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final Client client = boxOffice.getClients().get("Client" + i + " Smith");
+            Thread desk = new Thread(() -> {
+                try {
+                    for (int j = 0; j < 10; j++) {
+                        boxOffice.sellTickets(client, boxOffice.getEvents().get("Tennis"), 1);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            desks.add(desk);
+            desk.start();
+        }
+        for (Thread desk : desks) desk.join();
+        journal.close();
+
+        assertEquals(80, journal.getLastSequence());
+        assertTrue(journal.getSyncCount() <= 80);
+
+        BoxOffice restarted = newBoxOffice();
+        assertEquals(80, TransactionJournal.replay(journalFile, 0, restarted).getApplied());
+        assertEquals(20, restarted.getEvents().get("Tennis").getTicketsRemaining());
+    }
+
+    @Test
+    public void testSaleBeforeFreeingReturnReplays() throws IOException {
+        TransactionJournal journal = new TransactionJournal(journalFile, 0);
+        journal.append(TransactionJournal.SELL, "Client1 Smith", "Final", 1);
+        journal.append(TransactionJournal.SELL, "Client2 Smith", "Final", 1);
+        journal.append(TransactionJournal.RETURN, "Client1 Smith", "Final", 1);
+        journal.close();
+
+        BoxOffice restarted = newBoxOfficeWithFinal();
+        TransactionJournal.Replay replay = TransactionJournal.replay(journalFile, 0, restarted);
+        restarted.close();
+
+        Event finalEvent = restarted.getEvents().get("Final");
+        assertEquals(3, replay.getApplied());
+        assertEquals(0, finalEvent.getTicketsRemaining());
+        assertEquals(0, finalEvent.getRefusals());
+        assertEquals(0, restarted.getClients().get("Client1 Smith").getTicketsHeld(finalEvent));
+        assertEquals(1, restarted.getClients().get("Client2 Smith").getTicketsHeld(finalEvent));
+        assertFalse(Files.exists(letters));
+    }
+
+    @Test
+    public void testConcurrentSalesAndReturnsReplay() throws Exception {
+        final BoxOffice boxOffice = newBoxOfficeWithFinal();
+        TransactionJournal journal = new TransactionJournal(journalFile, 0);
+        boxOffice.setJournal(journal);
+        boxOffice.setSyncOnCommit(false);
+        List<Thread> desks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final Client client = boxOffice.getClients().get("Client" + i + " Smith");
+            final Random random = new Random(i);
+            Thread desk = new Thread(() -> {
+                try {
+                    for (int j = 0; j < 2000; j++) {
+                        Event event = boxOffice.getEvents().get(random.nextInt(4) == 0 ? "Tennis" : "Final");
+                        if (client.getTicketsHeld(event) > 0 && random.nextBoolean()) {
+                            boxOffice.returnTickets(client, event, 1);
+                        } else {
+                            boxOffice.sellTickets(client, event, 1);
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            desks.add(desk);
+            desk.start();
+        }
+        for (Thread desk : desks) desk.join();
+        journal.close();
+        boxOffice.close();
+
+        BoxOffice restarted = newBoxOfficeWithFinal();
+        TransactionJournal.replay(journalFile, 0, restarted);
+        restarted.close();
+        for (String name : new String[] {"Tennis", "Final"}) {
+            Event live = boxOffice.getEvents().get(name);
+            Event replayed = restarted.getEvents().get(name);
+            assertEquals(live.getTicketsRemaining(), replayed.getTicketsRemaining());
+            for (int i = 0; i < 8; i++) {
+                assertEquals(boxOffice.getClients().get("Client" + i + " Smith").getTicketsHeld(live),
+                        restarted.getClients().get("Client" + i + " Smith").getTicketsHeld(replayed));
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WaitlistTest {
+    private final Event tennis = new Event("Tennis", 0);
+    private final Client anna = new Client("Anna", "Smith");
+    private final Client john = new Client("John", "Williams");
+    private final Client tom = new Client("Tom", "Jones");
+
+    @Test
+    public void testAllocatesInOrder() throws IOException {
+        Waitlist waitlist = new Waitlist();
+        assertTrue(waitlist.add(tennis, anna, 2));
+        assertTrue(waitlist.add(tennis, john, 1));
+        assertFalse(waitlist.add(tennis, anna, 5));
+        assertEquals("[Anna Smith - 2, John Williams - 1]", waitlist.get(tennis).toString());
+
+        List<Waitlist.Request> allocated = new ArrayList<>();
+        Waitlist.Allocation sell = request -> {
+            tennis.setTicketsRemaining(tennis.getTicketsRemaining() - request.getTickets());
+            return allocated.add(request);
+        };
+        tennis.setTicketsRemaining(1);
+        waitlist.allocate(tennis, sell);
+        assertTrue(allocated.isEmpty());
+        tennis.setTicketsRemaining(3);
+        waitlist.allocate(tennis, sell);
+        assertEquals("[Anna Smith - 2, John Williams - 1]", allocated.toString());
+        assertEquals(0, tennis.getTicketsRemaining());
+        assertTrue(waitlist.get(tennis).isEmpty());
+        assertTrue(waitlist.add(tennis, anna, 1));
+        waitlist.allocate(new Event("Football", 10), sell);
+        assertTrue(waitlist.get(new Event("Football", 0)).isEmpty());
+    }
+
+    @Test
+    public void testRefusedRequestKeepsPlace() throws IOException {
+        Waitlist waitlist = new Waitlist();
+        waitlist.add(tennis, anna, 1);
+        waitlist.add(tennis, john, 1);
+        tennis.setTicketsRemaining(5);
+        waitlist.allocate(tennis, request -> false);
+        try {
+            waitlist.allocate(tennis, request -> {
+                throw new IOException("Journal failed");
+            });
+            fail("Expected the allocation to fail");
+        } catch (IOException e) {
+            assertEquals("Journal failed", e.getMessage());
+        }
+        waitlist.add(tennis, tom, 1);
+        assertEquals("[Anna Smith - 1, John Williams - 1, Tom Jones - 1]", waitlist.get(tennis).toString());
+        assertFalse(waitlist.add(tennis, anna, 1));
+    }
+
+    @Test
+    public void testPutBackKeepsPlace() throws IOException {
+        Waitlist waitlist = new Waitlist();
+        waitlist.add(tennis, anna, 1);
+        waitlist.add(tennis, john, 1);
+        List<Waitlist.Request> allocated = new ArrayList<>();
+        tennis.setTicketsRemaining(1);
+        waitlist.allocate(tennis, request -> {
+            tennis.setTicketsRemaining(tennis.getTicketsRemaining() - request.getTickets());
+            return allocated.add(request);
+        });
+        assertEquals("[John Williams - 1]", waitlist.get(tennis).toString());
+        waitlist.add(tennis, tom, 1);
+        waitlist.putBack(tennis, allocated.get(0));
+        assertEquals("[Anna Smith - 1, John Williams - 1, Tom Jones - 1]", waitlist.get(tennis).toString());
+        assertFalse(waitlist.add(tennis, anna, 1));
+    }
+}